@@ -0,0 +1,90 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.benchmarks;
+
+import com.yoo.money.api.time.DateTime;
+import com.yoo.money.api.time.Iso8601Format;
+import com.yoo.money.api.util.HttpHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing and formatting of dates in ISO 8601 (JSON) and RFC 1123 (HTTP headers) formats.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DateTimeFormatBenchmark {
+
+    private static final String ISO_8601_UTC = "2018-05-14T09:34:56.789Z";
+    private static final String ISO_8601_OFFSET = "2018-05-14T12:34:56.789+03:00";
+    private static final String RFC_1123 = "Mon, 14 May 2018 09:34:56 GMT";
+
+    private DateTime dateTime;
+
+    @Setup
+    public void setUp() throws ParseException {
+        dateTime = Iso8601Format.parse(ISO_8601_OFFSET);
+    }
+
+    @Benchmark
+    public DateTime iso8601ParseUtc() throws ParseException {
+        return Iso8601Format.parse(ISO_8601_UTC);
+    }
+
+    @Benchmark
+    public DateTime iso8601ParseOffset() throws ParseException {
+        return Iso8601Format.parse(ISO_8601_OFFSET);
+    }
+
+    @Benchmark
+    public String iso8601Format() {
+        return Iso8601Format.format(dateTime);
+    }
+
+    @Benchmark
+    public DateTime httpHeaderParse() throws ParseException {
+        return HttpHeaders.parseDateTime(RFC_1123);
+    }
+
+    @Benchmark
+    public String httpHeaderFormat() {
+        return HttpHeaders.formatDateTime(dateTime);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.benchmarks;
+
+import com.yoo.money.api.history.OperationSnapshot;
+import com.yoo.money.api.model.Currency;
+import com.yoo.money.api.model.Operation;
+import com.yoo.money.api.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures summing amounts of a million operations by direction and currency: over {@link Operation} objects and
+ * over {@link OperationSnapshot} columns in one thread and in parallel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OperationSnapshotBenchmark {
+
+    private List<Operation> operations;
+    private OperationSnapshot snapshot;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        Operation.Direction[] directions = Operation.Direction.values();
+        Currency[] currencies = { Currency.RUB, Currency.USD, Currency.EUR };
+        operations = new ArrayList<>(1000000);
+        for (int i = 0; i < 1000000; ++i) {
+            operations.add(new Operation.Builder()
+                    .setOperationId(String.valueOf(i))
+                    .setDirection(directions[random.nextInt(directions.length)])
+                    .setAmountCurrency(currencies[random.nextInt(currencies.length)])
+                    .setAmount(BigDecimal.valueOf(random.nextInt(1000000), 2))
+                    .setDatetime(DateTime.from(1500000000000L - i * 60000L))
+                    .create());
+        }
+        snapshot = new OperationSnapshot.Builder().addAll(operations).create();
+    }
+
+    @Benchmark
+    public Map<List<Object>, BigDecimal> objects() {
+        Map<List<Object>, BigDecimal> sums = new HashMap<>();
+        for (Operation operation : operations) {
+            List<Object> key = Arrays.<Object>asList(operation.direction, operation.amountCurrency);
+            BigDecimal sum = sums.get(key);
+            sums.put(key, sum == null ? operation.amount : sum.add(operation.amount));
+        }
+        return sums;
+    }
+
+    @Benchmark
+    public List<OperationSnapshot.Group> snapshot() {
+        return snapshot.query()
+                .groupBy(OperationSnapshot.Key.DIRECTION, OperationSnapshot.Key.CURRENCY)
+                .setParallelism(1)
+                .sumAmounts();
+    }
+
+    @Benchmark
+    public List<OperationSnapshot.Group> snapshotParallel() {
+        return snapshot.query()
+                .groupBy(OperationSnapshot.Key.DIRECTION, OperationSnapshot.Key.CURRENCY)
+                .sumAmounts();
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.benchmarks;
+
+import com.yoo.money.api.model.MoneySource;
+import com.yoo.money.api.net.clients.ApiClient;
+import com.yoo.money.api.net.clients.DefaultApiClient;
+import com.yoo.money.api.net.providers.DefaultApiV1HostsProvider;
+import com.yoo.money.api.processes.PaymentProcess;
+import com.yoo.money.api.util.HttpHeaders;
+import com.yoo.money.api.util.MimeTypes;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a full payment cycle ({@code request-payment} followed by {@code process-payment}) of
+ * {@link PaymentProcess} against a local mock server. Results include loopback network round trips.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentProcessBenchmark {
+
+    private static final String REQUEST_PAYMENT = "{\"status\":\"success\",\"contract\":\"\",\"balance\":8.09," +
+            "\"request_id\":\"313938393033343938345f39343631303830326339353737353762636531356364323230\"," +
+            "\"contract_amount\":1,\"money_source\":{\"wallet\":{\"allowed\":true}}}";
+    private static final String PROCESS_PAYMENT = "{\"status\":\"success\",\"payment_id\":\"2ABCDE123456789\"," +
+            "\"invoice_id\":\"1234567890123456789\",\"balance\":1000}";
+
+    private final MockWebServer server = new MockWebServer();
+
+    private ApiClient client;
+    private PaymentProcess.ParameterProvider parameterProvider;
+
+    @Setup
+    public void setUp() throws IOException {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String path = request.getPath();
+                return new MockResponse()
+                        .addHeader(HttpHeaders.CONTENT_TYPE, MimeTypes.Application.JSON)
+                        .setBody(path.endsWith("request-payment") ? REQUEST_PAYMENT : PROCESS_PAYMENT);
+            }
+        });
+        server.start();
+
+        client = new DefaultApiClient.Builder()
+                .setClientId("benchmark")
+                .setHostsProvider(new DefaultApiV1HostsProvider(false) {
+                    @Override
+                    public String getMoney() {
+                        return server.url("").toString();
+                    }
+                })
+                .create();
+        client.setAccessToken("token");
+        parameterProvider = new ParameterProviderStub();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Benchmark
+    public PaymentProcess proceed() throws Exception {
+        PaymentProcess process = new PaymentProcess(client, parameterProvider);
+        process.proceed();
+        if (!process.proceed()) {
+            throw new IllegalStateException("payment is not completed");
+        }
+        return process;
+    }
+
+    private static final class ParameterProviderStub implements PaymentProcess.ParameterProvider {
+
+        @Override
+        public String getPatternId() {
+            return "p2p";
+        }
+
+        @Override
+        public Map<String, String> getPaymentParameters() {
+            Map<String, String> params = new HashMap<>();
+            params.put("to", "4100175017397");
+            params.put("amount_due", "1.00");
+            params.put("comment", "benchmark");
+            return params;
+        }
+
+        @Override
+        public MoneySource getMoneySource() {
+            return null;
+        }
+
+        @Override
+        public String getCsc() {
+            return null;
+        }
+
+        @Override
+        public String getExtAuthSuccessUri() {
+            return null;
+        }
+
+        @Override
+        public String getExtAuthFailUri() {
+            return null;
+        }
+    }
+}
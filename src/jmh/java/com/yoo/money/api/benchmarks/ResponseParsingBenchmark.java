@@ -0,0 +1,103 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.benchmarks;
+
+import com.yoo.money.api.methods.wallet.OperationHistory;
+import com.yoo.money.api.model.showcase.Showcase;
+import com.yoo.money.api.typeadapters.model.showcase.ShowcaseTypeAdapter;
+import com.yoo.money.api.util.Responses;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures deserialization of responses using JSON fixtures from unit tests. Run with {@code -prof gc} to see
+ * allocation rates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseParsingBenchmark {
+
+    @Benchmark
+    public Showcase showcaseStreaming(ShowcaseFixture fixture) {
+        return ShowcaseTypeAdapter.getInstance().fromJson(new ByteArrayInputStream(fixture.bytes));
+    }
+
+    @Benchmark
+    public Showcase showcaseTree(ShowcaseFixture fixture) {
+        return ShowcaseTypeAdapter.getInstance().fromJson(fixture.string);
+    }
+
+    @Benchmark
+    public OperationHistory operationHistory(OperationHistoryFixture fixture) {
+        return Responses.parseJson(new ByteArrayInputStream(fixture.bytes), OperationHistory.class, null);
+    }
+
+    @State(Scope.Benchmark)
+    public static class ShowcaseFixture {
+
+        @Param({ "showcase_bills.json", "showcase_skype.json" })
+        public String fileName;
+
+        byte[] bytes;
+        String string;
+
+        @Setup
+        public void setUp() throws IOException {
+            bytes = Fixtures.load("/showcase/" + fileName);
+            string = new String(bytes, Charset.forName("UTF-8"));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class OperationHistoryFixture {
+
+        @Param({ "operation-history-1.json", "operation-history-6.json" })
+        public String fileName;
+
+        byte[] bytes;
+
+        @Setup
+        public void setUp() throws IOException {
+            bytes = Fixtures.load("/methods/wallet/" + fileName);
+        }
+    }
+}
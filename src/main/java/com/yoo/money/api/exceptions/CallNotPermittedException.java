@@ -0,0 +1,80 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.exceptions;
+
+/**
+ * Call was rejected without being sent to a server because a circuit breaker of an endpoint is open, there are too
+ * many concurrent calls to the endpoint or a client exceeded its rate limit.
+ *
+ * @see com.yoo.money.api.net.clients.CircuitBreakerRegistry
+ * @see com.yoo.money.api.net.clients.RateLimiterRegistry
+ */
+public final class CallNotPermittedException extends Exception {
+
+    /**
+     * Name of a circuit breaker or a rate limiter that rejected the call.
+     */
+    public final String name;
+
+    /**
+     * Reason of rejection.
+     */
+    public final Reason reason;
+
+    public CallNotPermittedException(String name, Reason reason) {
+        super(messageOf(reason) + name);
+        this.name = name;
+        this.reason = reason;
+    }
+
+    private static String messageOf(Reason reason) {
+        switch (reason) {
+            case CIRCUIT_OPEN:
+                return "circuit breaker is open: ";
+            case BULKHEAD_FULL:
+                return "too many concurrent calls: ";
+            default:
+                return "rate limit exceeded: ";
+        }
+    }
+
+    /**
+     * Reasons of rejection.
+     */
+    public enum Reason {
+        /**
+         * Circuit breaker is open because recent calls failed or were slow.
+         */
+        CIRCUIT_OPEN,
+        /**
+         * Limit of concurrent calls is reached.
+         */
+        BULKHEAD_FULL,
+        /**
+         * Call would have to wait for a rate limiter longer than allowed.
+         */
+        RATE_LIMITED
+    }
+}
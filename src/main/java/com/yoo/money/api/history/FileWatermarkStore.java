@@ -0,0 +1,134 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.history;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.yoo.money.api.time.DateTime;
+import com.yoo.money.api.time.Iso8601Format;
+import com.yoo.money.api.typeadapters.JsonUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static com.yoo.money.api.util.Common.checkNotNull;
+
+/**
+ * Keeps watermarks in a directory, one JSON file per wallet. A watermark is written to a temporary file first and then
+ * moved over the previous one, so a crash never leaves a partially written watermark.
+ */
+public final class FileWatermarkStore implements WatermarkStore {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final String DATETIME = "datetime";
+    private static final String OPERATION_IDS = "operation_ids";
+    private static final String PENDING = "pending";
+
+    private final File directory;
+
+    /**
+     * Constructor.
+     *
+     * @param directory directory for watermarks, created if it does not exist
+     * @throws IOException if the directory could not be created
+     */
+    public FileWatermarkStore(File directory) throws IOException {
+        this.directory = checkNotNull(directory, "directory");
+        Files.createDirectories(directory.toPath());
+    }
+
+    @Override
+    public Watermark load(String walletId) throws IOException {
+        Path path = fileOf(walletId);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            return fromJson(new JsonParser().parse(new String(Files.readAllBytes(path), UTF_8)).getAsJsonObject());
+        } catch (JsonParseException | IllegalStateException | ParseException e) {
+            throw new IOException("corrupted watermark: " + path, e);
+        }
+    }
+
+    @Override
+    public void save(String walletId, Watermark watermark) throws IOException {
+        Path path = fileOf(walletId);
+        Path temp = Files.createTempFile(directory.toPath(), path.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, JsonUtils.getBytes(toJson(checkNotNull(watermark, "watermark"))));
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Path fileOf(String walletId) throws IOException {
+        return new File(directory, URLEncoder.encode(checkNotNull(walletId, "walletId"), "UTF-8") + ".json").toPath();
+    }
+
+    private static JsonObject toJson(Watermark watermark) {
+        JsonObject object = new JsonObject();
+        if (watermark.datetime != null) {
+            object.addProperty(DATETIME, Iso8601Format.format(watermark.datetime));
+        }
+        JsonArray operationIds = new JsonArray();
+        for (String operationId : watermark.operationIds) {
+            operationIds.add(operationId);
+        }
+        object.add(OPERATION_IDS, operationIds);
+        JsonObject pending = new JsonObject();
+        for (Map.Entry<String, DateTime> entry : watermark.pending.entrySet()) {
+            pending.addProperty(entry.getKey(), Iso8601Format.format(entry.getValue()));
+        }
+        object.add(PENDING, pending);
+        return object;
+    }
+
+    private static Watermark fromJson(JsonObject object) throws ParseException {
+        Set<String> operationIds = new HashSet<>();
+        for (JsonElement element : object.getAsJsonArray(OPERATION_IDS)) {
+            operationIds.add(element.getAsString());
+        }
+        Map<String, DateTime> pending = new HashMap<>();
+        for (Map.Entry<String, JsonElement> entry : object.getAsJsonObject(PENDING).entrySet()) {
+            pending.put(entry.getKey(), Iso8601Format.parse(entry.getValue().getAsString()));
+        }
+        return new Watermark(JsonUtils.getDateTime(object, DATETIME), operationIds, pending);
+    }
+}
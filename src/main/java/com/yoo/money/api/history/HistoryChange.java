@@ -0,0 +1,86 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.history;
+
+import com.yoo.money.api.model.Operation;
+
+import static com.yoo.money.api.util.Common.checkNotNull;
+
+/**
+ * Change of a wallet's operation history found by {@link HistorySync}.
+ */
+public final class HistoryChange {
+
+    /**
+     * Type of the change.
+     */
+    public final Type type;
+
+    /**
+     * Operation as it is now.
+     */
+    public final Operation operation;
+
+    public HistoryChange(Type type, Operation operation) {
+        this.type = checkNotNull(type, "type");
+        this.operation = checkNotNull(operation, "operation");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        HistoryChange that = (HistoryChange) o;
+
+        return type == that.type && operation.equals(that.operation);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = type.hashCode();
+        result = 31 * result + operation.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "HistoryChange{" +
+                "type=" + type +
+                ", operation=" + operation +
+                '}';
+    }
+
+    public enum Type {
+        /**
+         * New operation.
+         */
+        INSERTED,
+        /**
+         * Operation that was in progress has completed.
+         */
+        STATUS_CHANGED
+    }
+}
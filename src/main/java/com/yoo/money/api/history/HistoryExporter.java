@@ -0,0 +1,410 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.history;
+
+import com.yoo.money.api.exceptions.InvalidRequestException;
+import com.yoo.money.api.methods.wallet.OperationHistory;
+import com.yoo.money.api.model.Operation;
+import com.yoo.money.api.net.clients.ApiCallback;
+import com.yoo.money.api.net.clients.ApiClient;
+import com.yoo.money.api.net.clients.ApiFuture;
+import com.yoo.money.api.net.clients.AsyncApiClients;
+import com.yoo.money.api.time.DateTime;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.yoo.money.api.util.Common.checkNotNull;
+
+/**
+ * Exports operations of a time range with several concurrent calls.
+ * <p>
+ * Following {@link OperationHistory#nextRecord} is sequential, so the exporter splits the range into windows and
+ * fetches them in parallel instead. Windows are adaptive: if a window does not fit into a single page, the part of
+ * the window that is older than the page is split in two and both halves are queued. Windows shorter than
+ * {@link Builder#setMinWindow(long, TimeUnit)} are not split and are walked page by page.
+ * <p>
+ * A page ends somewhere inside a second, so the next windows start at the oldest operation of the page inclusively
+ * and operations at window boundaries are deduplicated by {@link Operation#operationId}. The result is ordered by
+ * {@link Operation#datetime}, newest operations first, like in {@link OperationHistory}.
+ */
+public final class HistoryExporter {
+
+    static final Comparator<Operation> NEWEST_FIRST = new Comparator<Operation>() {
+        @Override
+        public int compare(Operation o1, Operation o2) {
+            int result = o2.datetime.compareTo(o1.datetime);
+            return result != 0 ? result : o1.operationId.compareTo(o2.operationId);
+        }
+    };
+
+    private final ApiClient client;
+    private final long from;
+    private final long till;
+    private final Set<OperationHistory.FilterType> types;
+    private final String label;
+    private final Boolean details;
+    private final int pageSize;
+    private final int parallelism;
+    private final long minWindowMillis;
+
+    HistoryExporter(Builder builder) {
+        client = builder.client;
+        from = builder.from.getMillis();
+        till = builder.till.getMillis();
+        types = builder.types;
+        label = builder.label;
+        details = builder.details;
+        pageSize = builder.pageSize;
+        parallelism = builder.parallelism;
+        minWindowMillis = builder.minWindowMillis;
+    }
+
+    /**
+     * Exports operations asynchronously. Cancelling the returned future cancels calls in flight.
+     *
+     * @return future of operations ordered from newest to oldest
+     */
+    public ApiFuture<List<Operation>> exportAsync() {
+        return new Export().start();
+    }
+
+    /**
+     * Exports operations.
+     *
+     * @return operations ordered from newest to oldest
+     * @throws InvalidRequestException if the server responded with an error
+     * @throws InterruptedException if the thread was interrupted; calls in flight are cancelled
+     * @throws Exception if a page could not be retrieved
+     */
+    public List<Operation> export() throws Exception {
+        ApiFuture<List<Operation>> export = exportAsync();
+        try {
+            return export.get();
+        } catch (InterruptedException e) {
+            export.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+
+    /**
+     * Part of a time range: operations from {@code from} inclusive till {@code till} exclusive.
+     */
+    private static final class Window {
+
+        final long from;
+        final long till;
+        final String startRecord;
+
+        Window(long from, long till, String startRecord) {
+            this.from = from;
+            this.till = till;
+            this.startRecord = startRecord;
+        }
+    }
+
+    private final class Export extends ApiFuture<List<Operation>> {
+
+        // guarded by this
+        private final ArrayDeque<Window> windows = new ArrayDeque<>();
+        private final Set<ApiFuture<OperationHistory>> calls = new HashSet<>();
+        private final Map<String, Operation> operations = new HashMap<>();
+        private int starting;
+
+        Export start() {
+            long step = Math.max((till - from) / parallelism, 1L);
+            synchronized (this) {
+                for (long start = from; start < till; start += step) {
+                    windows.add(new Window(start, Math.min(start + step, till), null));
+                }
+            }
+            next();
+            return this;
+        }
+
+        @Override
+        protected void onCancelled() {
+            List<ApiFuture<OperationHistory>> toCancel;
+            synchronized (this) {
+                windows.clear();
+                toCancel = new ArrayList<>(calls);
+            }
+            for (ApiFuture<OperationHistory> call : toCancel) {
+                call.cancel(true);
+            }
+        }
+
+        /**
+         * Completes the export with an error and cancels other calls.
+         */
+        private void fail(Exception e) {
+            if (setException(e)) {
+                onCancelled();
+            }
+        }
+
+        /**
+         * Starts queued windows while there is room for them or completes the export if nothing is left.
+         */
+        private void next() {
+            while (true) {
+                Window window;
+                synchronized (this) {
+                    if (isDone()) {
+                        return;
+                    }
+                    if (windows.isEmpty() && calls.isEmpty() && starting == 0) {
+                        List<Operation> result = new ArrayList<>(operations.values());
+                        Collections.sort(result, NEWEST_FIRST);
+                        set(result);
+                        return;
+                    }
+                    if (windows.isEmpty() || calls.size() + starting >= parallelism) {
+                        return;
+                    }
+                    window = windows.poll();
+                    ++starting;
+                }
+                fetch(window);
+            }
+        }
+
+        /**
+         * Starts a call of a window reserved by {@link #next()}.
+         */
+        private void fetch(final Window window) {
+            final ApiFuture<OperationHistory> call;
+            try {
+                OperationHistory.Request request = new OperationHistory.Request.Builder()
+                        .setTypes(types)
+                        .setLabel(label)
+                        .setDetails(details)
+                        .setFrom(DateTime.from(window.from))
+                        .setTill(DateTime.from(window.till))
+                        .setStartRecord(window.startRecord)
+                        .setRecords(pageSize)
+                        .create();
+                call = AsyncApiClients.executeAsync(client, request);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    --starting;
+                }
+                fail(e);
+                return;
+            }
+
+            // the export may have been cancelled before the call was registered, onCancelled() did not see it then
+            boolean cancelled;
+            synchronized (this) {
+                --starting;
+                cancelled = isDone();
+                if (!cancelled) {
+                    calls.add(call);
+                }
+            }
+            if (cancelled) {
+                call.cancel(true);
+                return;
+            }
+            call.addCallback(new ApiCallback<OperationHistory>() {
+                @Override
+                public void onSuccess(OperationHistory result) {
+                    onPage(call, window, result);
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    synchronized (Export.this) {
+                        calls.remove(call);
+                    }
+                    fail(e);
+                }
+            });
+        }
+
+        private void onPage(ApiFuture<OperationHistory> call, Window window, OperationHistory page) {
+            if (page.error != null) {
+                synchronized (this) {
+                    calls.remove(call);
+                }
+                fail(new InvalidRequestException(page.error.code));
+                return;
+            }
+
+            synchronized (this) {
+                calls.remove(call);
+
+                long oldest = window.till;
+                if (page.operations != null) {
+                    for (Operation operation : page.operations) {
+                        operations.put(operation.operationId, operation);
+                        oldest = Math.min(oldest, operation.datetime.getMillis());
+                    }
+                }
+
+                if (page.nextRecord != null) {
+                    // the rest of the window, including operations made at the same moment as the oldest one
+                    long rest = Math.min(oldest + 1L, window.till);
+                    if (window.startRecord == null && rest - window.from >= 2 * minWindowMillis
+                            && rest < window.till) {
+                        long middle = window.from + (rest - window.from) / 2;
+                        windows.addFirst(new Window(window.from, middle, null));
+                        windows.addFirst(new Window(middle, rest, null));
+                    } else {
+                        windows.addFirst(new Window(window.from, window.till, page.nextRecord));
+                    }
+                }
+            }
+            next();
+        }
+    }
+
+    /**
+     * Creates {@link HistoryExporter}.
+     */
+    public static final class Builder {
+
+        final ApiClient client;
+        final DateTime from;
+        final DateTime till;
+        Set<OperationHistory.FilterType> types = Collections.emptySet();
+        String label;
+        Boolean details;
+        int pageSize = 100;
+        int parallelism = 4;
+        long minWindowMillis = TimeUnit.MINUTES.toMillis(1L);
+
+        /**
+         * Constructor.
+         *
+         * @param client authorized client
+         * @param from start of the range, inclusive
+         * @param till end of the range, exclusive
+         */
+        public Builder(ApiClient client, DateTime from, DateTime till) {
+            this.client = checkNotNull(client, "client");
+            this.from = checkNotNull(from, "from");
+            this.till = checkNotNull(till, "till");
+            if (!from.isBefore(till)) {
+                throw new IllegalArgumentException("'from' should be before 'till'");
+            }
+        }
+
+        /**
+         * Sets types of operations to export. By default all operations are exported.
+         *
+         * @param types types of operations
+         * @return itself
+         */
+        public Builder setTypes(Set<OperationHistory.FilterType> types) {
+            this.types = checkNotNull(types, "types");
+            return this;
+        }
+
+        /**
+         * Exports only operations with specified label.
+         *
+         * @param label label
+         * @return itself
+         */
+        public Builder setLabel(String label) {
+            this.label = label;
+            return this;
+        }
+
+        /**
+         * Requests operation details.
+         *
+         * @param details {@code true} to request details
+         * @return itself
+         */
+        public Builder setDetails(Boolean details) {
+            this.details = details;
+            return this;
+        }
+
+        /**
+         * Sets number of operations in a page, from 1 to 100. Default value is 100.
+         *
+         * @param pageSize number of operations in a page
+         * @return itself
+         */
+        public Builder setPageSize(int pageSize) {
+            if (pageSize < 1 || pageSize > 100) {
+                throw new IllegalArgumentException("pageSize must be from 1 to 100");
+            }
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * Sets maximum number of concurrent calls. The range is initially split into this number of windows.
+         * Default value is 4.
+         *
+         * @param parallelism maximum number of concurrent calls
+         * @return itself
+         */
+        public Builder setParallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism must be positive");
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Sets minimum length of a window. Shorter windows are walked page by page instead of being split. Default
+         * value is 1 minute.
+         *
+         * @param minWindow minimum length of a window
+         * @param unit time unit
+         * @return itself
+         */
+        public Builder setMinWindow(long minWindow, TimeUnit unit) {
+            this.minWindowMillis = Math.max(checkNotNull(unit, "unit").toMillis(minWindow), 1L);
+            return this;
+        }
+
+        /**
+         * Creates instance of {@link HistoryExporter}.
+         *
+         * @return exporter
+         */
+        public HistoryExporter create() {
+            return new HistoryExporter(this);
+        }
+    }
+}
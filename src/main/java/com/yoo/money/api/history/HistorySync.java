@@ -0,0 +1,304 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.history;
+
+import com.yoo.money.api.exceptions.InvalidRequestException;
+import com.yoo.money.api.methods.wallet.OperationDetails;
+import com.yoo.money.api.methods.wallet.OperationHistory;
+import com.yoo.money.api.model.Operation;
+import com.yoo.money.api.model.OperationStatus;
+import com.yoo.money.api.net.clients.ApiClient;
+import com.yoo.money.api.time.DateTime;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.yoo.money.api.util.Common.checkNotNull;
+
+/**
+ * Incremental synchronization of operation histories.
+ * <p>
+ * For every wallet a {@link Watermark} is kept in a {@link WatermarkStore}. A sync requests only operations made since
+ * the watermark, so when nothing has changed it costs a single small request. Operations found for the first time are
+ * reported as {@link HistoryChange.Type#INSERTED}. Operations in progress are remembered in the watermark and checked
+ * with {@link OperationDetails} requests, one per operation, until they complete, then they are reported as
+ * {@link HistoryChange.Type#STATUS_CHANGED}; an operation that stays in progress longer than
+ * {@link Builder#setPendingTimeout(long, TimeUnit)} is forgotten. Pending operations do not move the start of the
+ * history request back, so an old operation in progress does not make every sync download the history since it.
+ * <p>
+ * The watermark is saved only after the listener has processed changes, so a failure in between leads to the changes
+ * being reported again by the next sync. Different wallets can be synchronized concurrently, but syncs of the same
+ * wallet should not overlap.
+ */
+public final class HistorySync {
+
+    private final WatermarkStore store;
+    private final Set<OperationHistory.FilterType> types;
+    private final Boolean details;
+    private final DateTime initialFrom;
+    private final int pageSize;
+    private final long pendingTimeoutMillis;
+
+    HistorySync(Builder builder) {
+        store = builder.store;
+        types = builder.types;
+        details = builder.details;
+        initialFrom = builder.initialFrom;
+        pageSize = builder.pageSize;
+        pendingTimeoutMillis = builder.pendingTimeoutMillis;
+    }
+
+    /**
+     * Synchronizes operation history of a wallet.
+     *
+     * @param walletId ID of the wallet in the watermark store
+     * @param client client authorized for the wallet
+     * @param listener listener of changes, not called if there are no changes
+     * @return number of changes
+     * @throws InvalidRequestException if the server responded with an error
+     * @throws Exception if history could not be retrieved, the listener failed or the watermark could not be saved
+     */
+    public int sync(String walletId, ApiClient client, Listener listener) throws Exception {
+        checkNotNull(walletId, "walletId");
+        checkNotNull(client, "client");
+        checkNotNull(listener, "listener");
+
+        DateTime now = DateTime.now();
+        Watermark watermark = store.load(walletId);
+        if (watermark == null) {
+            watermark = Watermark.EMPTY;
+        }
+
+        DateTime from = watermark.datetime == null ? initialFrom : watermark.datetime;
+        DateTime newest = watermark.datetime;
+        Set<String> newestIds = new HashSet<>(watermark.operationIds);
+        Map<String, DateTime> pending = new HashMap<>(watermark.pending);
+        // pending operations that are not in the requested part of history
+        Set<String> unchecked = new HashSet<>(watermark.pending.keySet());
+        List<HistoryChange> changes = new ArrayList<>();
+
+        OperationCursor cursor = new OperationCursor.Builder(client, new OperationHistory.Request.Builder()
+                .setTypes(types)
+                .setDetails(details)
+                .setFrom(from))
+                .setPageSize(pageSize)
+                .create();
+        try {
+            while (cursor.hasNext()) {
+                Operation operation = cursor.next();
+                unchecked.remove(operation.operationId);
+                if (pending.containsKey(operation.operationId)) {
+                    if (operation.status != OperationStatus.IN_PROGRESS) {
+                        pending.remove(operation.operationId);
+                        changes.add(new HistoryChange(HistoryChange.Type.STATUS_CHANGED, operation));
+                    }
+                    continue;
+                }
+                if (watermark.isSeen(operation)) {
+                    continue;
+                }
+
+                changes.add(new HistoryChange(HistoryChange.Type.INSERTED, operation));
+                if (operation.status == OperationStatus.IN_PROGRESS) {
+                    pending.put(operation.operationId, now);
+                }
+                if (newest == null || operation.datetime.isAfter(newest)) {
+                    newest = operation.datetime;
+                    newestIds.clear();
+                }
+                if (operation.datetime.getMillis() == newest.getMillis()) {
+                    newestIds.add(operation.operationId);
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+
+        long expired = now.getMillis() - pendingTimeoutMillis;
+        for (Iterator<Map.Entry<String, DateTime>> iterator = pending.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<String, DateTime> entry = iterator.next();
+            if (entry.getValue().getMillis() < expired) {
+                iterator.remove();
+                unchecked.remove(entry.getKey());
+            }
+        }
+
+        // history goes from newest to oldest operations, changes are reported in chronological order
+        Collections.reverse(changes);
+        // pending operations are older than the watermark, so their changes go first
+        changes.addAll(0, checkPending(client, unchecked, pending));
+
+        if (!changes.isEmpty()) {
+            listener.onChanges(walletId, Collections.unmodifiableList(changes));
+        }
+
+        Watermark updated = new Watermark(newest, newestIds, pending);
+        if (!updated.equals(watermark)) {
+            store.save(walletId, updated);
+        }
+        return changes.size();
+    }
+
+    /**
+     * Requests details of pending operations and removes completed ones from pending.
+     *
+     * @return status changes of completed operations in chronological order
+     */
+    private static List<HistoryChange> checkPending(ApiClient client, Set<String> operationIds,
+                                                    Map<String, DateTime> pending) throws Exception {
+        List<HistoryChange> changes = new ArrayList<>();
+        for (String operationId : operationIds) {
+            OperationDetails details = client.execute(new OperationDetails.Request(operationId));
+            if (details.error != null) {
+                throw new InvalidRequestException(details.error.code);
+            }
+            if (details.status != OperationStatus.IN_PROGRESS) {
+                pending.remove(operationId);
+                changes.add(new HistoryChange(HistoryChange.Type.STATUS_CHANGED, details));
+            }
+        }
+        Collections.sort(changes, new Comparator<HistoryChange>() {
+            @Override
+            public int compare(HistoryChange o1, HistoryChange o2) {
+                return HistoryExporter.NEWEST_FIRST.compare(o2.operation, o1.operation);
+            }
+        });
+        return changes;
+    }
+
+    /**
+     * Receives changes of operation history.
+     */
+    public interface Listener {
+
+        /**
+         * Called when changes of a wallet are found.
+         *
+         * @param walletId wallet ID
+         * @param changes changes in chronological order
+         * @throws Exception if changes could not be processed; the watermark is not updated then
+         */
+        void onChanges(String walletId, List<HistoryChange> changes) throws Exception;
+    }
+
+    /**
+     * Creates {@link HistorySync}.
+     */
+    public static final class Builder {
+
+        final WatermarkStore store;
+        Set<OperationHistory.FilterType> types = Collections.emptySet();
+        Boolean details;
+        DateTime initialFrom;
+        int pageSize = 100;
+        long pendingTimeoutMillis = TimeUnit.DAYS.toMillis(7L);
+
+        /**
+         * Constructor.
+         *
+         * @param store storage of watermarks
+         */
+        public Builder(WatermarkStore store) {
+            this.store = checkNotNull(store, "store");
+        }
+
+        /**
+         * Sets types of operations to synchronize. By default all operations are synchronized.
+         *
+         * @param types types of operations
+         * @return itself
+         */
+        public Builder setTypes(Set<OperationHistory.FilterType> types) {
+            this.types = checkNotNull(types, "types");
+            return this;
+        }
+
+        /**
+         * Requests operation details.
+         *
+         * @param details {@code true} to request details
+         * @return itself
+         */
+        public Builder setDetails(Boolean details) {
+            this.details = details;
+            return this;
+        }
+
+        /**
+         * Sets time to start the first sync of a wallet from. By default the whole history is loaded.
+         *
+         * @param initialFrom time of the oldest operation to load
+         * @return itself
+         */
+        public Builder setInitialFrom(DateTime initialFrom) {
+            this.initialFrom = initialFrom;
+            return this;
+        }
+
+        /**
+         * Sets number of operations in a page, from 1 to 100. Default value is 100.
+         *
+         * @param pageSize number of operations in a page
+         * @return itself
+         */
+        public Builder setPageSize(int pageSize) {
+            if (pageSize < 1 || pageSize > 100) {
+                throw new IllegalArgumentException("pageSize must be from 1 to 100");
+            }
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * Sets how long operations in progress are tracked. The time is counted from the sync that found an operation,
+         * so an operation stuck in progress on an idle wallet is forgotten too. Default value is 7 days.
+         *
+         * @param pendingTimeout time to track operations in progress
+         * @param unit time unit
+         * @return itself
+         */
+        public Builder setPendingTimeout(long pendingTimeout, TimeUnit unit) {
+            this.pendingTimeoutMillis = checkNotNull(unit, "unit").toMillis(pendingTimeout);
+            return this;
+        }
+
+        /**
+         * Creates instance of {@link HistorySync}.
+         *
+         * @return history sync
+         */
+        public HistorySync create() {
+            return new HistorySync(this);
+        }
+    }
+}
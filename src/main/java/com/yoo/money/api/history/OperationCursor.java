@@ -0,0 +1,292 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.history;
+
+import com.yoo.money.api.exceptions.InvalidRequestException;
+import com.yoo.money.api.methods.wallet.OperationHistory;
+import com.yoo.money.api.model.Operation;
+import com.yoo.money.api.net.clients.ApiCallback;
+import com.yoo.money.api.net.clients.ApiClient;
+import com.yoo.money.api.net.clients.ApiFuture;
+import com.yoo.money.api.net.clients.AsyncApiClients;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static com.yoo.money.api.util.Common.checkNotNull;
+
+/**
+ * Lazy cursor over a user's operation history. The cursor follows {@link OperationHistory#nextRecord} by itself and
+ * loads next pages in background while the current page is processed, so a long walk over the history is limited by
+ * network throughput rather than by round-trip time.
+ * <p>
+ * Pages are requested one after another with
+ * {@link AsyncApiClients#executeAsync(ApiClient, com.yoo.money.api.net.ApiRequest)}. At most
+ * {@link Builder#setPrefetch(int)} loaded pages wait for the consumer; the cursor stops loading once they are
+ * buffered and resumes when the consumer moves on. An error in a response is reported as
+ * {@link InvalidRequestException}.
+ * <p>
+ * The cursor is not thread safe: it should be consumed by a single thread. Close it if it is not consumed to the end.
+ */
+public final class OperationCursor implements Closeable {
+
+    private final ApiClient client;
+    private final OperationHistory.Request.Builder requestBuilder;
+    private final int prefetch;
+    private final PageCallback callback = new PageCallback();
+
+    // guarded by this
+    private final ArrayDeque<List<Operation>> pages = new ArrayDeque<>();
+    private ApiFuture<OperationHistory> pending;
+    private String nextRecord;
+    private boolean lastPage;
+    private boolean closed;
+    private Exception error;
+
+    // consumer state
+    private Iterator<Operation> page = Collections.emptyIterator();
+    private int pageCount;
+
+    OperationCursor(Builder builder) {
+        client = builder.client;
+        requestBuilder = builder.requestBuilder.setRecords(builder.pageSize);
+        prefetch = builder.prefetch;
+        nextRecord = builder.startRecord;
+    }
+
+    /**
+     * Checks if there are more operations, waiting for the next page if needed.
+     *
+     * @return {@code true} if there are more operations
+     * @throws InvalidRequestException if the server responded with an error
+     * @throws InterruptedException if the thread was interrupted while waiting
+     * @throws Exception if a page could not be retrieved
+     */
+    public boolean hasNext() throws Exception {
+        while (!page.hasNext()) {
+            List<Operation> operations = takePage();
+            if (operations == null) {
+                return false;
+            }
+            page = operations.iterator();
+            ++pageCount;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the next operation, waiting for the next page if needed.
+     *
+     * @return next operation
+     * @throws NoSuchElementException if there are no more operations
+     * @see #hasNext()
+     */
+    public Operation next() throws Exception {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+
+    /**
+     * @return number of pages taken by the consumer so far
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * Stops loading pages and discards operations that were not consumed. Pages being loaded are cancelled.
+     */
+    @Override
+    public void close() {
+        page = Collections.emptyIterator();
+        ApiFuture<OperationHistory> pending;
+        synchronized (this) {
+            closed = true;
+            pages.clear();
+            pending = this.pending;
+            notifyAll();
+        }
+        if (pending != null) {
+            pending.cancel(true);
+        }
+    }
+
+    private synchronized List<Operation> takePage() throws Exception {
+        while (true) {
+            if (closed) {
+                return null;
+            }
+            List<Operation> operations = pages.poll();
+            if (operations != null) {
+                requestNextPage(false);
+                return operations;
+            }
+            if (error != null) {
+                throw error;
+            }
+            if (lastPage && pending == null) {
+                return null;
+            }
+            requestNextPage(true);
+            wait();
+        }
+    }
+
+    /**
+     * Requests the next page if there is room for it or the consumer waits for it.
+     *
+     * @param demand {@code true} if the consumer waits for the page
+     */
+    private synchronized void requestNextPage(boolean demand) {
+        if (pending != null || lastPage || closed || error != null) {
+            return;
+        }
+        if (pages.size() >= prefetch && !(demand && pages.isEmpty())) {
+            return;
+        }
+        pending = AsyncApiClients.executeAsync(client, requestBuilder.setStartRecord(nextRecord).create());
+        pending.addCallback(callback);
+    }
+
+    private synchronized void onPage(OperationHistory history) {
+        pending = null;
+        if (closed) {
+            return;
+        }
+        if (history.error != null) {
+            error = new InvalidRequestException(history.error.code);
+        } else {
+            List<Operation> operations = history.operations;
+            if (operations != null && !operations.isEmpty()) {
+                pages.add(operations);
+            }
+            nextRecord = history.nextRecord;
+            lastPage = nextRecord == null;
+            requestNextPage(false);
+        }
+        notifyAll();
+    }
+
+    private synchronized void onError(Exception e) {
+        pending = null;
+        if (!closed) {
+            error = e;
+        }
+        notifyAll();
+    }
+
+    private final class PageCallback implements ApiCallback<OperationHistory> {
+
+        @Override
+        public void onSuccess(OperationHistory result) {
+            onPage(result);
+        }
+
+        @Override
+        public void onFailure(Exception e) {
+            onError(e);
+        }
+    }
+
+    /**
+     * Creates {@link OperationCursor}.
+     */
+    public static final class Builder {
+
+        final ApiClient client;
+        final OperationHistory.Request.Builder requestBuilder;
+        String startRecord;
+        int pageSize = 100;
+        int prefetch = 1;
+
+        /**
+         * Constructor.
+         *
+         * @param client authorized client
+         * @param requestBuilder filters of operations; the cursor takes ownership of the builder and sets start
+         *                       record and number of records itself
+         */
+        public Builder(ApiClient client, OperationHistory.Request.Builder requestBuilder) {
+            this.client = checkNotNull(client, "client");
+            this.requestBuilder = checkNotNull(requestBuilder, "requestBuilder");
+        }
+
+        /**
+         * Sets a marker to start from, for instance {@link OperationHistory#nextRecord} of a page processed before.
+         * By default the cursor starts from the latest operation.
+         *
+         * @param startRecord marker
+         * @return itself
+         */
+        public Builder setStartRecord(String startRecord) {
+            this.startRecord = startRecord;
+            return this;
+        }
+
+        /**
+         * Sets number of operations in a page, from 1 to 100. Default value is 100.
+         *
+         * @param pageSize number of operations in a page
+         * @return itself
+         */
+        public Builder setPageSize(int pageSize) {
+            if (pageSize < 1 || pageSize > 100) {
+                throw new IllegalArgumentException("pageSize must be from 1 to 100");
+            }
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * Sets number of pages loaded ahead of the consumer. Use {@code 0} to load a page only when the consumer
+         * needs it. Default value is 1.
+         *
+         * @param prefetch number of pages to load ahead
+         * @return itself
+         */
+        public Builder setPrefetch(int prefetch) {
+            if (prefetch < 0) {
+                throw new IllegalArgumentException("prefetch must not be negative");
+            }
+            this.prefetch = prefetch;
+            return this;
+        }
+
+        /**
+         * Creates instance of {@link OperationCursor}.
+         *
+         * @return cursor
+         */
+        public OperationCursor create() {
+            return new OperationCursor(this);
+        }
+    }
+}
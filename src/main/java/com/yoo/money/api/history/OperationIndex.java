@@ -0,0 +1,147 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.history;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Open-addressing hash table from operation IDs to record locations. Slots are kept in a direct buffer outside of the
+ * heap: every slot is a 64-bit hash of an ID and a location, IDs themselves stay in records and are compared via
+ * {@link Keys} only when hashes match.
+ * <p>
+ * Not thread safe.
+ */
+final class OperationIndex {
+
+    private static final int SLOT_SIZE = 16;
+    private static final long EMPTY = 0L;
+
+    private ByteBuffer slots;
+    private int mask;
+    private int count;
+
+    OperationIndex(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * @return location of a record with specified ID or {@code -1} if there is no such record
+     */
+    long get(byte[] id, Keys keys) {
+        long hash = hash(id);
+        for (int slot = slotOf(hash); ; slot = (slot + 1) & mask) {
+            long location = slots.getLong(slot * SLOT_SIZE + 8);
+            if (location == EMPTY) {
+                return -1L;
+            }
+            if (slots.getLong(slot * SLOT_SIZE) == hash && keys.matches(location - 1, id)) {
+                return location - 1;
+            }
+        }
+    }
+
+    /**
+     * Maps an ID to a location.
+     *
+     * @return previous location of the ID or {@code -1} if it is new
+     */
+    long put(byte[] id, long location, Keys keys) {
+        long hash = hash(id);
+        for (int slot = slotOf(hash); ; slot = (slot + 1) & mask) {
+            long current = slots.getLong(slot * SLOT_SIZE + 8);
+            if (current == EMPTY) {
+                slots.putLong(slot * SLOT_SIZE, hash);
+                slots.putLong(slot * SLOT_SIZE + 8, location + 1);
+                if (++count * 2 > mask + 1) {
+                    grow();
+                }
+                return -1L;
+            }
+            if (slots.getLong(slot * SLOT_SIZE) == hash && keys.matches(current - 1, id)) {
+                slots.putLong(slot * SLOT_SIZE + 8, location + 1);
+                return current - 1;
+            }
+        }
+    }
+
+    /**
+     * @return number of IDs
+     */
+    int size() {
+        return count;
+    }
+
+    private void grow() {
+        ByteBuffer old = this.slots;
+        allocate((mask + 1) * 2);
+        for (int offset = 0; offset < old.capacity(); offset += SLOT_SIZE) {
+            long location = old.getLong(offset + 8);
+            if (location != EMPTY) {
+                long hash = old.getLong(offset);
+                int slot = slotOf(hash);
+                while (slots.getLong(slot * SLOT_SIZE + 8) != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                slots.putLong(slot * SLOT_SIZE, hash);
+                slots.putLong(slot * SLOT_SIZE + 8, location);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        if (capacity > Integer.MAX_VALUE / SLOT_SIZE) {
+            throw new IllegalStateException("index is full");
+        }
+        slots = ByteBuffer.allocateDirect(capacity * SLOT_SIZE);
+        mask = capacity - 1;
+    }
+
+    private int slotOf(long hash) {
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * 64-bit FNV-1a hash.
+     */
+    private static long hash(byte[] id) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : id) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    interface Keys {
+        /**
+         * @return {@code true} if a record at specified location has specified ID
+         */
+        boolean matches(long location, byte[] id);
+    }
+}
@@ -0,0 +1,859 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.history;
+
+import com.yoo.money.api.methods.wallet.OperationHistory;
+import com.yoo.money.api.model.Currency;
+import com.yoo.money.api.model.Operation;
+import com.yoo.money.api.model.OperationStatus;
+import com.yoo.money.api.model.SpendingCategory;
+import com.yoo.money.api.time.DateTime;
+import com.yoo.money.api.util.Threads;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.yoo.money.api.util.Common.checkNotNull;
+
+/**
+ * Immutable columnar snapshot of operations for aggregations.
+ * <p>
+ * Every field is kept in a primitive array: amounts in hundredths, times in epoch milliseconds, enums and strings as
+ * integer codes. Code {@code 0} stands for a missing value, strings are encoded with a dictionary. Spending categories
+ * of all operations share three arrays: offsets of an operation's categories, category codes and their sums.
+ * <p>
+ * {@link Query} sums amounts grouped by one or more {@link Key}s. A group is found by arithmetic on codes and, when
+ * keys have few combinations, counters are plain arrays, so a scan is a tight loop over primitive arrays. Otherwise
+ * counters are kept in a hash table of the groups met, so memory does not grow with the number of combinations. Large
+ * snapshots are scanned in parallel: rows are split into ranges that are aggregated on separate cores and merged.
+ */
+public final class OperationSnapshot {
+
+    private static final int MIN_SCAN_RANGE = 16384;
+    private static final int MAX_DENSE_GROUPS = 1 << 16;
+
+    final int size;
+    final long[] datetimes;
+    final long[] amounts;
+    final Column directions;
+    final Column currencies;
+    final Column types;
+    final Column statuses;
+    final Column titles;
+    final Column labels;
+    final Object[] categoryNames;
+    final int[] categoryOffsets;
+    final int[] categories;
+    final long[] categoryAmounts;
+
+    private final ConcurrentMap<TimeZone, Column> days = new ConcurrentHashMap<>();
+
+    OperationSnapshot(Builder builder) {
+        size = builder.size;
+        datetimes = Arrays.copyOf(builder.datetimes, size);
+        amounts = Arrays.copyOf(builder.amounts, size);
+        directions = new Column(Arrays.copyOf(builder.directions, size), enumValues(Operation.Direction.values()));
+        currencies = new Column(Arrays.copyOf(builder.currencies, size), enumValues(Currency.values()));
+        types = new Column(Arrays.copyOf(builder.types, size), enumValues(Operation.Type.values()));
+        statuses = new Column(Arrays.copyOf(builder.statuses, size), enumValues(OperationStatus.values()));
+        titles = new Column(Arrays.copyOf(builder.titles, size), builder.titleDictionary.values());
+        labels = new Column(Arrays.copyOf(builder.labels, size), builder.labelDictionary.values());
+        categoryNames = builder.categoryDictionary.values();
+        categoryOffsets = Arrays.copyOf(builder.categoryOffsets, size + 1);
+        categories = Arrays.copyOf(builder.categories, builder.categoryCount);
+        categoryAmounts = Arrays.copyOf(builder.categoryAmounts, builder.categoryCount);
+    }
+
+    /**
+     * @return number of operations
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Creates a query over all operations.
+     *
+     * @return query
+     */
+    public Query query() {
+        return new Query(this);
+    }
+
+    Column days(TimeZone timeZone) {
+        Column column = days.get(timeZone);
+        if (column == null) {
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            long[] dayNumbers = new long[size];
+            for (int i = 0; i < size; ++i) {
+                long millis = datetimes[i];
+                if (millis != Long.MIN_VALUE) {
+                    long day = floorDiv(millis + timeZone.getOffset(millis), TimeUnit.DAYS.toMillis(1L));
+                    dayNumbers[i] = day;
+                    min = Math.min(min, day);
+                    max = Math.max(max, day);
+                }
+            }
+            int count = min > max ? 0 : (int) (max - min + 1);
+            int[] codes = new int[size];
+            for (int i = 0; i < size; ++i) {
+                codes[i] = datetimes[i] == Long.MIN_VALUE ? 0 : (int) (dayNumbers[i] - min + 1);
+            }
+            Object[] values = new Object[count + 1];
+            for (int day = 0; day < count; ++day) {
+                long millis = (min + day) * TimeUnit.DAYS.toMillis(1L);
+                values[day + 1] = DateTime.from(millis - timeZone.getOffset(millis), timeZone);
+            }
+            column = new Column(codes, values);
+            Column previous = days.putIfAbsent(timeZone, column);
+            if (previous != null) {
+                column = previous;
+            }
+        }
+        return column;
+    }
+
+    static long toHundredths(BigDecimal amount) {
+        return amount == null ? 0L : amount.movePointRight(2).setScale(0, RoundingMode.HALF_EVEN).longValueExact();
+    }
+
+    static BigDecimal fromHundredths(long amount) {
+        return BigDecimal.valueOf(amount, 2);
+    }
+
+    private static Object[] enumValues(Enum<?>[] values) {
+        Object[] result = new Object[values.length + 1];
+        System.arraycopy(values, 0, result, 1, values.length);
+        return result;
+    }
+
+    private static long floorDiv(long x, long y) {
+        long result = x / y;
+        return (x % y != 0 && (x ^ y) < 0) ? result - 1 : result;
+    }
+
+    /**
+     * Codes of a column and values they stand for, {@code values[0]} is {@code null}.
+     */
+    static final class Column {
+
+        final int[] codes;
+        final Object[] values;
+
+        Column(int[] codes, Object[] values) {
+            this.codes = codes;
+            this.values = values;
+        }
+
+        int codeOf(Object value) {
+            for (int code = 0; code < values.length; ++code) {
+                if (value == null ? values[code] == null : value.equals(values[code])) {
+                    return code;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Field of operations to group or filter by.
+     */
+    public abstract static class Key {
+
+        public static final Key DIRECTION = new Key() {
+            @Override
+            Column column(OperationSnapshot snapshot) {
+                return snapshot.directions;
+            }
+        };
+
+        public static final Key CURRENCY = new Key() {
+            @Override
+            Column column(OperationSnapshot snapshot) {
+                return snapshot.currencies;
+            }
+        };
+
+        public static final Key TYPE = new Key() {
+            @Override
+            Column column(OperationSnapshot snapshot) {
+                return snapshot.types;
+            }
+        };
+
+        public static final Key STATUS = new Key() {
+            @Override
+            Column column(OperationSnapshot snapshot) {
+                return snapshot.statuses;
+            }
+        };
+
+        public static final Key TITLE = new Key() {
+            @Override
+            Column column(OperationSnapshot snapshot) {
+                return snapshot.titles;
+            }
+        };
+
+        public static final Key LABEL = new Key() {
+            @Override
+            Column column(OperationSnapshot snapshot) {
+                return snapshot.labels;
+            }
+        };
+
+        Key() {
+        }
+
+        /**
+         * Day of an operation. Values of the key are {@link DateTime}s of the start of days.
+         *
+         * @param timeZone time zone of days
+         * @return key
+         */
+        public static Key day(final TimeZone timeZone) {
+            checkNotNull(timeZone, "timeZone");
+            return new Key() {
+                @Override
+                Column column(OperationSnapshot snapshot) {
+                    return snapshot.days(timeZone);
+                }
+            };
+        }
+
+        abstract Column column(OperationSnapshot snapshot);
+    }
+
+    /**
+     * Sum of amounts of a group of operations.
+     */
+    public static final class Group {
+
+        /**
+         * Values of keys of the group in order of {@link Query#groupBy(Key...)}; for
+         * {@link Query#sumCategories()} the last value is the name of a spending category.
+         */
+        public final List<Object> key;
+
+        /**
+         * Number of operations or, for {@link Query#sumCategories()}, of spending categories in the group.
+         */
+        public final long count;
+
+        /**
+         * Sum in hundredths.
+         */
+        public final long amount;
+
+        Group(List<Object> key, long count, long amount) {
+            this.key = key;
+            this.count = count;
+            this.amount = amount;
+        }
+
+        /**
+         * @return sum of the group
+         */
+        public BigDecimal getAmount() {
+            return fromHundredths(amount);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Group group = (Group) o;
+
+            return count == group.count && amount == group.amount && key.equals(group.key);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = key.hashCode();
+            result = 31 * result + (int) (count ^ (count >>> 32));
+            result = 31 * result + (int) (amount ^ (amount >>> 32));
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "Group{" +
+                    "key=" + key +
+                    ", count=" + count +
+                    ", amount=" + getAmount() +
+                    '}';
+        }
+    }
+
+    /**
+     * Aggregation over a snapshot. Filters and keys are applied to every scan of the query.
+     */
+    public static final class Query {
+
+        private final OperationSnapshot snapshot;
+        private final List<int[]> filterCodes = new ArrayList<>();
+        private final List<Integer> filterValues = new ArrayList<>();
+        private Column[] groups = new Column[0];
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+
+        Query(OperationSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        /**
+         * Leaves only operations which key has specified value.
+         *
+         * @param key key
+         * @param value value of the key, {@code null} for operations without the value
+         * @return itself
+         */
+        public Query where(Key key, Object value) {
+            Column column = checkNotNull(key, "key").column(snapshot);
+            filterCodes.add(column.codes);
+            filterValues.add(column.codeOf(value));
+            return this;
+        }
+
+        /**
+         * Groups operations by keys.
+         *
+         * @param keys keys
+         * @return itself
+         */
+        public Query groupBy(Key... keys) {
+            groups = new Column[keys.length];
+            for (int i = 0; i < keys.length; ++i) {
+                groups[i] = checkNotNull(keys[i], "key").column(snapshot);
+            }
+            return this;
+        }
+
+        /**
+         * Sets number of ranges scanned in parallel. Default value is number of available processors.
+         *
+         * @param parallelism number of ranges
+         * @return itself
+         */
+        public Query setParallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism must be positive");
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Sums amounts of operations by groups.
+         *
+         * @return non-empty groups ordered by codes of their keys
+         */
+        public List<Group> sumAmounts() {
+            return scan(false);
+        }
+
+        /**
+         * Sums spending categories of operations by groups and category names.
+         *
+         * @return non-empty groups ordered by codes of their keys
+         */
+        public List<Group> sumCategories() {
+            return scan(true);
+        }
+
+        private List<Group> scan(boolean byCategory) {
+            Column[] columns = byCategory ? Arrays.copyOf(groups, groups.length + 1) : groups;
+            if (byCategory) {
+                columns[groups.length] = new Column(null, snapshot.categoryNames);
+            }
+            long groupCount = 1L;
+            for (Column column : columns) {
+                if (groupCount > Long.MAX_VALUE / column.values.length) {
+                    throw new IllegalArgumentException("too many groups");
+                }
+                groupCount *= column.values.length;
+            }
+
+            final Scan scan = new Scan(snapshot, toArray(filterCodes), toIntArray(filterValues), groups, groupCount,
+                    byCategory);
+            int size = snapshot.size;
+            int ranges = (int) Math.max(1L, Math.min(parallelism, size / MIN_SCAN_RANGE));
+            Counters counters;
+            if (ranges == 1) {
+                counters = scan.call(0, size);
+            } else {
+                List<Future<Counters>> futures = new ArrayList<>(ranges - 1);
+                int step = (size + ranges - 1) / ranges;
+                for (int start = step; start < size; start += step) {
+                    final int from = start;
+                    final int till = Math.min(start + step, size);
+                    futures.add(ScanExecutor.INSTANCE.submit(new Callable<Counters>() {
+                        @Override
+                        public Counters call() {
+                            return scan.call(from, till);
+                        }
+                    }));
+                }
+                counters = scan.call(0, Math.min(step, size));
+                try {
+                    for (Future<Counters> future : futures) {
+                        counters.merge(future.get());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("scan interrupted", e);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("scan failed", e.getCause());
+                }
+            }
+            return counters.toGroups(columns);
+        }
+
+        private static int[][] toArray(List<int[]> list) {
+            return list.toArray(new int[list.size()][]);
+        }
+
+        private static int[] toIntArray(List<Integer> list) {
+            int[] result = new int[list.size()];
+            for (int i = 0; i < result.length; ++i) {
+                result[i] = list.get(i);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Aggregation of a range of rows.
+     */
+    private static final class Scan {
+
+        final OperationSnapshot snapshot;
+        final int[][] filterCodes;
+        final int[] filterValues;
+        final int[][] groupCodes;
+        final int[] groupSizes;
+        final long groupCount;
+        final boolean byCategory;
+
+        Scan(OperationSnapshot snapshot, int[][] filterCodes, int[] filterValues, Column[] groups, long groupCount,
+             boolean byCategory) {
+            this.snapshot = snapshot;
+            this.filterCodes = filterCodes;
+            this.filterValues = filterValues;
+            this.groupCodes = new int[groups.length][];
+            this.groupSizes = new int[groups.length];
+            for (int i = 0; i < groups.length; ++i) {
+                groupCodes[i] = groups[i].codes;
+                groupSizes[i] = groups[i].values.length;
+            }
+            this.groupCount = groupCount;
+            this.byCategory = byCategory;
+        }
+
+        Counters call(int from, int till) {
+            return groupCount <= MAX_DENSE_GROUPS ? dense(from, till) : sparse(from, till);
+        }
+
+        private Counters dense(int from, int till) {
+            int groupCount = (int) this.groupCount;
+            long[] counters = new long[groupCount * 2];
+            long[] amounts = snapshot.amounts;
+            int[] offsets = snapshot.categoryOffsets;
+            int[] categories = snapshot.categories;
+            long[] categoryAmounts = snapshot.categoryAmounts;
+            int categoryCount = snapshot.categoryNames.length;
+
+            for (int row = from; row < till; ++row) {
+                if (!matches(row)) {
+                    continue;
+                }
+                int group = (int) groupOf(row);
+                if (byCategory) {
+                    group *= categoryCount;
+                    for (int i = offsets[row]; i < offsets[row + 1]; ++i) {
+                        counters[group + categories[i]]++;
+                        counters[groupCount + group + categories[i]] += categoryAmounts[i];
+                    }
+                } else {
+                    counters[group]++;
+                    counters[groupCount + group] += amounts[row];
+                }
+            }
+            return new DenseCounters(counters, groupCount);
+        }
+
+        private Counters sparse(int from, int till) {
+            HashCounters counters = new HashCounters();
+            long[] amounts = snapshot.amounts;
+            int[] offsets = snapshot.categoryOffsets;
+            int[] categories = snapshot.categories;
+            long[] categoryAmounts = snapshot.categoryAmounts;
+            int categoryCount = snapshot.categoryNames.length;
+
+            for (int row = from; row < till; ++row) {
+                if (!matches(row)) {
+                    continue;
+                }
+                long group = groupOf(row);
+                if (byCategory) {
+                    group *= categoryCount;
+                    for (int i = offsets[row]; i < offsets[row + 1]; ++i) {
+                        counters.add(group + categories[i], 1L, categoryAmounts[i]);
+                    }
+                } else {
+                    counters.add(group, 1L, amounts[row]);
+                }
+            }
+            return counters;
+        }
+
+        private boolean matches(int row) {
+            for (int i = 0; i < filterCodes.length; ++i) {
+                if (filterCodes[i][row] != filterValues[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private long groupOf(int row) {
+            long group = 0;
+            for (int i = 0; i < groupCodes.length; ++i) {
+                group = group * groupSizes[i] + groupCodes[i][row];
+            }
+            return group;
+        }
+    }
+
+    /**
+     * Counts and sums of groups aggregated by a {@link Scan}.
+     */
+    private abstract static class Counters {
+
+        abstract void merge(Counters other);
+
+        /**
+         * @return non-empty groups ordered by codes
+         */
+        abstract List<Group> toGroups(Column[] columns);
+
+        static Group group(Column[] columns, long code, long count, long amount) {
+            Object[] key = new Object[columns.length];
+            for (int i = columns.length - 1; i >= 0; --i) {
+                Object[] values = columns[i].values;
+                key[i] = values[(int) (code % values.length)];
+                code /= values.length;
+            }
+            return new Group(Collections.unmodifiableList(Arrays.asList(key)), count, amount);
+        }
+    }
+
+    /**
+     * Counters of all groups in an array {@code [counts of groups][sums of groups]} indexed by codes.
+     */
+    private static final class DenseCounters extends Counters {
+
+        final long[] counters;
+        final int groupCount;
+
+        DenseCounters(long[] counters, int groupCount) {
+            this.counters = counters;
+            this.groupCount = groupCount;
+        }
+
+        @Override
+        void merge(Counters other) {
+            long[] otherCounters = ((DenseCounters) other).counters;
+            for (int i = 0; i < counters.length; ++i) {
+                counters[i] += otherCounters[i];
+            }
+        }
+
+        @Override
+        List<Group> toGroups(Column[] columns) {
+            List<Group> result = new ArrayList<>();
+            for (int group = 0; group < groupCount; ++group) {
+                long count = counters[group];
+                if (count != 0) {
+                    result.add(group(columns, group, count, counters[groupCount + group]));
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Counters of non-empty groups in an open addressing hash table with linear probing.
+     */
+    private static final class HashCounters extends Counters {
+
+        private static final long EMPTY = -1L;
+
+        long[] codes = newCodes(64);
+        long[] counts = new long[64];
+        long[] amounts = new long[64];
+        int size;
+
+        void add(long code, long count, long amount) {
+            int mask = codes.length - 1;
+            int i = hash(code) & mask;
+            while (codes[i] != EMPTY && codes[i] != code) {
+                i = (i + 1) & mask;
+            }
+            if (codes[i] == EMPTY) {
+                codes[i] = code;
+                ++size;
+            }
+            counts[i] += count;
+            amounts[i] += amount;
+            if (size * 2 > codes.length) {
+                grow();
+            }
+        }
+
+        @Override
+        void merge(Counters other) {
+            HashCounters counters = (HashCounters) other;
+            for (int i = 0; i < counters.codes.length; ++i) {
+                if (counters.codes[i] != EMPTY) {
+                    add(counters.codes[i], counters.counts[i], counters.amounts[i]);
+                }
+            }
+        }
+
+        @Override
+        List<Group> toGroups(Column[] columns) {
+            long[] sorted = new long[size];
+            int[] slots = new int[size];
+            int n = 0;
+            for (int i = 0; i < codes.length; ++i) {
+                if (codes[i] != EMPTY) {
+                    sorted[n++] = codes[i];
+                }
+            }
+            Arrays.sort(sorted);
+            int mask = codes.length - 1;
+            for (int j = 0; j < size; ++j) {
+                int i = hash(sorted[j]) & mask;
+                while (codes[i] != sorted[j]) {
+                    i = (i + 1) & mask;
+                }
+                slots[j] = i;
+            }
+
+            List<Group> result = new ArrayList<>(size);
+            for (int j = 0; j < size; ++j) {
+                result.add(group(columns, sorted[j], counts[slots[j]], amounts[slots[j]]));
+            }
+            return result;
+        }
+
+        private void grow() {
+            long[] oldCodes = codes;
+            long[] oldCounts = counts;
+            long[] oldAmounts = amounts;
+            codes = newCodes(oldCodes.length * 2);
+            counts = new long[codes.length];
+            amounts = new long[codes.length];
+            size = 0;
+            for (int i = 0; i < oldCodes.length; ++i) {
+                if (oldCodes[i] != EMPTY) {
+                    add(oldCodes[i], oldCounts[i], oldAmounts[i]);
+                }
+            }
+        }
+
+        private static long[] newCodes(int length) {
+            long[] codes = new long[length];
+            Arrays.fill(codes, EMPTY);
+            return codes;
+        }
+
+        private static int hash(long code) {
+            return (int) ((code * 0x9E3779B97F4A7C15L) >>> 32);
+        }
+    }
+
+    private static final class ScanExecutor {
+
+        static final ExecutorService INSTANCE = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(), Threads.newDaemonThreadFactory("yoomoney-sdk-scan"));
+
+        private ScanExecutor() {
+        }
+    }
+
+    /**
+     * Dictionary of strings, code {@code 0} stands for {@code null}.
+     */
+    private static final class Dictionary {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            if (value == null) {
+                return 0;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                values.add(value);
+                code = values.size();
+                codes.put(value, code);
+            }
+            return code;
+        }
+
+        Object[] values() {
+            Object[] result = new Object[values.size() + 1];
+            for (int i = 0; i < values.size(); ++i) {
+                result[i + 1] = values.get(i);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Creates {@link OperationSnapshot}. Operations are converted to columns as they are added.
+     */
+    public static final class Builder {
+
+        int size;
+        long[] datetimes = new long[64];
+        long[] amounts = new long[64];
+        int[] directions = new int[64];
+        int[] currencies = new int[64];
+        int[] types = new int[64];
+        int[] statuses = new int[64];
+        int[] titles = new int[64];
+        int[] labels = new int[64];
+        int[] categoryOffsets = new int[65];
+        int categoryCount;
+        int[] categories = new int[64];
+        long[] categoryAmounts = new long[64];
+        final Dictionary titleDictionary = new Dictionary();
+        final Dictionary labelDictionary = new Dictionary();
+        final Dictionary categoryDictionary = new Dictionary();
+
+        /**
+         * Adds an operation.
+         *
+         * @param operation operation
+         * @return itself
+         */
+        public Builder add(Operation operation) {
+            checkNotNull(operation, "operation");
+            if (size == datetimes.length) {
+                int capacity = size * 2;
+                datetimes = Arrays.copyOf(datetimes, capacity);
+                amounts = Arrays.copyOf(amounts, capacity);
+                directions = Arrays.copyOf(directions, capacity);
+                currencies = Arrays.copyOf(currencies, capacity);
+                types = Arrays.copyOf(types, capacity);
+                statuses = Arrays.copyOf(statuses, capacity);
+                titles = Arrays.copyOf(titles, capacity);
+                labels = Arrays.copyOf(labels, capacity);
+                categoryOffsets = Arrays.copyOf(categoryOffsets, capacity + 1);
+            }
+            datetimes[size] = operation.datetime == null ? Long.MIN_VALUE : operation.datetime.getMillis();
+            amounts[size] = toHundredths(operation.amount);
+            directions[size] = codeOf(operation.direction);
+            currencies[size] = codeOf(operation.amountCurrency);
+            types[size] = codeOf(operation.type);
+            statuses[size] = codeOf(operation.status);
+            titles[size] = titleDictionary.encode(operation.title);
+            labels[size] = labelDictionary.encode(operation.label);
+            if (operation.spendingCategories != null) {
+                for (SpendingCategory category : operation.spendingCategories) {
+                    if (categoryCount == categories.length) {
+                        categories = Arrays.copyOf(categories, categoryCount * 2);
+                        categoryAmounts = Arrays.copyOf(categoryAmounts, categoryCount * 2);
+                    }
+                    categories[categoryCount] = categoryDictionary.encode(category.name);
+                    categoryAmounts[categoryCount] = toHundredths(category.sum);
+                    ++categoryCount;
+                }
+            }
+            categoryOffsets[++size] = categoryCount;
+            return this;
+        }
+
+        /**
+         * Adds operations.
+         *
+         * @param operations operations
+         * @return itself
+         */
+        public Builder addAll(Iterable<Operation> operations) {
+            for (Operation operation : checkNotNull(operations, "operations")) {
+                add(operation);
+            }
+            return this;
+        }
+
+        /**
+         * Adds operations of a page of history.
+         *
+         * @param page page of history
+         * @return itself
+         */
+        public Builder addAll(OperationHistory page) {
+            checkNotNull(page, "page");
+            if (page.operations != null) {
+                addAll(page.operations);
+            }
+            return this;
+        }
+
+        /**
+         * Creates instance of {@link OperationSnapshot}.
+         *
+         * @return snapshot
+         */
+        public OperationSnapshot create() {
+            return new OperationSnapshot(this);
+        }
+
+        private static int codeOf(Enum<?> value) {
+            return value == null ? 0 : value.ordinal() + 1;
+        }
+    }
+}
@@ -0,0 +1,567 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.history;
+
+import com.yoo.money.api.model.Operation;
+import com.yoo.money.api.time.DateTime;
+import com.yoo.money.api.typeadapters.GsonProvider;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.yoo.money.api.util.Common.checkNotNull;
+
+/**
+ * Local append-only storage of {@link Operation}s.
+ * <p>
+ * Operations are appended to memory-mapped segment files. Every record starts with the operation's time, ID and label
+ * followed by the operation in JSON, so indexes are built and lookups are resolved without parsing operations: only
+ * the records that are returned are parsed. The primary index on {@link Operation#operationId} is a hash table
+ * outside of the heap, secondary indexes on {@link Operation#label} and {@link Operation#datetime} refer to record
+ * locations. All indexes are rebuilt from the segments on open.
+ * <p>
+ * Storing an operation again appends a new version, for instance when its status changes, and the previous version
+ * becomes garbage; an unchanged operation is not appended. {@link #compact()} rewrites current versions into new
+ * segments and deletes the old ones. Mappings of closed and deleted segments are released at once where the JVM
+ * allows it, otherwise when they are garbage collected.
+ * <p>
+ * Appended records reach the storage device when a segment is filled, on {@link #flush()} and on {@link #close()}.
+ * A record torn by a crash is discarded on open together with records after it in its segment. The store is thread
+ * safe, but a directory should be opened by a single store at a time.
+ */
+public final class OperationStore implements Closeable {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String PREFIX = "operations-";
+    private static final String SUFFIX = ".seg";
+
+    private final File directory;
+    private final int segmentSize;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final OperationIndex.Keys keys = new OperationIndex.Keys() {
+        @Override
+        public boolean matches(long location, byte[] id) {
+            return Arrays.equals(idOf(segments, location), id);
+        }
+    };
+
+    // guarded by lock
+    private List<Segment> segments = new ArrayList<>();
+    private Indexes indexes;
+    private long garbageSize;
+    private boolean closed;
+
+    OperationStore(Builder builder) throws IOException {
+        directory = builder.directory;
+        segmentSize = builder.segmentSize;
+        Files.createDirectories(directory.toPath());
+
+        File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }
+        });
+        Arrays.sort(files);
+        indexes = new Indexes(files.length * 1024);
+        try {
+            for (File file : files) {
+                int number = Integer.parseInt(file.getName().substring(PREFIX.length(),
+                        file.getName().length() - SUFFIX.length()));
+                Segment segment = Segment.open(file, number, segmentSize);
+                segments.add(segment);
+                segment.recover(new Segment.Visitor() {
+                    @Override
+                    public void visit(Segment segment, int offset) {
+                        index(location(segments.size() - 1, offset), segment.body(offset));
+                    }
+                });
+            }
+            if (segments.isEmpty()) {
+                segments.add(openSegment(1));
+            }
+        } catch (IOException | RuntimeException e) {
+            closeSegments(segments);
+            throw e;
+        }
+    }
+
+    /**
+     * Stores an operation. If a version of the operation is already stored, a new version replaces it.
+     *
+     * @param operation operation
+     * @return {@code false} if the same version of the operation is already stored
+     * @throws IOException if a new segment could not be created
+     */
+    public boolean put(Operation operation) throws IOException {
+        byte[] body = encode(checkNotNull(operation, "operation"));
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            long current = indexes.operations.get(encodeString(operation.operationId), keys);
+            if (current >= 0 && segmentOf(current).body(offsetOf(current)).equals(ByteBuffer.wrap(body))) {
+                return false;
+            }
+            Segment segment = segments.get(segments.size() - 1);
+            int offset = segment.append(body);
+            if (offset < 0) {
+                if (Segment.HEADER_SIZE + body.length > segmentSize) {
+                    throw new IllegalArgumentException("operation is larger than a segment: " + operation.operationId);
+                }
+                // previous segments must be complete before records of the next one appear
+                segment.force();
+                segment = openSegment(segment.number + 1);
+                segments.add(segment);
+                offset = segment.append(body);
+            }
+            index(location(segments.size() - 1, offset), segment.body(offset));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets current version of an operation.
+     *
+     * @param operationId operation ID
+     * @return operation or {@code null} if it is not stored
+     */
+    public Operation get(String operationId) {
+        byte[] id = encodeString(checkNotNull(operationId, "operationId"));
+        lock.readLock().lock();
+        try {
+            checkOpen();
+            long location = indexes.operations.get(id, keys);
+            return location < 0 ? null : read(location);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets operations with specified label.
+     *
+     * @param label label
+     * @return operations ordered from newest to oldest
+     */
+    public List<Operation> findByLabel(String label) {
+        checkNotNull(label, "label");
+        lock.readLock().lock();
+        try {
+            checkOpen();
+            Locations locations = indexes.labels.get(label);
+            List<Operation> operations = locations == null ? new ArrayList<Operation>() : readCurrent(locations);
+            Collections.sort(operations, HistoryExporter.NEWEST_FIRST);
+            return operations;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets operations made in a time range.
+     *
+     * @param from start of the range, inclusive
+     * @param till end of the range, exclusive
+     * @return operations ordered from newest to oldest
+     */
+    public List<Operation> findByDatetime(DateTime from, DateTime till) {
+        checkNotNull(from, "from");
+        checkNotNull(till, "till");
+        lock.readLock().lock();
+        try {
+            checkOpen();
+            List<Operation> operations = new ArrayList<>();
+            if (from.isBefore(till)) {
+                for (Locations locations : indexes.datetimes
+                        .subMap(from.getMillis(), true, till.getMillis(), false).descendingMap().values()) {
+                    List<Operation> current = readCurrent(locations);
+                    Collections.sort(current, HistoryExporter.NEWEST_FIRST);
+                    operations.addAll(current);
+                }
+            }
+            return operations;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of stored operations
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return indexes.operations.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of bytes taken by superseded versions of operations
+     */
+    public long getGarbageSize() {
+        lock.readLock().lock();
+        try {
+            return garbageSize;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites current versions of operations into new segments and deletes old segments. Operations can not be
+     * stored while the store is compacted. If compaction is interrupted by a crash, old segments are kept and the
+     * store is consistent on next open, but operations already copied are stored twice: the copies are counted as
+     * garbage and are removed by the next compaction.
+     *
+     * @throws IOException if new segments could not be written
+     */
+    public void compact() throws IOException {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            if (garbageSize == 0) {
+                return;
+            }
+
+            List<Segment> compacted = new ArrayList<>();
+            Indexes compactedIndexes = new Indexes(indexes.operations.size());
+            final List<Segment> compactedSegments = compacted;
+            OperationIndex.Keys compactedKeys = new OperationIndex.Keys() {
+                @Override
+                public boolean matches(long location, byte[] id) {
+                    return Arrays.equals(idOf(compactedSegments, location), id);
+                }
+            };
+            try {
+                int number = segments.get(segments.size() - 1).number;
+                Segment target = openSegment(++number);
+                compacted.add(target);
+                for (int i = 0; i < segments.size(); ++i) {
+                    Segment segment = segments.get(i);
+                    for (int offset = 0; offset < segment.size(); offset += segment.recordSize(offset)) {
+                        long location = location(i, offset);
+                        if (!isCurrent(location)) {
+                            continue;
+                        }
+                        ByteBuffer record = segment.body(offset);
+                        byte[] body = new byte[record.remaining()];
+                        record.get(body);
+                        int copied = target.append(body);
+                        if (copied < 0) {
+                            target.force();
+                            target = openSegment(++number);
+                            compacted.add(target);
+                            copied = target.append(body);
+                        }
+                        compactedIndexes.add(location(compacted.size() - 1, copied), target.body(copied),
+                                compactedKeys);
+                    }
+                }
+                target.force();
+            } catch (IOException | RuntimeException e) {
+                closeSegments(compacted);
+                for (Segment segment : compacted) {
+                    Files.deleteIfExists(segment.file.toPath());
+                }
+                throw e;
+            }
+
+            // current versions are durable in new segments, old ones can go
+            List<Segment> old = segments;
+            segments = compacted;
+            indexes = compactedIndexes;
+            garbageSize = 0;
+            closeSegments(old);
+            for (Segment segment : old) {
+                Files.deleteIfExists(segment.file.toPath());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes appended operations to the storage device.
+     */
+    public void flush() {
+        lock.readLock().lock();
+        try {
+            checkOpen();
+            segments.get(segments.size() - 1).force();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (!closed) {
+                closed = true;
+                segments.get(segments.size() - 1).force();
+                closeSegments(segments);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Segment openSegment(int number) throws IOException {
+        File file = new File(directory, String.format(Locale.ROOT, "%s%08d%s", PREFIX, number, SUFFIX));
+        return Segment.open(file, number, segmentSize);
+    }
+
+    private void index(long location, ByteBuffer body) {
+        long previous = indexes.add(location, body, keys);
+        if (previous >= 0) {
+            garbageSize += segmentOf(previous).recordSize(offsetOf(previous));
+        }
+    }
+
+    private List<Operation> readCurrent(Locations locations) {
+        List<Operation> operations = new ArrayList<>();
+        for (int i = 0; i < locations.size; ++i) {
+            long location = locations.values[i];
+            if (isCurrent(location)) {
+                operations.add(read(location));
+            }
+        }
+        return operations;
+    }
+
+    /**
+     * Checks that a location holds current version of its operation, secondary indexes keep superseded ones.
+     */
+    private boolean isCurrent(long location) {
+        return indexes.operations.get(idOf(segments, location), keys) == location;
+    }
+
+    private Operation read(long location) {
+        ByteBuffer body = segmentOf(location).body(offsetOf(location));
+        body.position(body.position() + 8);
+        skipString(body);
+        skipString(body);
+        byte[] json = new byte[body.remaining()];
+        body.get(json);
+        return GsonProvider.getGson().fromJson(new String(json, UTF_8), Operation.class);
+    }
+
+    private static byte[] idOf(List<Segment> segments, long location) {
+        ByteBuffer body = segments.get((int) (location >>> 32)).body(offsetOf(location));
+        body.position(body.position() + 8);
+        byte[] id = new byte[body.getShort()];
+        body.get(id);
+        return id;
+    }
+
+    private Segment segmentOf(long location) {
+        return segments.get((int) (location >>> 32));
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("store is closed");
+        }
+    }
+
+    private static long location(int segment, int offset) {
+        return (long) segment << 32 | offset;
+    }
+
+    private static int offsetOf(long location) {
+        return (int) location;
+    }
+
+    /**
+     * Record body: {@code [long datetime][short id length][id][short label length or -1][label][operation JSON]}.
+     */
+    private static byte[] encode(Operation operation) {
+        byte[] id = encodeString(checkNotNull(operation.operationId, "operationId"));
+        byte[] label = operation.label == null ? null : encodeString(operation.label);
+        byte[] json = GsonProvider.getGson().toJson(operation).getBytes(UTF_8);
+        if (id.length > Short.MAX_VALUE || label != null && label.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("operation ID or label is too long");
+        }
+        ByteBuffer body = ByteBuffer.allocate(8 + 2 + id.length + 2 + (label == null ? 0 : label.length) + json.length);
+        body.putLong(checkNotNull(operation.datetime, "datetime").getMillis());
+        body.putShort((short) id.length).put(id);
+        if (label == null) {
+            body.putShort((short) -1);
+        } else {
+            body.putShort((short) label.length).put(label);
+        }
+        return body.put(json).array();
+    }
+
+    private static byte[] encodeString(String value) {
+        return value.getBytes(UTF_8);
+    }
+
+    private static String readString(ByteBuffer body) {
+        int length = body.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        body.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static void skipString(ByteBuffer body) {
+        int length = body.getShort();
+        body.position(body.position() + Math.max(length, 0));
+    }
+
+    private static void closeSegments(List<Segment> segments) throws IOException {
+        IOException error = null;
+        for (Segment segment : segments) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Indexes of records. Secondary indexes are append-only, superseded locations are filtered out on reads.
+     */
+    private static final class Indexes {
+
+        final OperationIndex operations;
+        final Map<String, Locations> labels = new HashMap<>();
+        final NavigableMap<Long, Locations> datetimes = new TreeMap<>();
+
+        Indexes(int expectedSize) {
+            operations = new OperationIndex(expectedSize);
+        }
+
+        /**
+         * @return previous location of the operation or {@code -1}
+         */
+        long add(long location, ByteBuffer body, OperationIndex.Keys keys) {
+            long datetime = body.getLong();
+            byte[] id = new byte[body.getShort()];
+            body.get(id);
+            String label = readString(body);
+
+            long previous = operations.put(id, location, keys);
+            if (label != null) {
+                Locations locations = labels.get(label);
+                if (locations == null) {
+                    locations = new Locations();
+                    labels.put(label, locations);
+                }
+                locations.add(location);
+            }
+            Locations locations = datetimes.get(datetime);
+            if (locations == null) {
+                locations = new Locations();
+                datetimes.put(datetime, locations);
+            }
+            locations.add(location);
+            return previous;
+        }
+    }
+
+    private static final class Locations {
+
+        long[] values = new long[2];
+        int size;
+
+        void add(long location) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = location;
+        }
+    }
+
+    /**
+     * Creates {@link OperationStore}.
+     */
+    public static final class Builder {
+
+        final File directory;
+        int segmentSize = 64 * 1024 * 1024;
+
+        /**
+         * Constructor.
+         *
+         * @param directory directory of segments, created if it does not exist
+         */
+        public Builder(File directory) {
+            this.directory = checkNotNull(directory, "directory");
+        }
+
+        /**
+         * Sets size of a segment file. Default value is 64 MiB.
+         *
+         * @param segmentSize size of a segment in bytes, at least 4 KiB
+         * @return itself
+         */
+        public Builder setSegmentSize(int segmentSize) {
+            if (segmentSize < 4096) {
+                throw new IllegalArgumentException("segmentSize must be at least 4096 bytes");
+            }
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /**
+         * Opens the store.
+         *
+         * @return operation store
+         * @throws IOException if segments could not be opened
+         */
+        public OperationStore create() throws IOException {
+            return new OperationStore(this);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.history;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Memory-mapped file of {@link OperationStore} records. A record is {@code [int size][int crc][body]}, records follow
+ * each other and a zero size marks the end of the segment. The size is written last, so a record becomes visible only
+ * when it is complete; records that were torn by a crash are detected by their checksum and discarded on open.
+ */
+final class Segment implements Closeable {
+
+    static final int HEADER_SIZE = 8;
+
+    final int number;
+    final File file;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private int size;
+
+    private Segment(int number, File file, FileChannel channel, MappedByteBuffer buffer) {
+        this.number = number;
+        this.file = file;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Opens a segment creating its file if necessary. Existing records should be recovered with
+     * {@link #recover(Visitor)} before appending.
+     */
+    static Segment open(File file, int number, int capacity) throws IOException {
+        FileChannel channel = new RandomAccessFile(file, "rw").getChannel();
+        try {
+            long length = Math.max(channel.size(), capacity);
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("segment is too large: " + file);
+            }
+            return new Segment(number, file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, length));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @return offset of the record or {@code -1} if the segment has no room for it
+     */
+    int append(byte[] body) {
+        int offset = size;
+        if ((long) offset + HEADER_SIZE + body.length > buffer.capacity()) {
+            return -1;
+        }
+        ByteBuffer target = buffer.duplicate();
+        target.position(offset + HEADER_SIZE);
+        target.put(body);
+        buffer.putInt(offset + 4, checksum(body, 0, body.length));
+        buffer.putInt(offset, body.length);
+        size = offset + HEADER_SIZE + body.length;
+        return offset;
+    }
+
+    /**
+     * @return body of the record at specified offset; the buffer is positioned at the start of the body
+     */
+    ByteBuffer body(int offset) {
+        ByteBuffer body = buffer.duplicate();
+        body.limit(offset + HEADER_SIZE + buffer.getInt(offset));
+        body.position(offset + HEADER_SIZE);
+        return body;
+    }
+
+    /**
+     * @return size of the record at specified offset including its header
+     */
+    int recordSize(int offset) {
+        return HEADER_SIZE + buffer.getInt(offset);
+    }
+
+    /**
+     * @return number of bytes used by records
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Writes records to the storage device.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Closes the segment and releases its mapping, so the file can be deleted and its space reclaimed. Buffers returned
+     * by {@link #body(int)} must not be used after that.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            channel.close();
+        } finally {
+            Unmapper.unmap(buffer);
+        }
+    }
+
+    /**
+     * Finds the end of existing records and passes valid ones to the visitor.
+     */
+    void recover(Visitor visitor) {
+        int offset = 0;
+        int capacity = buffer.capacity();
+        while (offset + HEADER_SIZE <= capacity) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || (long) offset + HEADER_SIZE + length > capacity || !isValid(offset, length)) {
+                // end or torn record: pages are written back in any order, so records after a lost header can survive
+                // a crash; discard everything after it, so next appends start from a clean tail
+                clearTail(offset);
+                break;
+            }
+            visitor.visit(this, offset);
+            offset += HEADER_SIZE + length;
+        }
+        size = offset;
+    }
+
+    /**
+     * Zeroes the buffer from an offset. Pages that are already zero are only read, so a clean tail is not written.
+     */
+    private void clearTail(int offset) {
+        int capacity = buffer.capacity();
+        int i = offset;
+        for (; i + 8 <= capacity; i += 8) {
+            if (buffer.getLong(i) != 0L) {
+                buffer.putLong(i, 0L);
+            }
+        }
+        for (; i < capacity; ++i) {
+            if (buffer.get(i) != 0) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+    }
+
+    private boolean isValid(int offset, int length) {
+        ByteBuffer body = buffer.duplicate();
+        body.position(offset + HEADER_SIZE);
+        byte[] bytes = new byte[length];
+        body.get(bytes);
+        return buffer.getInt(offset + 4) == checksum(bytes, 0, length);
+    }
+
+    private static int checksum(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    interface Visitor {
+        void visit(Segment segment, int offset);
+    }
+
+    /**
+     * Releases mappings without waiting for garbage collection. Java has no public API for that, so
+     * {@code sun.misc.Unsafe#invokeCleaner} is used on Java 9 and later and the buffer's cleaner on earlier versions.
+     * If neither is accessible, a mapping is released when its buffer is garbage collected; until then the space of a
+     * deleted segment is not reclaimed and, on Windows, the file can not be deleted.
+     */
+    private static final class Unmapper {
+
+        private static final Object UNSAFE;
+        private static final Method INVOKE_CLEANER;
+
+        static {
+            Object unsafe = null;
+            Method invokeCleaner = null;
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field field = unsafeClass.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                unsafe = field.get(null);
+            } catch (Exception e) {
+                // Java 8 and earlier, the buffer's cleaner is used
+                invokeCleaner = null;
+            }
+            UNSAFE = unsafe;
+            INVOKE_CLEANER = invokeCleaner;
+        }
+
+        static void unmap(MappedByteBuffer buffer) {
+            try {
+                if (INVOKE_CLEANER != null) {
+                    INVOKE_CLEANER.invoke(UNSAFE, buffer);
+                    return;
+                }
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            } catch (Exception e) {
+                // released by garbage collection
+            }
+        }
+    }
+}
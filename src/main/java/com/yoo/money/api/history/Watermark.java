@@ -0,0 +1,119 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.history;
+
+import com.yoo.money.api.model.Operation;
+import com.yoo.money.api.time.DateTime;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static com.yoo.money.api.util.Common.checkNotNull;
+
+/**
+ * Position of {@link HistorySync} in a wallet's operation history: the time of the newest known operation, IDs of
+ * operations made at that time and operations that are still in progress.
+ * <p>
+ * Instances are immutable.
+ */
+public final class Watermark {
+
+    /**
+     * Watermark of a wallet that was never synchronized.
+     */
+    public static final Watermark EMPTY = new Watermark(null, Collections.<String>emptySet(),
+            Collections.<String, DateTime>emptyMap());
+
+    /**
+     * Time of the newest known operation, {@code null} if no operations are known.
+     */
+    public final DateTime datetime;
+
+    /**
+     * IDs of known operations made at {@link #datetime}.
+     */
+    public final Set<String> operationIds;
+
+    /**
+     * Times when known operations that are in progress were found, by operation ID.
+     */
+    public final Map<String, DateTime> pending;
+
+    public Watermark(DateTime datetime, Set<String> operationIds, Map<String, DateTime> pending) {
+        this.datetime = datetime == null ? null : DateTime.from(datetime.getMillis());
+        this.operationIds = Collections.unmodifiableSet(new HashSet<>(checkNotNull(operationIds, "operationIds")));
+        Map<String, DateTime> copy = new HashMap<>();
+        for (Map.Entry<String, DateTime> entry : checkNotNull(pending, "pending").entrySet()) {
+            copy.put(entry.getKey(), DateTime.from(entry.getValue().getMillis()));
+        }
+        this.pending = Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * Checks if an operation is older than the watermark or is one of the operations made at the watermark's time.
+     *
+     * @param operation operation
+     * @return {@code true} if the operation was seen already
+     */
+    boolean isSeen(Operation operation) {
+        if (datetime == null) {
+            return false;
+        }
+        long millis = operation.datetime.getMillis();
+        return millis < datetime.getMillis()
+                || millis == datetime.getMillis() && operationIds.contains(operation.operationId);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        Watermark that = (Watermark) o;
+
+        return (datetime != null ? datetime.equals(that.datetime) : that.datetime == null)
+                && operationIds.equals(that.operationIds) && pending.equals(that.pending);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = datetime != null ? datetime.hashCode() : 0;
+        result = 31 * result + operationIds.hashCode();
+        result = 31 * result + pending.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "Watermark{" +
+                "datetime=" + datetime +
+                ", operationIds=" + operationIds +
+                ", pending=" + pending +
+                '}';
+    }
+}
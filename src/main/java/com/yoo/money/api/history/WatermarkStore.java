@@ -0,0 +1,54 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.history;
+
+import java.io.IOException;
+
+/**
+ * Storage of {@link Watermark}s used by {@link HistorySync}. Implementations should be thread safe.
+ *
+ * @see MemoryWatermarkStore
+ * @see FileWatermarkStore
+ */
+public interface WatermarkStore {
+
+    /**
+     * Loads a watermark of a wallet.
+     *
+     * @param walletId wallet ID
+     * @return watermark or {@code null} if there is no watermark for the wallet
+     * @throws IOException if the watermark could not be loaded
+     */
+    Watermark load(String walletId) throws IOException;
+
+    /**
+     * Saves a watermark of a wallet replacing the previous one.
+     *
+     * @param walletId wallet ID
+     * @param watermark watermark
+     * @throws IOException if the watermark could not be saved
+     */
+    void save(String walletId, Watermark watermark) throws IOException;
+}
@@ -27,6 +27,7 @@ package com.yoo.money.api.methods.payment;
 import com.google.gson.annotations.SerializedName;
 import com.yoo.money.api.model.ExternalCard;
 import com.yoo.money.api.net.FirstApiRequest;
+import com.yoo.money.api.net.IdempotentRequest;
 import com.yoo.money.api.net.providers.HostsProvider;
 
 import static com.yoo.money.api.util.Common.checkNotEmpty;
@@ -80,7 +81,7 @@ public class ProcessExternalPayment extends BaseProcessPayment {
     /**
      * Request for processing external payment.
      */
-    public static final class Request extends FirstApiRequest<ProcessExternalPayment> {
+    public static final class Request extends FirstApiRequest<ProcessExternalPayment> implements IdempotentRequest {
 
         /**
          * For paying with a new card.
@@ -29,6 +29,7 @@ import com.yoo.money.api.model.DigitalGoods;
 import com.yoo.money.api.model.Error;
 import com.yoo.money.api.model.MoneySource;
 import com.yoo.money.api.net.FirstApiRequest;
+import com.yoo.money.api.net.IdempotentRequest;
 import com.yoo.money.api.net.providers.HostsProvider;
 import com.yoo.money.api.util.Enums;
 
@@ -223,7 +224,7 @@ public class ProcessPayment extends BaseProcessPayment {
      * <p/>
      * Authorized session required.
      */
-    public static final class Request extends FirstApiRequest<ProcessPayment> {
+    public static final class Request extends FirstApiRequest<ProcessPayment> implements IdempotentRequest {
 
         /**
          * Repeat request using the same request id. This is used when {@link ProcessPayment} is in
@@ -34,6 +34,7 @@ import com.yoo.money.api.model.Card;
 import com.yoo.money.api.model.Currency;
 import com.yoo.money.api.model.Identifiable;
 import com.yoo.money.api.net.FirstApiRequest;
+import com.yoo.money.api.net.IdempotentRequest;
 import com.yoo.money.api.net.providers.HostsProvider;
 import com.yoo.money.api.typeadapters.model.BonusBalanceTypeAdapter;
 import com.yoo.money.api.typeadapters.model.NumericCurrencyTypeAdapter;
@@ -291,7 +292,7 @@ public class AccountInfo implements Identifiable {
      * <p/>
      * Authorized session required.
      */
-    public static final class Request extends FirstApiRequest<AccountInfo> {
+    public static final class Request extends FirstApiRequest<AccountInfo> implements IdempotentRequest {
 
         public Request() {
             super(AccountInfo.class);
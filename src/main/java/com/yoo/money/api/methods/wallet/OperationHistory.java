@@ -28,6 +28,7 @@ import com.google.gson.annotations.SerializedName;
 import com.yoo.money.api.model.Error;
 import com.yoo.money.api.model.Operation;
 import com.yoo.money.api.net.FirstApiRequest;
+import com.yoo.money.api.net.IdempotentRequest;
 import com.yoo.money.api.net.providers.HostsProvider;
 import com.yoo.money.api.time.DateTime;
 import com.yoo.money.api.util.Enums;
@@ -137,7 +138,7 @@ public class OperationHistory {
      * <p/>
      * Authorized session required.
      */
-    public static class Request extends FirstApiRequest<OperationHistory> {
+    public static class Request extends FirstApiRequest<OperationHistory> implements IdempotentRequest {
 
         /**
          * Use builder to create the request.
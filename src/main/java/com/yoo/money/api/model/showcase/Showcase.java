@@ -24,7 +24,6 @@
 
 package com.yoo.money.api.model.showcase;
 
-import com.yoo.money.api.exceptions.ResourceNotFoundException;
 import com.yoo.money.api.model.AllowedMoneySource;
 import com.yoo.money.api.model.showcase.components.containers.Group;
 import com.yoo.money.api.net.BaseApiRequest;
@@ -34,9 +33,7 @@ import com.yoo.money.api.time.DateTime;
 import com.yoo.money.api.typeadapters.model.showcase.ShowcaseTypeAdapter;
 import com.yoo.money.api.util.HttpHeaders;
 
-import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -44,7 +41,6 @@ import java.util.Map;
 
 import static com.yoo.money.api.util.Common.checkNotNull;
 import static com.yoo.money.api.util.Responses.parseDateHeader;
-import static com.yoo.money.api.util.Responses.processError;
 
 /**
  * @author Aleksandr Ershov (support@yoomoney.ru)
@@ -210,38 +206,29 @@ public final class Showcase {
 
         @Override
         protected String requestUrlBase(HostsProvider hostsProvider) {
-            return url == null ? hostsProvider.getMoneyApi() + "/showcase/" + patternId : url;
+            return url == null ? ShowcaseResponses.showcaseUrl(hostsProvider, patternId) : url;
         }
 
         @Override
         public ShowcaseContext parse(HttpClientResponse response) throws Exception {
-            InputStream inputStream = null;
-            try {
-                switch (response.getCode()) {
-                    case HttpURLConnection.HTTP_MULT_CHOICE:
-                        DateTime dateModified = parseDateHeader(response, HttpHeaders.LAST_MODIFIED);
-                        final String location = response.getHeader(HttpHeaders.LOCATION);
-
-                        inputStream = response.getByteStream();
-                        Showcase showcase = ShowcaseTypeAdapter.getInstance().fromJson(inputStream);
-                        ShowcaseContext showcaseContext = new ShowcaseContext(showcase, location, dateModified);
-                        showcaseContext.setState(ShowcaseContext.State.HAS_NEXT_STEP);
-                        return showcaseContext;
-                    case HttpURLConnection.HTTP_NOT_MODIFIED: {
-                        return new ShowcaseContext(ShowcaseContext.State.NOT_MODIFIED);
-                    }
-                    case HttpURLConnection.HTTP_MOVED_PERM:
-                        // todo create new request and call it
-                    case HttpURLConnection.HTTP_NOT_FOUND:
-                        throw new ResourceNotFoundException(response.getUrl());
-                    default:
-                        throw new IOException(processError(response));
+            return ShowcaseResponses.parse(response, new ShowcaseResponses.Handler<ShowcaseContext>() {
+                @Override
+                public ShowcaseContext onShowcase(HttpClientResponse response, InputStream inputStream)
+                        throws Exception {
+                    DateTime dateModified = parseDateHeader(response, HttpHeaders.LAST_MODIFIED);
+                    String location = response.getHeader(HttpHeaders.LOCATION);
+
+                    Showcase showcase = ShowcaseTypeAdapter.getInstance().fromJson(inputStream);
+                    ShowcaseContext showcaseContext = new ShowcaseContext(showcase, location, dateModified);
+                    showcaseContext.setState(ShowcaseContext.State.HAS_NEXT_STEP);
+                    return showcaseContext;
                 }
-            } finally {
-                if (inputStream != null) {
-                    inputStream.close();
+
+                @Override
+                public ShowcaseContext onNotModified() {
+                    return new ShowcaseContext(ShowcaseContext.State.NOT_MODIFIED);
                 }
-            }
+            });
         }
     }
 }
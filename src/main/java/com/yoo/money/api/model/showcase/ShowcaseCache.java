@@ -0,0 +1,279 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.model.showcase;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.yoo.money.api.exceptions.HttpStatusException;
+import com.yoo.money.api.net.BaseApiRequest;
+import com.yoo.money.api.net.HttpClientResponse;
+import com.yoo.money.api.net.IdempotentRequest;
+import com.yoo.money.api.net.clients.ApiClient;
+import com.yoo.money.api.net.providers.HostsProvider;
+import com.yoo.money.api.time.DateTime;
+import com.yoo.money.api.typeadapters.model.showcase.ShowcaseTypeAdapter;
+import com.yoo.money.api.util.HttpHeaders;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.yoo.money.api.util.Common.checkNotEmpty;
+import static com.yoo.money.api.util.Common.checkNotNull;
+import static com.yoo.money.api.util.Responses.parseOptionalDateHeader;
+
+/**
+ * Cache of showcases retrieved with {@link Showcase.Request}. Controls of a showcase keep values entered by a user,
+ * so parsed showcases are never shared: the cache keeps a JSON template of each showcase and every call gets its own
+ * {@link ShowcaseContext} built from the template without downloading and tokenizing the showcase again.
+ * <p>
+ * A template is used without asking a server for {@link Builder#setMaxAge(long, TimeUnit)}. After that it is
+ * revalidated with If-Modified-Since header, so unchanged showcases are not downloaded again.
+ * <p>
+ * Showcases are localized by a client's language, so templates are kept per language and payment pattern ID. The cache
+ * is thread safe and can be shared by several clients, including clients with different languages.
+ */
+public final class ShowcaseCache {
+
+    private final long maxAgeNanos;
+    private final Map<String, Template> templates;
+
+    ShowcaseCache(final Builder builder) {
+        maxAgeNanos = builder.maxAgeNanos;
+        templates = new LinkedHashMap<String, Template>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Template> eldest) {
+                return size() > builder.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Gets a showcase by payment pattern ID.
+     *
+     * @param client client to use if the showcase is not cached or has to be revalidated
+     * @param patternId payment pattern ID
+     * @return new context of the showcase
+     * @see Showcase.Request#Request(String)
+     */
+    public ShowcaseContext getShowcase(ApiClient client, String patternId) throws Exception {
+        checkNotNull(client, "client");
+        checkNotEmpty(patternId, "patternId");
+
+        // language codes have no spaces, so a key is split at the first one
+        String key = client.getLanguage().iso6391Code + ' ' + patternId;
+        Template cached = get(key);
+        if (cached != null && System.nanoTime() - cached.validated < maxAgeNanos) {
+            return cached.newContext();
+        }
+
+        DateTime lastModified = cached == null ? null : cached.lastModified;
+        Template template = client.execute(new TemplateRequest(patternId, lastModified));
+        if (template == null) {
+            if (lastModified == null) {
+                throw new HttpStatusException(HttpURLConnection.HTTP_NOT_MODIFIED,
+                        "not modified response to unconditional request of showcase " + patternId);
+            }
+            template = cached.revalidate();
+        }
+        put(key, template);
+        return template.newContext();
+    }
+
+    /**
+     * Gets a showcase by showcase ID.
+     *
+     * @param client client to use if the showcase is not cached or has to be revalidated
+     * @param scid showcase ID
+     * @return new context of the showcase
+     * @see Showcase.Request#Request(long)
+     */
+    public ShowcaseContext getShowcase(ApiClient client, long scid) throws Exception {
+        return getShowcase(client, String.valueOf(scid));
+    }
+
+    /**
+     * Removes a showcase in all languages from the cache.
+     *
+     * @param patternId payment pattern ID or showcase ID
+     */
+    public synchronized void remove(String patternId) {
+        checkNotNull(patternId, "patternId");
+        Iterator<String> iterator = templates.keySet().iterator();
+        while (iterator.hasNext()) {
+            String key = iterator.next();
+            if (key.substring(key.indexOf(' ') + 1).equals(patternId)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes all showcases from the cache.
+     */
+    public synchronized void clear() {
+        templates.clear();
+    }
+
+    /**
+     * @return number of cached showcases
+     */
+    public synchronized int size() {
+        return templates.size();
+    }
+
+    private synchronized Template get(String key) {
+        return templates.get(key);
+    }
+
+    private synchronized void put(String key, Template template) {
+        templates.put(key, template);
+    }
+
+    /**
+     * Immutable template of a showcase.
+     */
+    private static final class Template {
+
+        final JsonElement json;
+        final String submitUrl;
+        final DateTime lastModified;
+        final long validated;
+
+        Template(JsonElement json, String submitUrl, DateTime lastModified, long validated) {
+            this.json = json;
+            this.submitUrl = submitUrl;
+            this.lastModified = lastModified;
+            this.validated = validated;
+        }
+
+        Template revalidate() {
+            return new Template(json, submitUrl, lastModified, System.nanoTime());
+        }
+
+        ShowcaseContext newContext() {
+            Showcase showcase = ShowcaseTypeAdapter.getInstance().fromJson(json);
+            ShowcaseContext context = new ShowcaseContext(showcase, submitUrl,
+                    lastModified == null ? DateTime.now() : lastModified);
+            context.setState(ShowcaseContext.State.HAS_NEXT_STEP);
+            return context;
+        }
+    }
+
+    /**
+     * Retrieves a template of a showcase. Returns {@code null} if the showcase was not modified.
+     */
+    private static final class TemplateRequest extends BaseApiRequest<Template> implements IdempotentRequest {
+
+        private static final Charset UTF8 = Charset.forName("UTF-8");
+
+        private final String patternId;
+
+        TemplateRequest(String patternId, DateTime lastModified) {
+            this.patternId = patternId;
+            addHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+        }
+
+        @Override
+        public Method getMethod() {
+            return Method.GET;
+        }
+
+        @Override
+        protected String requestUrlBase(HostsProvider hostsProvider) {
+            return ShowcaseResponses.showcaseUrl(hostsProvider, patternId);
+        }
+
+        @Override
+        public Template parse(HttpClientResponse response) throws Exception {
+            return ShowcaseResponses.parse(response, new ShowcaseResponses.Handler<Template>() {
+                @Override
+                public Template onShowcase(HttpClientResponse response, InputStream inputStream) throws Exception {
+                    DateTime lastModified = parseOptionalDateHeader(response, HttpHeaders.LAST_MODIFIED);
+                    JsonElement json = new JsonParser().parse(new InputStreamReader(inputStream, UTF8));
+                    return new Template(json, response.getHeader(HttpHeaders.LOCATION), lastModified,
+                            System.nanoTime());
+                }
+
+                @Override
+                public Template onNotModified() {
+                    return null;
+                }
+            });
+        }
+    }
+
+    /**
+     * Creates {@link ShowcaseCache}.
+     */
+    public static final class Builder {
+
+        int maxSize = 512;
+        long maxAgeNanos = TimeUnit.MINUTES.toNanos(10L);
+
+        /**
+         * Sets maximum number of cached showcases. Default value is 512.
+         *
+         * @param maxSize maximum number of showcases
+         * @return itself
+         */
+        public Builder setMaxSize(int maxSize) {
+            if (maxSize < 1) {
+                throw new IllegalArgumentException("maxSize must be positive");
+            }
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        /**
+         * Sets time during which a showcase is used without revalidation. Default value is 10 minutes.
+         *
+         * @param maxAge time to use a showcase without revalidation, {@code 0} to revalidate on every call
+         * @param unit time unit
+         * @return itself
+         */
+        public Builder setMaxAge(long maxAge, TimeUnit unit) {
+            if (maxAge < 0L) {
+                throw new IllegalArgumentException("maxAge must not be negative");
+            }
+            this.maxAgeNanos = checkNotNull(unit, "unit").toNanos(maxAge);
+            return this;
+        }
+
+        /**
+         * Creates instance of {@link ShowcaseCache}.
+         *
+         * @return showcase cache
+         */
+        public ShowcaseCache create() {
+            return new ShowcaseCache(this);
+        }
+    }
+}
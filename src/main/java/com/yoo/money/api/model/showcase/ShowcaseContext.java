@@ -28,6 +28,7 @@ import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
 import com.google.gson.JsonSerializationContext;
+import com.yoo.money.api.exceptions.HttpStatusException;
 import com.yoo.money.api.exceptions.ResourceNotFoundException;
 import com.yoo.money.api.methods.payment.RequestExternalPayment;
 import com.yoo.money.api.methods.payment.RequestPayment;
@@ -41,7 +42,6 @@ import com.yoo.money.api.typeadapters.JsonUtils;
 import com.yoo.money.api.typeadapters.model.showcase.ShowcaseTypeAdapter;
 import com.yoo.money.api.util.HttpHeaders;
 
-import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
@@ -352,7 +352,7 @@ public final class ShowcaseContext {
                     case HttpURLConnection.HTTP_NOT_FOUND:
                         throw new ResourceNotFoundException(response.getUrl());
                     default:
-                        throw new IOException(processError(response));
+                        throw new HttpStatusException(response.getCode(), processError(response));
                 }
             } finally {
                 if (inputStream != null) {
@@ -0,0 +1,106 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.model.showcase;
+
+import com.yoo.money.api.exceptions.HttpStatusException;
+import com.yoo.money.api.exceptions.ResourceNotFoundException;
+import com.yoo.money.api.net.HttpClientResponse;
+import com.yoo.money.api.net.providers.HostsProvider;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+
+import static com.yoo.money.api.util.Responses.processError;
+
+/**
+ * URL and response handling shared by requests of showcases.
+ */
+final class ShowcaseResponses {
+
+    private ShowcaseResponses() {
+        // prevents instantiating of this class
+    }
+
+    /**
+     * Gets URL of a showcase.
+     *
+     * @param hostsProvider hosts provider
+     * @param patternId payment pattern ID or showcase ID
+     * @return URL of the showcase
+     */
+    static String showcaseUrl(HostsProvider hostsProvider, String patternId) {
+        return hostsProvider.getMoneyApi() + "/showcase/" + patternId;
+    }
+
+    /**
+     * Parses a response to a showcase request. A showcase comes with 300 (Multiple Choices), 304 (Not Modified) means
+     * that a showcase has not changed since If-Modified-Since date. Other statuses are reported as exceptions.
+     *
+     * @param response response to parse
+     * @param handler handler of a response
+     * @return result of the handler
+     */
+    static <T> T parse(HttpClientResponse response, Handler<T> handler) throws Exception {
+        switch (response.getCode()) {
+            case HttpURLConnection.HTTP_MULT_CHOICE:
+                InputStream inputStream = response.getByteStream();
+                try {
+                    return handler.onShowcase(response, inputStream);
+                } finally {
+                    inputStream.close();
+                }
+            case HttpURLConnection.HTTP_NOT_MODIFIED:
+                return handler.onNotModified();
+            case HttpURLConnection.HTTP_MOVED_PERM:
+                // todo create new request and call it
+            case HttpURLConnection.HTTP_NOT_FOUND:
+                throw new ResourceNotFoundException(response.getUrl());
+            default:
+                throw new HttpStatusException(response.getCode(), processError(response));
+        }
+    }
+
+    /**
+     * Handler of a showcase response.
+     */
+    interface Handler<T> {
+
+        /**
+         * Called when a response contains a showcase.
+         *
+         * @param response response
+         * @param inputStream stream of a showcase, closed after this call
+         * @return result of a request
+         */
+        T onShowcase(HttpClientResponse response, InputStream inputStream) throws Exception;
+
+        /**
+         * Called when a showcase was not modified.
+         *
+         * @return result of a request
+         */
+        T onNotModified();
+    }
+}
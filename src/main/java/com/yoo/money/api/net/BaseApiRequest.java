@@ -51,10 +51,22 @@ public abstract class BaseApiRequest<T> implements ApiRequest<T> {
 
     private transient byte[] body;
 
+    /**
+     * Encoded parameters, reset when parameters change.
+     */
+    private transient String encodedQuery;
+    private transient byte[] encodedBody;
+
     @Override
     public final String requestUrl(HostsProvider hostsProvider) {
         String url = requestUrlBase(hostsProvider);
-        return getMethod().supportsRequestBody() ? url : url + buffer.setParameters(parameters).prepareGet();
+        if (getMethod().supportsRequestBody()) {
+            return url;
+        }
+        if (encodedQuery == null) {
+            encodedQuery = buffer.setParameters(parameters).prepareGet();
+        }
+        return url + encodedQuery;
     }
 
     @Override
@@ -70,7 +82,14 @@ public abstract class BaseApiRequest<T> implements ApiRequest<T> {
     @Override
     public final byte[] getBody() {
         prepareBody();
-        return body == null ? buffer.setParameters(parameters).prepareBytes() : body;
+        if (body != null) {
+            return body;
+        }
+        if (encodedBody == null) {
+            encodedBody = buffer.setParameters(parameters).prepareBytes();
+        }
+        // the encoded body is reused by later calls, return a copy to keep it intact
+        return encodedBody.clone();
     }
 
     @Override
@@ -124,7 +143,10 @@ public abstract class BaseApiRequest<T> implements ApiRequest<T> {
      * @param value value
      */
     protected final void addParameter(String key, String value) {
-        parameters.put(key, value);
+        String previous = parameters.put(key, value);
+        if (previous == null ? value != null : !previous.equals(value)) {
+            resetEncodedParameters();
+        }
     }
 
     /**
@@ -194,6 +216,7 @@ public abstract class BaseApiRequest<T> implements ApiRequest<T> {
      */
     protected final void addParameters(Map<String, String> parameters) {
         this.parameters.putAll(parameters);
+        resetEncodedParameters();
     }
 
     /**
@@ -223,4 +246,9 @@ public abstract class BaseApiRequest<T> implements ApiRequest<T> {
     @SuppressWarnings("WeakerAccess")
     protected void prepareBody() {
     }
+
+    private void resetEncodedParameters() {
+        encodedQuery = null;
+        encodedBody = null;
+    }
 }
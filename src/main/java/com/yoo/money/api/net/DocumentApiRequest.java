@@ -24,18 +24,20 @@
 
 package com.yoo.money.api.net;
 
+import com.yoo.money.api.exceptions.HttpStatusException;
 import com.yoo.money.api.exceptions.ResourceNotFoundException;
 import com.yoo.money.api.time.DateTime;
 import com.yoo.money.api.typeadapters.TypeAdapter;
 import com.yoo.money.api.util.HttpHeaders;
 import com.yoo.money.api.util.Responses;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 
 import static com.yoo.money.api.util.Common.checkNotNull;
-import static com.yoo.money.api.util.Responses.parseDateHeader;
+import static com.yoo.money.api.util.Responses.parseOptionalDateHeader;
 import static com.yoo.money.api.util.Responses.processError;
 
 /**
@@ -49,12 +51,19 @@ import static com.yoo.money.api.util.Responses.processError;
  * <p>If server returns HTTP status code 404 (Not Found) then {@link ResourceNotFoundException} is thrown.</p>
  *
  * <p>In other cases {@link IOException} is thrown</p>.
+ *
+ * <p>Use {@link DocumentCache} to keep documents between calls and revalidate them with conditional requests.</p>
  */
 public abstract class DocumentApiRequest<T> extends BaseApiRequest<HttpResourceResponse<T>> {
 
     private final Class<T> cls;
     private final TypeAdapter<T> typeAdapter;
 
+    /**
+     * {@code true} if If-Modified-Since header was set by {@link DocumentCache}.
+     */
+    private transient boolean cacheCondition;
+
     public DocumentApiRequest(Class<T> cls) {
         this.cls = cls;
         this.typeAdapter = null;
@@ -77,14 +86,14 @@ public abstract class DocumentApiRequest<T> extends BaseApiRequest<HttpResourceR
 
     @Override
     public final HttpResourceResponse<T> parse(HttpClientResponse response) throws Exception {
-        InputStream inputStream = null;
+        CountingInputStream inputStream = null;
         try {
             int responseCode = response.getCode();
             switch (responseCode) {
                 case HttpURLConnection.HTTP_OK:
                 case HttpURLConnection.HTTP_NOT_MODIFIED:
-                    DateTime lastModified = parseDateHeader(response, HttpHeaders.LAST_MODIFIED);
-                    DateTime expires = parseDateHeader(response, HttpHeaders.EXPIRES);
+                    DateTime lastModified = parseOptionalDateHeader(response, HttpHeaders.LAST_MODIFIED);
+                    DateTime expires = parseOptionalDateHeader(response, HttpHeaders.EXPIRES);
 
                     HttpResourceResponse.ResourceState resourceState =
                             HttpResourceResponse.ResourceState.NOT_MODIFIED;
@@ -94,15 +103,16 @@ public abstract class DocumentApiRequest<T> extends BaseApiRequest<HttpResourceR
                     if (responseCode == HttpURLConnection.HTTP_OK) {
                         resourceState = HttpResourceResponse.ResourceState.DOCUMENT;
                         contentType = response.getHeader(HttpHeaders.CONTENT_TYPE);
-                        inputStream = response.getByteStream();
+                        inputStream = new CountingInputStream(response.getByteStream());
                         document = Responses.parseJson(inputStream, cls, typeAdapter);
                     }
 
-                    return new HttpResourceResponse<>(resourceState, contentType, lastModified, expires, document);
+                    return new HttpResourceResponse<>(resourceState, contentType, lastModified, expires, document,
+                            inputStream == null ? 0L : inputStream.count);
                 case HttpURLConnection.HTTP_NOT_FOUND:
                     throw new ResourceNotFoundException(response.getUrl());
                 default:
-                    throw new IOException(processError(response));
+                    throw new HttpStatusException(response.getCode(), processError(response));
             }
         } finally {
             if (inputStream != null) {
@@ -110,4 +120,54 @@ public abstract class DocumentApiRequest<T> extends BaseApiRequest<HttpResourceR
             }
         }
     }
+
+    /**
+     * Makes the request conditional, so a server responds with 304 (Not Modified) if the document has not changed.
+     * If there is no cached document, removes a condition set by the cache before and keeps one set by the request.
+     *
+     * @param lastModified last modification time of a cached document or {@code null} if there is none
+     */
+    final void setCacheCondition(DateTime lastModified) {
+        if (lastModified != null) {
+            addHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+            cacheCondition = true;
+        } else if (cacheCondition) {
+            addHeader(HttpHeaders.IF_MODIFIED_SINCE, (DateTime) null);
+            cacheCondition = false;
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                ++count;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
 }
@@ -0,0 +1,252 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.net;
+
+import com.yoo.money.api.time.DateTime;
+import com.yoo.money.api.util.Language;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.yoo.money.api.util.Common.checkNotNull;
+
+/**
+ * Memory bounded cache of documents retrieved with {@link DocumentApiRequest}. Documents are keyed by language and
+ * request URL, since a server localizes documents by Accept-Language header, and evicted in least recently used order
+ * when their total size exceeds the limit. Size of a document is the number of bytes it took in a response.
+ * <p>
+ * A document is served from the cache until the time in its Expires header. After that the request is sent with
+ * If-Modified-Since header and the cached document is returned if the server responds with 304 (Not Modified).
+ * Documents without Last-Modified header are fetched again unconditionally. If-Modified-Since header set by a request
+ * itself is left intact when the cache has no document to revalidate.
+ * <p>
+ * The cache is thread safe and can be shared by several clients, including clients with different languages.
+ *
+ * @see com.yoo.money.api.net.clients.DefaultApiClient.Builder#setDocumentCache(DocumentCache)
+ */
+public final class DocumentCache {
+
+    private final long maxSize;
+    private final LinkedHashMap<String, HttpResourceResponse<?>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private long revalidationCount;
+    private long evictionCount;
+
+    /**
+     * Constructor.
+     *
+     * @param maxSize maximum total size of cached documents in bytes
+     */
+    public DocumentCache(long maxSize) {
+        if (maxSize <= 0L) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Gets a document that has not expired yet. If there is no such document, prepares the request to revalidate a
+     * stale copy of the document if the cache has one.
+     *
+     * @param request request to execute
+     * @param language language of the request
+     * @param url URL of the request
+     * @return cached document or {@code null} if the request must be executed
+     */
+    public synchronized <T> HttpResourceResponse<T> get(DocumentApiRequest<T> request, Language language, String url) {
+        HttpResourceResponse<T> cached = getEntry(keyOf(language, url));
+        if (cached != null && cached.expiresHeader != null && cached.expiresHeader.isAfter(DateTime.now())) {
+            ++hitCount;
+            return cached;
+        }
+        ++missCount;
+        request.setCacheCondition(cached == null ? null : cached.lastModifiedHeader);
+        return null;
+    }
+
+    /**
+     * Updates the cache with a response of a request.
+     *
+     * @param language language of the request
+     * @param url URL of the request
+     * @param response response of the request
+     * @return the response or a cached document if the response is 304 (Not Modified)
+     */
+    public synchronized <T> HttpResourceResponse<T> update(Language language, String url,
+                                                           HttpResourceResponse<T> response) {
+        String key = keyOf(language, url);
+        checkNotNull(response, "response");
+
+        if (response.hasDocument()) {
+            removeEntry(key);
+            if (response.size <= maxSize) {
+                entries.put(key, response);
+                size += response.size;
+                trimToSize();
+            }
+            return response;
+        }
+
+        HttpResourceResponse<T> cached = getEntry(key);
+        if (cached == null) {
+            return response;
+        }
+        ++revalidationCount;
+        HttpResourceResponse<T> revalidated = new HttpResourceResponse<>(HttpResourceResponse.ResourceState.DOCUMENT,
+                cached.contentType,
+                response.lastModifiedHeader == null ? cached.lastModifiedHeader : response.lastModifiedHeader,
+                response.expiresHeader, cached.document, cached.size);
+        entries.put(key, revalidated);
+        return revalidated;
+    }
+
+    /**
+     * Removes a document from the cache.
+     *
+     * @param language language of the request
+     * @param url URL of the request
+     */
+    public synchronized void remove(Language language, String url) {
+        removeEntry(keyOf(language, url));
+    }
+
+    /**
+     * Removes all documents from the cache.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        size = 0L;
+    }
+
+    /**
+     * @return statistics of the cache
+     */
+    public synchronized Stats getStats() {
+        return new Stats(entries.size(), size, maxSize, hitCount, missCount, revalidationCount, evictionCount);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> HttpResourceResponse<T> getEntry(String key) {
+        return (HttpResourceResponse<T>) entries.get(key);
+    }
+
+    private void removeEntry(String key) {
+        HttpResourceResponse<?> removed = entries.remove(key);
+        if (removed != null) {
+            size -= removed.size;
+        }
+    }
+
+    private static String keyOf(Language language, String url) {
+        return checkNotNull(language, "language").iso6391Code + ' ' + checkNotNull(url, "url");
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<String, HttpResourceResponse<?>>> iterator = entries.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            size -= iterator.next().getValue().size;
+            iterator.remove();
+            ++evictionCount;
+        }
+    }
+
+    /**
+     * Snapshot of cache statistics.
+     */
+    public static final class Stats {
+
+        /**
+         * Number of cached documents.
+         */
+        public final int documentCount;
+
+        /**
+         * Total size of cached documents in bytes.
+         */
+        public final long size;
+
+        /**
+         * Maximum total size of cached documents in bytes.
+         */
+        public final long maxSize;
+
+        /**
+         * Number of requests served from the cache without calling a server.
+         */
+        public final long hitCount;
+
+        /**
+         * Number of requests sent to a server.
+         */
+        public final long missCount;
+
+        /**
+         * Number of requests answered with 304 (Not Modified) and served from the cache.
+         */
+        public final long revalidationCount;
+
+        /**
+         * Number of documents evicted to stay within the size limit.
+         */
+        public final long evictionCount;
+
+        Stats(int documentCount, long size, long maxSize, long hitCount, long missCount, long revalidationCount,
+              long evictionCount) {
+            this.documentCount = documentCount;
+            this.size = size;
+            this.maxSize = maxSize;
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.revalidationCount = revalidationCount;
+            this.evictionCount = evictionCount;
+        }
+
+        /**
+         * @return share of requests served from the cache, including revalidated ones, or {@code 0} if there were
+         * no requests
+         */
+        public double getHitRate() {
+            long requests = hitCount + missCount;
+            return requests == 0L ? 0.0 : (double) (hitCount + revalidationCount) / requests;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "documentCount=" + documentCount +
+                    ", size=" + size +
+                    ", maxSize=" + maxSize +
+                    ", hitCount=" + hitCount +
+                    ", missCount=" + missCount +
+                    ", revalidationCount=" + revalidationCount +
+                    ", evictionCount=" + evictionCount +
+                    '}';
+        }
+    }
+}
@@ -24,6 +24,7 @@
 
 package com.yoo.money.api.net;
 
+import com.yoo.money.api.exceptions.HttpStatusException;
 import com.yoo.money.api.exceptions.InsufficientScopeException;
 import com.yoo.money.api.exceptions.InvalidRequestException;
 import com.yoo.money.api.exceptions.InvalidTokenException;
@@ -98,7 +99,7 @@ public abstract class FirstApiRequest<T> extends BaseApiRequest<T> {
                 case HttpURLConnection.HTTP_FORBIDDEN:
                     throw new InsufficientScopeException(processError(response));
                 default:
-                    throw new IOException(processError(response));
+                    throw new HttpStatusException(response.getCode(), processError(response));
             }
         } finally {
             if (inputStream != null) {
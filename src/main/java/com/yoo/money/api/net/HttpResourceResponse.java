@@ -60,14 +60,32 @@ public final class HttpResourceResponse<T> {
      */
     public final T document;
 
-    HttpResourceResponse(ResourceState resourceState, String contentType, DateTime lastModified,
-                         DateTime expires, T document) {
+    /**
+     * Last-Modified header as it was sent by a server or {@code null} if there was no such header.
+     */
+    final DateTime lastModifiedHeader;
+
+    /**
+     * Expires header as it was sent by a server or {@code null} if there was no such header.
+     */
+    final DateTime expiresHeader;
+
+    /**
+     * Size of the document in bytes.
+     */
+    final long size;
+
+    HttpResourceResponse(ResourceState resourceState, String contentType, DateTime lastModifiedHeader,
+                         DateTime expiresHeader, T document, long size) {
 
         this.resourceState = checkNotNull(resourceState, "resourceState");
-        this.lastModified = checkNotNull(lastModified, "lastModified");
+        this.lastModified = lastModifiedHeader == null ? DateTime.now() : lastModifiedHeader;
         this.contentType = contentType;
-        this.expires = expires;
+        this.expires = expiresHeader == null ? DateTime.now() : expiresHeader;
         this.document = document;
+        this.lastModifiedHeader = lastModifiedHeader;
+        this.expiresHeader = expiresHeader;
+        this.size = size;
     }
 
     public boolean hasDocument() {
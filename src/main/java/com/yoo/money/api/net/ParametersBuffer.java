@@ -26,11 +26,8 @@ package com.yoo.money.api.net;
 
 import com.yoo.money.api.util.Strings;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
 
@@ -39,6 +36,9 @@ import static com.yoo.money.api.util.Common.checkNotNull;
 /**
  * Buffers request parameters and creates request body for different methods. It also encodes keys
  * and values if needed using UTF-8 charset.
+ * <p>
+ * Encoding follows {@link java.net.URLEncoder} rules ({@code application/x-www-form-urlencoded}), but the result
+ * is written directly to a byte buffer reused by the calling thread.
  *
  * @author Slava Yasevich (support@yoomoney.ru)
  */
@@ -47,6 +47,43 @@ public final class ParametersBuffer {
     private static final String UTF8_NAME = "UTF-8";
     static final Charset UTF8_CHARSET = Charset.forName(UTF8_NAME);
 
+    private static final byte[] HEX_DIGITS = {
+            '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'
+    };
+
+    /**
+     * Characters that are not encoded, same as in {@link java.net.URLEncoder}.
+     */
+    private static final boolean[] SAFE = new boolean[128];
+
+    /**
+     * Buffers larger than this are not kept for reuse.
+     */
+    private static final int MAX_POOLED_SIZE = 8 * 1024;
+
+    private static final ThreadLocal<ByteSink> SINK = new ThreadLocal<ByteSink>() {
+        @Override
+        protected ByteSink initialValue() {
+            return new ByteSink();
+        }
+    };
+
+    static {
+        for (char c = 'a'; c <= 'z'; ++c) {
+            SAFE[c] = true;
+        }
+        for (char c = 'A'; c <= 'Z'; ++c) {
+            SAFE[c] = true;
+        }
+        for (char c = '0'; c <= '9'; ++c) {
+            SAFE[c] = true;
+        }
+        SAFE['.'] = true;
+        SAFE['-'] = true;
+        SAFE['*'] = true;
+        SAFE['_'] = true;
+    }
+
     private Map<String, String> params = Collections.emptyMap();
 
     /**
@@ -56,11 +93,9 @@ public final class ParametersBuffer {
      * @return UTF-8 byte array
      */
     public static byte[] encodeUtf8(String value) {
-        try {
-            return encode(value).getBytes(UTF8_CHARSET);
-        } catch (UnsupportedEncodingException e) {
-            throw new RuntimeException(e);
-        }
+        ByteSink sink = acquireSink();
+        sink.writeEncoded(value);
+        return sink.toByteArray();
     }
 
     /**
@@ -88,9 +123,9 @@ public final class ParametersBuffer {
      * @return url parameters
      */
     public String prepareGet() {
-        GetBuffer buffer = new GetBuffer();
-        iterate(buffer);
-        return buffer.toString();
+        ByteSink sink = acquireSink();
+        write(sink, true);
+        return sink.toAsciiString();
     }
 
     /**
@@ -102,21 +137,17 @@ public final class ParametersBuffer {
      * {@code params.put("key1", "value1");}<br/>
      * {@code params.put("key2", "value2");}
      * <p>
-     * Then the method will return byte array containing "?key1=value1&key2=value2".
+     * Then the method will return byte array containing "key1=value1&key2=value2".
      *
      * @return byte array of parameters
      */
     public byte[] prepareBytes() {
-        PostBuffer buffer = new PostBuffer();
-        iterate(buffer);
-        return buffer.getBytes();
-    }
-
-    static String encode(String value) throws UnsupportedEncodingException {
-        return URLEncoder.encode(value, UTF8_CHARSET.name());
+        ByteSink sink = acquireSink();
+        write(sink, false);
+        return sink.toByteArray();
     }
 
-    private void iterate(Buffer buffer) {
+    private void write(ByteSink sink, boolean query) {
         for (Map.Entry<String, String> param : params.entrySet()) {
             String key = param.getKey();
             if (Strings.isNullOrEmpty(key)) {
@@ -128,65 +159,132 @@ public final class ParametersBuffer {
                 continue;
             }
 
-            buffer.nextParameter(key, value);
+            if (sink.size > 0) {
+                sink.write((byte) '&');
+            } else if (query) {
+                sink.write((byte) '?');
+            }
+            sink.writeEncoded(key);
+            sink.write((byte) '=');
+            sink.writeEncoded(value);
         }
     }
 
-    private interface Buffer {
-        void nextParameter(String key, String value);
+    private static ByteSink acquireSink() {
+        ByteSink sink = SINK.get();
+        sink.size = 0;
+        return sink;
     }
 
-    private static final class GetBuffer implements Buffer {
+    private static final class ByteSink {
 
-        public final StringBuilder builder = new StringBuilder();
+        byte[] bytes = new byte[256];
+        int size;
 
-        GetBuffer() {
+        ByteSink() {
         }
 
-        @Override
-        public void nextParameter(String key, String value) {
-            try {
-                builder.append(builder.length() == 0 ? '?' : '&')
-                        .append(encode(key))
-                        .append('=')
-                        .append(encode(value));
-            } catch (UnsupportedEncodingException e) {
-                throw new RuntimeException(e);
-            }
+        void write(byte b) {
+            ensureCapacity(1);
+            bytes[size++] = b;
         }
 
-        @Override
-        public String toString() {
-            return builder.toString();
+        void writeEncoded(String value) {
+            int length = value.length();
+            int i = writeSafePrefix(value, length);
+            if (i == length) {
+                return;
+            }
+
+            // at most 3 UTF-8 bytes per char, each one encoded as %XX
+            ensureCapacity((length - i) * 9);
+            byte[] bytes = this.bytes;
+            int size = this.size;
+            while (i < length) {
+                char c = value.charAt(i++);
+                if (c < 0x80) {
+                    if (SAFE[c]) {
+                        bytes[size++] = (byte) c;
+                    } else if (c == ' ') {
+                        bytes[size++] = '+';
+                    } else {
+                        size = writePercent(bytes, size, c);
+                    }
+                } else if (c < 0x800) {
+                    size = writePercent(bytes, size, 0xc0 | (c >> 6));
+                    size = writePercent(bytes, size, 0x80 | (c & 0x3f));
+                } else if (!Character.isSurrogate(c)) {
+                    size = writePercent(bytes, size, 0xe0 | (c >> 12));
+                    size = writePercent(bytes, size, 0x80 | ((c >> 6) & 0x3f));
+                    size = writePercent(bytes, size, 0x80 | (c & 0x3f));
+                } else if (Character.isHighSurrogate(c) && i < length && Character.isLowSurrogate(value.charAt(i))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(i++));
+                    size = writePercent(bytes, size, 0xf0 | (codePoint >> 18));
+                    size = writePercent(bytes, size, 0x80 | ((codePoint >> 12) & 0x3f));
+                    size = writePercent(bytes, size, 0x80 | ((codePoint >> 6) & 0x3f));
+                    size = writePercent(bytes, size, 0x80 | (codePoint & 0x3f));
+                } else {
+                    // unpaired surrogate is replaced with '?' like String.getBytes does
+                    size = writePercent(bytes, size, '?');
+                }
+            }
+            this.size = size;
         }
-    }
 
-    private static final class PostBuffer implements Buffer {
+        /**
+         * Copies leading characters that need no encoding, which is usually the whole key or value.
+         *
+         * @return index of the first character to encode
+         */
+        private int writeSafePrefix(String value, int length) {
+            ensureCapacity(length);
+            byte[] bytes = this.bytes;
+            int size = this.size;
+            int i = 0;
+            while (i < length) {
+                char c = value.charAt(i);
+                if (c >= 0x80 || !SAFE[c]) {
+                    break;
+                }
+                bytes[size++] = (byte) c;
+                ++i;
+            }
+            this.size = size;
+            return i;
+        }
 
-        private static final byte[] AMPERSAND = "&".getBytes(UTF8_CHARSET);
-        private static final byte[] EQUALS_SIGN = "=".getBytes(UTF8_CHARSET);
+        byte[] toByteArray() {
+            byte[] result = Arrays.copyOf(bytes, size);
+            release();
+            return result;
+        }
 
-        private final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        @SuppressWarnings("deprecation")
+        String toAsciiString() {
+            // encoded output is pure ASCII
+            String result = new String(bytes, 0, 0, size);
+            release();
+            return result;
+        }
 
-        PostBuffer() {
+        private void release() {
+            if (bytes.length > MAX_POOLED_SIZE) {
+                bytes = new byte[256];
+            }
         }
 
-        @Override
-        public void nextParameter(String key, String value) {
-            try {
-                if (stream.size() > 0) {
-                    stream.write(AMPERSAND);
-                }
-                stream.write(encodeUtf8(key));
-                stream.write(EQUALS_SIGN);
-                stream.write(encodeUtf8(value));
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+        private void ensureCapacity(int count) {
+            int required = size + count;
+            if (required > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(required, bytes.length * 2));
             }
         }
 
-        byte[] getBytes() {
-            return stream.toByteArray();
+        private static int writePercent(byte[] bytes, int size, int b) {
+            bytes[size] = '%';
+            bytes[size + 1] = HEX_DIGITS[(b >> 4) & 0xf];
+            bytes[size + 2] = HEX_DIGITS[b & 0xf];
+            return size + 3;
         }
     }
 }
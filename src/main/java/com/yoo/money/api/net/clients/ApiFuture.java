@@ -0,0 +1,259 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.net.clients;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.yoo.money.api.util.Common.checkNotNull;
+
+/**
+ * Cancellable result of an asynchronous API call. Unlike plain {@link Future} it allows to register
+ * {@link ApiCallback}s that are notified as soon as the result is available, so callers do not have to block on
+ * {@link #get()}.
+ *
+ * <p>Instances can be completed only once: by {@link #set(Object)}, {@link #setException(Exception)} or
+ * {@link #cancel(boolean)}. Subsequent attempts are ignored.</p>
+ *
+ * @param <T> type of a result
+ */
+public class ApiFuture<T> implements Future<T> {
+
+    private static final int PENDING = 0;
+    private static final int COMPLETING = 1;
+    private static final int SUCCEEDED = 2;
+    private static final int FAILED = 3;
+    private static final int CANCELLED = 4;
+
+    private final AtomicInteger state = new AtomicInteger(PENDING);
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    // guarded by this, set to null once listeners have been notified
+    private List<Listener<? super T>> listeners = new ArrayList<>(2);
+
+    private T result;
+    private Exception exception;
+
+    /**
+     * Creates already completed future.
+     *
+     * @param value result
+     * @param <T> type of a result
+     * @return completed future
+     */
+    public static <T> ApiFuture<T> completed(T value) {
+        ApiFuture<T> future = new ApiFuture<>();
+        future.set(value);
+        return future;
+    }
+
+    /**
+     * Creates already failed future.
+     *
+     * @param e cause of a failure
+     * @param <T> type of a result
+     * @return failed future
+     */
+    public static <T> ApiFuture<T> failed(Exception e) {
+        ApiFuture<T> future = new ApiFuture<>();
+        future.setException(e);
+        return future;
+    }
+
+    /**
+     * Completes this future with a value.
+     *
+     * @param value result
+     * @return {@code true} if this call completed the future
+     */
+    public boolean set(T value) {
+        if (!state.compareAndSet(PENDING, COMPLETING)) {
+            return false;
+        }
+        result = value;
+        complete(SUCCEEDED);
+        return true;
+    }
+
+    /**
+     * Completes this future exceptionally.
+     *
+     * @param e cause of a failure
+     * @return {@code true} if this call completed the future
+     */
+    public boolean setException(Exception e) {
+        checkNotNull(e, "e");
+        if (!state.compareAndSet(PENDING, COMPLETING)) {
+            return false;
+        }
+        exception = e;
+        complete(FAILED);
+        return true;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        if (!state.compareAndSet(PENDING, COMPLETING)) {
+            return false;
+        }
+        exception = new CancellationException("call cancelled");
+        complete(CANCELLED);
+        onCancelled();
+        return true;
+    }
+
+    @Override
+    public final boolean isCancelled() {
+        return state.get() == CANCELLED;
+    }
+
+    @Override
+    public final boolean isDone() {
+        return state.get() > COMPLETING;
+    }
+
+    @Override
+    public final T get() throws InterruptedException, ExecutionException {
+        done.await();
+        return report();
+    }
+
+    @Override
+    public final T get(long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+
+        if (!done.await(timeout, unit)) {
+            throw new TimeoutException();
+        }
+        return report();
+    }
+
+    /**
+     * Registers a callback that is invoked on a thread that completes this future. If the future is already
+     * completed the callback is invoked immediately on a calling thread.
+     *
+     * @param callback callback to register
+     */
+    public final void addCallback(ApiCallback<? super T> callback) {
+        addCallback(callback, DirectExecutor.INSTANCE);
+    }
+
+    /**
+     * Registers a callback that is invoked using specified executor once this future is completed.
+     *
+     * @param callback callback to register
+     * @param executor executor to run the callback on
+     */
+    public final void addCallback(ApiCallback<? super T> callback, Executor executor) {
+        Listener<? super T> listener = new Listener<>(checkNotNull(callback, "callback"),
+                checkNotNull(executor, "executor"));
+        synchronized (this) {
+            if (listeners != null) {
+                listeners.add(listener);
+                return;
+            }
+        }
+        notifyListener(listener);
+    }
+
+    /**
+     * Called once after this future has been cancelled. Subclasses may override this method to abort underlying
+     * operation.
+     */
+    protected void onCancelled() {
+    }
+
+    private void complete(int finalState) {
+        state.set(finalState);
+        done.countDown();
+
+        List<Listener<? super T>> toNotify;
+        synchronized (this) {
+            toNotify = listeners;
+            listeners = null;
+        }
+        for (Listener<? super T> listener : toNotify) {
+            notifyListener(listener);
+        }
+    }
+
+    private void notifyListener(final Listener<? super T> listener) {
+        try {
+            listener.executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (state.get() == SUCCEEDED) {
+                        listener.callback.onSuccess(result);
+                    } else {
+                        listener.callback.onFailure(exception);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            listener.callback.onFailure(e);
+        }
+    }
+
+    private T report() throws ExecutionException {
+        switch (state.get()) {
+            case SUCCEEDED:
+                return result;
+            case CANCELLED:
+                throw (CancellationException) exception;
+            default:
+                throw new ExecutionException(exception);
+        }
+    }
+
+    private static final class Listener<T> {
+
+        final ApiCallback<T> callback;
+        final Executor executor;
+
+        Listener(ApiCallback<T> callback, Executor executor) {
+            this.callback = callback;
+            this.executor = executor;
+        }
+    }
+
+    private enum DirectExecutor implements Executor {
+
+        INSTANCE;
+
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    }
+}
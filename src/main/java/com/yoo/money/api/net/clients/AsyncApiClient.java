@@ -0,0 +1,45 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.net.clients;
+
+import com.yoo.money.api.net.ApiRequest;
+
+/**
+ * {@link ApiClient} that executes requests without blocking the calling thread. It is a separate interface so that
+ * existing implementations of {@link ApiClient} keep compiling; use {@link AsyncApiClients#executeAsync(ApiClient,
+ * ApiRequest)} to execute a request asynchronously with any client.
+ */
+public interface AsyncApiClient extends ApiClient {
+
+    /**
+     * Executes {@link ApiRequest} asynchronously. The calling thread is not blocked while waiting for a response and
+     * the response is parsed on a client's parser executor. Cancelling the returned future aborts the HTTP call.
+     *
+     * @param request request to execute
+     * @param <T> response document type
+     * @return future of a response document
+     */
+    <T> ApiFuture<T> executeAsync(ApiRequest<T> request);
+}
@@ -0,0 +1,109 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.net.clients;
+
+import com.yoo.money.api.net.ApiRequest;
+import com.yoo.money.api.util.Threads;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import static com.yoo.money.api.util.Common.checkNotNull;
+
+/**
+ * Asynchronous execution of requests with any {@link ApiClient}.
+ */
+public final class AsyncApiClients {
+
+    private AsyncApiClients() {
+        // prevents instantiating of this class
+    }
+
+    /**
+     * Executes a request asynchronously. An {@link AsyncApiClient} executes it itself, other clients execute it with
+     * {@link ApiClient#execute(ApiRequest)} on a shared pool of daemon threads, one thread per request in flight.
+     * Cancelling the returned future interrupts such a thread.
+     *
+     * @param client client to use
+     * @param request request to execute
+     * @param <T> response document type
+     * @return future of a response document
+     */
+    public static <T> ApiFuture<T> executeAsync(ApiClient client, ApiRequest<T> request) {
+        checkNotNull(client, "client");
+        checkNotNull(request, "request");
+        if (client instanceof AsyncApiClient) {
+            return ((AsyncApiClient) client).executeAsync(request);
+        }
+        BlockingCall<T> call = new BlockingCall<>(client, request);
+        try {
+            call.task = DefaultBlockingExecutor.INSTANCE.submit(call);
+        } catch (RejectedExecutionException e) {
+            call.setException(e);
+        }
+        return call;
+    }
+
+    private static final class BlockingCall<T> extends ApiFuture<T> implements Runnable {
+
+        private final ApiClient client;
+        private final ApiRequest<T> request;
+
+        volatile Future<?> task;
+
+        BlockingCall(ApiClient client, ApiRequest<T> request) {
+            this.client = client;
+            this.request = request;
+        }
+
+        @Override
+        public void run() {
+            if (isDone()) {
+                return;
+            }
+            try {
+                set(client.execute(request));
+            } catch (Exception e) {
+                setException(e);
+            }
+        }
+
+        @Override
+        protected void onCancelled() {
+            Future<?> task = this.task;
+            if (task != null) {
+                task.cancel(true);
+            }
+        }
+    }
+
+    private static final class DefaultBlockingExecutor {
+
+        static final ExecutorService INSTANCE = Executors.newCachedThreadPool(
+                Threads.newDaemonThreadFactory("yoomoney-sdk-async"));
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.net.clients;
+
+import com.yoo.money.api.net.HttpClientResponse;
+import com.yoo.money.api.util.logging.Log;
+import okhttp3.Headers;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Response that is read into memory, so it can be parsed several times by callers of a coalesced call.
+ */
+final class BufferedResponse implements HttpClientResponse {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final byte[] EMPTY = new byte[0];
+
+    private final int code;
+    private final String message;
+    private final String url;
+    private final Headers headers;
+    private final byte[] body;
+
+    private BufferedResponse(Response response, byte[] body) {
+        this.code = response.code();
+        this.message = response.message();
+        this.url = response.request().url().toString();
+        this.headers = response.headers();
+        this.body = body;
+    }
+
+    /**
+     * Reads and closes a response.
+     *
+     * @param response response to read
+     * @return buffered response
+     */
+    static BufferedResponse read(Response response) throws IOException {
+        try {
+            ResponseBody body = response.body();
+            return new BufferedResponse(response, body == null ? EMPTY : body.bytes());
+        } finally {
+            response.close();
+        }
+    }
+
+    @Override
+    public int getCode() {
+        return code;
+    }
+
+    @Override
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String getUrl() {
+        return url;
+    }
+
+    @Override
+    public String getHeader(String name) {
+        return headers.get(name);
+    }
+
+    @Override
+    public String getBody() {
+        String data = new String(body, UTF8);
+        Log.i(data);
+        return data;
+    }
+
+    @Override
+    public InputStream getByteStream() {
+        return new ByteArrayInputStream(body);
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.net.clients;
+
+import com.yoo.money.api.net.metrics.ApiCallMetrics;
+import com.yoo.money.api.net.metrics.ApiMetricsRecorder;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.HttpUrl;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+/**
+ * Measures phases of a single call and reports them to {@link ApiMetricsRecorder}. An instance is attached to a
+ * request as a tag and receives OkHttp's events through {@link #factory(EventListener.Factory)}. Events of a call
+ * are delivered sequentially and parsing happens after them, so no synchronization is needed.
+ */
+final class CallTimer extends EventListener {
+
+    private final ApiMetricsRecorder recorder;
+    private final long started = System.nanoTime();
+
+    private Request request;
+    private long callStart;
+    private long acquireStart;
+    private long dnsStart;
+    private long dnsNanos;
+    private long connectStart;
+    private long connectNanos;
+    private long secureConnectStart;
+    private long tlsNanos;
+    private long requestEnd;
+    private long responseHeadersStart;
+    private long responseHeadersEnd;
+    private long requestBytes = -1L;
+    private long responseBytes = -1L;
+    private int statusCode;
+    private boolean recorded;
+
+    CallTimer(ApiMetricsRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Creates {@link EventListener.Factory} that returns timers attached to requests and delegates other calls to
+     * specified factory.
+     *
+     * @param delegate factory for calls without timer
+     * @return event listener factory
+     */
+    static EventListener.Factory factory(final EventListener.Factory delegate) {
+        return new EventListener.Factory() {
+            @Override
+            public EventListener create(Call call) {
+                Object tag = call.request().tag();
+                return tag instanceof CallTimer ? (CallTimer) tag : delegate.create(call);
+            }
+        };
+    }
+
+    /**
+     * Records the call as completed with specified outcome. Does nothing if the call has been recorded already.
+     *
+     * @param parseStart time when parsing started or {@code 0} if there was no response
+     * @param error cause of a failure or {@code null}
+     */
+    void record(long parseStart, Exception error) {
+        if (recorded) {
+            return;
+        }
+        recorded = true;
+
+        long now = System.nanoTime();
+        long callStart = this.callStart == 0L ? started : this.callStart;
+        recorder.record(new ApiCallMetrics.Builder()
+                .setEndpoint(request == null ? "" : endpointOf(request.url()))
+                .setMethod(request == null ? "" : request.method())
+                .setStatusCode(statusCode)
+                .setRequestBytes(requestBytes)
+                .setResponseBytes(responseBytes)
+                .setQueueNanos(acquireStart == 0L ? 0L : acquireStart - callStart)
+                .setDnsNanos(dnsNanos)
+                .setConnectNanos(connectNanos)
+                .setTlsNanos(tlsNanos)
+                .setServerNanos(responseHeadersStart == 0L || requestEnd == 0L ? 0L
+                        : responseHeadersStart - requestEnd)
+                .setNetworkNanos(responseHeadersEnd == 0L ? now - callStart : responseHeadersEnd - callStart)
+                .setParseNanos(parseStart == 0L ? 0L : now - parseStart)
+                .setTotalNanos(now - started)
+                .setError(error)
+                .create());
+    }
+
+    /**
+     * Marks the call as coalesced with a call in flight. It has no events of its own, so its network time is the time
+     * it waited for the other call.
+     *
+     * @param request request of the call
+     * @param statusCode status code of the shared response or {@code 0} if there was no response
+     */
+    void coalesced(Request request, int statusCode) {
+        this.request = request;
+        this.statusCode = statusCode;
+    }
+
+    @Override
+    public void callStart(Call call) {
+        request = call.request();
+        callStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        dnsStart = System.nanoTime();
+        acquireStarted(dnsStart);
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        dnsNanos += System.nanoTime() - dnsStart;
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        connectStart = System.nanoTime();
+        acquireStarted(connectStart);
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+        secureConnectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, Handshake handshake) {
+        tlsNanos += System.nanoTime() - secureConnectStart;
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        connectNanos += System.nanoTime() - connectStart;
+    }
+
+    @Override
+    public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol,
+                              IOException ioe) {
+        connectNanos += System.nanoTime() - connectStart;
+    }
+
+    @Override
+    public void connectionAcquired(Call call, Connection connection) {
+        acquireStarted(System.nanoTime());
+    }
+
+    @Override
+    public void requestHeadersEnd(Call call, Request request) {
+        requestEnd = System.nanoTime();
+    }
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+        requestEnd = System.nanoTime();
+        requestBytes = byteCount;
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        responseHeadersStart = System.nanoTime();
+    }
+
+    @Override
+    public void responseHeadersEnd(Call call, Response response) {
+        responseHeadersEnd = System.nanoTime();
+        statusCode = response.code();
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        responseBytes = byteCount;
+    }
+
+    private void acquireStarted(long time) {
+        if (acquireStart == 0L) {
+            acquireStart = time;
+        }
+    }
+
+    /**
+     * Gets endpoint of a URL: its path where numeric segments are replaced by {@code {id}}.
+     *
+     * @param url URL
+     * @return endpoint
+     */
+    static String endpointOf(HttpUrl url) {
+        List<String> segments = url.encodedPathSegments();
+        StringBuilder builder = new StringBuilder();
+        for (String segment : segments) {
+            if (!segment.isEmpty()) {
+                builder.append('/').append(isNumeric(segment) ? "{id}" : segment);
+            }
+        }
+        return builder.length() == 0 ? "/" : builder.toString();
+    }
+
+    private static boolean isNumeric(String segment) {
+        int length = segment.length();
+        if (length == 0) {
+            return false;
+        }
+        for (int i = 0; i < length; ++i) {
+            char c = segment.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
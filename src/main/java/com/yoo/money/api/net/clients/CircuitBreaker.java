@@ -0,0 +1,333 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.net.clients;
+
+import com.yoo.money.api.exceptions.CallNotPermittedException;
+import com.yoo.money.api.exceptions.HttpStatusException;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.yoo.money.api.util.Common.checkNotNull;
+
+/**
+ * Circuit breaker and bulkhead of a single endpoint. See {@link CircuitBreakerConfig} for details. All operations are
+ * lock-free.
+ * <p>
+ * A call fails if it ends with {@link IOException} (network errors and HTTP statuses 5xx or 429). Other exceptions,
+ * for instance {@link com.yoo.money.api.exceptions.InvalidTokenException}, mean the endpoint is healthy and are counted
+ * as successful calls.
+ *
+ * @see CircuitBreakerRegistry
+ */
+public final class CircuitBreaker {
+
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    private static final int RECORDED = 1;
+    private static final int FAILED = 2;
+    private static final int SLOW = 4;
+
+    private final String name;
+    private final CircuitBreakerConfig config;
+    private final CircuitBreakerRegistry.Listener listener;
+    private final long openDurationNanos;
+    private final long slowCallDurationNanos;
+    private final AtomicReference<Phase> phase;
+    private final AtomicInteger activeCalls = new AtomicInteger();
+
+    CircuitBreaker(String name, CircuitBreakerConfig config, CircuitBreakerRegistry.Listener listener) {
+        this.name = checkNotNull(name, "name");
+        this.config = checkNotNull(config, "config");
+        this.listener = listener;
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(config.openDurationMillis);
+        this.slowCallDurationNanos = TimeUnit.MILLISECONDS.toNanos(config.slowCallDurationMillis);
+        this.phase = new AtomicReference<>(new Phase(State.CLOSED, System.nanoTime()));
+    }
+
+    /**
+     * @return name of the circuit breaker
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return settings of the circuit breaker
+     */
+    public CircuitBreakerConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * @return current state
+     */
+    public State getState() {
+        return currentPhase().state;
+    }
+
+    /**
+     * @return number of calls in flight
+     */
+    public int getActiveCalls() {
+        return activeCalls.get();
+    }
+
+    /**
+     * @return rate of failed calls in the current state or {@code -1} if there are not enough calls to calculate it
+     */
+    public float getFailureRate() {
+        return phase.get().getRate(FAILED);
+    }
+
+    /**
+     * @return rate of slow calls in the current state or {@code -1} if there are not enough calls to calculate it
+     */
+    public float getSlowCallRate() {
+        return phase.get().getRate(SLOW);
+    }
+
+    /**
+     * Acquires permission to make a call.
+     *
+     * @return permit that must be completed once the call is finished
+     * @throws CallNotPermittedException if the circuit is open or there are too many concurrent calls
+     */
+    Permit acquire() throws CallNotPermittedException {
+        Phase current = currentPhase();
+        if (!current.tryAcquire()) {
+            throw new CallNotPermittedException(name, CallNotPermittedException.Reason.CIRCUIT_OPEN);
+        }
+        int active = activeCalls.incrementAndGet();
+        if (config.maxConcurrentCalls > 0 && active > config.maxConcurrentCalls) {
+            activeCalls.decrementAndGet();
+            current.release();
+            throw new CallNotPermittedException(name, CallNotPermittedException.Reason.BULKHEAD_FULL);
+        }
+        return new Permit(current);
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreaker{" +
+                "name='" + name + '\'' +
+                ", state=" + getState() +
+                ", failureRate=" + getFailureRate() +
+                ", slowCallRate=" + getSlowCallRate() +
+                ", activeCalls=" + getActiveCalls() +
+                '}';
+    }
+
+    static boolean isFailure(Exception e) {
+        if (e instanceof HttpStatusException) {
+            HttpStatusException statusException = (HttpStatusException) e;
+            return statusException.isServerError() || statusException.statusCode == HTTP_TOO_MANY_REQUESTS;
+        }
+        return e instanceof IOException;
+    }
+
+    private Phase currentPhase() {
+        Phase current = phase.get();
+        if (current.state == State.OPEN && System.nanoTime() - current.since >= openDurationNanos) {
+            transition(current, State.HALF_OPEN);
+            current = phase.get();
+        }
+        return current;
+    }
+
+    private void transition(Phase from, State to) {
+        if (phase.compareAndSet(from, new Phase(to, System.nanoTime())) && listener != null) {
+            listener.onStateChanged(this, from.state, to);
+        }
+    }
+
+    /**
+     * States of a circuit breaker.
+     */
+    public enum State {
+        /**
+         * Calls are permitted and their outcomes are tracked.
+         */
+        CLOSED,
+        /**
+         * Calls are rejected.
+         */
+        OPEN,
+        /**
+         * Limited number of trial calls is permitted.
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * Permission to make a single call.
+     */
+    final class Permit {
+
+        private final Phase phase;
+        private final long started = System.nanoTime();
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        Permit(Phase phase) {
+            this.phase = phase;
+        }
+
+        /**
+         * Records outcome of a call.
+         *
+         * @param error cause of a failure or {@code null} if the call succeeded
+         */
+        void onComplete(Exception error) {
+            if (!completed.compareAndSet(false, true)) {
+                return;
+            }
+            activeCalls.decrementAndGet();
+            int outcome = RECORDED;
+            if (error != null && isFailure(error)) {
+                outcome |= FAILED;
+            }
+            if (System.nanoTime() - started >= slowCallDurationNanos) {
+                outcome |= SLOW;
+            }
+            phase.record(outcome);
+        }
+
+        /**
+         * Releases the permit without recording an outcome, for instance if the call was cancelled.
+         */
+        void onCancelled() {
+            if (completed.compareAndSet(false, true)) {
+                activeCalls.decrementAndGet();
+                phase.release();
+            }
+        }
+    }
+
+    /**
+     * State with its own counters. Transition replaces a phase, so outcomes of calls started in a previous phase are
+     * not mixed with new ones.
+     */
+    private final class Phase {
+
+        final State state;
+        final long since;
+
+        // closed: ring buffer of outcomes of last calls, half-open: outcomes of trial calls
+        private final AtomicIntegerArray outcomes;
+        private final AtomicLong index = new AtomicLong();
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger failedCalls = new AtomicInteger();
+        private final AtomicInteger slowCalls = new AtomicInteger();
+
+        // half-open: trial calls left
+        private final AtomicInteger permits;
+
+        Phase(State state, long since) {
+            this.state = state;
+            this.since = since;
+            this.outcomes = state == State.CLOSED ? new AtomicIntegerArray(config.windowSize) : null;
+            this.permits = state == State.HALF_OPEN ? new AtomicInteger(config.halfOpenCalls) : null;
+        }
+
+        boolean tryAcquire() {
+            switch (state) {
+                case CLOSED:
+                    return true;
+                case HALF_OPEN:
+                    int left;
+                    do {
+                        left = permits.get();
+                        if (left <= 0) {
+                            return false;
+                        }
+                    } while (!permits.compareAndSet(left, left - 1));
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        void release() {
+            if (state == State.HALF_OPEN) {
+                permits.incrementAndGet();
+            }
+        }
+
+        void record(int outcome) {
+            switch (state) {
+                case CLOSED:
+                    int slot = (int) (index.getAndIncrement() % outcomes.length());
+                    int previous = outcomes.getAndSet(slot, outcome);
+                    if (previous == 0) {
+                        calls.incrementAndGet();
+                    }
+                    update(failedCalls, previous, outcome, FAILED);
+                    update(slowCalls, previous, outcome, SLOW);
+                    if (calls.get() >= config.minimumCalls && isUnhealthy()) {
+                        transition(this, State.OPEN);
+                    }
+                    break;
+                case HALF_OPEN:
+                    if ((outcome & FAILED) != 0) {
+                        failedCalls.incrementAndGet();
+                    }
+                    if ((outcome & SLOW) != 0) {
+                        slowCalls.incrementAndGet();
+                    }
+                    if (calls.incrementAndGet() == config.halfOpenCalls) {
+                        transition(this, isUnhealthy() ? State.OPEN : State.CLOSED);
+                    }
+                    break;
+            }
+        }
+
+        float getRate(int flag) {
+            int total = calls.get();
+            int minimum = state == State.CLOSED ? config.minimumCalls : config.halfOpenCalls;
+            if (state == State.OPEN || total < minimum) {
+                return -1f;
+            }
+            return (float) (flag == FAILED ? failedCalls : slowCalls).get() / total;
+        }
+
+        private boolean isUnhealthy() {
+            float total = calls.get();
+            return failedCalls.get() >= config.failureRateThreshold * total
+                    || slowCalls.get() >= config.slowCallRateThreshold * total;
+        }
+
+        private void update(AtomicInteger counter, int previous, int outcome, int flag) {
+            int delta = ((outcome & flag) != 0 ? 1 : 0) - ((previous & flag) != 0 ? 1 : 0);
+            if (delta != 0) {
+                counter.addAndGet(delta);
+            }
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.net.clients;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settings of a {@link CircuitBreaker}.
+ * <p>
+ * A circuit breaker tracks outcomes of the last {@link #windowSize} calls. When at least {@link #minimumCalls} calls
+ * are tracked and the rate of failed or slow calls reaches its threshold the circuit opens and calls are rejected for
+ * {@link #openDurationMillis}. Then the circuit becomes half-open and lets {@link #halfOpenCalls} trial calls through:
+ * if they are healthy the circuit closes, otherwise it opens again.
+ * <p>
+ * Independently of the circuit state, {@link #maxConcurrentCalls} limits the number of calls in flight (bulkhead), so
+ * a slow endpoint can not occupy all connections and dispatcher slots of a client.
+ */
+public final class CircuitBreakerConfig {
+
+    /**
+     * Default settings.
+     */
+    public static final CircuitBreakerConfig DEFAULT = new Builder().create();
+
+    /**
+     * Rate of failed calls in range (0, 1] that opens the circuit.
+     */
+    public final float failureRateThreshold;
+
+    /**
+     * Rate of slow calls in range (0, 1] that opens the circuit.
+     */
+    public final float slowCallRateThreshold;
+
+    /**
+     * Calls that take at least this time in milliseconds are slow.
+     */
+    public final long slowCallDurationMillis;
+
+    /**
+     * Number of last calls the rates are calculated on.
+     */
+    public final int windowSize;
+
+    /**
+     * Minimum number of calls in the window to calculate the rates.
+     */
+    public final int minimumCalls;
+
+    /**
+     * Time in milliseconds the circuit stays open.
+     */
+    public final long openDurationMillis;
+
+    /**
+     * Number of trial calls in half-open state.
+     */
+    public final int halfOpenCalls;
+
+    /**
+     * Maximum number of concurrent calls or {@code 0} if unlimited.
+     */
+    public final int maxConcurrentCalls;
+
+    CircuitBreakerConfig(Builder builder) {
+        failureRateThreshold = checkRate(builder.failureRateThreshold, "failureRateThreshold");
+        slowCallRateThreshold = checkRate(builder.slowCallRateThreshold, "slowCallRateThreshold");
+        slowCallDurationMillis = checkPositive(builder.slowCallDurationMillis, "slowCallDurationMillis");
+        windowSize = (int) checkPositive(builder.windowSize, "windowSize");
+        minimumCalls = (int) checkPositive(builder.minimumCalls, "minimumCalls");
+        openDurationMillis = checkPositive(builder.openDurationMillis, "openDurationMillis");
+        halfOpenCalls = (int) checkPositive(builder.halfOpenCalls, "halfOpenCalls");
+        if (builder.maxConcurrentCalls < 0) {
+            throw new IllegalArgumentException("maxConcurrentCalls must not be negative: " +
+                    builder.maxConcurrentCalls);
+        }
+        maxConcurrentCalls = builder.maxConcurrentCalls;
+        if (minimumCalls > windowSize) {
+            throw new IllegalArgumentException("minimumCalls is greater than windowSize");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreakerConfig{" +
+                "failureRateThreshold=" + failureRateThreshold +
+                ", slowCallRateThreshold=" + slowCallRateThreshold +
+                ", slowCallDurationMillis=" + slowCallDurationMillis +
+                ", windowSize=" + windowSize +
+                ", minimumCalls=" + minimumCalls +
+                ", openDurationMillis=" + openDurationMillis +
+                ", halfOpenCalls=" + halfOpenCalls +
+                ", maxConcurrentCalls=" + maxConcurrentCalls +
+                '}';
+    }
+
+    private static float checkRate(float rate, String name) {
+        if (!(rate > 0f && rate <= 1f)) {
+            throw new IllegalArgumentException(name + " must be in range (0, 1]: " + rate);
+        }
+        return rate;
+    }
+
+    private static long checkPositive(long value, String name) {
+        if (value <= 0L) {
+            throw new IllegalArgumentException(name + " must be positive: " + value);
+        }
+        return value;
+    }
+
+    /**
+     * Creates {@link CircuitBreakerConfig}. By default the circuit opens when half of the last 50 calls (at least 20)
+     * failed or all of them took longer than 10 seconds; it stays open for 30 seconds and then lets 5 trial calls
+     * through. Concurrent calls are not limited.
+     */
+    public static final class Builder {
+
+        float failureRateThreshold = 0.5f;
+        float slowCallRateThreshold = 1f;
+        long slowCallDurationMillis = TimeUnit.SECONDS.toMillis(10L);
+        int windowSize = 50;
+        int minimumCalls = 20;
+        long openDurationMillis = TimeUnit.SECONDS.toMillis(30L);
+        int halfOpenCalls = 5;
+        int maxConcurrentCalls;
+
+        /**
+         * Creates builder initialized with default values.
+         */
+        public Builder() {
+        }
+
+        /**
+         * Creates builder initialized with values of specified config.
+         *
+         * @param config config to copy
+         */
+        public Builder(CircuitBreakerConfig config) {
+            failureRateThreshold = config.failureRateThreshold;
+            slowCallRateThreshold = config.slowCallRateThreshold;
+            slowCallDurationMillis = config.slowCallDurationMillis;
+            windowSize = config.windowSize;
+            minimumCalls = config.minimumCalls;
+            openDurationMillis = config.openDurationMillis;
+            halfOpenCalls = config.halfOpenCalls;
+            maxConcurrentCalls = config.maxConcurrentCalls;
+        }
+
+        /**
+         * Sets rate of failed calls that opens the circuit.
+         *
+         * @param failureRateThreshold rate in range (0, 1]
+         * @return itself
+         */
+        public Builder setFailureRateThreshold(float failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+            return this;
+        }
+
+        /**
+         * Sets rate of slow calls that opens the circuit and duration of a slow call.
+         *
+         * @param slowCallRateThreshold rate in range (0, 1]
+         * @param duration minimum duration of a slow call
+         * @param unit time unit of a duration
+         * @return itself
+         */
+        public Builder setSlowCallRateThreshold(float slowCallRateThreshold, long duration, TimeUnit unit) {
+            this.slowCallRateThreshold = slowCallRateThreshold;
+            this.slowCallDurationMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Sets size of a window of last calls and minimum number of calls to calculate rates.
+         *
+         * @param windowSize number of last calls to track
+         * @param minimumCalls minimum number of tracked calls
+         * @return itself
+         */
+        public Builder setWindow(int windowSize, int minimumCalls) {
+            this.windowSize = windowSize;
+            this.minimumCalls = minimumCalls;
+            return this;
+        }
+
+        /**
+         * Sets time the circuit stays open.
+         *
+         * @param duration duration
+         * @param unit time unit of a duration
+         * @return itself
+         */
+        public Builder setOpenDuration(long duration, TimeUnit unit) {
+            this.openDurationMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Sets number of trial calls in half-open state.
+         *
+         * @param halfOpenCalls number of calls
+         * @return itself
+         */
+        public Builder setHalfOpenCalls(int halfOpenCalls) {
+            this.halfOpenCalls = halfOpenCalls;
+            return this;
+        }
+
+        /**
+         * Sets maximum number of concurrent calls.
+         *
+         * @param maxConcurrentCalls number of calls or {@code 0} if unlimited
+         * @return itself
+         */
+        public Builder setMaxConcurrentCalls(int maxConcurrentCalls) {
+            this.maxConcurrentCalls = maxConcurrentCalls;
+            return this;
+        }
+
+        /**
+         * Creates instance of {@link CircuitBreakerConfig}.
+         *
+         * @return config
+         */
+        public CircuitBreakerConfig create() {
+            return new CircuitBreakerConfig(this);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.net.clients;
+
+import com.yoo.money.api.exceptions.CallNotPermittedException;
+import com.yoo.money.api.net.ApiRequest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.yoo.money.api.util.Common.checkNotNull;
+
+/**
+ * Holds {@link CircuitBreaker}s of endpoints. Each {@link ApiRequest} class gets its own circuit breaker, so a
+ * degraded endpoint does not affect calls to other endpoints. Settings are looked up by request class and then by its
+ * superclasses, for instance settings registered for {@link com.yoo.money.api.net.DocumentApiRequest} apply to all
+ * document requests that do not have their own settings.
+ *
+ * @see DefaultApiClient.Builder#setCircuitBreakers(CircuitBreakerRegistry)
+ */
+public final class CircuitBreakerRegistry {
+
+    private final CircuitBreakerConfig defaultConfig;
+    private final Map<Class<?>, CircuitBreakerConfig> configs;
+    private final Listener listener;
+    private final ConcurrentMap<Class<?>, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    CircuitBreakerRegistry(Builder builder) {
+        defaultConfig = builder.defaultConfig;
+        configs = new HashMap<>(builder.configs);
+        listener = builder.listener;
+    }
+
+    /**
+     * Gets circuit breaker of a request class.
+     *
+     * @param requestClass request class
+     * @return circuit breaker
+     */
+    public CircuitBreaker getCircuitBreaker(Class<?> requestClass) {
+        checkNotNull(requestClass, "requestClass");
+        CircuitBreaker circuitBreaker = circuitBreakers.get(requestClass);
+        if (circuitBreaker == null) {
+            CircuitBreaker created = new CircuitBreaker(requestClass.getName(), getConfig(requestClass), listener);
+            circuitBreaker = circuitBreakers.putIfAbsent(requestClass, created);
+            if (circuitBreaker == null) {
+                circuitBreaker = created;
+            }
+        }
+        return circuitBreaker;
+    }
+
+    /**
+     * @return circuit breakers created so far
+     */
+    public Collection<CircuitBreaker> getCircuitBreakers() {
+        return Collections.unmodifiableCollection(new ArrayList<>(circuitBreakers.values()));
+    }
+
+    /**
+     * Acquires permission to execute a request.
+     *
+     * @param request request to execute
+     * @return permit
+     * @throws CallNotPermittedException if the call is not permitted
+     */
+    CircuitBreaker.Permit acquire(ApiRequest<?> request) throws CallNotPermittedException {
+        return getCircuitBreaker(request.getClass()).acquire();
+    }
+
+    private CircuitBreakerConfig getConfig(Class<?> requestClass) {
+        for (Class<?> cls = requestClass; cls != null; cls = cls.getSuperclass()) {
+            CircuitBreakerConfig config = configs.get(cls);
+            if (config != null) {
+                return config;
+            }
+        }
+        return defaultConfig;
+    }
+
+    /**
+     * Observes state transitions of circuit breakers.
+     */
+    public interface Listener {
+
+        /**
+         * Called when a circuit breaker changes its state. Called on a thread that caused the transition, so
+         * implementations should return quickly.
+         *
+         * @param circuitBreaker circuit breaker
+         * @param from previous state
+         * @param to new state
+         */
+        void onStateChanged(CircuitBreaker circuitBreaker, CircuitBreaker.State from, CircuitBreaker.State to);
+    }
+
+    /**
+     * Creates {@link CircuitBreakerRegistry}.
+     */
+    public static final class Builder {
+
+        CircuitBreakerConfig defaultConfig = CircuitBreakerConfig.DEFAULT;
+        final Map<Class<?>, CircuitBreakerConfig> configs = new HashMap<>();
+        Listener listener;
+
+        /**
+         * Sets settings of requests that do not have their own settings. Default value is
+         * {@link CircuitBreakerConfig#DEFAULT}.
+         *
+         * @param defaultConfig settings
+         * @return itself
+         */
+        public Builder setDefaultConfig(CircuitBreakerConfig defaultConfig) {
+            this.defaultConfig = checkNotNull(defaultConfig, "defaultConfig");
+            return this;
+        }
+
+        /**
+         * Sets settings of a request class and its subclasses.
+         *
+         * @param requestClass request class
+         * @param config settings
+         * @return itself
+         */
+        @SuppressWarnings("rawtypes")
+        public Builder setConfig(Class<? extends ApiRequest> requestClass, CircuitBreakerConfig config) {
+            configs.put(checkNotNull(requestClass, "requestClass"), checkNotNull(config, "config"));
+            return this;
+        }
+
+        /**
+         * Sets listener of state transitions.
+         *
+         * @param listener listener
+         * @return itself
+         */
+        public Builder setListener(Listener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * Creates instance of {@link CircuitBreakerRegistry}.
+         *
+         * @return registry
+         */
+        public CircuitBreakerRegistry create() {
+            return new CircuitBreakerRegistry(this);
+        }
+    }
+}
@@ -26,32 +26,59 @@ package com.yoo.money.api.net.clients;
 
 import com.yoo.money.api.authorization.AuthorizationData;
 import com.yoo.money.api.authorization.AuthorizationParameters;
+import com.yoo.money.api.exceptions.CallNotPermittedException;
 import com.yoo.money.api.net.ApiRequest;
 import com.yoo.money.api.net.DefaultUserAgent;
+import com.yoo.money.api.net.DocumentApiRequest;
+import com.yoo.money.api.net.DocumentCache;
+import com.yoo.money.api.net.HttpResourceResponse;
 import com.yoo.money.api.net.UserAgent;
+import com.yoo.money.api.net.metrics.ApiMetricsRecorder;
 import com.yoo.money.api.net.providers.DefaultApiV1HostsProvider;
 import com.yoo.money.api.net.providers.HostsProvider;
 import com.yoo.money.api.util.HttpHeaders;
 import com.yoo.money.api.util.Language;
 import com.yoo.money.api.util.Strings;
+import com.yoo.money.api.util.Threads;
+import com.yoo.money.api.util.logging.Log;
 import okhttp3.CacheControl;
+import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
 
+import java.io.IOException;
+import java.net.SocketTimeoutException;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static com.yoo.money.api.util.Common.checkNotNull;
 
 /**
  * Default implementation of {@link ApiClient} interface. This implementation is suitable in most cases. To create an
  * instance of this class use {@link DefaultApiClient.Builder}.
+ * <p>
+ * A single instance can serve many users at once: use {@link #withAccessToken(String)} to get a lightweight client
+ * bound to a particular access token. Such clients share HTTP client, connection pool and dispatcher with the
+ * original one, so there is no need to create a separate {@link OkHttpClient} for every user.
  *
  * @author Slava Yasevich (support@yoomoney.ru)
  */
-public class DefaultApiClient implements ApiClient {
+public class DefaultApiClient implements AsyncApiClient {
 
     private final CacheControl cacheControl = new CacheControl.Builder().noCache().build();
 
@@ -61,8 +88,15 @@ public class DefaultApiClient implements ApiClient {
     private final Language language;
     private final boolean debugMode;
     private final OkHttpClient httpClient;
+    private final Executor parserExecutor;
+    private final ApiMetricsRecorder metricsRecorder;
+    private final RetryPolicy retryPolicy;
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final RateLimiterRegistry rateLimiters;
+    private final DocumentCache documentCache;
+    private final ConcurrentMap<String, ApiFuture<BufferedResponse>> flights;
 
-    private String accessToken;
+    private volatile String accessToken;
 
     /**
      * Constructor.
@@ -77,9 +111,35 @@ public class DefaultApiClient implements ApiClient {
         debugMode = builder.debugMode;
 
         if (builder.httpClient == null) {
-            builder.httpClient = HttpClientFactory.newOkHttpClient(debugMode);
+            builder.httpClient = HttpClientFactory.newOkHttpClient(builder.httpClientProfile, debugMode);
         }
-        httpClient = builder.httpClient;
+        metricsRecorder = builder.metricsRecorder;
+        retryPolicy = builder.retryPolicy;
+        circuitBreakers = builder.circuitBreakers;
+        rateLimiters = builder.rateLimiters;
+        documentCache = builder.documentCache;
+        flights = builder.coalesceRequests ? new ConcurrentHashMap<String, ApiFuture<BufferedResponse>>() : null;
+        httpClient = metricsRecorder == null ? builder.httpClient : builder.httpClient.newBuilder()
+                .eventListenerFactory(CallTimer.factory(builder.httpClient.eventListenerFactory()))
+                .build();
+        parserExecutor = builder.parserExecutor == null ? DefaultParserExecutor.INSTANCE : builder.parserExecutor;
+    }
+
+    private DefaultApiClient(DefaultApiClient origin, String accessToken) {
+        clientId = origin.clientId;
+        hostsProvider = origin.hostsProvider;
+        userAgent = origin.userAgent;
+        language = origin.language;
+        debugMode = origin.debugMode;
+        httpClient = origin.httpClient;
+        parserExecutor = origin.parserExecutor;
+        metricsRecorder = origin.metricsRecorder;
+        retryPolicy = origin.retryPolicy;
+        circuitBreakers = origin.circuitBreakers;
+        rateLimiters = origin.rateLimiters;
+        documentCache = origin.documentCache;
+        flights = origin.flights;
+        this.accessToken = accessToken;
     }
 
     @Override
@@ -104,8 +164,18 @@ public class DefaultApiClient implements ApiClient {
 
     @Override
     public <T> T execute(ApiRequest<T> request) throws Exception {
-        Response response = httpClient.newCall(prepareRequest(request)).execute();
-        return request.parse(new OkHttpClientResponse(response, debugMode));
+        if (documentCache != null && request instanceof DocumentApiRequest) {
+            return executeCached(request);
+        }
+        return executeWithRetries(request);
+    }
+
+    @Override
+    public <T> ApiFuture<T> executeAsync(ApiRequest<T> request) {
+        if (documentCache != null && request instanceof DocumentApiRequest) {
+            return executeAsyncCached(request);
+        }
+        return executeAsyncWithRetries(request);
     }
 
     @Override
@@ -124,6 +194,29 @@ public class DefaultApiClient implements ApiClient {
         return !Strings.isNullOrEmpty(accessToken);
     }
 
+    /**
+     * Creates a client that executes requests on behalf of a user with specified access token. The returned client
+     * shares configuration, HTTP client, connection pool and executors with this client and is cheap to create, so
+     * it can be created per user or even per call. Changing access token of the returned client does not affect this
+     * client and vice versa.
+     *
+     * @param accessToken access token to use, may be {@code null} for unauthorized requests
+     * @return client bound to specified access token
+     */
+    public DefaultApiClient withAccessToken(String accessToken) {
+        return new DefaultApiClient(this, accessToken);
+    }
+
+    /**
+     * Takes a snapshot of connection pool and dispatcher of the HTTP client used by this client. The statistics are
+     * shared by all clients created with {@link #withAccessToken(String)}.
+     *
+     * @return statistics of the HTTP client
+     */
+    public final HttpClientStats getHttpClientStats() {
+        return HttpClientStats.of(httpClient);
+    }
+
     /**
      * @return {@code true} if debug mode is enabled
      */
@@ -131,17 +224,412 @@ public class DefaultApiClient implements ApiClient {
         return debugMode;
     }
 
-    private Request prepareRequest(ApiRequest<?> request) {
+    @SuppressWarnings("unchecked")
+    private <T> T executeCached(ApiRequest<T> request) throws Exception {
+        DocumentApiRequest<Object> documentRequest = (DocumentApiRequest<Object>) request;
+        String url = request.requestUrl(hostsProvider);
+        HttpResourceResponse<Object> cached = documentCache.get(documentRequest, getLanguage(), url);
+        if (cached != null) {
+            return (T) cached;
+        }
+        return (T) documentCache.update(getLanguage(), url,
+                (HttpResourceResponse<Object>) executeWithRetries(request));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ApiFuture<T> executeAsyncCached(ApiRequest<T> request) {
+        DocumentApiRequest<Object> documentRequest = (DocumentApiRequest<Object>) request;
+        String url = request.requestUrl(hostsProvider);
+        HttpResourceResponse<Object> cached = documentCache.get(documentRequest, getLanguage(), url);
+        if (cached != null) {
+            return ApiFuture.completed((T) cached);
+        }
+        return (ApiFuture<T>) new CacheUpdateFuture<>(url, (ApiFuture<HttpResourceResponse<Object>>)
+                executeAsyncWithRetries(request));
+    }
+
+    private <T> T executeWithRetries(ApiRequest<T> request) throws Exception {
+        if (retryPolicy == null) {
+            return executeOnce(request);
+        }
+
+        retryPolicy.onRequest();
+        for (int attempt = 1; ; ++attempt) {
+            try {
+                return executeOnce(request);
+            } catch (Exception e) {
+                long delay = retryPolicy.getRetryDelay(request, attempt, e);
+                if (delay < 0L) {
+                    throw e;
+                }
+                Thread.sleep(delay);
+            }
+        }
+    }
+
+    private <T> ApiFuture<T> executeAsyncWithRetries(ApiRequest<T> request) {
+        if (retryPolicy == null && rateLimiters == null) {
+            return executeAsyncOnce(request);
+        }
+
+        if (retryPolicy != null) {
+            retryPolicy.onRequest();
+        }
+        return new RetryFuture<>(request).start();
+    }
+
+    private <T> T executeOnce(ApiRequest<T> request) throws Exception {
+        if (rateLimiters != null) {
+            TimeUnit.NANOSECONDS.sleep(rateLimiters.reserve(clientId, accessToken));
+        }
+        if (circuitBreakers == null) {
+            return executeCall(request);
+        }
+
+        CircuitBreaker.Permit permit = circuitBreakers.acquire(request);
+        try {
+            T result = executeCall(request);
+            permit.onComplete(null);
+            return result;
+        } catch (Exception e) {
+            permit.onComplete(e);
+            throw e;
+        }
+    }
+
+    private <T> T executeCall(ApiRequest<T> request) throws Exception {
+        if (flights != null && request.getMethod() == ApiRequest.Method.GET) {
+            return executeCoalesced(request);
+        }
+
+        CallTimer timer = newCallTimer();
+        Response response;
+        try {
+            response = httpClient.newCall(prepareRequest(request, timer)).execute();
+        } catch (Exception e) {
+            record(timer, 0L, e);
+            throw e;
+        }
+
+        long parseStart = System.nanoTime();
+        Exception error = null;
+        try {
+            return request.parse(new OkHttpClientResponse(response, debugMode));
+        } catch (Exception e) {
+            error = e;
+            throw e;
+        } finally {
+            response.close();
+            record(timer, parseStart, error);
+        }
+    }
+
+    private <T> ApiFuture<T> executeAsyncOnce(ApiRequest<T> request) {
+        if (circuitBreakers == null) {
+            return executeAsyncCall(request);
+        }
+
+        final CircuitBreaker.Permit permit;
+        try {
+            permit = circuitBreakers.acquire(request);
+        } catch (CallNotPermittedException e) {
+            return ApiFuture.failed(e);
+        }
+        final ApiFuture<T> future;
+        try {
+            future = executeAsyncCall(request);
+        } catch (RuntimeException e) {
+            permit.onComplete(e);
+            return ApiFuture.failed(e);
+        }
+        future.addCallback(new ApiCallback<T>() {
+            @Override
+            public void onSuccess(T result) {
+                permit.onComplete(null);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                if (future.isCancelled()) {
+                    permit.onCancelled();
+                } else {
+                    permit.onComplete(e);
+                }
+            }
+        });
+        return future;
+    }
+
+    private <T> T executeCoalesced(ApiRequest<T> request) throws Exception {
+        String key = flightKey(request);
+        ApiFuture<BufferedResponse> flight = new ApiFuture<>();
+        ApiFuture<BufferedResponse> leader = flights.putIfAbsent(key, flight);
+        CallTimer followerTimer = null;
+        if (leader != null) {
+            followerTimer = joinFlight(request);
+        } else {
+            leader = flight;
+            CallTimer timer = newCallTimer();
+            Response response;
+            try {
+                response = httpClient.newCall(prepareRequest(request, timer)).execute();
+            } catch (Exception e) {
+                record(timer, 0L, e);
+                completeFlight(key, flight, null, e);
+                response = null;
+            }
+            if (response != null) {
+                readFlight(key, flight, timer, response);
+            }
+        }
+
+        BufferedResponse response;
+        try {
+            long timeout = flightTimeoutMillis();
+            response = timeout == 0L ? leader.get() : leader.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            recordFollower(followerTimer, request, null, 0L, (Exception) e.getCause());
+            throw (Exception) e.getCause();
+        } catch (TimeoutException e) {
+            SocketTimeoutException timeout = new SocketTimeoutException("coalesced call timed out");
+            recordFollower(followerTimer, request, null, 0L, timeout);
+            throw timeout;
+        }
+
+        long parseStart = System.nanoTime();
+        Exception error = null;
+        try {
+            return request.parse(response);
+        } catch (Exception e) {
+            error = e;
+            throw e;
+        } finally {
+            recordFollower(followerTimer, request, response, parseStart, error);
+        }
+    }
+
+    private <T> ApiFuture<T> executeAsyncCoalesced(final ApiRequest<T> request) {
+        final String key = flightKey(request);
+        final ApiFuture<BufferedResponse> flight = new ApiFuture<>();
+        ApiFuture<BufferedResponse> leader = flights.putIfAbsent(key, flight);
+        final CallTimer followerTimer = leader == null ? null : joinFlight(request);
+        if (leader == null) {
+            leader = flight;
+            final CallTimer timer = newCallTimer();
+            Call call;
+            try {
+                call = httpClient.newCall(prepareRequest(request, timer));
+            } catch (RuntimeException e) {
+                completeFlight(key, flight, null, e);
+                return ApiFuture.failed(e);
+            }
+            call.enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    record(timer, 0L, e);
+                    completeFlight(key, flight, null, e);
+                }
+
+                @Override
+                public void onResponse(Call call, final Response response) {
+                    try {
+                        parserExecutor.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                readFlight(key, flight, timer, response);
+                            }
+                        });
+                    } catch (RejectedExecutionException e) {
+                        response.close();
+                        record(timer, 0L, e);
+                        completeFlight(key, flight, null, e);
+                    }
+                }
+            });
+        }
+
+        final ApiFuture<T> future = new ApiFuture<>();
+        leader.addCallback(new ApiCallback<BufferedResponse>() {
+            @Override
+            public void onSuccess(BufferedResponse result) {
+                if (future.isDone()) {
+                    recordFollower(followerTimer, request, result, 0L, new CancellationException("call cancelled"));
+                    return;
+                }
+                long parseStart = System.nanoTime();
+                T parsed = null;
+                Exception error = null;
+                try {
+                    parsed = request.parse(result);
+                } catch (Exception e) {
+                    error = e;
+                }
+                recordFollower(followerTimer, request, result, parseStart, error);
+                if (error == null) {
+                    future.set(parsed);
+                } else {
+                    future.setException(error);
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                recordFollower(followerTimer, request, null, 0L, e);
+                future.setException(e);
+            }
+        }, parserExecutor);
+        return future;
+    }
+
+    /**
+     * Joins a call in flight.
+     *
+     * @return timer of the caller or {@code null} if metrics are not recorded
+     */
+    private CallTimer joinFlight(ApiRequest<?> request) {
+        if (debugMode) {
+            Log.i("coalesced with a call in flight: " + request.requestUrl(hostsProvider));
+        }
+        return newCallTimer();
+    }
+
+    private void recordFollower(CallTimer timer, ApiRequest<?> request, BufferedResponse response, long parseStart,
+                                Exception error) {
+        if (timer != null) {
+            timer.coalesced(new Request.Builder().url(request.requestUrl(hostsProvider)).build(),
+                    response == null ? 0 : response.getCode());
+            timer.record(parseStart, error);
+        }
+    }
+
+    /**
+     * Gets how long a caller waits for a coalesced call. OkHttp 3.10 has no call timeout, so a call is bounded by
+     * timeouts of its phases.
+     *
+     * @return timeout in milliseconds or {@code 0} if a phase has no timeout
+     */
+    private long flightTimeoutMillis() {
+        long connect = httpClient.connectTimeoutMillis();
+        long write = httpClient.writeTimeoutMillis();
+        long read = httpClient.readTimeoutMillis();
+        return connect == 0L || write == 0L || read == 0L ? 0L : connect + write + read;
+    }
+
+    private void readFlight(String key, ApiFuture<BufferedResponse> flight, CallTimer timer, Response response) {
+        long readStart = System.nanoTime();
+        BufferedResponse bufferedResponse = null;
+        Exception error = null;
+        try {
+            bufferedResponse = BufferedResponse.read(response);
+        } catch (Exception e) {
+            error = e;
+        }
+        record(timer, readStart, error);
+        completeFlight(key, flight, bufferedResponse, error);
+    }
+
+    private void completeFlight(String key, ApiFuture<BufferedResponse> flight, BufferedResponse response,
+                                Exception error) {
+        // late callers start a new call instead of getting a completed response
+        flights.remove(key, flight);
+        if (error == null) {
+            flight.set(response);
+        } else {
+            flight.setException(error);
+        }
+    }
+
+    private String flightKey(ApiRequest<?> request) {
+        StringBuilder key = new StringBuilder(request.requestUrl(hostsProvider))
+                .append('\n').append(language.iso6391Code)
+                .append('\n').append(accessToken);
+        Map<String, String> headers = request.getHeaders();
+        if (!headers.isEmpty()) {
+            for (Map.Entry<String, String> entry : new TreeMap<>(headers).entrySet()) {
+                key.append('\n').append(entry.getKey()).append(':').append(entry.getValue());
+            }
+        }
+        return key.toString();
+    }
+
+    private <T> ApiFuture<T> executeAsyncCall(final ApiRequest<T> request) {
+        if (flights != null && request.getMethod() == ApiRequest.Method.GET) {
+            return executeAsyncCoalesced(request);
+        }
+
+        final CallTimer timer = newCallTimer();
+        final Call call = httpClient.newCall(prepareRequest(request, timer));
+        final ApiFuture<T> future = new CallFuture<>(call);
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                record(timer, 0L, e);
+                future.setException(e);
+            }
+
+            @Override
+            public void onResponse(Call call, final Response response) {
+                if (future.isDone()) {
+                    response.close();
+                    record(timer, 0L, new CancellationException("call cancelled"));
+                    return;
+                }
+                try {
+                    parserExecutor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            long parseStart = System.nanoTime();
+                            T result = null;
+                            Exception error = null;
+                            try {
+                                result = request.parse(new OkHttpClientResponse(response, debugMode));
+                            } catch (Exception e) {
+                                error = e;
+                            } finally {
+                                response.close();
+                                record(timer, parseStart, error);
+                            }
+                            if (error == null) {
+                                future.set(result);
+                            } else {
+                                future.setException(error);
+                            }
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    response.close();
+                    record(timer, 0L, e);
+                    future.setException(e);
+                }
+            }
+        });
+        return future;
+    }
+
+    private CallTimer newCallTimer() {
+        return metricsRecorder == null ? null : new CallTimer(metricsRecorder);
+    }
+
+    private static void record(CallTimer timer, long parseStart, Exception error) {
+        if (timer != null) {
+            timer.record(parseStart, error);
+        }
+    }
+
+    private Request prepareRequest(ApiRequest<?> request, CallTimer timer) {
         checkNotNull(request, "request");
 
         Request.Builder builder = new Request.Builder()
+                .tag(timer)
                 .cacheControl(cacheControl)
                 .url(request.requestUrl(getHostsProvider()))
                 .addHeader(HttpHeaders.USER_AGENT, getUserAgent().getName())
                 .addHeader(HttpHeaders.ACCEPT_LANGUAGE, getLanguage().iso6391Code);
 
-        if (isAuthorized()) {
-            builder.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken);
+        // read the token once so that concurrent setAccessToken calls can not be observed half way
+        String token = accessToken;
+        if (!Strings.isNullOrEmpty(token)) {
+            builder.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
         }
 
         for (Map.Entry<String, String> entry : request.getHeaders().entrySet()) {
@@ -181,6 +669,14 @@ public class DefaultApiClient implements ApiClient {
         HostsProvider hostsProvider = new DefaultApiV1HostsProvider(false);
         Language language = Language.getDefault();
         OkHttpClient httpClient;
+        HttpClientProfile httpClientProfile = HttpClientProfile.DEFAULT;
+        Executor parserExecutor;
+        ApiMetricsRecorder metricsRecorder;
+        RetryPolicy retryPolicy;
+        CircuitBreakerRegistry circuitBreakers;
+        RateLimiterRegistry rateLimiters;
+        DocumentCache documentCache;
+        boolean coalesceRequests;
 
         /**
          * Sets debug mode. Enables logging. Default value is {@code false}.
@@ -248,6 +744,113 @@ public class DefaultApiClient implements ApiClient {
             return this;
         }
 
+        /**
+         * Sets connection and dispatcher settings of an HTTP client. Ignored if HTTP client is set with
+         * {@link #setHttpClient(OkHttpClient)}. Default value is {@link HttpClientProfile#DEFAULT}.
+         *
+         * @param httpClientProfile profile to use
+         * @return itself
+         * @see HttpClientProfile#LOW_LATENCY
+         * @see HttpClientProfile#BULK
+         */
+        public final Builder setHttpClientProfile(HttpClientProfile httpClientProfile) {
+            this.httpClientProfile = checkNotNull(httpClientProfile, "httpClientProfile");
+            return this;
+        }
+
+        /**
+         * Sets executor that parses responses of requests executed with {@link #executeAsync(ApiRequest)}. Parsing
+         * is moved out of OkHttp's dispatcher threads so they are released as soon as response headers arrive.
+         * By default a shared pool of daemon threads sized to the number of available processors is used.
+         *
+         * @param parserExecutor executor to parse responses on
+         * @return itself
+         */
+        public final Builder setParserExecutor(Executor parserExecutor) {
+            this.parserExecutor = parserExecutor;
+            return this;
+        }
+
+        /**
+         * Sets recorder of call metrics. Phases of calls are measured with OkHttp's {@link okhttp3.EventListener},
+         * so the recorder takes over event listeners of calls made by the client. By default metrics are not
+         * collected.
+         *
+         * @param metricsRecorder recorder to use or {@code null} to disable metrics
+         * @return itself
+         * @see com.yoo.money.api.net.metrics.HistogramMetricsRecorder
+         */
+        public final Builder setMetricsRecorder(ApiMetricsRecorder metricsRecorder) {
+            this.metricsRecorder = metricsRecorder;
+            return this;
+        }
+
+        /**
+         * Sets policy to repeat calls that failed because of transient errors. Only idempotent requests are repeated.
+         * By default calls are not repeated.
+         *
+         * @param retryPolicy retry policy or {@code null} to disable retries
+         * @return itself
+         */
+        public final Builder setRetryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /**
+         * Sets circuit breakers of endpoints. When a circuit breaker of an endpoint is open or there are too many
+         * concurrent calls to the endpoint, calls fail fast with {@link CallNotPermittedException}. Rejected calls
+         * are not retried. By default calls are not limited.
+         *
+         * @param circuitBreakers circuit breakers or {@code null} to disable them
+         * @return itself
+         */
+        public final Builder setCircuitBreakers(CircuitBreakerRegistry circuitBreakers) {
+            this.circuitBreakers = circuitBreakers;
+            return this;
+        }
+
+        /**
+         * Sets rate limiters of clients. Calls wait for a permit of a limiter shared by all clients with the same
+         * client id and access token, so share the registry between clients to limit them together. Calls that would
+         * have to wait too long fail with {@link CallNotPermittedException}. By default calls are not limited.
+         *
+         * @param rateLimiters rate limiters or {@code null} to disable them
+         * @return itself
+         */
+        public final Builder setRateLimiters(RateLimiterRegistry rateLimiters) {
+            this.rateLimiters = rateLimiters;
+            return this;
+        }
+
+        /**
+         * Sets cache of documents retrieved with {@link DocumentApiRequest}. Cached documents are returned until they
+         * expire and then revalidated with conditional requests. By default documents are not cached.
+         *
+         * @param documentCache document cache or {@code null} to disable caching
+         * @return itself
+         */
+        public final Builder setDocumentCache(DocumentCache documentCache) {
+            this.documentCache = documentCache;
+            return this;
+        }
+
+        /**
+         * Enables coalescing of identical GET requests. While a GET request is in flight, identical requests of
+         * clients sharing this configuration wait for its response instead of making their own calls. Requests are
+         * identical if they have the same URL, headers, language and access token. Every caller parses the response
+         * on its own, so callers never share mutable models, and is recorded by the metrics recorder with its own parse
+         * time. A synchronous caller waits at most the sum of the connect, write and read timeouts. A coalesced call is
+         * not cancelled when one of its callers cancels. Disabled by default.
+         *
+         * @param coalesceRequests {@code true} to coalesce identical GET requests
+         * @return itself
+         */
+        public final Builder setCoalesceRequests(boolean coalesceRequests) {
+            this.coalesceRequests = coalesceRequests;
+            return this;
+        }
+
         /**
          * Creates instance of {@link DefaultApiClient}.
          *
@@ -258,6 +861,161 @@ public class DefaultApiClient implements ApiClient {
         }
     }
 
+    private static final class CallFuture<T> extends ApiFuture<T> {
+
+        private final Call call;
+
+        CallFuture(Call call) {
+            this.call = call;
+        }
+
+        @Override
+        protected void onCancelled() {
+            call.cancel();
+        }
+    }
+
+    /**
+     * Updates document cache with a response of a call and completes with the response or a cached document.
+     */
+    private final class CacheUpdateFuture<T> extends ApiFuture<HttpResourceResponse<T>>
+            implements ApiCallback<HttpResourceResponse<T>> {
+
+        private final String url;
+        private final ApiFuture<HttpResourceResponse<T>> call;
+
+        CacheUpdateFuture(String url, ApiFuture<HttpResourceResponse<T>> call) {
+            this.url = url;
+            this.call = call;
+            call.addCallback(this);
+        }
+
+        @Override
+        public void onSuccess(HttpResourceResponse<T> result) {
+            set(documentCache.update(getLanguage(), url, result));
+        }
+
+        @Override
+        public void onFailure(Exception e) {
+            setException(e);
+        }
+
+        @Override
+        protected void onCancelled() {
+            call.cancel(false);
+        }
+    }
+
+    /**
+     * Repeats asynchronous calls according to retry policy and delays them until rate limiter permits them. Cancelling
+     * it cancels a pending call or a scheduled attempt.
+     */
+    private final class RetryFuture<T> extends ApiFuture<T> implements ApiCallback<T>, Runnable {
+
+        private final ApiRequest<T> request;
+        private int attempt;
+        private boolean permitted;
+        private volatile Future<?> pending;
+
+        RetryFuture(ApiRequest<T> request) {
+            this.request = request;
+        }
+
+        ApiFuture<T> start() {
+            run();
+            return this;
+        }
+
+        @Override
+        public void run() {
+            if (isDone()) {
+                return;
+            }
+            if (rateLimiters != null && !permitted) {
+                long wait;
+                try {
+                    wait = rateLimiters.reserve(clientId, accessToken);
+                } catch (CallNotPermittedException e) {
+                    setException(e);
+                    return;
+                }
+                if (wait > 0L) {
+                    permitted = true;
+                    schedule(wait, TimeUnit.NANOSECONDS, null);
+                    return;
+                }
+            }
+            permitted = false;
+            ++attempt;
+            ApiFuture<T> call;
+            try {
+                call = executeAsyncOnce(request);
+            } catch (RuntimeException e) {
+                // a delayed attempt runs on the scheduler, which would swallow the exception
+                setException(e);
+                return;
+            }
+            setPending(call);
+            call.addCallback(this);
+        }
+
+        @Override
+        public void onSuccess(T result) {
+            set(result);
+        }
+
+        @Override
+        public void onFailure(Exception e) {
+            long delay = isDone() || retryPolicy == null ? -1L : retryPolicy.getRetryDelay(request, attempt, e);
+            if (delay < 0L) {
+                setException(e);
+                return;
+            }
+            schedule(delay, TimeUnit.MILLISECONDS, e);
+        }
+
+        @Override
+        protected void onCancelled() {
+            Future<?> pending = this.pending;
+            if (pending != null) {
+                pending.cancel(false);
+            }
+        }
+
+        private void schedule(long delay, TimeUnit unit, Exception cause) {
+            try {
+                setPending(DefaultRetryScheduler.INSTANCE.schedule(this, delay, unit));
+            } catch (RejectedExecutionException rejected) {
+                setException(cause == null ? rejected : cause);
+            }
+        }
+
+        private void setPending(Future<?> pending) {
+            this.pending = pending;
+            if (isCancelled()) {
+                pending.cancel(false);
+            }
+        }
+    }
+
+    private static final class DefaultRetryScheduler {
+
+        static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(
+                Threads.newDaemonThreadFactory("yoomoney-sdk-retry"));
+
+        private DefaultRetryScheduler() {
+        }
+    }
+
+    private static final class DefaultParserExecutor {
+
+        static final Executor INSTANCE = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                Threads.newDaemonThreadFactory("yoomoney-sdk-parser"));
+
+        private DefaultParserExecutor() {
+        }
+    }
+
     private static final class AuthorizationDataImpl implements AuthorizationData {
 
         private final String url;
@@ -26,6 +26,7 @@ package com.yoo.money.api.net.clients;
 
 import com.yoo.money.api.util.logging.Log;
 import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
 import okhttp3.logging.HttpLoggingInterceptor;
@@ -52,7 +53,18 @@ public final class HttpClientFactory {
      * @return new HTTP client
      */
     public static OkHttpClient newOkHttpClient(boolean enableLogging) {
-        OkHttpClient.Builder builder = createDefaultOkHttpClientBuilder();
+        return newOkHttpClient(HttpClientProfile.DEFAULT, enableLogging);
+    }
+
+    /**
+     * Creates new {@link OkHttpClient} instance configured with specified profile.
+     *
+     * @param profile connection and dispatcher settings
+     * @param enableLogging {@code true} if logging is required
+     * @return new HTTP client
+     */
+    public static OkHttpClient newOkHttpClient(HttpClientProfile profile, boolean enableLogging) {
+        OkHttpClient.Builder builder = createOkHttpClientBuilder(profile);
         if (enableLogging) {
             applyLogging(builder);
         }
@@ -66,11 +78,29 @@ public final class HttpClientFactory {
      */
     @SuppressWarnings("WeakerAccess")
     public static OkHttpClient.Builder createDefaultOkHttpClientBuilder() {
-        final long timeout = 30;
+        return createOkHttpClientBuilder(HttpClientProfile.DEFAULT);
+    }
+
+    /**
+     * Creates {@link OkHttpClient.Builder} initialized with parameters of specified profile.
+     *
+     * @param profile connection and dispatcher settings
+     * @return instance of {@link OkHttpClient.Builder}
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static OkHttpClient.Builder createOkHttpClientBuilder(HttpClientProfile profile) {
+        checkNotNull(profile, "profile");
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(profile.maxRequests);
+        dispatcher.setMaxRequestsPerHost(profile.maxRequestsPerHost);
         return new OkHttpClient.Builder()
-                .readTimeout(timeout, TimeUnit.SECONDS)
-                .connectTimeout(timeout, TimeUnit.SECONDS)
-                .connectionPool(new ConnectionPool(4, 10L, TimeUnit.MINUTES))
+                .readTimeout(profile.readTimeoutMillis, TimeUnit.MILLISECONDS)
+                .connectTimeout(profile.connectTimeoutMillis, TimeUnit.MILLISECONDS)
+                .writeTimeout(profile.writeTimeoutMillis, TimeUnit.MILLISECONDS)
+                .connectionPool(new ConnectionPool(profile.maxIdleConnections, profile.keepAliveMillis,
+                        TimeUnit.MILLISECONDS))
+                .dispatcher(dispatcher)
+                .protocols(profile.getProtocols())
                 .followSslRedirects(false)
                 .followRedirects(false);
     }
@@ -0,0 +1,344 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.net.clients;
+
+import okhttp3.Protocol;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection and dispatcher settings of an HTTP client created by {@link HttpClientFactory}. Use one of predefined
+ * profiles or create your own with {@link HttpClientProfile.Builder}.
+ * <p>
+ * Dispatcher limits {@link #maxRequests} and {@link #maxRequestsPerHost} apply only to calls executed with
+ * {@link AsyncApiClient#executeAsync(com.yoo.money.api.net.ApiRequest)}. Synchronous calls of
+ * {@link ApiClient#execute(com.yoo.money.api.net.ApiRequest)} run on the calling thread and are not limited by them,
+ * so concurrency of synchronous calls is bounded by the number of calling threads.
+ *
+ * @see DefaultApiClient.Builder#setHttpClientProfile(HttpClientProfile)
+ * @see HttpClientStats
+ */
+public final class HttpClientProfile {
+
+    /**
+     * Settings used by default: small connection pool and OkHttp's dispatcher limits. Suitable for mobile and
+     * desktop applications that make a few calls at a time.
+     */
+    public static final HttpClientProfile DEFAULT = new Builder().create();
+
+    /**
+     * Interactive backend traffic: short timeouts, warm connections and HTTP/2 when server supports it, so that
+     * concurrent calls are multiplexed over already established connections.
+     */
+    public static final HttpClientProfile LOW_LATENCY = new Builder()
+            .setMaxIdleConnections(16)
+            .setKeepAlive(5L, TimeUnit.MINUTES)
+            .setMaxRequests(256)
+            .setMaxRequestsPerHost(64)
+            .setPreferHttp2(true)
+            .setConnectTimeout(5L, TimeUnit.SECONDS)
+            .setReadTimeout(10L, TimeUnit.SECONDS)
+            .setWriteTimeout(10L, TimeUnit.SECONDS)
+            .create();
+
+    /**
+     * Batch jobs that push hundreds of concurrent calls to the same host: large pool of HTTP/1.1 connections and
+     * generous timeouts. HTTP/1.1 is used to spread calls over many TCP connections instead of one multiplexed
+     * connection.
+     */
+    public static final HttpClientProfile BULK = new Builder()
+            .setMaxIdleConnections(128)
+            .setKeepAlive(10L, TimeUnit.MINUTES)
+            .setMaxRequests(512)
+            .setMaxRequestsPerHost(256)
+            .setPreferHttp2(false)
+            .setConnectTimeout(10L, TimeUnit.SECONDS)
+            .setReadTimeout(60L, TimeUnit.SECONDS)
+            .setWriteTimeout(60L, TimeUnit.SECONDS)
+            .create();
+
+    /**
+     * Maximum number of idle connections kept in a pool.
+     */
+    public final int maxIdleConnections;
+
+    /**
+     * Time in milliseconds an idle connection is kept alive.
+     */
+    public final long keepAliveMillis;
+
+    /**
+     * Maximum number of concurrently executing asynchronous calls. Other asynchronous calls are queued, synchronous
+     * calls are not limited.
+     */
+    public final int maxRequests;
+
+    /**
+     * Maximum number of concurrently executing asynchronous calls to a single host. Other asynchronous calls are
+     * queued, synchronous calls are not limited.
+     */
+    public final int maxRequestsPerHost;
+
+    /**
+     * {@code true} if HTTP/2 should be negotiated when server supports it.
+     */
+    public final boolean preferHttp2;
+
+    /**
+     * Connect timeout in milliseconds.
+     */
+    public final long connectTimeoutMillis;
+
+    /**
+     * Read timeout in milliseconds.
+     */
+    public final long readTimeoutMillis;
+
+    /**
+     * Write timeout in milliseconds.
+     */
+    public final long writeTimeoutMillis;
+
+    HttpClientProfile(Builder builder) {
+        maxIdleConnections = checkPositive(builder.maxIdleConnections, "maxIdleConnections");
+        keepAliveMillis = checkPositive(builder.keepAliveMillis, "keepAliveMillis");
+        maxRequests = checkPositive(builder.maxRequests, "maxRequests");
+        maxRequestsPerHost = checkPositive(builder.maxRequestsPerHost, "maxRequestsPerHost");
+        preferHttp2 = builder.preferHttp2;
+        connectTimeoutMillis = checkNotNegative(builder.connectTimeoutMillis, "connectTimeoutMillis");
+        readTimeoutMillis = checkNotNegative(builder.readTimeoutMillis, "readTimeoutMillis");
+        writeTimeoutMillis = checkNotNegative(builder.writeTimeoutMillis, "writeTimeoutMillis");
+    }
+
+    /**
+     * @return protocols to negotiate
+     */
+    List<Protocol> getProtocols() {
+        return preferHttp2 ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                : Collections.singletonList(Protocol.HTTP_1_1);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        HttpClientProfile that = (HttpClientProfile) o;
+
+        return maxIdleConnections == that.maxIdleConnections && keepAliveMillis == that.keepAliveMillis
+                && maxRequests == that.maxRequests && maxRequestsPerHost == that.maxRequestsPerHost
+                && preferHttp2 == that.preferHttp2 && connectTimeoutMillis == that.connectTimeoutMillis
+                && readTimeoutMillis == that.readTimeoutMillis && writeTimeoutMillis == that.writeTimeoutMillis;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = maxIdleConnections;
+        result = 31 * result + (int) (keepAliveMillis ^ (keepAliveMillis >>> 32));
+        result = 31 * result + maxRequests;
+        result = 31 * result + maxRequestsPerHost;
+        result = 31 * result + (preferHttp2 ? 1 : 0);
+        result = 31 * result + (int) (connectTimeoutMillis ^ (connectTimeoutMillis >>> 32));
+        result = 31 * result + (int) (readTimeoutMillis ^ (readTimeoutMillis >>> 32));
+        result = 31 * result + (int) (writeTimeoutMillis ^ (writeTimeoutMillis >>> 32));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpClientProfile{" +
+                "maxIdleConnections=" + maxIdleConnections +
+                ", keepAliveMillis=" + keepAliveMillis +
+                ", maxRequests=" + maxRequests +
+                ", maxRequestsPerHost=" + maxRequestsPerHost +
+                ", preferHttp2=" + preferHttp2 +
+                ", connectTimeoutMillis=" + connectTimeoutMillis +
+                ", readTimeoutMillis=" + readTimeoutMillis +
+                ", writeTimeoutMillis=" + writeTimeoutMillis +
+                '}';
+    }
+
+    private static int checkPositive(int value, String name) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + " must be positive: " + value);
+        }
+        return value;
+    }
+
+    private static long checkPositive(long value, String name) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + " must be positive: " + value);
+        }
+        return value;
+    }
+
+    private static long checkNotNegative(long value, String name) {
+        if (value < 0) {
+            throw new IllegalArgumentException(name + " must not be negative: " + value);
+        }
+        return value;
+    }
+
+    /**
+     * Creates {@link HttpClientProfile}. Initial values are the same as in {@link #DEFAULT}.
+     */
+    public static final class Builder {
+
+        int maxIdleConnections = 4;
+        long keepAliveMillis = TimeUnit.MINUTES.toMillis(10L);
+        int maxRequests = 64;
+        int maxRequestsPerHost = 5;
+        boolean preferHttp2 = true;
+        long connectTimeoutMillis = TimeUnit.SECONDS.toMillis(30L);
+        long readTimeoutMillis = TimeUnit.SECONDS.toMillis(30L);
+        long writeTimeoutMillis = TimeUnit.SECONDS.toMillis(10L);
+
+        /**
+         * Creates builder initialized with values of {@link #DEFAULT} profile.
+         */
+        public Builder() {
+        }
+
+        /**
+         * Creates builder initialized with values of specified profile.
+         *
+         * @param profile profile to copy
+         */
+        public Builder(HttpClientProfile profile) {
+            maxIdleConnections = profile.maxIdleConnections;
+            keepAliveMillis = profile.keepAliveMillis;
+            maxRequests = profile.maxRequests;
+            maxRequestsPerHost = profile.maxRequestsPerHost;
+            preferHttp2 = profile.preferHttp2;
+            connectTimeoutMillis = profile.connectTimeoutMillis;
+            readTimeoutMillis = profile.readTimeoutMillis;
+            writeTimeoutMillis = profile.writeTimeoutMillis;
+        }
+
+        /**
+         * Sets maximum number of idle connections kept in a pool.
+         *
+         * @param maxIdleConnections number of connections
+         * @return itself
+         */
+        public Builder setMaxIdleConnections(int maxIdleConnections) {
+            this.maxIdleConnections = maxIdleConnections;
+            return this;
+        }
+
+        /**
+         * Sets time an idle connection is kept alive.
+         *
+         * @param duration duration
+         * @param unit time unit of a duration
+         * @return itself
+         */
+        public Builder setKeepAlive(long duration, TimeUnit unit) {
+            this.keepAliveMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Sets maximum number of concurrently executing asynchronous calls.
+         *
+         * @param maxRequests number of calls
+         * @return itself
+         */
+        public Builder setMaxRequests(int maxRequests) {
+            this.maxRequests = maxRequests;
+            return this;
+        }
+
+        /**
+         * Sets maximum number of concurrently executing asynchronous calls to a single host.
+         *
+         * @param maxRequestsPerHost number of calls
+         * @return itself
+         */
+        public Builder setMaxRequestsPerHost(int maxRequestsPerHost) {
+            this.maxRequestsPerHost = maxRequestsPerHost;
+            return this;
+        }
+
+        /**
+         * Sets HTTP/2 preference. If {@code false} only HTTP/1.1 is used.
+         *
+         * @param preferHttp2 {@code true} to negotiate HTTP/2
+         * @return itself
+         */
+        public Builder setPreferHttp2(boolean preferHttp2) {
+            this.preferHttp2 = preferHttp2;
+            return this;
+        }
+
+        /**
+         * Sets connect timeout. Zero means no timeout.
+         *
+         * @param timeout timeout
+         * @param unit time unit of a timeout
+         * @return itself
+         */
+        public Builder setConnectTimeout(long timeout, TimeUnit unit) {
+            this.connectTimeoutMillis = unit.toMillis(timeout);
+            return this;
+        }
+
+        /**
+         * Sets read timeout. Zero means no timeout.
+         *
+         * @param timeout timeout
+         * @param unit time unit of a timeout
+         * @return itself
+         */
+        public Builder setReadTimeout(long timeout, TimeUnit unit) {
+            this.readTimeoutMillis = unit.toMillis(timeout);
+            return this;
+        }
+
+        /**
+         * Sets write timeout. Zero means no timeout.
+         *
+         * @param timeout timeout
+         * @param unit time unit of a timeout
+         * @return itself
+         */
+        public Builder setWriteTimeout(long timeout, TimeUnit unit) {
+            this.writeTimeoutMillis = unit.toMillis(timeout);
+            return this;
+        }
+
+        /**
+         * Creates instance of {@link HttpClientProfile}.
+         *
+         * @return profile
+         */
+        public HttpClientProfile create() {
+            return new HttpClientProfile(this);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.net.clients;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+
+import static com.yoo.money.api.util.Common.checkNotNull;
+
+/**
+ * Snapshot of connection pool occupancy and dispatcher queue depth of an HTTP client. Take snapshots periodically
+ * to size {@link HttpClientProfile} from real load: a constantly non-empty queue means the dispatcher limits are too
+ * low, while many idle connections mean the pool is larger than needed.
+ *
+ * @see DefaultApiClient#getHttpClientStats()
+ */
+public final class HttpClientStats {
+
+    /**
+     * Total number of connections in the pool.
+     */
+    public final int connectionCount;
+
+    /**
+     * Number of idle connections in the pool.
+     */
+    public final int idleConnectionCount;
+
+    /**
+     * Number of calls being executed: asynchronous calls started by the dispatcher and synchronous calls in progress.
+     */
+    public final int runningCalls;
+
+    /**
+     * Number of asynchronous calls waiting for dispatcher limits.
+     */
+    public final int queuedCalls;
+
+    /**
+     * Current dispatcher limit of concurrent asynchronous calls.
+     */
+    public final int maxRequests;
+
+    /**
+     * Current dispatcher limit of concurrent asynchronous calls to a single host.
+     */
+    public final int maxRequestsPerHost;
+
+    HttpClientStats(int connectionCount, int idleConnectionCount, int runningCalls, int queuedCalls,
+                    int maxRequests, int maxRequestsPerHost) {
+        this.connectionCount = connectionCount;
+        this.idleConnectionCount = idleConnectionCount;
+        this.runningCalls = runningCalls;
+        this.queuedCalls = queuedCalls;
+        this.maxRequests = maxRequests;
+        this.maxRequestsPerHost = maxRequestsPerHost;
+    }
+
+    /**
+     * Takes a snapshot of specified HTTP client.
+     *
+     * @param httpClient HTTP client
+     * @return statistics
+     */
+    public static HttpClientStats of(OkHttpClient httpClient) {
+        checkNotNull(httpClient, "httpClient");
+        ConnectionPool pool = httpClient.connectionPool();
+        Dispatcher dispatcher = httpClient.dispatcher();
+        return new HttpClientStats(pool.connectionCount(), pool.idleConnectionCount(),
+                dispatcher.runningCallsCount(), dispatcher.queuedCallsCount(), dispatcher.getMaxRequests(),
+                dispatcher.getMaxRequestsPerHost());
+    }
+
+    /**
+     * @return number of connections currently carrying calls
+     */
+    public int getActiveConnectionCount() {
+        return connectionCount - idleConnectionCount;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpClientStats{" +
+                "connectionCount=" + connectionCount +
+                ", idleConnectionCount=" + idleConnectionCount +
+                ", runningCalls=" + runningCalls +
+                ", queuedCalls=" + queuedCalls +
+                ", maxRequests=" + maxRequests +
+                ", maxRequestsPerHost=" + maxRequestsPerHost +
+                '}';
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.net.clients;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.yoo.money.api.util.Common.checkNotNull;
+
+/**
+ * Lock-free rate limiter that spreads calls evenly over time while allowing short bursts.
+ * <p>
+ * The limiter implements generic cell rate algorithm, which is equivalent to a token bucket but keeps a single value:
+ * theoretical arrival time of the next call. Each permit moves it one interval forward. A call may start as soon as
+ * the arrival time is no more than a burst ahead of the current time, so acquiring a permit is a single
+ * compare-and-set and the limiter never blocks other threads.
+ * <p>
+ * Waiting is left to a caller: {@link #reserve(long, TimeUnit)} takes a permit and tells how long to wait before using
+ * it, so asynchronous callers can schedule the call instead of blocking a thread.
+ *
+ * @see RateLimiterRegistry
+ */
+public final class RateLimiter {
+
+    private final String name;
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong arrivalTime;
+
+    /**
+     * Constructor.
+     *
+     * @param name name of the limiter
+     * @param permits number of permits per {@code unit}
+     * @param unit time unit
+     * @param burst number of permits that can be acquired at once after a period of inactivity
+     */
+    public RateLimiter(String name, int permits, TimeUnit unit, int burst) {
+        if (permits < 1) {
+            throw new IllegalArgumentException("permits must be positive");
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst must be positive");
+        }
+        this.name = checkNotNull(name, "name");
+        this.intervalNanos = Math.max(checkNotNull(unit, "unit").toNanos(1L) / permits, 1L);
+        this.toleranceNanos = intervalNanos * (burst - 1);
+        this.arrivalTime = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * @return name of the limiter
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return number of permits per second
+     */
+    public double getRate() {
+        return (double) TimeUnit.SECONDS.toNanos(1L) / intervalNanos;
+    }
+
+    /**
+     * Acquires a permit if it is available immediately.
+     *
+     * @return {@code true} if the permit was acquired
+     */
+    public boolean tryAcquire() {
+        return reserveNanos(0L) == 0L;
+    }
+
+    /**
+     * Acquires a permit, blocking until it is available.
+     *
+     * @throws InterruptedException if the thread was interrupted while waiting; the permit is not returned
+     */
+    public void acquire() throws InterruptedException {
+        TimeUnit.NANOSECONDS.sleep(reserveNanos(Long.MAX_VALUE));
+    }
+
+    /**
+     * Reserves a permit if it becomes available within specified time. A caller must wait for returned time before
+     * making a call.
+     *
+     * @param timeout maximum time to wait
+     * @param unit time unit of {@code timeout}
+     * @return time to wait in nanoseconds or {@code -1} if the permit is not available within {@code timeout}, in
+     * which case nothing is reserved
+     */
+    public long reserve(long timeout, TimeUnit unit) {
+        return reserveNanos(checkNotNull(unit, "unit").toNanos(timeout));
+    }
+
+    /**
+     * Checks if the limiter is idle, that is the next call can use the whole burst. Idle limiters can be discarded
+     * and created again without changing behaviour.
+     *
+     * @param now current value of {@link System#nanoTime()}
+     * @return {@code true} if the limiter is idle
+     */
+    boolean isIdle(long now) {
+        return arrivalTime.get() - now <= 0L;
+    }
+
+    private long reserveNanos(long timeoutNanos) {
+        while (true) {
+            long arrival = arrivalTime.get();
+            long now = System.nanoTime();
+            long wait = Math.max(arrival - toleranceNanos - now, 0L);
+            if (wait > timeoutNanos) {
+                return -1L;
+            }
+            long next = (arrival - now > 0L ? arrival : now) + intervalNanos;
+            if (arrivalTime.compareAndSet(arrival, next)) {
+                return wait;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimiter{" +
+                "name='" + name + '\'' +
+                ", rate=" + getRate() +
+                '}';
+    }
+}
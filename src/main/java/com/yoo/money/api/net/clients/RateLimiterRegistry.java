@@ -0,0 +1,213 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.net.clients;
+
+import com.yoo.money.api.exceptions.CallNotPermittedException;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.yoo.money.api.util.Common.checkNotNull;
+
+/**
+ * Holds {@link RateLimiter}s of clients. Calls made with the same client id and access token share a single limiter,
+ * so share one registry between all {@link DefaultApiClient}s of an application, including clients created with
+ * {@link DefaultApiClient#withAccessToken(String)}, to limit them together.
+ * <p>
+ * A call waits for its permit up to {@link Builder#setMaxWait(long, TimeUnit)} and is rejected with
+ * {@link CallNotPermittedException} if it would have to wait longer. Synchronous calls block the calling thread while
+ * waiting, asynchronous calls are scheduled and do not occupy any thread.
+ *
+ * @see DefaultApiClient.Builder#setRateLimiters(RateLimiterRegistry)
+ */
+public final class RateLimiterRegistry {
+
+    /**
+     * Number of limiters after which idle limiters are discarded.
+     */
+    private static final int CLEANUP_THRESHOLD = 1024;
+
+    private final int permits;
+    private final TimeUnit unit;
+    private final int burst;
+    private final long maxWaitNanos;
+    private final ConcurrentMap<Key, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+
+    RateLimiterRegistry(Builder builder) {
+        permits = builder.permits;
+        unit = builder.unit;
+        burst = builder.burst;
+        maxWaitNanos = builder.maxWaitNanos;
+    }
+
+    /**
+     * Gets rate limiter of a client.
+     *
+     * @param clientId client id
+     * @param accessToken access token or {@code null} for unauthorized calls
+     * @return rate limiter
+     */
+    public RateLimiter getRateLimiter(String clientId, String accessToken) {
+        Key key = new Key(checkNotNull(clientId, "clientId"), accessToken);
+        RateLimiter rateLimiter = rateLimiters.get(key);
+        if (rateLimiter == null) {
+            if (rateLimiters.size() >= CLEANUP_THRESHOLD) {
+                removeIdle();
+            }
+            RateLimiter created = new RateLimiter(clientId, permits, unit, burst);
+            rateLimiter = rateLimiters.putIfAbsent(key, created);
+            if (rateLimiter == null) {
+                rateLimiter = created;
+            }
+        }
+        return rateLimiter;
+    }
+
+    /**
+     * Reserves a permit for a call.
+     *
+     * @param clientId client id
+     * @param accessToken access token or {@code null} for unauthorized calls
+     * @return time to wait before the call in nanoseconds
+     * @throws CallNotPermittedException if the call would have to wait too long
+     */
+    long reserve(String clientId, String accessToken) throws CallNotPermittedException {
+        RateLimiter rateLimiter = getRateLimiter(clientId, accessToken);
+        long wait = rateLimiter.reserve(maxWaitNanos, TimeUnit.NANOSECONDS);
+        if (wait < 0L) {
+            throw new CallNotPermittedException(rateLimiter.getName(), CallNotPermittedException.Reason.RATE_LIMITED);
+        }
+        return wait;
+    }
+
+    /**
+     * @return number of limiters held by the registry
+     */
+    int size() {
+        return rateLimiters.size();
+    }
+
+    private void removeIdle() {
+        long now = System.nanoTime();
+        Iterator<RateLimiter> iterator = rateLimiters.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().isIdle(now)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static final class Key {
+
+        final String clientId;
+        final String accessToken;
+
+        Key(String clientId, String accessToken) {
+            this.clientId = clientId;
+            this.accessToken = accessToken == null ? "" : accessToken;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key key = (Key) o;
+            return clientId.equals(key.clientId) && accessToken.equals(key.accessToken);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * clientId.hashCode() + accessToken.hashCode();
+        }
+    }
+
+    /**
+     * Creates {@link RateLimiterRegistry}.
+     */
+    public static final class Builder {
+
+        int permits = 10;
+        TimeUnit unit = TimeUnit.SECONDS;
+        int burst = 10;
+        long maxWaitNanos = TimeUnit.SECONDS.toNanos(30L);
+
+        /**
+         * Sets sustained rate of calls. Default value is 10 calls per second.
+         *
+         * @param permits number of calls per {@code unit}
+         * @param unit time unit
+         * @return itself
+         */
+        public Builder setRate(int permits, TimeUnit unit) {
+            if (permits < 1) {
+                throw new IllegalArgumentException("permits must be positive");
+            }
+            this.permits = permits;
+            this.unit = checkNotNull(unit, "unit");
+            return this;
+        }
+
+        /**
+         * Sets number of calls that can be made at once after a period of inactivity. Default value is 10.
+         *
+         * @param burst number of calls
+         * @return itself
+         */
+        public Builder setBurst(int burst) {
+            if (burst < 1) {
+                throw new IllegalArgumentException("burst must be positive");
+            }
+            this.burst = burst;
+            return this;
+        }
+
+        /**
+         * Sets maximum time a call can wait for a permit. Default value is 30 seconds.
+         *
+         * @param maxWait maximum time to wait, {@code 0} to reject calls instead of waiting
+         * @param unit time unit
+         * @return itself
+         */
+        public Builder setMaxWait(long maxWait, TimeUnit unit) {
+            if (maxWait < 0L) {
+                throw new IllegalArgumentException("maxWait must not be negative");
+            }
+            this.maxWaitNanos = checkNotNull(unit, "unit").toNanos(maxWait);
+            return this;
+        }
+
+        /**
+         * Creates instance of {@link RateLimiterRegistry}.
+         *
+         * @return registry
+         */
+        public RateLimiterRegistry create() {
+            return new RateLimiterRegistry(this);
+        }
+    }
+}
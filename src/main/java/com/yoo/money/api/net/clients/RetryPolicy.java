@@ -0,0 +1,282 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.net.clients;
+
+import com.yoo.money.api.exceptions.HttpStatusException;
+import com.yoo.money.api.net.ApiRequest;
+import com.yoo.money.api.net.IdempotentRequest;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.yoo.money.api.util.Common.checkNotNull;
+
+/**
+ * Retry policy of {@link DefaultApiClient}. A failed call is repeated only if:
+ * <ul>
+ *     <li>the request is safe to repeat: it is a GET request or implements {@link IdempotentRequest};</li>
+ *     <li>the failure is transient: an {@link IOException} or HTTP status 5xx or 429 (Too Many Requests);</li>
+ *     <li>the number of attempts is below the limit;</li>
+ *     <li>the retry budget is not exhausted.</li>
+ * </ul>
+ * Delays between attempts grow exponentially and are fully jittered: a delay is chosen uniformly from
+ * {@code [0, min(maxDelay, baseDelay * 2^(attempt - 1))]}, so clients that failed at the same moment do not come back
+ * at the same moment.
+ * <p>
+ * The retry budget limits retries to a fraction of all requests executed with this policy: each request adds
+ * {@code budgetRatio} to the budget and each retry takes one from it. The budget is capped at {@code maxBudget}
+ * retries, so during an incident retries can not multiply load on a server by more than {@code 1 + budgetRatio}.
+ * The budget is shared by all clients that use the same policy instance.
+ *
+ * @see DefaultApiClient.Builder#setRetryPolicy(RetryPolicy)
+ */
+public final class RetryPolicy {
+
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final long TOKEN = 1000L;
+
+    /**
+     * Maximum number of attempts including the first one.
+     */
+    public final int maxAttempts;
+
+    /**
+     * Base delay in milliseconds.
+     */
+    public final long baseDelayMillis;
+
+    /**
+     * Maximum delay in milliseconds.
+     */
+    public final long maxDelayMillis;
+
+    /**
+     * Number of retries earned by each request.
+     */
+    public final double budgetRatio;
+
+    /**
+     * Maximum number of retries that can be saved in the budget.
+     */
+    public final int maxBudget;
+
+    private final long deposit;
+    private final long maxBalance;
+    private final AtomicLong balance;
+
+    RetryPolicy(Builder builder) {
+        if (builder.maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be positive: " + builder.maxAttempts);
+        }
+        if (builder.baseDelayMillis < 0L || builder.maxDelayMillis < builder.baseDelayMillis) {
+            throw new IllegalArgumentException("invalid delays: " + builder.baseDelayMillis + ", " +
+                    builder.maxDelayMillis);
+        }
+        if (builder.budgetRatio < 0.0 || builder.maxBudget < 0) {
+            throw new IllegalArgumentException("invalid budget: " + builder.budgetRatio + ", " + builder.maxBudget);
+        }
+        maxAttempts = builder.maxAttempts;
+        baseDelayMillis = builder.baseDelayMillis;
+        maxDelayMillis = builder.maxDelayMillis;
+        budgetRatio = builder.budgetRatio;
+        maxBudget = builder.maxBudget;
+
+        deposit = Math.round(budgetRatio * TOKEN);
+        maxBalance = maxBudget * TOKEN;
+        balance = new AtomicLong(maxBalance);
+    }
+
+    /**
+     * Checks if a request can be safely repeated.
+     *
+     * @param request request to check
+     * @return {@code true} if the request is idempotent
+     */
+    public boolean isIdempotent(ApiRequest<?> request) {
+        return checkNotNull(request, "request").getMethod() == ApiRequest.Method.GET
+                || request instanceof IdempotentRequest;
+    }
+
+    /**
+     * Checks if a failure is transient and a call may succeed if repeated.
+     *
+     * @param e cause of a failure
+     * @return {@code true} if the failure is transient
+     */
+    public boolean isTransient(Exception e) {
+        if (e instanceof HttpStatusException) {
+            HttpStatusException statusException = (HttpStatusException) e;
+            return statusException.isServerError() || statusException.statusCode == HTTP_TOO_MANY_REQUESTS;
+        }
+        return e instanceof IOException;
+    }
+
+    /**
+     * @return number of retries currently available in the budget
+     */
+    public double getAvailableBudget() {
+        return (double) balance.get() / TOKEN;
+    }
+
+    /**
+     * Registers a new request in the budget. Must be called once per request, not per attempt.
+     */
+    void onRequest() {
+        if (deposit == 0L) {
+            return;
+        }
+        long current;
+        do {
+            current = balance.get();
+            if (current >= maxBalance) {
+                return;
+            }
+        } while (!balance.compareAndSet(current, Math.min(maxBalance, current + deposit)));
+    }
+
+    /**
+     * Decides whether a failed attempt should be repeated. Takes a retry from the budget if so.
+     *
+     * @param request executed request
+     * @param attempt number of the failed attempt starting from 1
+     * @param e cause of a failure
+     * @return delay before the next attempt in milliseconds or {@code -1} if the call should not be repeated
+     */
+    long getRetryDelay(ApiRequest<?> request, int attempt, Exception e) {
+        if (attempt >= maxAttempts || !isTransient(e) || !isIdempotent(request) || !withdraw()) {
+            return -1L;
+        }
+        return getDelay(attempt);
+    }
+
+    /**
+     * Gets jittered delay before an attempt.
+     *
+     * @param attempt number of the failed attempt starting from 1
+     * @return delay in milliseconds
+     */
+    long getDelay(int attempt) {
+        long ceiling = baseDelayMillis << Math.min(attempt - 1, 30);
+        if (ceiling <= 0L || ceiling > maxDelayMillis) {
+            ceiling = maxDelayMillis;
+        }
+        return (long) (ThreadLocalRandom.current().nextDouble() * (ceiling + 1));
+    }
+
+    private boolean withdraw() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < TOKEN) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{" +
+                "maxAttempts=" + maxAttempts +
+                ", baseDelayMillis=" + baseDelayMillis +
+                ", maxDelayMillis=" + maxDelayMillis +
+                ", budgetRatio=" + budgetRatio +
+                ", maxBudget=" + maxBudget +
+                '}';
+    }
+
+    /**
+     * Creates {@link RetryPolicy}. By default a call is attempted at most 3 times with base delay of 100 ms and maximum
+     * delay of 5 s, retries are limited to 10% of requests with at most 10 retries saved.
+     */
+    public static final class Builder {
+
+        int maxAttempts = 3;
+        long baseDelayMillis = 100L;
+        long maxDelayMillis = TimeUnit.SECONDS.toMillis(5L);
+        double budgetRatio = 0.1;
+        int maxBudget = 10;
+
+        /**
+         * Sets maximum number of attempts including the first one.
+         *
+         * @param maxAttempts number of attempts
+         * @return itself
+         */
+        public Builder setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * Sets base delay of exponential backoff.
+         *
+         * @param delay delay
+         * @param unit time unit of a delay
+         * @return itself
+         */
+        public Builder setBaseDelay(long delay, TimeUnit unit) {
+            this.baseDelayMillis = unit.toMillis(delay);
+            return this;
+        }
+
+        /**
+         * Sets maximum delay between attempts.
+         *
+         * @param delay delay
+         * @param unit time unit of a delay
+         * @return itself
+         */
+        public Builder setMaxDelay(long delay, TimeUnit unit) {
+            this.maxDelayMillis = unit.toMillis(delay);
+            return this;
+        }
+
+        /**
+         * Sets retry budget.
+         *
+         * @param ratio number of retries earned by each request, for instance {@code 0.1} allows to retry 10% of
+         *              requests
+         * @param maxBudget maximum number of retries that can be saved, also initial budget
+         * @return itself
+         */
+        public Builder setBudget(double ratio, int maxBudget) {
+            this.budgetRatio = ratio;
+            this.maxBudget = maxBudget;
+            return this;
+        }
+
+        /**
+         * Creates instance of {@link RetryPolicy}.
+         *
+         * @return retry policy
+         */
+        public RetryPolicy create() {
+            return new RetryPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.net.metrics;
+
+import static com.yoo.money.api.util.Common.checkNotNull;
+
+/**
+ * Metrics of a single API call. All durations are in nanoseconds; a phase that did not happen during the call (for
+ * instance, connect when a pooled connection was reused) has zero duration.
+ * <p>
+ * Responses are parsed while their bodies are streamed from the network, so {@link #parseNanos} includes reading of a
+ * response body and {@link #networkNanos} ends when response headers are received.
+ */
+public final class ApiCallMetrics {
+
+    /**
+     * Endpoint of a call: path of a request URL with numeric segments replaced by {@code {id}}, for instance
+     * {@code /api/request-payment} or {@code /api/showcase/{id}}.
+     */
+    public final String endpoint;
+
+    /**
+     * HTTP method.
+     */
+    public final String method;
+
+    /**
+     * HTTP status code or {@code 0} if there was no response.
+     */
+    public final int statusCode;
+
+    /**
+     * Size of a request body in bytes or {@code -1} if unknown.
+     */
+    public final long requestBytes;
+
+    /**
+     * Size of a response body in bytes or {@code -1} if unknown.
+     */
+    public final long responseBytes;
+
+    /**
+     * Time spent waiting for a dispatcher and a connection before the call started to use one.
+     */
+    public final long queueNanos;
+
+    /**
+     * Time spent resolving a host name.
+     */
+    public final long dnsNanos;
+
+    /**
+     * Time spent establishing a connection including TLS handshake.
+     */
+    public final long connectNanos;
+
+    /**
+     * Time spent on TLS handshake.
+     */
+    public final long tlsNanos;
+
+    /**
+     * Time between sending a request and receiving response headers.
+     */
+    public final long serverNanos;
+
+    /**
+     * Time from the start of a call until response headers are received.
+     */
+    public final long networkNanos;
+
+    /**
+     * Time spent reading and parsing a response body.
+     */
+    public final long parseNanos;
+
+    /**
+     * Total time of a call.
+     */
+    public final long totalNanos;
+
+    /**
+     * Cause of a failure or {@code null} if the call succeeded.
+     */
+    public final Exception error;
+
+    ApiCallMetrics(Builder builder) {
+        endpoint = checkNotNull(builder.endpoint, "endpoint");
+        method = checkNotNull(builder.method, "method");
+        statusCode = builder.statusCode;
+        requestBytes = builder.requestBytes;
+        responseBytes = builder.responseBytes;
+        queueNanos = builder.queueNanos;
+        dnsNanos = builder.dnsNanos;
+        connectNanos = builder.connectNanos;
+        tlsNanos = builder.tlsNanos;
+        serverNanos = builder.serverNanos;
+        networkNanos = builder.networkNanos;
+        parseNanos = builder.parseNanos;
+        totalNanos = builder.totalNanos;
+        error = builder.error;
+    }
+
+    /**
+     * @return {@code true} if the call failed
+     */
+    public boolean isFailed() {
+        return error != null;
+    }
+
+    @Override
+    public String toString() {
+        return "ApiCallMetrics{" +
+                "endpoint='" + endpoint + '\'' +
+                ", method='" + method + '\'' +
+                ", statusCode=" + statusCode +
+                ", requestBytes=" + requestBytes +
+                ", responseBytes=" + responseBytes +
+                ", queueNanos=" + queueNanos +
+                ", dnsNanos=" + dnsNanos +
+                ", connectNanos=" + connectNanos +
+                ", tlsNanos=" + tlsNanos +
+                ", serverNanos=" + serverNanos +
+                ", networkNanos=" + networkNanos +
+                ", parseNanos=" + parseNanos +
+                ", totalNanos=" + totalNanos +
+                ", error=" + error +
+                '}';
+    }
+
+    /**
+     * Creates {@link ApiCallMetrics}.
+     */
+    public static final class Builder {
+
+        String endpoint;
+        String method;
+        int statusCode;
+        long requestBytes = -1L;
+        long responseBytes = -1L;
+        long queueNanos;
+        long dnsNanos;
+        long connectNanos;
+        long tlsNanos;
+        long serverNanos;
+        long networkNanos;
+        long parseNanos;
+        long totalNanos;
+        Exception error;
+
+        public Builder setEndpoint(String endpoint) {
+            this.endpoint = endpoint;
+            return this;
+        }
+
+        public Builder setMethod(String method) {
+            this.method = method;
+            return this;
+        }
+
+        public Builder setStatusCode(int statusCode) {
+            this.statusCode = statusCode;
+            return this;
+        }
+
+        public Builder setRequestBytes(long requestBytes) {
+            this.requestBytes = requestBytes;
+            return this;
+        }
+
+        public Builder setResponseBytes(long responseBytes) {
+            this.responseBytes = responseBytes;
+            return this;
+        }
+
+        public Builder setQueueNanos(long queueNanos) {
+            this.queueNanos = queueNanos;
+            return this;
+        }
+
+        public Builder setDnsNanos(long dnsNanos) {
+            this.dnsNanos = dnsNanos;
+            return this;
+        }
+
+        public Builder setConnectNanos(long connectNanos) {
+            this.connectNanos = connectNanos;
+            return this;
+        }
+
+        public Builder setTlsNanos(long tlsNanos) {
+            this.tlsNanos = tlsNanos;
+            return this;
+        }
+
+        public Builder setServerNanos(long serverNanos) {
+            this.serverNanos = serverNanos;
+            return this;
+        }
+
+        public Builder setNetworkNanos(long networkNanos) {
+            this.networkNanos = networkNanos;
+            return this;
+        }
+
+        public Builder setParseNanos(long parseNanos) {
+            this.parseNanos = parseNanos;
+            return this;
+        }
+
+        public Builder setTotalNanos(long totalNanos) {
+            this.totalNanos = totalNanos;
+            return this;
+        }
+
+        public Builder setError(Exception error) {
+            this.error = error;
+            return this;
+        }
+
+        public ApiCallMetrics create() {
+            return new ApiCallMetrics(this);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.net.metrics;
+
+/**
+ * Receives metrics of every API call executed by {@link com.yoo.money.api.net.clients.DefaultApiClient}. Implement
+ * this interface to forward metrics to a library of your choice or use {@link HistogramMetricsRecorder}.
+ * <p>
+ * Calls are recorded on threads that execute or parse requests, so implementations must be thread safe and should
+ * not block.
+ *
+ * @see com.yoo.money.api.net.clients.DefaultApiClient.Builder#setMetricsRecorder(ApiMetricsRecorder)
+ */
+public interface ApiMetricsRecorder {
+
+    /**
+     * Records a completed or failed call.
+     *
+     * @param metrics metrics of a call
+     */
+    void record(ApiCallMetrics metrics);
+}
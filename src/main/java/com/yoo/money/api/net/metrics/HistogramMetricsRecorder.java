@@ -0,0 +1,235 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.net.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps per-endpoint histograms of call phases, byte counts and HTTP status codes in memory. Recording is lock-free
+ * and does not allocate once an endpoint has been seen, so the recorder is cheap enough to stay enabled in
+ * production. Use {@link #getSnapshot()} to read or export collected metrics.
+ */
+public final class HistogramMetricsRecorder implements ApiMetricsRecorder {
+
+    private final ConcurrentMap<String, EndpointRecorder> endpoints = new ConcurrentHashMap<>();
+
+    @Override
+    public void record(ApiCallMetrics metrics) {
+        EndpointRecorder recorder = endpoints.get(metrics.endpoint);
+        if (recorder == null) {
+            EndpointRecorder created = new EndpointRecorder();
+            recorder = endpoints.putIfAbsent(metrics.endpoint, created);
+            if (recorder == null) {
+                recorder = created;
+            }
+        }
+        recorder.record(metrics);
+    }
+
+    /**
+     * Takes a snapshot of all endpoints.
+     *
+     * @return endpoint metrics sorted by endpoint
+     */
+    public Map<String, EndpointMetrics> getSnapshot() {
+        Map<String, EndpointMetrics> snapshot = new TreeMap<>();
+        for (Map.Entry<String, EndpointRecorder> entry : endpoints.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().getSnapshot(entry.getKey()));
+        }
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    /**
+     * Removes all collected metrics.
+     */
+    public void clear() {
+        endpoints.clear();
+    }
+
+    /**
+     * Collected metrics of a single endpoint.
+     */
+    public static final class EndpointMetrics {
+
+        /**
+         * Endpoint.
+         */
+        public final String endpoint;
+
+        /**
+         * Number of failed calls.
+         */
+        public final long failures;
+
+        /**
+         * Total time of calls.
+         */
+        public final LatencyHistogram.Snapshot total;
+
+        /**
+         * Time spent waiting for a dispatcher and a connection.
+         */
+        public final LatencyHistogram.Snapshot queue;
+
+        /**
+         * Time spent establishing new connections (calls that reused connections are not included).
+         */
+        public final LatencyHistogram.Snapshot connect;
+
+        /**
+         * Time between sending a request and receiving response headers.
+         */
+        public final LatencyHistogram.Snapshot server;
+
+        /**
+         * Time from the start of a call until response headers are received.
+         */
+        public final LatencyHistogram.Snapshot network;
+
+        /**
+         * Time spent reading and parsing response bodies.
+         */
+        public final LatencyHistogram.Snapshot parse;
+
+        /**
+         * Total size of request bodies in bytes.
+         */
+        public final long requestBytes;
+
+        /**
+         * Total size of response bodies in bytes.
+         */
+        public final long responseBytes;
+
+        /**
+         * Number of calls per HTTP status code, {@code 0} stands for calls without response.
+         */
+        public final Map<Integer, Long> statusCodes;
+
+        EndpointMetrics(String endpoint, long failures, LatencyHistogram.Snapshot total,
+                        LatencyHistogram.Snapshot queue, LatencyHistogram.Snapshot connect,
+                        LatencyHistogram.Snapshot server, LatencyHistogram.Snapshot network,
+                        LatencyHistogram.Snapshot parse, long requestBytes, long responseBytes,
+                        Map<Integer, Long> statusCodes) {
+            this.endpoint = endpoint;
+            this.failures = failures;
+            this.total = total;
+            this.queue = queue;
+            this.connect = connect;
+            this.server = server;
+            this.network = network;
+            this.parse = parse;
+            this.requestBytes = requestBytes;
+            this.responseBytes = responseBytes;
+            this.statusCodes = statusCodes;
+        }
+
+        /**
+         * @return number of recorded calls
+         */
+        public long getCount() {
+            return total.count;
+        }
+
+        @Override
+        public String toString() {
+            return "EndpointMetrics{" +
+                    "endpoint='" + endpoint + '\'' +
+                    ", failures=" + failures +
+                    ", total=" + total +
+                    ", queue=" + queue +
+                    ", connect=" + connect +
+                    ", server=" + server +
+                    ", network=" + network +
+                    ", parse=" + parse +
+                    ", requestBytes=" + requestBytes +
+                    ", responseBytes=" + responseBytes +
+                    ", statusCodes=" + statusCodes +
+                    '}';
+        }
+    }
+
+    private static final class EndpointRecorder {
+
+        private static final int MAX_STATUS_CODE = 599;
+
+        final LatencyHistogram total = new LatencyHistogram();
+        final LatencyHistogram queue = new LatencyHistogram();
+        final LatencyHistogram connect = new LatencyHistogram();
+        final LatencyHistogram server = new LatencyHistogram();
+        final LatencyHistogram network = new LatencyHistogram();
+        final LatencyHistogram parse = new LatencyHistogram();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong requestBytes = new AtomicLong();
+        final AtomicLong responseBytes = new AtomicLong();
+        final AtomicLongArray statusCodes = new AtomicLongArray(MAX_STATUS_CODE + 1);
+
+        EndpointRecorder() {
+        }
+
+        void record(ApiCallMetrics metrics) {
+            total.record(metrics.totalNanos);
+            queue.record(metrics.queueNanos);
+            if (metrics.connectNanos > 0L) {
+                connect.record(metrics.connectNanos);
+            }
+            if (metrics.statusCode > 0) {
+                server.record(metrics.serverNanos);
+                network.record(metrics.networkNanos);
+                parse.record(metrics.parseNanos);
+            }
+            if (metrics.isFailed()) {
+                failures.incrementAndGet();
+            }
+            if (metrics.requestBytes > 0L) {
+                requestBytes.addAndGet(metrics.requestBytes);
+            }
+            if (metrics.responseBytes > 0L) {
+                responseBytes.addAndGet(metrics.responseBytes);
+            }
+            int statusCode = metrics.statusCode;
+            statusCodes.incrementAndGet(statusCode < 0 || statusCode > MAX_STATUS_CODE ? 0 : statusCode);
+        }
+
+        EndpointMetrics getSnapshot(String endpoint) {
+            Map<Integer, Long> codes = new TreeMap<>();
+            for (int i = 0; i <= MAX_STATUS_CODE; ++i) {
+                long count = statusCodes.get(i);
+                if (count > 0L) {
+                    codes.put(i, count);
+                }
+            }
+            return new EndpointMetrics(endpoint, failures.get(), total.getSnapshot(), queue.getSnapshot(),
+                    connect.getSnapshot(), server.getSnapshot(), network.getSnapshot(), parse.getSnapshot(),
+                    requestBytes.get(), responseBytes.get(), Collections.unmodifiableMap(codes));
+        }
+    }
+}
@@ -27,13 +27,30 @@ package com.yoo.money.api.processes;
 import com.yoo.money.api.methods.payment.BaseProcessPayment;
 import com.yoo.money.api.methods.payment.BaseRequestPayment;
 import com.yoo.money.api.net.ApiRequest;
+import com.yoo.money.api.net.clients.ApiCallback;
 import com.yoo.money.api.net.clients.ApiClient;
-import com.yoo.money.api.util.Threads;
+import com.yoo.money.api.net.clients.ApiFuture;
+import com.yoo.money.api.net.clients.AsyncApiClients;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static com.yoo.money.api.util.Common.checkNotNull;
 
 /**
  * Base implementation for all payment processes.
+ * <p>
+ * {@link #proceed()} and {@link #repeat()} block the calling thread, including waits between polls of a payment that
+ * is in progress. {@link #proceedAsync(ScheduledExecutorService)} and {@link #repeatAsync(ScheduledExecutorService)}
+ * do the same without blocking: requests are executed with
+ * {@link AsyncApiClients#executeAsync(ApiClient, ApiRequest)} and polls are scheduled on a provided scheduler, so a few
+ * threads can drive many processes at once. A process must not be used by other calls until the returned future is
+ * completed.
+ * <p>
+ * Transitions between states can be observed with {@link #setStateListener(StateListener)}, for instance to persist
+ * them before the next step of the process starts.
  *
  * @author Slava Yasevich (support@yoomoney.ru)
  */
@@ -50,6 +67,7 @@ public abstract class BasePaymentProcess<RP extends BaseRequestPayment,
     private RP requestPayment;
     private PP processPayment;
     private State state;
+    private StateListener stateListener;
 
     /**
      * Constructor.
@@ -98,6 +116,46 @@ public abstract class BasePaymentProcess<RP extends BaseRequestPayment,
         return isCompleted();
     }
 
+    /**
+     * Asynchronous version of {@link #proceed()}.
+     *
+     * @param scheduler scheduler to wait for {@link BaseProcessPayment#nextRetry} on
+     * @return future that completes with {@code true} if the process is completed
+     */
+    public final ApiFuture<Boolean> proceedAsync(ScheduledExecutorService scheduler) {
+        checkNotNull(scheduler, "scheduler");
+        switch (state) {
+            case CREATED:
+                return new RequestPaymentOperation().start();
+            case STARTED:
+                return new ProcessPaymentOperation(createProcessPayment(), scheduler).start();
+            case PROCESSING:
+                return new ProcessPaymentOperation(createRepeatProcessPayment(), scheduler).start();
+            default:
+                return ApiFuture.completed(isCompleted());
+        }
+    }
+
+    /**
+     * Asynchronous version of {@link #repeat()}.
+     *
+     * @param scheduler scheduler to wait for {@link BaseProcessPayment#nextRetry} on
+     * @return future that completes with {@code true} if the process is completed
+     */
+    public final ApiFuture<Boolean> repeatAsync(ScheduledExecutorService scheduler) {
+        checkNotNull(scheduler, "scheduler");
+        switch (state) {
+            case STARTED:
+                return new RequestPaymentOperation().start();
+            case PROCESSING:
+                return new ProcessPaymentOperation(createProcessPayment(), scheduler).start();
+            case COMPLETED:
+                return new ProcessPaymentOperation(createRepeatProcessPayment(), scheduler).start();
+            default:
+                return ApiFuture.completed(isCompleted());
+        }
+    }
+
     @Override
     public final void reset() {
         this.requestPayment = null;
@@ -134,6 +192,16 @@ public abstract class BasePaymentProcess<RP extends BaseRequestPayment,
         return processPayment;
     }
 
+    /**
+     * Sets listener of state transitions. The listener is called after a step of the process changes its state and
+     * before the step completes.
+     *
+     * @param stateListener listener or {@code null}
+     */
+    public final void setStateListener(StateListener stateListener) {
+        this.stateListener = stateListener;
+    }
+
     /**
      * Sets access token to a session if required.
      *
@@ -168,8 +236,10 @@ public abstract class BasePaymentProcess<RP extends BaseRequestPayment,
     protected abstract SavedState<RP, PP> createSavedState(RP requestPayment, PP processPayment, State state);
 
     private void executeRequestPayment() throws Exception {
+        State previous = state;
         requestPayment = execute(createRequestPayment());
         state = State.STARTED;
+        onStateChanged(previous);
     }
 
     private void executeProcessPayment() throws Exception {
@@ -180,25 +250,52 @@ public abstract class BasePaymentProcess<RP extends BaseRequestPayment,
         executeProcessPayment(createRepeatProcessPayment());
     }
 
-    private void executeProcessPayment(final ApiRequest<PP> request) throws Exception {
+    private void executeProcessPayment(ApiRequest<PP> request) throws Exception {
+        while (true) {
+            State previous = state;
+            boolean repeat = onProcessPayment(execute(request));
+            onStateChanged(previous);
+            if (!repeat) {
+                break;
+            }
+            Thread.sleep(processPayment.nextRetry);
+        }
+    }
+
+    /**
+     * Notifies the state listener if the state differs from the previous one.
+     */
+    private void onStateChanged(State previous) throws Exception {
+        StateListener listener = stateListener;
+        if (listener != null && state != previous) {
+            listener.onStateChanged(this);
+        }
+    }
+
+    /**
+     * Applies response of process payment request.
+     *
+     * @param response process payment response
+     * @return {@code true} if the request should be repeated after {@link BaseProcessPayment#nextRetry}
+     */
+    private boolean onProcessPayment(PP response) {
         BaseProcessPayment.Status previousStatus = processPayment == null ? null :
                 processPayment.status;
-        processPayment = execute(request);
+        processPayment = response;
 
         switch (processPayment.status) {
             case EXT_AUTH_REQUIRED:
                 if (previousStatus != BaseProcessPayment.Status.EXT_AUTH_REQUIRED) {
                     state = State.PROCESSING;
-                    return;
+                    return false;
                 }
             case IN_PROGRESS:
                 state = State.PROCESSING;
-                Threads.sleep(processPayment.nextRetry);
-                executeProcessPayment(request);
-                return;
+                return true;
         }
 
         state = State.COMPLETED;
+        return false;
     }
 
     private <T> T execute(ApiRequest<T> apiRequest) throws Exception {
@@ -209,6 +306,122 @@ public abstract class BasePaymentProcess<RP extends BaseRequestPayment,
         return state == State.COMPLETED;
     }
 
+    /**
+     * Future of an asynchronous step of the process. Cancelling it cancels a pending call or poll.
+     */
+    private static abstract class Operation<T> extends ApiFuture<Boolean> implements ApiCallback<T> {
+
+        private volatile Future<?> pending;
+
+        @Override
+        public void onFailure(Exception e) {
+            setException(e);
+        }
+
+        @Override
+        protected void onCancelled() {
+            Future<?> pending = this.pending;
+            if (pending != null) {
+                pending.cancel(false);
+            }
+        }
+
+        final void setPending(Future<?> pending) {
+            this.pending = pending;
+            if (isCancelled()) {
+                pending.cancel(false);
+            }
+        }
+    }
+
+    private final class RequestPaymentOperation extends Operation<RP> {
+
+        RequestPaymentOperation() {
+        }
+
+        ApiFuture<Boolean> start() {
+            ApiFuture<RP> call = AsyncApiClients.executeAsync(client, createRequestPayment());
+            setPending(call);
+            call.addCallback(this);
+            return this;
+        }
+
+        @Override
+        public void onSuccess(RP result) {
+            State previous = state;
+            requestPayment = result;
+            state = State.STARTED;
+            try {
+                onStateChanged(previous);
+            } catch (Exception e) {
+                setException(e);
+                return;
+            }
+            set(false);
+        }
+    }
+
+    private final class ProcessPaymentOperation extends Operation<PP> implements Runnable {
+
+        private final ApiRequest<PP> request;
+        private final ScheduledExecutorService scheduler;
+
+        ProcessPaymentOperation(ApiRequest<PP> request, ScheduledExecutorService scheduler) {
+            this.request = request;
+            this.scheduler = scheduler;
+        }
+
+        ApiFuture<Boolean> start() {
+            run();
+            return this;
+        }
+
+        @Override
+        public void run() {
+            if (isDone()) {
+                return;
+            }
+            ApiFuture<PP> call = AsyncApiClients.executeAsync(client, request);
+            setPending(call);
+            call.addCallback(this);
+        }
+
+        @Override
+        public void onSuccess(PP result) {
+            State previous = state;
+            boolean repeat = onProcessPayment(result);
+            try {
+                onStateChanged(previous);
+            } catch (Exception e) {
+                setException(e);
+                return;
+            }
+            if (!repeat) {
+                set(isCompleted());
+                return;
+            }
+            try {
+                setPending(scheduler.schedule(this, processPayment.nextRetry, TimeUnit.MILLISECONDS));
+            } catch (RejectedExecutionException e) {
+                setException(e);
+            }
+        }
+    }
+
+    /**
+     * Listener of state transitions of a payment process.
+     */
+    public interface StateListener {
+
+        /**
+         * Called when state of a process changes. Use {@link #getSavedState()} to get the new state.
+         *
+         * @param process payment process
+         * @throws Exception if the transition could not be handled; the step of the process fails with it
+         */
+        void onStateChanged(BasePaymentProcess<?, ?> process) throws Exception;
+    }
+
     /**
      * State of payment process
      */
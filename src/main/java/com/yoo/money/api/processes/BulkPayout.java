@@ -0,0 +1,478 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.processes;
+
+import com.yoo.money.api.methods.payment.BaseProcessPayment;
+import com.yoo.money.api.methods.payment.BaseRequestPayment;
+import com.yoo.money.api.methods.payment.ProcessPayment;
+import com.yoo.money.api.methods.payment.RequestPayment;
+import com.yoo.money.api.model.Error;
+import com.yoo.money.api.model.MoneySource;
+import com.yoo.money.api.model.Wallet;
+import com.yoo.money.api.net.clients.ApiCallback;
+import com.yoo.money.api.net.clients.ApiClient;
+import com.yoo.money.api.net.clients.ApiFuture;
+import com.yoo.money.api.util.Threads;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+
+import static com.yoo.money.api.util.Common.checkNotNull;
+
+/**
+ * Pays out to many recipients, driving a {@link PaymentProcess} per {@link Payout} with bounded concurrency.
+ * <p>
+ * Processes run asynchronously via {@link BasePaymentProcess#proceedAsync(ScheduledExecutorService)}, at most
+ * {@link Builder#setParallelism(int)} at a time. Request rate is limited by the client, for instance with
+ * {@link com.yoo.money.api.net.clients.DefaultApiClient.Builder#setRateLimiters(
+ * com.yoo.money.api.net.clients.RateLimiterRegistry)}.
+ * <p>
+ * The state of every payout is saved to a {@link SavedStateStore} after each step, before the next step starts. A run
+ * can be repeated with the same payouts after a crash: completed payouts are reported from the store without
+ * requests, a payout with a request ID continues with process-payment for the same request ID, which is idempotent,
+ * and a payout without a request ID starts from request-payment, which does not move money by itself. So a payout is
+ * never paid twice as long as its ID stays the same.
+ */
+public final class BulkPayout {
+
+    private final ApiClient client;
+    private final SavedStateStore store;
+    private final ScheduledExecutorService scheduler;
+    private final MoneySource moneySource;
+    private final int parallelism;
+
+    BulkPayout(Builder builder) {
+        client = builder.client;
+        store = builder.store;
+        scheduler = builder.scheduler == null ? DefaultScheduler.INSTANCE : builder.scheduler;
+        moneySource = builder.moneySource;
+        parallelism = builder.parallelism;
+    }
+
+    /**
+     * Runs payouts. Payouts are taken from the iterable as slots become free, so it can be a lazy stream. Payouts with
+     * the same ID as an earlier one in the same run are reported as failed and are not paid.
+     *
+     * @param payouts payouts
+     * @return report of the run
+     * @throws InterruptedException if the thread was interrupted; payouts in progress are cancelled and can be
+     *                              resumed by another run
+     */
+    public Report run(Iterable<Payout> payouts) throws InterruptedException {
+        checkNotNull(payouts, "payouts");
+        Semaphore slots = new Semaphore(parallelism);
+        Report report = new Report();
+        Set<Item> active = Collections.synchronizedSet(new HashSet<Item>());
+        Set<String> ids = new HashSet<>();
+        try {
+            for (Payout payout : payouts) {
+                if (!ids.add(payout.id)) {
+                    report.add(new Result(payout.id, Status.FAILED, null, null, null, false,
+                            new IllegalArgumentException("duplicate payout id: " + payout.id)));
+                    continue;
+                }
+                slots.acquire();
+                Item item = new Item(payout, report, slots, active);
+                active.add(item);
+                item.start();
+            }
+            slots.acquire(parallelism);
+            return report;
+        } catch (InterruptedException e) {
+            List<Item> toCancel;
+            synchronized (active) {
+                toCancel = new ArrayList<>(active);
+            }
+            for (Item item : toCancel) {
+                item.cancel();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Result of a completed step or {@code null} if the payout should go on.
+     */
+    private static Result resultOf(String id, PaymentProcess.SavedState savedState, boolean resumed) {
+        RequestPayment requestPayment = savedState.getRequestPayment();
+        ProcessPayment processPayment = savedState.getProcessPayment();
+        if (requestPayment != null && requestPayment.status == BaseRequestPayment.Status.REFUSED) {
+            return new Result(id, Status.REFUSED, requestPayment.requestId, null, requestPayment.error, resumed, null);
+        }
+        if (processPayment == null) {
+            return null;
+        }
+        switch (processPayment.status) {
+            case SUCCESS:
+                return new Result(id, Status.SUCCEEDED, requestPayment.requestId, processPayment.paymentId, null,
+                        resumed, null);
+            case REFUSED:
+                return new Result(id, Status.REFUSED, requestPayment.requestId, null, processPayment.error, resumed,
+                        null);
+            case EXT_AUTH_REQUIRED:
+                return new Result(id, Status.FAILED, requestPayment.requestId, null, null, resumed,
+                        new IllegalStateException("external authorization required"));
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * A payout in progress. Steps of its process are chained by callbacks.
+     */
+    private final class Item implements ApiCallback<Boolean> {
+
+        private final Payout payout;
+        private final Report report;
+        private final Semaphore slots;
+        private final Set<Item> active;
+        private final PaymentProcess process;
+
+        private volatile ApiFuture<Boolean> step;
+
+        Item(Payout payout, Report report, Semaphore slots, Set<Item> active) {
+            this.payout = payout;
+            this.report = report;
+            this.slots = slots;
+            this.active = active;
+            this.process = new PaymentProcess(client, new PayoutParameters(payout, moneySource));
+        }
+
+        void start() {
+            PaymentProcess.SavedState savedState;
+            try {
+                savedState = store.load(payout.id);
+            } catch (Exception e) {
+                finish(new Result(payout.id, Status.FAILED, null, null, null, false, e));
+                return;
+            }
+            if (savedState != null) {
+                Result result = resultOf(payout.id, savedState, true);
+                if (result != null) {
+                    finish(result);
+                    return;
+                }
+                process.restoreSavedState(savedState);
+            }
+            next();
+        }
+
+        void cancel() {
+            ApiFuture<Boolean> step = this.step;
+            if (step != null) {
+                step.cancel(true);
+            }
+        }
+
+        @Override
+        public void onSuccess(Boolean completed) {
+            PaymentProcess.SavedState savedState = process.getSavedState();
+            try {
+                store.save(payout.id, savedState);
+            } catch (Exception e) {
+                finish(new Result(payout.id, Status.FAILED, requestIdOf(savedState), null, null, false, e));
+                return;
+            }
+            Result result = resultOf(payout.id, savedState, false);
+            if (result != null) {
+                finish(result);
+            } else {
+                next();
+            }
+        }
+
+        @Override
+        public void onFailure(Exception e) {
+            finish(new Result(payout.id, Status.FAILED, requestIdOf(process.getSavedState()), null, null, false, e));
+        }
+
+        private void next() {
+            ApiFuture<Boolean> step = process.proceedAsync(scheduler);
+            this.step = step;
+            step.addCallback(this);
+        }
+
+        private void finish(Result result) {
+            report.add(result);
+            active.remove(this);
+            slots.release();
+        }
+
+        private String requestIdOf(PaymentProcess.SavedState savedState) {
+            RequestPayment requestPayment = savedState.getRequestPayment();
+            return requestPayment == null ? null : requestPayment.requestId;
+        }
+    }
+
+    private static final class PayoutParameters implements IPaymentProcess.ParameterProvider {
+
+        private final Payout payout;
+        private final MoneySource moneySource;
+
+        PayoutParameters(Payout payout, MoneySource moneySource) {
+            this.payout = payout;
+            this.moneySource = moneySource;
+        }
+
+        @Override
+        public String getPatternId() {
+            return payout.params.patternId;
+        }
+
+        @Override
+        public Map<String, String> getPaymentParameters() {
+            return payout.params.paymentParams;
+        }
+
+        @Override
+        public MoneySource getMoneySource() {
+            return moneySource;
+        }
+
+        @Override
+        public String getCsc() {
+            return null;
+        }
+
+        @Override
+        public String getExtAuthSuccessUri() {
+            return null;
+        }
+
+        @Override
+        public String getExtAuthFailUri() {
+            return null;
+        }
+    }
+
+    /**
+     * Outcome of a payout.
+     */
+    public enum Status {
+        /**
+         * Payment succeeded.
+         */
+        SUCCEEDED,
+        /**
+         * Payment was refused, see {@link Result#error}.
+         */
+        REFUSED,
+        /**
+         * Payout was not completed, see {@link Result#exception}. It can be resumed by another run.
+         */
+        FAILED
+    }
+
+    /**
+     * Result of a payout.
+     */
+    public static final class Result {
+
+        /**
+         * Payout ID.
+         */
+        public final String id;
+
+        /**
+         * Outcome of the payout.
+         */
+        public final Status status;
+
+        /**
+         * Request ID of the payment, if it was requested.
+         */
+        public final String requestId;
+
+        /**
+         * Payment ID if the payment succeeded.
+         */
+        public final String paymentId;
+
+        /**
+         * Error if the payment was refused.
+         */
+        public final Error error;
+
+        /**
+         * {@code true} if the payout had been completed by an earlier run.
+         */
+        public final boolean completedBefore;
+
+        /**
+         * Exception if the payout failed.
+         */
+        public final Exception exception;
+
+        Result(String id, Status status, String requestId, String paymentId, Error error, boolean completedBefore,
+               Exception exception) {
+            this.id = id;
+            this.status = status;
+            this.requestId = requestId;
+            this.paymentId = paymentId;
+            this.error = error;
+            this.completedBefore = completedBefore;
+            this.exception = exception;
+        }
+
+        @Override
+        public String toString() {
+            return "Result{" +
+                    "id='" + id + '\'' +
+                    ", status=" + status +
+                    ", requestId='" + requestId + '\'' +
+                    ", paymentId='" + paymentId + '\'' +
+                    ", error=" + error +
+                    ", completedBefore=" + completedBefore +
+                    ", exception=" + exception +
+                    '}';
+        }
+    }
+
+    /**
+     * Results of a run in order of completion.
+     */
+    public static final class Report {
+
+        // guarded by this
+        private final List<Result> results = new ArrayList<>();
+        private final int[] counts = new int[Status.values().length];
+
+        Report() {
+        }
+
+        /**
+         * @return results of payouts
+         */
+        public synchronized List<Result> getResults() {
+            return Collections.unmodifiableList(new ArrayList<>(results));
+        }
+
+        /**
+         * @param status outcome of payouts
+         * @return number of payouts with specified outcome
+         */
+        public synchronized int getCount(Status status) {
+            return counts[checkNotNull(status, "status").ordinal()];
+        }
+
+        synchronized void add(Result result) {
+            results.add(result);
+            counts[result.status.ordinal()]++;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return "Report{" +
+                    "succeeded=" + counts[Status.SUCCEEDED.ordinal()] +
+                    ", refused=" + counts[Status.REFUSED.ordinal()] +
+                    ", failed=" + counts[Status.FAILED.ordinal()] +
+                    '}';
+        }
+    }
+
+    private static final class DefaultScheduler {
+
+        static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(
+                Threads.newDaemonThreadFactory("yoomoney-sdk-payout"));
+
+        private DefaultScheduler() {
+        }
+    }
+
+    /**
+     * Creates {@link BulkPayout}.
+     */
+    public static final class Builder {
+
+        final ApiClient client;
+        final SavedStateStore store;
+        ScheduledExecutorService scheduler;
+        MoneySource moneySource = new Wallet(true);
+        int parallelism = 8;
+
+        /**
+         * Constructor.
+         *
+         * @param client authorized client of the payer
+         * @param store storage of states of payouts
+         */
+        public Builder(ApiClient client, SavedStateStore store) {
+            this.client = checkNotNull(client, "client");
+            this.store = checkNotNull(store, "store");
+        }
+
+        /**
+         * Sets maximum number of payouts in progress. Default value is 8.
+         *
+         * @param parallelism maximum number of payouts in progress
+         * @return itself
+         */
+        public Builder setParallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism must be positive");
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Sets scheduler to wait for payments in progress on. By default a shared daemon thread is used.
+         *
+         * @param scheduler scheduler
+         * @return itself
+         */
+        public Builder setScheduler(ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        /**
+         * Sets money source of payments. Default value is the payer's wallet.
+         *
+         * @param moneySource money source
+         * @return itself
+         */
+        public Builder setMoneySource(MoneySource moneySource) {
+            this.moneySource = checkNotNull(moneySource, "moneySource");
+            return this;
+        }
+
+        /**
+         * Creates instance of {@link BulkPayout}.
+         *
+         * @return bulk payout
+         */
+        public BulkPayout create() {
+            return new BulkPayout(this);
+        }
+    }
+}
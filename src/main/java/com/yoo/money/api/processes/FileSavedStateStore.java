@@ -0,0 +1,117 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.processes;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.yoo.money.api.typeadapters.JsonUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import static com.yoo.money.api.util.Common.checkNotNull;
+
+/**
+ * Keeps saved states in a directory, one JSON file per payment. A state is written and synced to a temporary file
+ * first and then moved over the previous one, and the directory is synced, so a crash leaves either the previous or
+ * the new state.
+ */
+public final class FileSavedStateStore implements SavedStateStore {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final File directory;
+
+    /**
+     * Constructor.
+     *
+     * @param directory directory for saved states, created if it does not exist
+     * @throws IOException if the directory could not be created
+     */
+    public FileSavedStateStore(File directory) throws IOException {
+        this.directory = checkNotNull(directory, "directory");
+        Files.createDirectories(directory.toPath());
+    }
+
+    @Override
+    public PaymentProcess.SavedState load(String id) throws IOException {
+        Path path = fileOf(id);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            return SavedStateCodec.fromJson(new JsonParser().parse(new String(Files.readAllBytes(path), UTF_8))
+                    .getAsJsonObject());
+        } catch (JsonParseException | IllegalStateException | IllegalArgumentException e) {
+            throw new IOException("corrupted saved state: " + path, e);
+        }
+    }
+
+    @Override
+    public void save(String id, PaymentProcess.SavedState savedState) throws IOException {
+        Path path = fileOf(id);
+        Path temp = Files.createTempFile(directory.toPath(), path.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, JsonUtils.getBytes(SavedStateCodec.toJson(checkNotNull(savedState, "savedState"))));
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        // the rename is durable only when the directory is synced
+        syncDirectory(directory);
+    }
+
+    /**
+     * Syncs entries of a directory. Not every platform can open a directory, Windows for instance, there entries
+     * are synced with files.
+     */
+    static void syncDirectory(File directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+        try {
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private Path fileOf(String id) throws IOException {
+        return new File(directory, URLEncoder.encode(checkNotNull(id, "id"), "UTF-8") + ".json").toPath();
+    }
+}
@@ -0,0 +1,539 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.processes;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.yoo.money.api.methods.payment.BaseRequestPayment;
+import com.yoo.money.api.methods.payment.RequestPayment;
+import com.yoo.money.api.typeadapters.JsonUtils;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import static com.yoo.money.api.util.Common.checkNotNull;
+
+/**
+ * Write-ahead journal of {@link PaymentProcess} states. Processes {@link #attach(String, PaymentProcess) attached} to
+ * the journal record every state transition before the step that caused it completes, so after a crash the journal
+ * knows which payments were in flight and where they stopped.
+ * <p>
+ * The journal is an append-only log of checksummed records. Concurrent writers share fsync calls: a writer that finds
+ * a sync in progress waits for it and then syncs everything appended meanwhile with a single call. Every
+ * {@link Builder#setSnapshotInterval(int) snapshot interval} records the latest states are written to a snapshot and
+ * the log starts over, so opening the journal reads at most one snapshot and a short log. A record torn by a crash is
+ * detected by its checksum and discarded. A record that failed to be written is cut off the log; if the log can not
+ * be restored, or a writer is interrupted and the log is closed with its channel, the journal rejects further changes
+ * until it is reopened.
+ * <p>
+ * On restart use {@link #getInFlight()} to find payments that were started but not completed and
+ * {@link #resume(String, PaymentProcess)} to finish them. Completed payments are kept until they are
+ * {@link #remove(String) removed}, so the journal can also be used as a {@link SavedStateStore} of {@link BulkPayout}.
+ */
+public final class PaymentJournal implements SavedStateStore, Closeable {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final Pattern FILE_NAME = Pattern.compile("(journal|snapshot)-(\\d+)\\.(log|dat)");
+    private static final int HEADER_SIZE = 8;
+
+    private static final String ID = "id";
+    private static final String STATE = "state";
+
+    private final File directory;
+    private final int snapshotInterval;
+    private final Map<String, PaymentProcess.SavedState> states = new LinkedHashMap<>();
+    private final Object syncLock = new Object();
+
+    private FileChannel channel;
+    private long generation;
+    private int records;
+    private long written;
+    private boolean closed;
+    private IOException failure;
+
+    // guarded by syncLock
+    private long synced;
+    private boolean syncing;
+
+    private PaymentJournal(Builder builder) throws IOException {
+        directory = builder.directory;
+        snapshotInterval = builder.snapshotInterval;
+        Files.createDirectories(directory.toPath());
+
+        generation = -1;
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Matcher matcher = FILE_NAME.matcher(file.getName());
+                if (matcher.matches() && matcher.group(1).equals("snapshot")) {
+                    generation = Math.max(generation, Long.parseLong(matcher.group(2)));
+                }
+            }
+        }
+        if (generation < 0) {
+            generation = 0;
+        } else {
+            File snapshot = snapshotOf(generation);
+            try (InputStream in = new BufferedInputStream(new FileInputStream(snapshot))) {
+                if (replay(in, snapshot.length()) != snapshot.length()) {
+                    throw new IOException("corrupted snapshot: " + snapshot);
+                }
+            }
+        }
+
+        File journal = journalOf(generation);
+        long valid = 0;
+        boolean exists = journal.exists();
+        if (exists) {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(journal))) {
+                valid = replay(in, journal.length());
+            }
+        }
+        channel = FileChannel.open(journal.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() > valid) {
+                channel.truncate(valid);
+                channel.force(false);
+            }
+            channel.position(valid);
+            if (!exists) {
+                FileSavedStateStore.syncDirectory(directory);
+            }
+            deleteOtherGenerations();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public synchronized PaymentProcess.SavedState load(String id) throws IOException {
+        checkOpen();
+        return states.get(checkNotNull(id, "id"));
+    }
+
+    /**
+     * Appends a state to the journal and returns when it is synced to disk.
+     */
+    @Override
+    public void save(String id, PaymentProcess.SavedState savedState) throws IOException {
+        checkNotNull(id, "id");
+        checkNotNull(savedState, "savedState");
+        JsonObject record = new JsonObject();
+        record.addProperty(ID, id);
+        record.add(STATE, SavedStateCodec.toJson(savedState));
+        sync(append(id, savedState, record));
+    }
+
+    /**
+     * Removes a payment from the journal, for instance when its result was handed over elsewhere.
+     *
+     * @param id id of a payment
+     */
+    public void remove(String id) throws IOException {
+        checkNotNull(id, "id");
+        JsonObject record = new JsonObject();
+        record.addProperty(ID, id);
+        sync(append(id, null, record));
+    }
+
+    /**
+     * Attaches a process to the journal. Every state transition of the process is saved under the id before the step
+     * that caused it completes; if the journal fails to save it, the step fails with the error.
+     *
+     * @param id id of a payment
+     * @param process payment process
+     */
+    public void attach(final String id, final PaymentProcess process) {
+        checkNotNull(id, "id");
+        checkNotNull(process, "process").setStateListener(new BasePaymentProcess.StateListener() {
+            @Override
+            public void onStateChanged(BasePaymentProcess<?, ?> ignored) throws Exception {
+                save(id, process.getSavedState());
+            }
+        });
+    }
+
+    /**
+     * Gets payments that were started but not completed: a payment request was accepted and a payment may or may not
+     * have been processed. Payments that were never started, refused requests and completed payments are not
+     * included.
+     *
+     * @return states of payments in flight by their ids, in the order they were first saved
+     */
+    public synchronized Map<String, PaymentProcess.SavedState> getInFlight() {
+        Map<String, PaymentProcess.SavedState> inFlight = new LinkedHashMap<>();
+        for (Map.Entry<String, PaymentProcess.SavedState> entry : states.entrySet()) {
+            if (isInFlight(entry.getValue())) {
+                inFlight.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return Collections.unmodifiableMap(inFlight);
+    }
+
+    /**
+     * Resumes a payment in flight. The process is restored from the journal and attached to it. A payment that was
+     * being processed is repeated with {@link PaymentProcess#repeat()}, which sends the same process-payment request
+     * again; a payment that was only requested proceeds to processing with the request id it got.
+     *
+     * @param id id of a payment in flight
+     * @param process fresh payment process for the payment
+     * @return {@code true} if the payment is completed
+     * @throws IllegalArgumentException if the payment is not in flight
+     */
+    public boolean resume(String id, PaymentProcess process) throws Exception {
+        PaymentProcess.SavedState savedState = load(id);
+        if (savedState == null || !isInFlight(savedState)) {
+            throw new IllegalArgumentException("payment is not in flight: " + id);
+        }
+        process.restoreSavedState(savedState);
+        attach(id, process);
+        return savedState.getState() == BasePaymentProcess.State.PROCESSING ? process.repeat() : process.proceed();
+    }
+
+    /**
+     * Gets number of payments in the journal.
+     */
+    public synchronized int size() {
+        return states.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (failure == null) {
+                channel.force(false);
+                synchronized (syncLock) {
+                    synced = Math.max(synced, written);
+                }
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static boolean isInFlight(PaymentProcess.SavedState savedState) {
+        BasePaymentProcess.State state = savedState.getState();
+        if (state == BasePaymentProcess.State.STARTED) {
+            // a refused request leaves nothing to process
+            RequestPayment requestPayment = savedState.getRequestPayment();
+            return requestPayment != null && requestPayment.status == BaseRequestPayment.Status.SUCCESS;
+        }
+        return state == BasePaymentProcess.State.PROCESSING;
+    }
+
+    /**
+     * Appends a record to the log and applies it.
+     *
+     * @return sequence number of the record
+     */
+    private synchronized long append(String id, PaymentProcess.SavedState savedState, JsonObject record)
+            throws IOException {
+        checkOpen();
+        if (failure != null) {
+            throw new IOException("journal failed, reopen it", failure);
+        }
+        long position = -1;
+        try {
+            position = channel.position();
+            write(channel, record);
+        } catch (IOException e) {
+            failure = e;
+            // a torn record would hide records appended after it on replay
+            if (position >= 0) {
+                try {
+                    channel.truncate(position);
+                    channel.position(position);
+                    failure = null;
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw e;
+        }
+        if (savedState == null) {
+            states.remove(id);
+        } else {
+            states.put(id, savedState);
+        }
+        long sequence = ++written;
+        if (++records >= snapshotInterval && records > states.size()) {
+            snapshot();
+        }
+        return sequence;
+    }
+
+    /**
+     * Waits until a record is synced. Only one thread syncs at a time; it syncs all records appended so far, so
+     * threads that were waiting for it usually find their records synced.
+     */
+    private void sync(long sequence) throws IOException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                synchronized (syncLock) {
+                    while (syncing && synced < sequence) {
+                        try {
+                            syncLock.wait();
+                        } catch (InterruptedException e) {
+                            interrupted = true;
+                        }
+                    }
+                    if (synced >= sequence) {
+                        return;
+                    }
+                    syncing = true;
+                }
+
+                long target = 0;
+                boolean success = false;
+                FileChannel current = null;
+                try {
+                    synchronized (this) {
+                        checkOpen();
+                        target = written;
+                        current = channel;
+                    }
+                    current.force(false);
+                    success = true;
+                } catch (ClosedChannelException e) {
+                    synchronized (this) {
+                        // replaced by a snapshot or closed, both sync the records; otherwise closed by an interrupt
+                        if (channel == current && !closed) {
+                            if (failure == null) {
+                                failure = e;
+                            }
+                            throw new IOException("journal failed, reopen it", e);
+                        }
+                    }
+                } finally {
+                    synchronized (syncLock) {
+                        if (success) {
+                            synced = Math.max(synced, target);
+                        }
+                        syncing = false;
+                        syncLock.notifyAll();
+                    }
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Writes current states to a snapshot of the next generation and starts a new log.
+     */
+    private void snapshot() throws IOException {
+        long next = generation + 1;
+        Path snapshot = snapshotOf(next).toPath();
+        Path temp = Files.createTempFile(directory.toPath(), snapshot.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                for (Map.Entry<String, PaymentProcess.SavedState> entry : states.entrySet()) {
+                    JsonObject record = new JsonObject();
+                    record.addProperty(ID, entry.getKey());
+                    record.add(STATE, SavedStateCodec.toJson(entry.getValue()));
+                    write(out, record);
+                }
+                out.force(true);
+            }
+            Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        FileChannel previous = channel;
+        try {
+            channel = FileChannel.open(journalOf(next).toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            // the snapshot is already in place and would hide records appended to the previous log
+            failure = e;
+            throw e;
+        }
+        generation = next;
+        records = 0;
+        // the snapshot and the new log must be found after a crash before the previous generation is deleted
+        FileSavedStateStore.syncDirectory(directory);
+        synchronized (syncLock) {
+            synced = Math.max(synced, written);
+        }
+        previous.close();
+        deleteOtherGenerations();
+    }
+
+    /**
+     * Applies records of a file.
+     *
+     * @param length length of the file
+     * @return length of valid records, the rest is a torn record
+     */
+    private long replay(InputStream stream, long length) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        long valid = 0;
+        CRC32 crc = new CRC32();
+        while (true) {
+            byte[] body;
+            try {
+                int size = in.readInt();
+                int checksum = in.readInt();
+                if (size <= 0 || size > length - valid - HEADER_SIZE) {
+                    return valid;
+                }
+                body = new byte[size];
+                in.readFully(body);
+                crc.reset();
+                crc.update(body);
+                if ((int) crc.getValue() != checksum) {
+                    return valid;
+                }
+            } catch (EOFException e) {
+                return valid;
+            }
+            try {
+                JsonObject record = new JsonParser().parse(new String(body, UTF_8)).getAsJsonObject();
+                String id = record.get(ID).getAsString();
+                if (record.has(STATE)) {
+                    states.put(id, SavedStateCodec.fromJson(record.getAsJsonObject(STATE)));
+                } else {
+                    states.remove(id);
+                }
+            } catch (JsonParseException | IllegalStateException | IllegalArgumentException | NullPointerException e) {
+                throw new IOException("corrupted journal record in " + directory, e);
+            }
+            valid += HEADER_SIZE + body.length;
+        }
+    }
+
+    private void deleteOtherGenerations() throws IOException {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            Matcher matcher = FILE_NAME.matcher(file.getName());
+            if (matcher.matches() && Long.parseLong(matcher.group(2)) != generation) {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new IOException("journal is closed");
+        }
+    }
+
+    private File journalOf(long generation) {
+        return new File(directory, "journal-" + generation + ".log");
+    }
+
+    private File snapshotOf(long generation) {
+        return new File(directory, "snapshot-" + generation + ".dat");
+    }
+
+    private static void write(FileChannel channel, JsonObject record) throws IOException {
+        byte[] body = JsonUtils.getBytes(record);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + body.length);
+        buffer.putInt(body.length).putInt((int) crc.getValue()).put(body);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Creates {@link PaymentJournal}.
+     */
+    public static final class Builder {
+
+        final File directory;
+
+        int snapshotInterval = 10000;
+
+        /**
+         * Constructor.
+         *
+         * @param directory directory of the journal, created if it does not exist
+         */
+        public Builder(File directory) {
+            this.directory = checkNotNull(directory, "directory");
+        }
+
+        /**
+         * Sets number of records after which a snapshot is taken and the log starts over. Default is 10000.
+         *
+         * @param snapshotInterval number of records, must be positive
+         * @return itself
+         */
+        public Builder setSnapshotInterval(int snapshotInterval) {
+            if (snapshotInterval <= 0) {
+                throw new IllegalArgumentException("snapshotInterval must be positive");
+            }
+            this.snapshotInterval = snapshotInterval;
+            return this;
+        }
+
+        /**
+         * Opens the journal replaying its snapshot and log.
+         *
+         * @return journal
+         * @throws IOException if the journal could not be read
+         */
+        public PaymentJournal create() throws IOException {
+            return new PaymentJournal(this);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.processes;
+
+import com.yoo.money.api.methods.payment.params.PaymentParams;
+
+import static com.yoo.money.api.util.Common.checkNotNull;
+
+/**
+ * Instruction of {@link BulkPayout}: a payment and its ID. The ID identifies the payment across runs, so it should
+ * be unique and stable, for instance an ID of a payout in the caller's database.
+ */
+public final class Payout {
+
+    /**
+     * Payout ID.
+     */
+    public final String id;
+
+    /**
+     * Parameters of the payment, for instance {@link com.yoo.money.api.methods.payment.params.P2pTransferParams}.
+     */
+    public final PaymentParams params;
+
+    public Payout(String id, PaymentParams params) {
+        this.id = checkNotNull(id, "id");
+        this.params = checkNotNull(params, "params");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        Payout payout = (Payout) o;
+
+        return id.equals(payout.id) && params.equals(payout.params);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = id.hashCode();
+        result = 31 * result + params.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "Payout{" +
+                "id='" + id + '\'' +
+                ", params=" + params +
+                '}';
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.processes;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.yoo.money.api.methods.payment.ProcessPayment;
+import com.yoo.money.api.methods.payment.RequestPayment;
+import com.yoo.money.api.typeadapters.GsonProvider;
+import com.yoo.money.api.typeadapters.JsonUtils;
+
+/**
+ * Converts {@link PaymentProcess.SavedState} to JSON and back. Only the fields a process needs to be resumed and the
+ * outcome of a payment are kept: request ID, statuses, errors, payment ID, amounts and URIs the caller may need.
+ */
+final class SavedStateCodec {
+
+    private static final String FLAGS = "flags";
+    private static final String REQUEST_PAYMENT = "request_payment";
+    private static final String PROCESS_PAYMENT = "process_payment";
+    private static final String STATUS = "status";
+    private static final String ERROR = "error";
+    private static final String REQUEST_ID = "request_id";
+    private static final String CONTRACT_AMOUNT = "contract_amount";
+    private static final String TITLE = "title";
+    private static final String PAYMENT_ID = "payment_id";
+    private static final String INVOICE_ID = "invoice_id";
+    private static final String NEXT_RETRY = "next_retry";
+    private static final String BALANCE = "balance";
+    private static final String PAYEE = "payee";
+    private static final String CREDIT_AMOUNT = "credit_amount";
+    private static final String ACCOUNT_UNBLOCK_URI = "account_unblock_uri";
+    private static final String EXT_ACTION_URI = "ext_action_uri";
+    private static final String ACS_URI = "acs_uri";
+    private static final String ACS_PARAMS = "acs_params";
+
+    private SavedStateCodec() {
+        // prevents instantiating of this class
+    }
+
+    static JsonObject toJson(PaymentProcess.SavedState savedState) {
+        JsonObject object = new JsonObject();
+        object.addProperty(FLAGS, savedState.getFlags());
+
+        RequestPayment requestPayment = savedState.getRequestPayment();
+        if (requestPayment != null) {
+            JsonObject request = new JsonObject();
+            request.addProperty(STATUS, requestPayment.status == null ? null : requestPayment.status.code);
+            request.addProperty(ERROR, requestPayment.error == null ? null : requestPayment.error.code);
+            request.addProperty(REQUEST_ID, requestPayment.requestId);
+            request.addProperty(CONTRACT_AMOUNT, requestPayment.contractAmount);
+            request.addProperty(TITLE, requestPayment.title);
+            request.addProperty(BALANCE, requestPayment.balance);
+            request.addProperty(ACCOUNT_UNBLOCK_URI, requestPayment.accountUnblockUri);
+            request.addProperty(EXT_ACTION_URI, requestPayment.extActionUri);
+            object.add(REQUEST_PAYMENT, request);
+        }
+
+        ProcessPayment processPayment = savedState.getProcessPayment();
+        if (processPayment != null) {
+            JsonObject process = new JsonObject();
+            process.addProperty(STATUS, processPayment.status == null ? null : processPayment.status.code);
+            process.addProperty(ERROR, processPayment.error == null ? null : processPayment.error.code);
+            process.addProperty(PAYMENT_ID, processPayment.paymentId);
+            process.addProperty(INVOICE_ID, processPayment.invoiceId);
+            process.addProperty(NEXT_RETRY, processPayment.nextRetry);
+            process.addProperty(BALANCE, processPayment.balance);
+            process.addProperty(PAYEE, processPayment.payee);
+            process.addProperty(CREDIT_AMOUNT, processPayment.creditAmount);
+            process.addProperty(ACCOUNT_UNBLOCK_URI, processPayment.accountUnblockUri);
+            process.addProperty(ACS_URI, processPayment.acsUri);
+            if (processPayment.acsParams != null) {
+                process.add(ACS_PARAMS, JsonUtils.toJsonObject(processPayment.acsParams));
+            }
+            object.add(PROCESS_PAYMENT, process);
+        }
+        return object;
+    }
+
+    static PaymentProcess.SavedState fromJson(JsonObject object) {
+        // objects are restored like responses are parsed, so states of any valid response can be restored
+        Gson gson = GsonProvider.getGson();
+        JsonElement request = object.get(REQUEST_PAYMENT);
+        JsonElement process = object.get(PROCESS_PAYMENT);
+        return new PaymentProcess.SavedState(
+                request == null || request.isJsonNull() ? null : gson.fromJson(request, RequestPayment.class),
+                process == null || process.isJsonNull() ? null : gson.fromJson(process, ProcessPayment.class),
+                JsonUtils.getMandatoryInt(object, FLAGS));
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.processes;
+
+import java.io.IOException;
+
+/**
+ * Durable storage of {@link PaymentProcess.SavedState}s by payment ID. Implementations should be thread safe.
+ *
+ * @see FileSavedStateStore
+ */
+public interface SavedStateStore {
+
+    /**
+     * Loads a saved state of a payment.
+     *
+     * @param id payment ID
+     * @return saved state or {@code null} if there is no state for the payment
+     * @throws IOException if the state could not be loaded
+     */
+    PaymentProcess.SavedState load(String id) throws IOException;
+
+    /**
+     * Saves a state of a payment replacing the previous one. The state should be durable when the method returns.
+     *
+     * @param id payment ID
+     * @param savedState saved state
+     * @throws IOException if the state could not be saved
+     */
+    void save(String id, PaymentProcess.SavedState savedState) throws IOException;
+}
@@ -0,0 +1,133 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.time;
+
+/**
+ * Proleptic Gregorian calendar arithmetic on epoch days and milliseconds. Used by formatters to avoid
+ * {@link java.util.Calendar} instances.
+ */
+final class Chronology {
+
+    static final long MILLIS_PER_SECOND = 1000L;
+    static final long MILLIS_PER_MINUTE = 60 * MILLIS_PER_SECOND;
+    static final long MILLIS_PER_HOUR = 60 * MILLIS_PER_MINUTE;
+    static final long MILLIS_PER_DAY = 24 * MILLIS_PER_HOUR;
+
+    private static final int DAYS_PER_ERA = 146097;
+    private static final long DAYS_0000_TO_1970 = 719468L;
+
+    private Chronology() {
+    }
+
+    /**
+     * Converts date to a number of days since 1970-01-01.
+     *
+     * @param year year
+     * @param month month of year (1..12)
+     * @param day day of month (1..31)
+     * @return epoch day
+     */
+    static long toEpochDay(int year, int month, int day) {
+        // shift year to begin in March, so that leap day is the last day of a year
+        long y = month <= 2 ? year - 1 : year;
+        long era = floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        int monthFromMarch = month > 2 ? month - 3 : month + 9;
+        long dayOfYear = (153 * monthFromMarch + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * DAYS_PER_ERA + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    /**
+     * Converts epoch day to a packed date. Use {@link #yearOf(long)}, {@link #monthOf(long)} and {@link #dayOf(long)}
+     * to unpack values.
+     *
+     * @param epochDay days since 1970-01-01
+     * @return packed date
+     */
+    static long fromEpochDay(long epochDay) {
+        long days = epochDay + DAYS_0000_TO_1970;
+        long era = floorDiv(days, DAYS_PER_ERA);
+        long dayOfEra = days - era * DAYS_PER_ERA;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthFromMarch = (5 * dayOfYear + 2) / 153;
+        long day = dayOfYear - (153 * monthFromMarch + 2) / 5 + 1;
+        long month = monthFromMarch < 10 ? monthFromMarch + 3 : monthFromMarch - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return (year << 9) | (month << 5) | day;
+    }
+
+    static int yearOf(long packedDate) {
+        return (int) (packedDate >> 9);
+    }
+
+    static int monthOf(long packedDate) {
+        return (int) ((packedDate >> 5) & 0xF);
+    }
+
+    static int dayOf(long packedDate) {
+        return (int) (packedDate & 0x1F);
+    }
+
+    /**
+     * @param epochDay days since 1970-01-01
+     * @return day of week, 1 for Sunday to 7 for Saturday as in {@link java.util.Calendar#DAY_OF_WEEK}
+     */
+    static int dayOfWeek(long epochDay) {
+        // 1970-01-01 is Thursday
+        return (int) floorMod(epochDay + 4, 7) + 1;
+    }
+
+    static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    static long floorDiv(long x, long y) {
+        long result = x / y;
+        if ((x % y != 0) && ((x ^ y) < 0)) {
+            --result;
+        }
+        return result;
+    }
+
+    static long floorMod(long x, long y) {
+        return x - floorDiv(x, y) * y;
+    }
+}
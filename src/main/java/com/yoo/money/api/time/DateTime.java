@@ -28,31 +28,49 @@ import java.text.DateFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import static com.yoo.money.api.time.Chronology.MILLIS_PER_DAY;
+import static com.yoo.money.api.time.Chronology.MILLIS_PER_HOUR;
+import static com.yoo.money.api.time.Chronology.MILLIS_PER_MINUTE;
+import static com.yoo.money.api.time.Chronology.MILLIS_PER_SECOND;
 import static com.yoo.money.api.util.Common.checkNotNull;
 
 /**
- * Represents a date-time value that is backed up by a {@link Calendar} instance. The implementation of this class is
- * immutable.
- *
- * @see Calendar
+ * Represents a date-time value as milliseconds from the epoch and a time zone. Date and time fields are computed on
+ * demand using proleptic Gregorian calendar, so instances are small and cheap to create. The implementation of this
+ * class is immutable.
  */
 public final class DateTime implements Comparable<DateTime> {
 
-    private final Calendar calendar;
+    /**
+     * Time zones created by this library are shared by all instances.
+     */
+    private static final ConcurrentMap<String, TimeZone> TIME_ZONES = new ConcurrentHashMap<>();
+
+    // offsets are limited to +/-18 hours
+    private static final long MAX_OFFSET = 18 * MILLIS_PER_HOUR;
+
+    private final long millis;
+    private final TimeZone timeZone;
+    private final int offset;
+
+    DateTime(long millis, TimeZone timeZone) {
+        this(millis, timeZone, timeZone.getOffset(millis));
+    }
 
-    DateTime(Calendar calendar) {
-        this.calendar = calendar;
-        // we want to manually invoke update time within a calendar
-        this.calendar.getTimeInMillis();
+    DateTime(long millis, TimeZone timeZone, int offset) {
+        this.millis = millis;
+        this.timeZone = timeZone;
+        this.offset = offset;
     }
 
     /**
      * @return an instance of this class with current time and default timezone
-     * @see Calendar#getInstance()
      */
     public static DateTime now() {
-        return new DateTime(Calendar.getInstance());
+        return new DateTime(System.currentTimeMillis(), getDefaultTimeZone());
     }
 
     /**
@@ -60,9 +78,7 @@ public final class DateTime implements Comparable<DateTime> {
      * @return an instance of this class with specified time and default timezone
      */
     public static DateTime from(long millis) {
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTimeInMillis(millis);
-        return new DateTime(calendar);
+        return new DateTime(millis, getDefaultTimeZone());
     }
 
     /**
@@ -71,10 +87,7 @@ public final class DateTime implements Comparable<DateTime> {
      * @return an instance of this class with specified time and timezone
      */
     public static DateTime from(long millis, TimeZone timeZone) {
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTimeInMillis(millis);
-        calendar.setTimeZone(timeZone);
-        return new DateTime(calendar);
+        return new DateTime(millis, checkNotNull(timeZone, "timeZone"));
     }
 
     /**
@@ -82,9 +95,7 @@ public final class DateTime implements Comparable<DateTime> {
      * @return an instance of this class with specified date and default timezone
      */
     public static DateTime from(Date date) {
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(date);
-        return new DateTime(calendar);
+        return from(checkNotNull(date, "date").getTime());
     }
 
     /**
@@ -96,7 +107,7 @@ public final class DateTime implements Comparable<DateTime> {
      * @return an instance of this class with specified values and default timezone
      */
     public static DateTime from(int year, int month, int date, int hour, int minute) {
-        return from(year, month, date, hour, minute, TimeZone.getDefault());
+        return from(year, month, date, hour, minute, getDefaultTimeZone());
     }
 
     /**
@@ -109,11 +120,7 @@ public final class DateTime implements Comparable<DateTime> {
      * @return an instance of this class with specified values
      */
     public static DateTime from(int year, int month, int date, int hour, int minute, TimeZone timeZone) {
-        Calendar calendar = Calendar.getInstance(timeZone);
-        calendar.set(year, month, date, hour, minute);
-        calendar.clear(Calendar.SECOND);
-        calendar.clear(Calendar.MILLISECOND);
-        return new DateTime(calendar);
+        return from(year, month, date, hour, minute, 0, 0, checkNotNull(timeZone, "timeZone"));
     }
 
     /**
@@ -126,10 +133,21 @@ public final class DateTime implements Comparable<DateTime> {
      * @return an instance of this class with specified values and default timezone
      */
     public static DateTime from(int year, int month, int date, int hour, int minute, int second) {
-        Calendar calendar = Calendar.getInstance();
-        calendar.set(year, month, date, hour, minute, second);
-        calendar.clear(Calendar.MILLISECOND);
-        return new DateTime(calendar);
+        return from(year, month, date, hour, minute, second, 0, getDefaultTimeZone());
+    }
+
+    /**
+     * Creates an instance from date and time fields. Values out of range are normalized like {@link Calendar} does
+     * in lenient mode, for instance 13th month is January of the next year.
+     *
+     * @param month a month, 0-based
+     */
+    static DateTime from(int year, int month, int date, int hour, int minute, int second, int millisecond,
+                         TimeZone timeZone) {
+
+        long local = toLocalMillis(year, month, date) + hour * MILLIS_PER_HOUR + minute * MILLIS_PER_MINUTE
+                + second * MILLIS_PER_SECOND + millisecond;
+        return new DateTime(toInstant(local, timeZone), timeZone);
     }
 
     /**
@@ -177,12 +195,8 @@ public final class DateTime implements Comparable<DateTime> {
      */
     @SuppressWarnings("WeakerAccess")
     public DateTime withTimeAtStartOfDay() {
-        DateTime copy = copy();
-        copy.calendar.set(Calendar.HOUR_OF_DAY, 0);
-        copy.calendar.set(Calendar.MINUTE, 0);
-        copy.calendar.set(Calendar.SECOND, 0);
-        copy.calendar.set(Calendar.MILLISECOND, 0);
-        return copy;
+        long local = millis + offset;
+        return new DateTime(toInstant(local - Chronology.floorMod(local, MILLIS_PER_DAY), timeZone), timeZone);
     }
 
     /**
@@ -190,63 +204,67 @@ public final class DateTime implements Comparable<DateTime> {
      *
      * @param timeZone timezone to use
      * @return a copy of this datetime with a different time zone
-     * @see Calendar#setTimeZone(TimeZone)
      */
     @SuppressWarnings("WeakerAccess")
     public DateTime withZone(TimeZone timeZone) {
-        DateTime copy = copy();
-        copy.calendar.setTimeZone(timeZone);
-        return copy;
+        return new DateTime(millis, checkNotNull(timeZone, "timeZone"));
     }
 
     /**
      * @return timezone used by the instance of this class
-     * @see Calendar#getTimeZone()
      */
     public TimeZone getTimeZone() {
-        return calendar.getTimeZone();
+        // time zones are mutable and may be shared, so we don't expose them
+        return (TimeZone) timeZone.clone();
     }
 
     /**
      * @return {@link Date} instance that represents this class
      */
     public Date getDate() {
-        return calendar.getTime();
+        return new Date(millis);
+    }
+
+    /**
+     * @return the time in UTC milliseconds from the epoch
+     */
+    public long getMillis() {
+        return millis;
     }
 
     @SuppressWarnings("WeakerAccess")
     public int getYear() {
-        return calendar.get(Calendar.YEAR);
+        return Chronology.yearOf(getPackedDate());
     }
 
     public int getMonth() {
-        return calendar.get(Calendar.MONTH);
+        return getMonthOfYear() - 1;
     }
 
     public int getMonthOfYear() {
-        return getMonth() + 1;
+        return Chronology.monthOf(getPackedDate());
     }
 
     @SuppressWarnings("WeakerAccess")
     public int getDayOfMonth() {
-        return calendar.get(Calendar.DAY_OF_MONTH);
+        return Chronology.dayOf(getPackedDate());
     }
 
     @SuppressWarnings("WeakerAccess")
     public int getHourOfDay() {
-        return calendar.get(Calendar.HOUR_OF_DAY);
+        return (int) (getMillisOfDay() / MILLIS_PER_HOUR);
     }
 
     public int getMinute() {
-        return calendar.get(Calendar.MINUTE);
+        return (int) (getMillisOfDay() / MILLIS_PER_MINUTE % 60);
     }
 
     public int getSecond() {
-        return calendar.get(Calendar.SECOND);
+        return (int) (getMillisOfDay() / MILLIS_PER_SECOND % 60);
     }
 
     public int getMillisecond() {
-        return calendar.get(Calendar.MILLISECOND);
+        return (int) (getMillisOfDay() % MILLIS_PER_SECOND);
     }
 
     /**
@@ -254,10 +272,9 @@ public final class DateTime implements Comparable<DateTime> {
      *
      * @param dateTime specified date time
      * @return {@code true} if specified date time comes after current date time, {@code false} otherwise
-     * @see Calendar#after(Object)
      */
     public boolean isAfter(DateTime dateTime) {
-        return calendar.after(checkNotNull(dateTime, "dateTime").calendar);
+        return millis > checkNotNull(dateTime, "dateTime").millis;
     }
 
     /**
@@ -265,15 +282,14 @@ public final class DateTime implements Comparable<DateTime> {
      *
      * @param dateTime specified date time
      * @return {@code true} if specified date time comes before current date time, {@code false} otherwise
-     * @see Calendar#before(Object)
      */
     public boolean isBefore(DateTime dateTime) {
-        return calendar.before(checkNotNull(dateTime, "dateTime").calendar);
+        return millis < checkNotNull(dateTime, "dateTime").millis;
     }
 
     @Override
     public int compareTo(DateTime other) {
-        return calendar.compareTo(other.calendar);
+        return millis < other.millis ? -1 : (millis == other.millis ? 0 : 1);
     }
 
     @Override
@@ -283,12 +299,14 @@ public final class DateTime implements Comparable<DateTime> {
 
         DateTime dateTime = (DateTime) o;
 
-        return calendar.equals(dateTime.calendar);
+        return millis == dateTime.millis && timeZone.equals(dateTime.timeZone);
     }
 
     @Override
     public int hashCode() {
-        return calendar.hashCode();
+        int result = (int) (millis ^ (millis >>> 32));
+        result = 31 * result + timeZone.hashCode();
+        return result;
     }
 
     @Override
@@ -300,27 +318,147 @@ public final class DateTime implements Comparable<DateTime> {
         return checkNotNull(formatter, "formatter").format(getDate());
     }
 
-    Calendar getCalendar() {
-        return calendar;
+    /**
+     * @return time zone of this instance, must not be modified
+     */
+    TimeZone getZone() {
+        return timeZone;
+    }
+
+    /**
+     * @return offset from UTC at this instant in milliseconds
+     */
+    int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns shared instance of a time zone for specified id.
+     *
+     * @param id time zone id
+     * @return time zone, must not be modified
+     */
+    static TimeZone getSharedTimeZone(String id) {
+        TimeZone timeZone = TIME_ZONES.get(id);
+        return timeZone == null ? share(TimeZone.getTimeZone(id)) : timeZone;
+    }
+
+    static TimeZone getDefaultTimeZone() {
+        // getDefault() returns a new copy every time, share one of them
+        return share(TimeZone.getDefault());
+    }
+
+    private static TimeZone share(TimeZone timeZone) {
+        TimeZone shared = TIME_ZONES.putIfAbsent(timeZone.getID(), timeZone);
+        if (shared == null) {
+            return timeZone;
+        }
+        return shared.hasSameRules(timeZone) ? shared : timeZone;
+    }
+
+    private long getPackedDate() {
+        return Chronology.fromEpochDay(Chronology.floorDiv(millis + offset, MILLIS_PER_DAY));
+    }
+
+    private long getMillisOfDay() {
+        return Chronology.floorMod(millis + offset, MILLIS_PER_DAY);
+    }
+
+    /**
+     * @param month a month, 0-based, out of range values are normalized
+     * @return local milliseconds at the start of specified date
+     */
+    static long toLocalMillis(int year, int month, int date) {
+        long normalizedYear = year + Chronology.floorDiv(month, 12);
+        int normalizedMonth = (int) Chronology.floorMod(month, 12) + 1;
+        return (Chronology.toEpochDay((int) normalizedYear, normalizedMonth, 1) + date - 1) * MILLIS_PER_DAY;
+    }
+
+    /**
+     * Converts local time to an instant. Local time which does not exist because of a gap is resolved using an
+     * offset before the gap, ambiguous local time is resolved using an offset after the overlap, that is the same
+     * way as {@link java.util.GregorianCalendar} does.
+     */
+    static long toInstant(long local, TimeZone timeZone) {
+        int before = timeZone.getOffset(local - MAX_OFFSET - 1);
+        int after = timeZone.getOffset(local + MAX_OFFSET);
+        if (before == after) {
+            int offset = timeZone.getOffset(local - before);
+            return local - (timeZone.getOffset(local - offset) == offset ? offset : before);
+        }
+        return local - (timeZone.getOffset(local - after) == after ? after : before);
     }
 
     private DateTime add(Period period, int multiplier) {
-        DateTime result = copy();
-        result.calendar.add(Calendar.YEAR, multiplier * period.years);
-        result.calendar.add(Calendar.MONTH, multiplier * period.months);
-        result.calendar.add(Calendar.DAY_OF_YEAR, multiplier * period.days);
-        return result;
+        checkNotNull(period, "period");
+        DateTime result = addMonths(multiplier * period.years * 12);
+        result = result.addMonths(multiplier * period.months);
+        return result.addDays(multiplier * period.days);
     }
 
     private DateTime add(SingleFieldPeriod period, int multiplier) {
         checkNotNull(period, "period");
-        DateTime result = copy();
-        //noinspection MagicConstant
-        result.calendar.add(period.getField(), multiplier * period.getAmount());
-        return result;
+        int amount = multiplier * period.getAmount();
+        switch (period.getField()) {
+            case Calendar.YEAR:
+                return addMonths(amount * 12);
+            case Calendar.MONTH:
+                return addMonths(amount);
+            case Calendar.WEEK_OF_YEAR:
+            case Calendar.WEEK_OF_MONTH:
+                return addDays(amount * 7);
+            case Calendar.DAY_OF_YEAR:
+            case Calendar.DAY_OF_MONTH:
+            case Calendar.DAY_OF_WEEK:
+                return addDays(amount);
+            case Calendar.HOUR:
+            case Calendar.HOUR_OF_DAY:
+                return new DateTime(millis + amount * MILLIS_PER_HOUR, timeZone);
+            case Calendar.MINUTE:
+                return new DateTime(millis + amount * MILLIS_PER_MINUTE, timeZone);
+            case Calendar.SECOND:
+                return new DateTime(millis + amount * MILLIS_PER_SECOND, timeZone);
+            case Calendar.MILLISECOND:
+                return new DateTime(millis + amount, timeZone);
+            default:
+                throw new IllegalArgumentException("unsupported field: " + period.getField());
+        }
     }
 
-    private DateTime copy() {
-        return new DateTime((Calendar) calendar.clone());
+    /**
+     * Adds months keeping local time. Day of month is adjusted to the length of resulting month.
+     */
+    private DateTime addMonths(int months) {
+        if (months == 0) {
+            return this;
+        }
+        long date = getPackedDate();
+        long totalMonths = Chronology.yearOf(date) * 12L + Chronology.monthOf(date) - 1 + months;
+        int year = (int) Chronology.floorDiv(totalMonths, 12);
+        int month = (int) Chronology.floorMod(totalMonths, 12) + 1;
+        int day = Math.min(Chronology.dayOf(date), Chronology.lengthOfMonth(year, month));
+        long local = Chronology.toEpochDay(year, month, day) * MILLIS_PER_DAY + getMillisOfDay();
+        return new DateTime(toInstant(local, timeZone), timeZone);
+    }
+
+    /**
+     * Adds days keeping local time if possible.
+     */
+    private DateTime addDays(int days) {
+        if (days == 0) {
+            return this;
+        }
+        long local = millis + offset + days * MILLIS_PER_DAY;
+        long result = local - offset;
+        int difference = offset - timeZone.getOffset(result);
+        if (difference != 0) {
+            // offset has changed, keep local time unless it moves the date
+            long adjusted = result + difference;
+            if (Chronology.floorDiv(adjusted + timeZone.getOffset(adjusted), MILLIS_PER_DAY)
+                    == Chronology.floorDiv(local, MILLIS_PER_DAY)) {
+                result = adjusted;
+            }
+        }
+        return new DateTime(result, timeZone);
     }
 }
@@ -24,20 +24,40 @@
 
 package com.yoo.money.api.time;
 
-import com.google.gson.internal.bind.util.ISO8601Utils;
-
 import java.text.ParseException;
-import java.util.Calendar;
-import java.util.GregorianCalendar;
 import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+import static com.yoo.money.api.time.Chronology.MILLIS_PER_HOUR;
+import static com.yoo.money.api.time.Chronology.MILLIS_PER_MINUTE;
+import static com.yoo.money.api.time.Chronology.MILLIS_PER_SECOND;
 import static com.yoo.money.api.util.Common.checkNotNull;
 
 /**
  * Simple utility class to parse and format ISO 8601 dates.
+ * <p>
+ * Values are parsed directly to milliseconds from the epoch. Time zones for offsets are created once and shared, so
+ * parsing allocates nothing but a resulting {@link DateTime}.
  */
 public final class Iso8601Format {
 
+    private static final int MAX_OFFSET_MINUTES = 23 * 60 + 59;
+
+    /**
+     * Time zones for offsets from -23:59 to +23:59 indexed by offset in minutes.
+     */
+    private static final AtomicReferenceArray<TimeZone> OFFSETS = new AtomicReferenceArray<>(MAX_OFFSET_MINUTES * 2 + 1);
+
+    // yyyy-MM-ddTHH:mm:ss.SSS+hh:mm with a year of up to 11 characters
+    private static final int MAX_LENGTH = 36;
+
+    private static final ThreadLocal<char[]> BUFFER = new ThreadLocal<char[]>() {
+        @Override
+        protected char[] initialValue() {
+            return new char[MAX_LENGTH];
+        }
+    };
+
     private Iso8601Format() {
     }
 
@@ -49,7 +69,7 @@ public final class Iso8601Format {
      * @throws ParseException if parsing is not possible
      */
     public static DateTime parse(String date) throws ParseException {
-        return parse(date, TimeZone.getDefault());
+        return parse(date, DateTime.getDefaultTimeZone());
     }
 
     /**
@@ -61,6 +81,7 @@ public final class Iso8601Format {
      * @throws ParseException if parsing is not possible
      */
     public static DateTime parse(String date, TimeZone defaultTimezone) throws ParseException {
+        checkNotNull(date, "date");
         int position = 0;
 
         int year = parseInt(date, position, position += 4);
@@ -109,8 +130,7 @@ public final class Iso8601Format {
             if (checkPosition(date, position, '.')) {
                 ++position;
                 int endPosition = indexOfNonDigit(date, position + 1); // assume at least one digit
-                endPosition = Math.min(position + 3, endPosition);
-                milliseconds = parseInt(date, position, endPosition);
+                milliseconds = parseInt(date, position, Math.min(position + 3, endPosition));
 
                 switch (endPosition - position) {
                     case 2:
@@ -121,60 +141,163 @@ public final class Iso8601Format {
                         break;
                 }
 
+                // digits after milliseconds are ignored
                 position = endPosition;
             }
         }
 
-        if (position > date.length()) {
-            throw new ParseException("no timezone indicator", position);
+        long local = DateTime.toLocalMillis(year, monthOfYear, day) + hour * MILLIS_PER_HOUR
+                + minutes * MILLIS_PER_MINUTE + seconds * MILLIS_PER_SECOND + milliseconds;
+
+        if (position == date.length()) {
+            return DateTime.from(DateTime.toInstant(local, defaultTimezone), defaultTimezone);
         }
 
-        TimeZone timeZone = null;
+        int offsetMinutes;
         char timeZoneChar = date.charAt(position);
-
         if (timeZoneChar == 'Z') {
-            timeZone = TimeZone.getTimeZone("GMT");
+            offsetMinutes = 0;
         } else if (timeZoneChar == '+' || timeZoneChar == '-') {
-            String timeZoneOffset = date.substring(position);
-
-            timeZoneOffset = timeZoneOffset.length() >= 5 ? timeZoneOffset : timeZoneOffset + "00";
-
-            if ("+0000".equals(timeZoneOffset) || "+00:00".equals(timeZoneOffset)) {
-                timeZone = TimeZone.getTimeZone("GMT");
-            } else {
-                timeZone = TimeZone.getTimeZone("GMT" + timeZoneOffset);
+            offsetMinutes = parseOffset(date, position + 1);
+            if (timeZoneChar == '-') {
+                offsetMinutes = -offsetMinutes;
             }
+        } else {
+            throw new ParseException("no timezone indicator", position);
         }
 
-        Calendar calendar = new GregorianCalendar(timeZone);
-        calendar.set(Calendar.YEAR, year);
-        calendar.set(Calendar.MONTH, monthOfYear);
-        calendar.set(Calendar.DAY_OF_MONTH, day);
-        calendar.set(Calendar.HOUR_OF_DAY, hour);
-        calendar.set(Calendar.MINUTE, minutes);
-        calendar.set(Calendar.SECOND, seconds);
-        calendar.set(Calendar.MILLISECOND, milliseconds);
-
-        return new DateTime(calendar);
+        int offset = (int) (offsetMinutes * MILLIS_PER_MINUTE);
+        return new DateTime(local - offset, getTimeZone(offsetMinutes), offset);
     }
 
     /**
-     * Formats date time to ISO 8601 string.
+     * Formats date time to ISO 8601 string with milliseconds, for instance {@code 2018-05-14T12:34:56.789+03:00} or
+     * {@code 2018-05-14T09:34:56.789Z} if offset is zero.
      *
      * @param dateTime date time to format
      * @return formatted string
      */
     public static String format(DateTime dateTime) {
-        Calendar calendar = checkNotNull(dateTime, "dateTime").getCalendar();
-        return ISO8601Utils.format(calendar.getTime(), true, calendar.getTimeZone());
+        checkNotNull(dateTime, "dateTime");
+        int offset = dateTime.getOffset();
+        long local = dateTime.getMillis() + offset;
+        long epochDay = Chronology.floorDiv(local, Chronology.MILLIS_PER_DAY);
+        long date = Chronology.fromEpochDay(epochDay);
+        int millisOfDay = (int) (local - epochDay * Chronology.MILLIS_PER_DAY);
+
+        char[] buffer = BUFFER.get();
+        int position = writeYear(buffer, Chronology.yearOf(date));
+        buffer[position++] = '-';
+        position = writeDigits(buffer, position, Chronology.monthOf(date), 2);
+        buffer[position++] = '-';
+        position = writeDigits(buffer, position, Chronology.dayOf(date), 2);
+        buffer[position++] = 'T';
+        position = writeDigits(buffer, position, (int) (millisOfDay / MILLIS_PER_HOUR), 2);
+        buffer[position++] = ':';
+        position = writeDigits(buffer, position, (int) (millisOfDay / MILLIS_PER_MINUTE % 60), 2);
+        buffer[position++] = ':';
+        position = writeDigits(buffer, position, (int) (millisOfDay / MILLIS_PER_SECOND % 60), 2);
+        buffer[position++] = '.';
+        position = writeDigits(buffer, position, (int) (millisOfDay % MILLIS_PER_SECOND), 3);
+
+        if (offset == 0) {
+            buffer[position++] = 'Z';
+        } else {
+            int offsetMinutes = Math.abs(offset / (int) MILLIS_PER_MINUTE);
+            buffer[position++] = offset < 0 ? '-' : '+';
+            position = writeDigits(buffer, position, offsetMinutes / 60, 2);
+            buffer[position++] = ':';
+            position = writeDigits(buffer, position, offsetMinutes % 60, 2);
+        }
+        return new String(buffer, 0, position);
+    }
+
+    /**
+     * Parses offset in {@code hh:mm}, {@code hhmm} or {@code hh} form. Invalid offsets are treated as zero offset
+     * for compatibility with {@link TimeZone#getTimeZone(String)}.
+     *
+     * @return offset in minutes
+     */
+    private static int parseOffset(String value, int position) {
+        int hours = 0;
+        int digits = 0;
+        while (position < value.length() && isDigit(value.charAt(position))) {
+            hours = hours * 10 + value.charAt(position++) - '0';
+            ++digits;
+        }
+
+        int minutes = 0;
+        if (digits > 2) {
+            if (digits > 4) {
+                return 0;
+            }
+            minutes = hours % 100;
+            hours /= 100;
+        } else if (digits > 0 && position < value.length() && value.charAt(position) == ':') {
+            ++position;
+            if (position + 2 > value.length() || !isDigit(value.charAt(position))
+                    || !isDigit(value.charAt(position + 1))) {
+                return 0;
+            }
+            minutes = (value.charAt(position) - '0') * 10 + value.charAt(position + 1) - '0';
+            position += 2;
+        }
+
+        if (digits == 0 || position != value.length() || hours > 23 || minutes > 59) {
+            return 0;
+        }
+        return hours * 60 + minutes;
+    }
+
+    private static TimeZone getTimeZone(int offsetMinutes) {
+        int index = offsetMinutes + MAX_OFFSET_MINUTES;
+        TimeZone timeZone = OFFSETS.get(index);
+        if (timeZone == null) {
+            timeZone = DateTime.getSharedTimeZone(offsetMinutes == 0 ? "GMT" : createTimeZoneId(offsetMinutes));
+            OFFSETS.set(index, timeZone);
+        }
+        return timeZone;
+    }
+
+    private static String createTimeZoneId(int offsetMinutes) {
+        int absolute = Math.abs(offsetMinutes);
+        char[] id = { 'G', 'M', 'T', offsetMinutes < 0 ? '-' : '+', '0', '0', ':', '0', '0' };
+        writeDigits(id, 4, absolute / 60, 2);
+        writeDigits(id, 7, absolute % 60, 2);
+        return new String(id);
+    }
+
+    private static int writeYear(char[] buffer, int year) {
+        if (year >= 0 && year <= 9999) {
+            return writeDigits(buffer, 0, year, 4);
+        }
+        // same as ISO8601Utils: zero padded to 4 characters including the sign
+        String value = Integer.toString(year);
+        int position = 0;
+        for (int i = value.length(); i < 4; ++i) {
+            buffer[position++] = '0';
+        }
+        value.getChars(0, value.length(), buffer, position);
+        return position + value.length();
+    }
+
+    private static int writeDigits(char[] buffer, int position, int value, int width) {
+        for (int i = position + width - 1; i >= position; --i) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return position + width;
     }
 
     private static int parseInt(String value, int begin, int end) throws ParseException {
+        if (end > value.length()) {
+            throw new ParseException("unexpected end of date", value.length());
+        }
         int result = 0;
         for (int i = begin; i < end; ++i) {
             char c = value.charAt(i);
-            if (Character.isDigit(c)) {
-                result = result * 10 + Character.getNumericValue(c);
+            if (isDigit(c)) {
+                result = result * 10 + c - '0';
             } else {
                 throw new ParseException("unable to parse int value", begin);
             }
@@ -182,6 +305,10 @@ public final class Iso8601Format {
         return result;
     }
 
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
     private static boolean checkPosition(String value, int position, char expected) {
         return position < value.length() && value.charAt(position) == expected;
     }
@@ -193,8 +320,7 @@ public final class Iso8601Format {
 
     private static int indexOfNonDigit(String value, int position) {
         for (int i = position; i < value.length(); ++i) {
-            char c = value.charAt(i);
-            if (!Character.isDigit(c)) {
+            if (!isDigit(value.charAt(i))) {
                 return i;
             }
         }
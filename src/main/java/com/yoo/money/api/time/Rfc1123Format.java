@@ -0,0 +1,387 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.time;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static com.yoo.money.api.time.Chronology.MILLIS_PER_DAY;
+import static com.yoo.money.api.time.Chronology.MILLIS_PER_HOUR;
+import static com.yoo.money.api.time.Chronology.MILLIS_PER_MINUTE;
+import static com.yoo.money.api.time.Chronology.MILLIS_PER_SECOND;
+import static com.yoo.money.api.util.Common.checkNotNull;
+
+/**
+ * Thread safe parser and formatter of RFC 1123 dates used in HTTP headers, for instance
+ * {@code Tue, 15 Nov 1994 08:12:00 GMT}.
+ * <p>
+ * Dates in GMT are parsed and all dates are formatted without {@link java.util.Calendar} instances. Dates with other
+ * time zone names are parsed by {@link SimpleDateFormat} confined to a calling thread. Recently parsed and formatted
+ * values are cached, because servers tend to return the same {@code Last-Modified} values over and over.
+ */
+public final class Rfc1123Format {
+
+    private static final String PATTERN = "EEE, dd MMM yyyy HH:mm:ss zzz";
+
+    private static final String[] DAYS_OF_WEEK = { "Sun", "Mon", "Tue", "Wed", "Thu", "Fri", "Sat" };
+    private static final String[] MONTHS =
+            { "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec" };
+
+    private static final int CACHE_SIZE = 64; // must be a power of two
+
+    private static final AtomicReferenceArray<ParsedValue> PARSED = new AtomicReferenceArray<>(CACHE_SIZE);
+    private static final AtomicReferenceArray<FormattedValue> FORMATTED = new AtomicReferenceArray<>(CACHE_SIZE);
+
+    private static final ConcurrentMap<String, ZoneNames> ZONE_NAMES = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<DateFormat> FALLBACK_FORMAT = new ThreadLocal<DateFormat>() {
+        @Override
+        protected DateFormat initialValue() {
+            return new SimpleDateFormat(PATTERN, Locale.US);
+        }
+    };
+
+    private Rfc1123Format() {
+    }
+
+    /**
+     * Parses RFC 1123 date.
+     *
+     * @param value a string to parse
+     * @return parsed date time in default time zone
+     * @throws ParseException if parsing is not possible
+     */
+    public static DateTime parse(String value) throws ParseException {
+        checkNotNull(value, "value");
+
+        int index = value.hashCode() & (CACHE_SIZE - 1);
+        ParsedValue cached = PARSED.get(index);
+        if (cached != null && cached.value.equals(value)) {
+            return DateTime.from(cached.millis);
+        }
+
+        long millis = parseCanonical(value);
+        if (millis == Long.MIN_VALUE) {
+            millis = FALLBACK_FORMAT.get().parse(value).getTime();
+        }
+        PARSED.set(index, new ParsedValue(value, millis));
+        return DateTime.from(millis);
+    }
+
+    /**
+     * Formats date time to RFC 1123 string using time zone of the date time.
+     *
+     * @param dateTime date time to format
+     * @return formatted string
+     */
+    public static String format(DateTime dateTime) {
+        checkNotNull(dateTime, "dateTime");
+        long millis = dateTime.getMillis();
+        TimeZone timeZone = dateTime.getZone();
+        String zoneId = timeZone.getID();
+
+        int index = (int) (millis ^ (millis >>> 32) ^ zoneId.hashCode()) & (CACHE_SIZE - 1);
+        FormattedValue cached = FORMATTED.get(index);
+        if (cached != null && cached.millis == millis && cached.zoneId.equals(zoneId)
+                && cached.rawOffset == timeZone.getRawOffset()) {
+            return cached.value;
+        }
+
+        String value = format(millis, timeZone);
+        FORMATTED.set(index, new FormattedValue(millis, zoneId, timeZone.getRawOffset(), value));
+        return value;
+    }
+
+    private static String format(long millis, TimeZone timeZone) {
+        long local = millis + timeZone.getOffset(millis);
+        long epochDay = Chronology.floorDiv(local, MILLIS_PER_DAY);
+        long date = Chronology.fromEpochDay(epochDay);
+        int millisOfDay = (int) (local - epochDay * MILLIS_PER_DAY);
+
+        StringBuilder builder = new StringBuilder(32)
+                .append(DAYS_OF_WEEK[Chronology.dayOfWeek(epochDay) - 1])
+                .append(", ");
+        appendTwoDigits(builder, Chronology.dayOf(date)).append(' ')
+                .append(MONTHS[Chronology.monthOf(date) - 1]).append(' ');
+        appendFourDigits(builder, Chronology.yearOf(date)).append(' ');
+        appendTwoDigits(builder, (int) (millisOfDay / MILLIS_PER_HOUR)).append(':');
+        appendTwoDigits(builder, (int) (millisOfDay / MILLIS_PER_MINUTE % 60)).append(':');
+        appendTwoDigits(builder, (int) (millisOfDay / MILLIS_PER_SECOND % 60)).append(' ');
+        return builder.append(getZoneName(timeZone, millis)).toString();
+    }
+
+    /**
+     * Parses RFC 1123 date in a canonical form.
+     *
+     * @return milliseconds since epoch or {@link Long#MIN_VALUE} if the value is not in a canonical form
+     */
+    private static long parseCanonical(String value) {
+        // Www, dd Mmm yyyy HH:mm:ss zzz
+        if (value.length() < 27 || value.charAt(3) != ',' || value.charAt(4) != ' ' || value.charAt(7) != ' '
+                || value.charAt(11) != ' ' || value.charAt(16) != ' ' || value.charAt(19) != ':'
+                || value.charAt(22) != ':' || value.charAt(25) != ' ') {
+            return Long.MIN_VALUE;
+        }
+
+        int day = parseDigits(value, 5, 7);
+        int month = parseMonth(value, 8);
+        int year = parseDigits(value, 12, 16);
+        int hour = parseDigits(value, 17, 19);
+        int minute = parseDigits(value, 20, 22);
+        int second = parseDigits(value, 23, 25);
+        if (day < 1 || month < 1 || year < 0 || day > Chronology.lengthOfMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return Long.MIN_VALUE;
+        }
+
+        long local = Chronology.toEpochDay(year, month, day) * MILLIS_PER_DAY + hour * MILLIS_PER_HOUR
+                + minute * MILLIS_PER_MINUTE + second * MILLIS_PER_SECOND;
+        return toInstant(local, value.substring(26));
+    }
+
+    private static long toInstant(long local, String zone) {
+        switch (zone) {
+            case "GMT":
+            case "UTC":
+            case "UT":
+            case "Z":
+                return local;
+        }
+
+        int offsetPosition = zone.startsWith("GMT") || zone.startsWith("UTC") ? 3 : 0;
+        if (zone.length() > offsetPosition) {
+            char sign = zone.charAt(offsetPosition);
+            if (sign == '+' || sign == '-') {
+                int offset = parseOffset(zone, offsetPosition + 1);
+                return offset < 0 ? Long.MIN_VALUE : (sign == '+' ? local - offset : local + offset);
+            }
+        }
+
+        ZoneName zoneName = ZoneName.resolve(zone);
+        return zoneName == null ? Long.MIN_VALUE : zoneName.toInstant(local);
+    }
+
+    /**
+     * Parses offset in {@code hh:mm}, {@code hhmm} or {@code hh} form.
+     *
+     * @return offset in milliseconds or {@code -1} if it can not be parsed
+     */
+    private static int parseOffset(String value, int position) {
+        int length = value.length() - position;
+        int hours;
+        int minutes;
+        if (length == 5 && value.charAt(position + 2) == ':') {
+            hours = parseDigits(value, position, position + 2);
+            minutes = parseDigits(value, position + 3, position + 5);
+        } else if (length == 4) {
+            hours = parseDigits(value, position, position + 2);
+            minutes = parseDigits(value, position + 2, position + 4);
+        } else if (length == 1 || length == 2) {
+            hours = parseDigits(value, position, value.length());
+            minutes = 0;
+        } else {
+            return -1;
+        }
+        return hours < 0 || hours > 23 || minutes < 0 || minutes > 59
+                ? -1 : (int) (hours * MILLIS_PER_HOUR + minutes * MILLIS_PER_MINUTE);
+    }
+
+    private static int parseDigits(String value, int begin, int end) {
+        int result = 0;
+        for (int i = begin; i < end; ++i) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
+    private static int parseMonth(String value, int position) {
+        for (int i = 0; i < MONTHS.length; ++i) {
+            if (value.regionMatches(true, position, MONTHS[i], 0, 3)) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static String getZoneName(TimeZone timeZone, long millis) {
+        ZoneNames names = ZONE_NAMES.get(timeZone.getID());
+        if (names == null || names.rawOffset != timeZone.getRawOffset()) {
+            names = new ZoneNames(timeZone);
+            ZONE_NAMES.put(timeZone.getID(), names);
+            // make formatted values parsable back to the same instant
+            ZoneName.register(names.standard, timeZone, false);
+            ZoneName.register(names.daylight, timeZone, true);
+        }
+        return timeZone.inDaylightTime(new Date(millis)) ? names.daylight : names.standard;
+    }
+
+    private static StringBuilder appendTwoDigits(StringBuilder builder, int value) {
+        return builder.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    private static StringBuilder appendFourDigits(StringBuilder builder, int value) {
+        if (value < 1000) {
+            builder.append('0');
+            if (value < 100) {
+                builder.append('0');
+                if (value < 10) {
+                    builder.append('0');
+                }
+            }
+        }
+        return builder.append(value);
+    }
+
+    private static final class ParsedValue {
+
+        final String value;
+        final long millis;
+
+        ParsedValue(String value, long millis) {
+            this.value = value;
+            this.millis = millis;
+        }
+    }
+
+    private static final class FormattedValue {
+
+        final long millis;
+        final String zoneId;
+        final int rawOffset;
+        final String value;
+
+        FormattedValue(long millis, String zoneId, int rawOffset, String value) {
+            this.millis = millis;
+            this.zoneId = zoneId;
+            this.rawOffset = rawOffset;
+            this.value = value;
+        }
+    }
+
+    private static final class ZoneNames {
+
+        final int rawOffset;
+        final String standard;
+        final String daylight;
+
+        ZoneNames(TimeZone timeZone) {
+            rawOffset = timeZone.getRawOffset();
+            standard = timeZone.getDisplayName(false, TimeZone.SHORT, Locale.US);
+            daylight = timeZone.getDisplayName(true, TimeZone.SHORT, Locale.US);
+        }
+    }
+
+    /**
+     * Time zone name like {@code MSK} or {@code EDT} resolved to a time zone.
+     */
+    private static final class ZoneName {
+
+        private static final ConcurrentMap<String, ZoneName> REGISTERED = new ConcurrentHashMap<>();
+
+        final TimeZone timeZone;
+        final boolean daylight;
+
+        ZoneName(TimeZone timeZone, boolean daylight) {
+            this.timeZone = timeZone;
+            this.daylight = daylight;
+        }
+
+        static void register(String name, TimeZone timeZone, boolean daylight) {
+            REGISTERED.put(name, new ZoneName(timeZone, daylight));
+        }
+
+        static ZoneName resolve(String name) {
+            ZoneName zoneName = REGISTERED.get(name);
+            if (zoneName == null) {
+                TimeZone timeZone = TimeZone.getDefault();
+                if (name.equals(timeZone.getDisplayName(false, TimeZone.SHORT, Locale.US))) {
+                    zoneName = new ZoneName(timeZone, false);
+                } else if (name.equals(timeZone.getDisplayName(true, TimeZone.SHORT, Locale.US))) {
+                    zoneName = new ZoneName(timeZone, true);
+                } else {
+                    zoneName = Index.NAMES.get(name);
+                }
+            }
+            return zoneName;
+        }
+
+        long toInstant(long local) {
+            long instant = local - timeZone.getRawOffset();
+            // offset depends on the instant, two iterations are enough to get consistent values
+            instant = local - timeZone.getOffset(instant);
+            instant = local - timeZone.getOffset(instant);
+            if (timeZone.inDaylightTime(new Date(instant)) != daylight) {
+                // local time is ambiguous when clocks go back, the name tells which of the two instants is meant
+                int savings = timeZone.getDSTSavings() == 0 ? (int) MILLIS_PER_HOUR : timeZone.getDSTSavings();
+                long alternative = daylight ? instant - savings : instant + savings;
+                if (timeZone.inDaylightTime(new Date(alternative)) == daylight
+                        && alternative + timeZone.getOffset(alternative) == local) {
+                    return alternative;
+                }
+            }
+            return instant;
+        }
+    }
+
+    /**
+     * Index of all known time zone names. Built on first use.
+     */
+    private static final class Index {
+
+        // RFC 822 zone names and some ambiguous ones mapped to most common time zones
+        private static final String[] PREFERRED_ZONES = { "Europe/Moscow", "America/New_York", "America/Chicago",
+                "America/Denver", "America/Los_Angeles" };
+
+        static final ConcurrentMap<String, ZoneName> NAMES = new ConcurrentHashMap<>();
+
+        static {
+            for (String id : PREFERRED_ZONES) {
+                add(id);
+            }
+            for (String id : TimeZone.getAvailableIDs()) {
+                add(id);
+            }
+        }
+
+        private static void add(String id) {
+            TimeZone timeZone = TimeZone.getTimeZone(id);
+            NAMES.putIfAbsent(timeZone.getDisplayName(false, TimeZone.SHORT, Locale.US),
+                    new ZoneName(timeZone, false));
+            NAMES.putIfAbsent(timeZone.getDisplayName(true, TimeZone.SHORT, Locale.US),
+                    new ZoneName(timeZone, true));
+        }
+    }
+}
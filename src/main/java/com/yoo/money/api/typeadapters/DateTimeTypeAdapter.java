@@ -24,34 +24,42 @@
 
 package com.yoo.money.api.typeadapters;
 
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
-import com.google.gson.JsonPrimitive;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import com.yoo.money.api.time.DateTime;
 import com.yoo.money.api.time.Iso8601Format;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
 import java.text.ParseException;
 
-final class DateTimeTypeAdapter implements JsonSerializer<DateTime>, JsonDeserializer<DateTime> {
+/**
+ * Streaming type adapter for {@link DateTime}. Reads values directly from {@link JsonReader} without building
+ * intermediate JSON trees.
+ */
+final class DateTimeTypeAdapter extends TypeAdapter<DateTime> {
 
     @Override
-    public DateTime deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
-            throws JsonParseException {
+    public void write(JsonWriter out, DateTime value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+        } else {
+            out.value(Iso8601Format.format(value));
+        }
+    }
 
+    @Override
+    public DateTime read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
         try {
-            return Iso8601Format.parse(json.getAsString());
+            return Iso8601Format.parse(in.nextString());
         } catch (ParseException e) {
             throw new JsonParseException(e);
         }
     }
-
-    @Override
-    public JsonElement serialize(DateTime src, Type typeOfSrc, JsonSerializationContext context) {
-        return new JsonPrimitive(Iso8601Format.format(src));
-    }
 }
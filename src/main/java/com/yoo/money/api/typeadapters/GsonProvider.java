@@ -30,43 +30,106 @@ import com.yoo.money.api.time.DateTime;
 import com.yoo.money.api.time.YearMonth;
 
 import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Provides a single GSON instance to serialize / deserialize any object within this SDK.
+ * <p>
+ * Registered type adapters are kept in an immutable snapshot which is replaced atomically on registration. GSON
+ * instance is built lazily once per snapshot, so after all type adapters are registered getting GSON instance is
+ * just a volatile read.
  */
 public final class GsonProvider {
 
-    private static final GsonBuilder BUILDER = new GsonBuilder();
-    static {
-        BUILDER.registerTypeAdapter(DateTime.class, new DateTimeTypeAdapter());
-        BUILDER.registerTypeAdapter(YearMonth.class, new YearMonthTypeAdapter());
-    }
+    private static final AtomicReference<Registry> REGISTRY = new AtomicReference<>(new Registry(new Registration[] {
+            new Registration(DateTime.class, new DateTimeTypeAdapter()),
+            new Registration(YearMonth.class, new YearMonthTypeAdapter())
+    }));
 
-    private static Gson gson = BUILDER.create();
-    private static boolean hasNewTypeAdapter = false;
+    private GsonProvider() {
+    }
 
     /**
-     * Gets actual instance of GSON. If necessary rebuilds it to add new type adapters.
+     * Gets actual instance of GSON. If necessary builds it to add new type adapters.
      *
      * @return instance of GSON
      */
-    public static synchronized Gson getGson() {
-        if (hasNewTypeAdapter) {
-            gson = BUILDER.create();
-            hasNewTypeAdapter = false;
-        }
-        return gson;
+    public static Gson getGson() {
+        return REGISTRY.get().getGson();
     }
 
     /**
-     * Registers type adapter to use with GSON instance.
+     * Registers type adapter to use with GSON instance. Registering the same type adapter for the same type again
+     * has no effect.
      *
      * @param type type for which the type adapter is registered
      * @param typeAdapter type adapter
      */
     @SuppressWarnings("WeakerAccess")
-    public static synchronized void registerTypeAdapter(Type type, Object typeAdapter) {
-        BUILDER.registerTypeAdapter(type, typeAdapter);
-        hasNewTypeAdapter = true;
+    public static void registerTypeAdapter(Type type, Object typeAdapter) {
+        Registration registration = new Registration(type, typeAdapter);
+        Registry current;
+        Registry next;
+        do {
+            current = REGISTRY.get();
+            if (current.contains(registration)) {
+                return;
+            }
+            next = current.with(registration);
+        } while (!REGISTRY.compareAndSet(current, next));
+    }
+
+    private static final class Registry {
+
+        private final Registration[] registrations;
+
+        private volatile Gson gson;
+
+        Registry(Registration[] registrations) {
+            this.registrations = registrations;
+        }
+
+        Gson getGson() {
+            Gson result = gson;
+            if (result == null) {
+                // may be built concurrently by several threads, all of them get equivalent instances
+                GsonBuilder builder = new GsonBuilder();
+                for (Registration registration : registrations) {
+                    builder.registerTypeAdapter(registration.type, registration.typeAdapter);
+                }
+                result = builder.create();
+                gson = result;
+            }
+            return result;
+        }
+
+        boolean contains(Registration registration) {
+            // later registrations override earlier ones, so only the latest one for the type matters
+            for (int i = registrations.length - 1; i >= 0; --i) {
+                Registration item = registrations[i];
+                if (item.type.equals(registration.type)) {
+                    return item.typeAdapter == registration.typeAdapter;
+                }
+            }
+            return false;
+        }
+
+        Registry with(Registration registration) {
+            Registration[] newRegistrations = Arrays.copyOf(registrations, registrations.length + 1);
+            newRegistrations[registrations.length] = registration;
+            return new Registry(newRegistrations);
+        }
+    }
+
+    private static final class Registration {
+
+        final Type type;
+        final Object typeAdapter;
+
+        Registration(Type type, Object typeAdapter) {
+            this.type = type;
+            this.typeAdapter = typeAdapter;
+        }
     }
 }
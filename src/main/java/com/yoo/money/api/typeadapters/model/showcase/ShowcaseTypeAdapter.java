@@ -24,13 +24,18 @@
 
 package com.yoo.money.api.typeadapters.model.showcase;
 
+import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
 import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSyntaxException;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.yoo.money.api.model.AllowedMoneySource;
 import com.yoo.money.api.model.showcase.Showcase;
 import com.yoo.money.api.model.showcase.Showcase.Error;
@@ -40,9 +45,17 @@ import com.yoo.money.api.typeadapters.BaseTypeAdapter;
 import com.yoo.money.api.typeadapters.model.showcase.container.GroupTypeAdapter;
 import com.yoo.money.api.typeadapters.model.showcase.container.GroupTypeAdapter.ListDelegate;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import static com.yoo.money.api.typeadapters.GsonProvider.getGson;
 import static com.yoo.money.api.typeadapters.JsonUtils.getNotNullMap;
 import static com.yoo.money.api.typeadapters.JsonUtils.getString;
 import static com.yoo.money.api.typeadapters.JsonUtils.toJsonObject;
@@ -63,6 +76,11 @@ public final class ShowcaseTypeAdapter extends BaseTypeAdapter<Showcase> {
     private static final String MEMBER_TITLE = "title";
     private static final String MEMBER_BONUS = "bonus_points";
 
+    private static final TypeToken<List<AllowedMoneySource>> MONEY_SOURCES_TYPE =
+            new TypeToken<List<AllowedMoneySource>>() {};
+    private static final TypeToken<List<ShowcaseReference.BonusOperationType>> BONUS_POINTS_TYPE =
+            new TypeToken<List<ShowcaseReference.BonusOperationType>>() {};
+
     private ShowcaseTypeAdapter() {
         //noinspection ResultOfMethodCallIgnored
         GroupTypeAdapter.getInstance();
@@ -88,12 +106,12 @@ public final class ShowcaseTypeAdapter extends BaseTypeAdapter<Showcase> {
         }
 
         List<AllowedMoneySource> moneySources = context.deserialize(object.get(MEMBER_MONEY_SOURCE),
-                new TypeToken<List<AllowedMoneySource>>() {}.getType());
+                MONEY_SOURCES_TYPE.getType());
         List<Error> errors = ErrorTypeAdapter.getInstance().fromJson(object.getAsJsonArray(MEMBER_ERROR));
 
         List<ShowcaseReference.BonusOperationType> bonusPoints = context.deserialize(
                 object.get(MEMBER_BONUS),
-                new TypeToken<List<ShowcaseReference.BonusOperationType>>() {}.getType()
+                BONUS_POINTS_TYPE.getType()
         );
 
         return new Showcase.Builder()
@@ -106,6 +124,68 @@ public final class ShowcaseTypeAdapter extends BaseTypeAdapter<Showcase> {
                 .create();
     }
 
+    /**
+     * Reads showcase directly from a stream. Unlike {@link #fromJson(JsonElement)} it does not build a JSON tree of a
+     * whole document: only a single form component is kept as a tree at a time.
+     *
+     * @param inputStream UTF-8 encoded JSON document
+     * @return showcase
+     */
+    @Override
+    public Showcase fromJson(InputStream inputStream) {
+        try {
+            return fromJson(new JsonReader(new InputStreamReader(inputStream, Charset.forName("UTF-8"))));
+        } catch (IllegalStateException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+    }
+
+    /**
+     * Reads showcase from a JSON reader.
+     *
+     * @param reader JSON reader positioned at the beginning of a showcase object
+     * @return showcase
+     */
+    public Showcase fromJson(JsonReader reader) throws IOException {
+        Gson gson = getGson();
+        Showcase.Builder builder = new Showcase.Builder();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+                case MEMBER_TITLE:
+                    builder.setTitle(reader.nextString());
+                    break;
+                case MEMBER_FORM:
+                    builder.setForm(ListDelegate.read(reader, gson));
+                    break;
+                case MEMBER_MONEY_SOURCE:
+                    builder.setMoneySources(toEmptyListIfNull(gson.getAdapter(MONEY_SOURCES_TYPE).read(reader)));
+                    break;
+                case MEMBER_ERROR:
+                    builder.setErrors(readErrors(reader));
+                    break;
+                case MEMBER_HIDDEN_FIELDS:
+                    builder.setHiddenFields(readHiddenFields(reader));
+                    break;
+                case MEMBER_BONUS:
+                    builder.setBonusPoints(toEmptyListIfNull(gson.getAdapter(BONUS_POINTS_TYPE).read(reader)));
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return builder.create();
+    }
+
     @Override
     public JsonElement serialize(Showcase src, Type typeOfSrc, JsonSerializationContext context) {
         JsonObject objects = new JsonObject();
@@ -127,6 +207,55 @@ public final class ShowcaseTypeAdapter extends BaseTypeAdapter<Showcase> {
         return Showcase.class;
     }
 
+    private static List<Error> readErrors(JsonReader reader) throws IOException {
+        List<Error> errors = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String errorName = null;
+            String alert = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.skipValue();
+                } else if (ErrorTypeAdapter.MEMBER_NAME.equals(name)) {
+                    errorName = reader.nextString();
+                } else if (ErrorTypeAdapter.MEMBER_ALERT.equals(name)) {
+                    alert = reader.nextString();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            errors.add(new Error(errorName, alert));
+        }
+        reader.endArray();
+        return errors;
+    }
+
+    private static Map<String, String> readHiddenFields(JsonReader reader) throws IOException {
+        Map<String, String> hiddenFields = new HashMap<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            String value = null;
+            switch (reader.peek()) {
+                case STRING:
+                case NUMBER:
+                    value = reader.nextString();
+                    break;
+                case BOOLEAN:
+                    value = String.valueOf(reader.nextBoolean());
+                    break;
+                default:
+                    reader.skipValue();
+            }
+            hiddenFields.put(name, value);
+        }
+        reader.endObject();
+        return hiddenFields;
+    }
+
     private static final class ErrorTypeAdapter extends BaseTypeAdapter<Showcase.Error> {
 
         private static final ErrorTypeAdapter INSTANCE = new ErrorTypeAdapter();
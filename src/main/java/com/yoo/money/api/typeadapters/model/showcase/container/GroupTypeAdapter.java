@@ -24,11 +24,13 @@
 
 package com.yoo.money.api.typeadapters.model.showcase.container;
 
+import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonSerializationContext;
+import com.google.gson.stream.JsonReader;
 import com.yoo.money.api.model.showcase.components.Component;
 import com.yoo.money.api.model.showcase.components.containers.Group;
 import com.yoo.money.api.typeadapters.model.showcase.ComponentsTypeProvider;
@@ -46,6 +48,8 @@ import com.yoo.money.api.typeadapters.model.showcase.uicontrol.TelTypeAdapter;
 import com.yoo.money.api.typeadapters.model.showcase.uicontrol.TextAreaTypeAdapter;
 import com.yoo.money.api.typeadapters.model.showcase.uicontrol.TextTypeAdapter;
 
+import java.io.IOException;
+
 /**
  * Type serializer for {@link Group} component container.
  *
@@ -174,5 +178,28 @@ public final class GroupTypeAdapter extends ContainerTypeAdapter<Component, Grou
             }
             return builder.create();
         }
+
+        /**
+         * Reads group from a stream. Only one component at a time is kept as a JSON tree, so memory footprint does not
+         * depend on a size of the whole form.
+         *
+         * @param reader JSON reader positioned at the beginning of an array
+         * @param gson GSON instance to deserialize components with
+         * @return deserialized group
+         */
+        public static Group read(JsonReader reader, Gson gson) throws IOException {
+            Group.Builder builder = new Group.Builder();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                JsonElement item = gson.getAdapter(JsonElement.class).read(reader);
+                Component.Type type = getTypeFromJsonElement(item);
+                if (type != null) {
+                    Component component = gson.fromJson(item, ComponentsTypeProvider.getClassOfComponentType(type));
+                    builder.addItem(component);
+                }
+            }
+            reader.endArray();
+            return builder.create();
+        }
     }
 }
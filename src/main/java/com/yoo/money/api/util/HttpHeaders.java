@@ -25,11 +25,9 @@
 package com.yoo.money.api.util;
 
 import com.yoo.money.api.time.DateTime;
+import com.yoo.money.api.time.Rfc1123Format;
 
-import java.text.DateFormat;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Locale;
 
 /**
  * This is not complete list of headers.
@@ -49,19 +47,30 @@ public final class HttpHeaders {
     public static final String USER_AGENT = "User-Agent";
     public static final String WWW_AUTHENTICATE = "WWW-Authenticate";
 
-    private static final DateFormat DATE_TIME_FORMATTER =
-            new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
-
     private HttpHeaders() {
         // prevents instantiating of this class
     }
 
+    /**
+     * Parses date of a header like {@link #LAST_MODIFIED} or {@link #EXPIRES}. This method is thread safe.
+     *
+     * @param value header value
+     * @return parsed date time
+     * @throws ParseException if value is not RFC 1123 date
+     * @see Rfc1123Format#parse(String)
+     */
     public static DateTime parseDateTime(String value) throws ParseException {
-        return DateTime.from(DATE_TIME_FORMATTER.parse(value));
+        return Rfc1123Format.parse(value);
     }
 
+    /**
+     * Formats date for a header like {@link #IF_MODIFIED_SINCE}. This method is thread safe.
+     *
+     * @param value date time to format
+     * @return header value
+     * @see Rfc1123Format#format(DateTime)
+     */
     public static String formatDateTime(DateTime value) {
-        DATE_TIME_FORMATTER.setTimeZone(value.getTimeZone());
-        return DATE_TIME_FORMATTER.format(value.getDate());
+        return Rfc1123Format.format(value);
     }
 }
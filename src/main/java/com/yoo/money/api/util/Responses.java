@@ -32,21 +32,47 @@ import com.yoo.money.api.typeadapters.TypeAdapter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.Charset;
 import java.text.ParseException;
 
 public final class Responses {
 
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
     private Responses() {
     }
 
     public static DateTime parseDateHeader(HttpClientResponse response, String header) throws ParseException {
+        DateTime dateTime = parseOptionalDateHeader(response, header);
+        return dateTime == null ? DateTime.now() : dateTime;
+    }
+
+    /**
+     * Parses date header of a response. Unlike {@link #parseDateHeader(HttpClientResponse, String)} does not
+     * substitute missing header with current time, so the result can be sent back to a server.
+     *
+     * @param response response
+     * @param header name of the header
+     * @return parsed date or {@code null} if the header is missing
+     */
+    public static DateTime parseOptionalDateHeader(HttpClientResponse response, String header)
+            throws ParseException {
         String dateHeader = response.getHeader(header);
-        return dateHeader == null || dateHeader.isEmpty() ? DateTime.now() : HttpHeaders.parseDateTime(dateHeader);
+        return dateHeader == null || dateHeader.isEmpty() ? null : HttpHeaders.parseDateTime(dateHeader);
     }
 
+    /**
+     * Parses JSON document directly from response stream. Models without type adapter are read by GSON in streaming
+     * mode without building intermediate JSON trees.
+     *
+     * @param inputStream response stream (UTF-8 encoded)
+     * @param cls class of a model or {@code null} if type adapter is used
+     * @param typeAdapter type adapter or {@code null} if class is used
+     * @return parsed model
+     */
     public static <T> T parseJson(InputStream inputStream, Class<T> cls, TypeAdapter<T> typeAdapter) {
         if (cls != null) {
-            return GsonProvider.getGson().fromJson(new InputStreamReader(inputStream), cls);
+            return GsonProvider.getGson().fromJson(new InputStreamReader(inputStream, UTF8), cls);
         } else if (typeAdapter != null) {
             return typeAdapter.fromJson(inputStream);
         } else {
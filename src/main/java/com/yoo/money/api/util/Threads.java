@@ -24,6 +24,11 @@
 
 package com.yoo.money.api.util;
 
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.yoo.money.api.util.Common.checkNotNull;
+
 /**
  * @author vyasevich
  */
@@ -34,7 +39,8 @@ public final class Threads {
     }
 
     /**
-     * Causes the current thread to sleep on specified amount of milliseconds.
+     * Causes the current thread to sleep on specified amount of milliseconds. If the thread is interrupted the method
+     * returns early and the interrupted status of the thread is restored.
      *
      * @param time milliseconds
      */
@@ -42,7 +48,29 @@ public final class Threads {
         try {
             Thread.sleep(time);
         } catch (InterruptedException e) {
-            // do nothing
+            Thread.currentThread().interrupt();
         }
     }
+
+    /**
+     * Creates thread factory that produces daemon threads named {@code prefix-N}. Daemon threads do not prevent JVM
+     * from exiting, so they are suitable for executors that are created implicitly by the library.
+     *
+     * @param prefix name prefix of created threads
+     * @return thread factory
+     */
+    public static ThreadFactory newDaemonThreadFactory(final String prefix) {
+        checkNotNull(prefix, "prefix");
+        return new ThreadFactory() {
+
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, prefix + '-' + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
 }
@@ -158,6 +158,18 @@ public final class ShowcaseTypeAdapterTest {
         testShowcase("showcase_bills_with_bonuses.json");
     }
 
+    @Test
+    public void testShowcaseStreaming() throws FileNotFoundException {
+        String[] fileNames = { "showcase-1.json", "showcase_bills.json", "showcase_skype.json",
+                "showcase_bills_with_bonuses.json" };
+        ShowcaseTypeAdapter adapter = ShowcaseTypeAdapter.getInstance();
+        for (String fileName : fileNames) {
+            Showcase fromTree = adapter.fromJson(Resources.load(getPath(fileName)));
+            Showcase fromStream = adapter.fromJson(Resources.loadStream(getPath(fileName)));
+            assertEquals(adapter.toJsonTree(fromStream), adapter.toJsonTree(fromTree), fileName);
+        }
+    }
+
     private static void testShowcase(String fileName) {
         ShowcaseTypeAdapter adapter = ShowcaseTypeAdapter.getInstance();
         check(fileName, adapter);
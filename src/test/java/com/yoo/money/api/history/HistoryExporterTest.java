@@ -0,0 +1,149 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.history;
+
+import com.yoo.money.api.exceptions.InvalidRequestException;
+import com.yoo.money.api.model.Operation;
+import com.yoo.money.api.net.clients.ApiClient;
+import com.yoo.money.api.net.clients.AsyncApiClient;
+import com.yoo.money.api.time.DateTime;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class HistoryExporterTest {
+
+    @Test
+    public void testAdaptiveWindows() throws Exception {
+        HistoryServer server = new HistoryServer(1000, 4);
+        server.setDelay(20L);
+        try {
+            List<Operation> operations = newExporter(server, 300)
+                    .setPageSize(20)
+                    .setParallelism(4)
+                    .create()
+                    .export();
+            assertExported(operations, 1000);
+            assertTrue(server.getMaxActiveRequests() > 1);
+            assertTrue(server.getMaxActiveRequests() <= 4);
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testDenseWindows() throws Exception {
+        // windows can not be split below a minute and are walked page by page
+        HistoryServer server = new HistoryServer(500, 100);
+        try {
+            List<Operation> operations = newExporter(server, 10)
+                    .setPageSize(30)
+                    .setParallelism(3)
+                    .create()
+                    .exportAsync()
+                    .get(30L, TimeUnit.SECONDS);
+            assertExported(operations, 500);
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testError() throws Exception {
+        HistoryServer server = new HistoryServer(500, 100);
+        server.setErrorAt(30);
+        try {
+            newExporter(server, 10)
+                    .setPageSize(30)
+                    .create()
+                    .export();
+            fail();
+        } catch (InvalidRequestException expected) {
+            assertEquals(expected.getMessage(), "illegal_param_start_record");
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testClientError() throws Exception {
+        HistoryServer server = new HistoryServer(10, 1);
+        final ApiClient client = server.createClient();
+        AsyncApiClient failing = (AsyncApiClient) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { AsyncApiClient.class }, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if (method.getName().equals("executeAsync")) {
+                            throw new IllegalStateException("client is closed");
+                        }
+                        return method.invoke(client, args);
+                    }
+                });
+        DateTime till = DateTime.from(HistoryServer.NEWEST + 1L);
+        try {
+            new HistoryExporter.Builder(failing, DateTime.from(till.getMillis() - TimeUnit.HOURS.toMillis(1L)), till)
+                    .create()
+                    .exportAsync()
+                    .get(10L, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof IllegalStateException);
+        } finally {
+            server.close();
+        }
+    }
+
+    private static HistoryExporter.Builder newExporter(HistoryServer server, int minutes) {
+        DateTime till = DateTime.from(HistoryServer.NEWEST + 1L);
+        DateTime from = DateTime.from(HistoryServer.NEWEST - TimeUnit.MINUTES.toMillis(minutes));
+        return new HistoryExporter.Builder(server.createClient(), from, till);
+    }
+
+    private static void assertExported(List<Operation> operations, int count) {
+        assertEquals(operations.size(), count);
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < operations.size(); ++i) {
+            assertTrue(ids.add(operations.get(i).operationId));
+            if (i > 0) {
+                assertFalse(operations.get(i).datetime.isAfter(operations.get(i - 1).datetime));
+            }
+        }
+        for (int i = 0; i < count; ++i) {
+            assertTrue(ids.contains("op-" + i));
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.history;
+
+import com.yoo.money.api.methods.wallet.OperationHistory;
+import com.yoo.money.api.net.clients.DefaultApiClient;
+import com.yoo.money.api.net.providers.DefaultApiV1HostsProvider;
+import com.yoo.money.api.time.DateTime;
+import com.yoo.money.api.time.Iso8601Format;
+import com.yoo.money.api.util.HttpHeaders;
+import com.yoo.money.api.util.MimeTypes;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves operation history of a fake wallet. Operation {@code i} has ID {@code "op-i"} and is
+ * {@code i / operationsPerMinute} minutes older than operation {@code 0}, newest operations first. Operations added
+ * later get negative indices and IDs {@code "new-1"}, {@code "new-2"} and so on. Details of an operation are served
+ * too.
+ */
+final class HistoryServer extends Dispatcher {
+
+    final MockWebServer server = new MockWebServer();
+
+    static final long NEWEST = 1500000000000L;
+
+    private final int operationCount;
+    private final int operationsPerMinute;
+    private final AtomicInteger activeRequests = new AtomicInteger();
+    private final AtomicInteger maxActiveRequests = new AtomicInteger();
+    private final Map<Integer, String> statuses = new ConcurrentHashMap<>();
+    private volatile int added;
+    private volatile int errorAt = -1;
+    private volatile long delayMillis;
+
+    HistoryServer(int operationCount, int operationsPerMinute) throws IOException {
+        this.operationCount = operationCount;
+        this.operationsPerMinute = operationsPerMinute;
+        server.setDispatcher(this);
+        server.start();
+    }
+
+    /**
+     * Makes the server respond with an error to a page starting at specified record.
+     */
+    void setErrorAt(int startRecord) {
+        this.errorAt = startRecord;
+    }
+
+    /**
+     * Adds operations newer than existing ones.
+     */
+    void addOperations(int count) {
+        added += count;
+    }
+
+    /**
+     * Sets status of an operation, "success" by default.
+     */
+    void setStatus(int index, String status) {
+        statuses.put(index, status);
+    }
+
+    /**
+     * Delays every response, so concurrent requests overlap.
+     */
+    void setDelay(long delayMillis) {
+        this.delayMillis = delayMillis;
+    }
+
+    /**
+     * @return maximum number of requests handled at once
+     */
+    int getMaxActiveRequests() {
+        return maxActiveRequests.get();
+    }
+
+    DefaultApiClient createClient() {
+        return new DefaultApiClient.Builder()
+                .setClientId("clientId")
+                .setHostsProvider(new DefaultApiV1HostsProvider(false) {
+                    @Override
+                    public String getMoney() {
+                        return server.url("").toString();
+                    }
+                })
+                .create();
+    }
+
+    OperationCursor.Builder newCursor(int pageSize) {
+        return new OperationCursor.Builder(createClient(), new OperationHistory.Request.Builder())
+                .setPageSize(pageSize);
+    }
+
+    int getRequestCount() {
+        return server.getRequestCount();
+    }
+
+    void close() throws IOException {
+        server.shutdown();
+    }
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+        int active = activeRequests.incrementAndGet();
+        while (true) {
+            int max = maxActiveRequests.get();
+            if (active <= max || maxActiveRequests.compareAndSet(max, active)) {
+                break;
+            }
+        }
+        try {
+            Thread.sleep(delayMillis);
+            return respond(request);
+        } finally {
+            activeRequests.decrementAndGet();
+        }
+    }
+
+    private MockResponse respond(RecordedRequest request) {
+        HttpUrl parameters = HttpUrl.parse("http://localhost/?" + request.getBody().clone().readUtf8());
+        if (request.getPath().endsWith("/operation-details")) {
+            return respondDetails(parameters.queryParameter("operation_id"));
+        }
+        String startRecord = parameters.queryParameter("start_record");
+        int start = startRecord == null ? 0 : Integer.parseInt(startRecord);
+        int records = Integer.parseInt(parameters.queryParameter("records"));
+
+        // operations matching from (inclusive) and till (exclusive)
+        long from;
+        long till;
+        try {
+            from = parseMillis(parameters.queryParameter("from"), Long.MIN_VALUE);
+            till = parseMillis(parameters.queryParameter("till"), Long.MAX_VALUE);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException(e);
+        }
+        List<Integer> matching = new ArrayList<>();
+        for (int i = -added; i < operationCount; ++i) {
+            long millis = millisOf(i);
+            if (millis >= from && millis < till) {
+                matching.add(i);
+            }
+        }
+
+        StringBuilder body = new StringBuilder("{");
+        if (start == errorAt) {
+            body.append("\"error\":\"illegal_param_start_record\"");
+        } else {
+            int end = Math.min(start + records, matching.size());
+            if (end < matching.size()) {
+                body.append("\"next_record\":\"").append(end).append("\",");
+            }
+            body.append("\"operations\":[");
+            for (int i = start; i < end; ++i) {
+                if (i > start) {
+                    body.append(',');
+                }
+                body.append(operationJson(matching.get(i)));
+            }
+            body.append(']');
+        }
+        return new MockResponse()
+                .addHeader(HttpHeaders.CONTENT_TYPE, MimeTypes.Application.JSON)
+                .setBody(body.append('}').toString());
+    }
+
+    private MockResponse respondDetails(String operationId) {
+        String body = "{\"error\":\"illegal_param_operation_id\"}";
+        for (int i = -added; i < operationCount; ++i) {
+            if (idOf(i).equals(operationId)) {
+                body = operationJson(i);
+            }
+        }
+        return new MockResponse()
+                .addHeader(HttpHeaders.CONTENT_TYPE, MimeTypes.Application.JSON)
+                .setBody(body);
+    }
+
+    long millisOf(int index) {
+        return NEWEST - index / operationsPerMinute * 60000L;
+    }
+
+    static String idOf(int index) {
+        return index < 0 ? "new-" + -index : "op-" + index;
+    }
+
+    private static long parseMillis(String value, long defaultValue) throws ParseException {
+        return value == null ? defaultValue : Iso8601Format.parse(value).getMillis();
+    }
+
+    private String operationJson(int index) {
+        long millis = millisOf(index);
+        String status = statuses.containsKey(index) ? statuses.get(index) : "success";
+        return "{\"operation_id\":\"" + idOf(index) + "\",\"status\":\"" + status + "\",\"direction\":\"out\"," +
+                "\"amount\":" + (Math.abs(index) + 1) + ".50,\"datetime\":\"" +
+                Iso8601Format.format(DateTime.from(millis)) +
+                "\",\"title\":\"Operation " + index + "\",\"type\":\"payment-shop\"}";
+    }
+}
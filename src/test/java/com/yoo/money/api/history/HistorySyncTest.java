@@ -0,0 +1,222 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.history;
+
+import com.yoo.money.api.model.OperationStatus;
+import com.yoo.money.api.net.clients.ApiClient;
+import com.yoo.money.api.time.DateTime;
+import com.yoo.money.api.time.Iso8601Format;
+import okhttp3.HttpUrl;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class HistorySyncTest {
+
+    private static final String WALLET = "4100100000000";
+
+    @Test
+    public void testIncrementalSync() throws Exception {
+        HistoryServer server = new HistoryServer(50, 2);
+        try {
+            ApiClient client = server.createClient();
+            MemoryWatermarkStore store = new MemoryWatermarkStore();
+            HistorySync sync = new HistorySync.Builder(store).setPageSize(20).create();
+            ChangeCollector collector = new ChangeCollector();
+
+            assertEquals(sync.sync(WALLET, client, collector), 50);
+            assertEquals(server.getRequestCount(), 3);
+            assertEquals(collector.changes.size(), 50);
+            assertEquals(collector.changes.get(49).operation.operationId, "op-0");
+            for (HistoryChange change : collector.changes) {
+                assertEquals(change.type, HistoryChange.Type.INSERTED);
+            }
+            Watermark watermark = store.load(WALLET);
+            assertEquals(watermark.datetime.getMillis(), HistoryServer.NEWEST);
+            assertEquals(watermark.operationIds, setOf("op-0", "op-1"));
+
+            // steady state: a single request, nothing new
+            collector.changes.clear();
+            assertEquals(sync.sync(WALLET, client, collector), 0);
+            assertEquals(server.getRequestCount(), 4);
+            assertTrue(collector.changes.isEmpty());
+
+            // new-1 is made at the same moment as the watermark, new-2 and new-3 a minute later
+            server.addOperations(3);
+            assertEquals(sync.sync(WALLET, client, collector), 3);
+            assertEquals(server.getRequestCount(), 5);
+            assertEquals(idsOf(collector.changes), setOf("new-1", "new-2", "new-3"));
+            watermark = store.load(WALLET);
+            assertEquals(watermark.datetime.getMillis(), HistoryServer.NEWEST + 60000L);
+            assertEquals(watermark.operationIds, setOf("new-2", "new-3"));
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testStatusChange() throws Exception {
+        HistoryServer server = new HistoryServer(10, 1);
+        server.setStatus(3, OperationStatus.IN_PROGRESS.code);
+        try {
+            ApiClient client = server.createClient();
+            MemoryWatermarkStore store = new MemoryWatermarkStore();
+            HistorySync sync = new HistorySync.Builder(store).create();
+            ChangeCollector collector = new ChangeCollector();
+
+            assertEquals(sync.sync(WALLET, client, collector), 10);
+            assertEquals(store.load(WALLET).pending.keySet(), setOf("op-3"));
+            server.server.takeRequest();
+
+            // history is requested from the watermark, the pending operation is checked separately
+            collector.changes.clear();
+            assertEquals(sync.sync(WALLET, client, collector), 0);
+            assertEquals(server.getRequestCount(), 3);
+            String from = HttpUrl.parse("http://localhost/?" + server.server.takeRequest().getBody().readUtf8())
+                    .queryParameter("from");
+            assertEquals(Iso8601Format.parse(from).getMillis(), HistoryServer.NEWEST);
+            assertTrue(server.server.takeRequest().getPath().endsWith("/operation-details"));
+
+            server.addOperations(1);
+            server.setStatus(3, OperationStatus.SUCCESS.code);
+            assertEquals(sync.sync(WALLET, client, collector), 2);
+            assertEquals(collector.changes.get(1).operation.operationId, "new-1");
+            HistoryChange change = collector.changes.get(0);
+            assertEquals(change.type, HistoryChange.Type.STATUS_CHANGED);
+            assertEquals(change.operation.operationId, "op-3");
+            assertEquals(change.operation.status, OperationStatus.SUCCESS);
+            assertTrue(store.load(WALLET).pending.isEmpty());
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testPendingTimeout() throws Exception {
+        HistoryServer server = new HistoryServer(10, 1);
+        server.setStatus(3, OperationStatus.IN_PROGRESS.code);
+        try {
+            ApiClient client = server.createClient();
+            MemoryWatermarkStore store = new MemoryWatermarkStore();
+            HistorySync sync = new HistorySync.Builder(store)
+                    .setPendingTimeout(50L, TimeUnit.MILLISECONDS)
+                    .create();
+
+            sync.sync(WALLET, client, new ChangeCollector());
+            assertEquals(store.load(WALLET).pending.keySet(), setOf("op-3"));
+            int requests = server.getRequestCount();
+
+            // nothing new in the wallet, the operation is forgotten by time of the sync that found it
+            Thread.sleep(100L);
+            assertEquals(sync.sync(WALLET, client, new ChangeCollector()), 0);
+            assertTrue(store.load(WALLET).pending.isEmpty());
+            assertEquals(server.getRequestCount(), requests + 1);
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testListenerFailure() throws Exception {
+        HistoryServer server = new HistoryServer(10, 1);
+        try {
+            ApiClient client = server.createClient();
+            MemoryWatermarkStore store = new MemoryWatermarkStore();
+            HistorySync sync = new HistorySync.Builder(store).create();
+
+            try {
+                sync.sync(WALLET, client, new HistorySync.Listener() {
+                    @Override
+                    public void onChanges(String walletId, List<HistoryChange> changes) throws Exception {
+                        throw new IOException("failed");
+                    }
+                });
+                fail();
+            } catch (IOException expected) {
+                assertNull(store.load(WALLET));
+            }
+
+            assertEquals(sync.sync(WALLET, client, new ChangeCollector()), 10);
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testFileWatermarkStore() throws Exception {
+        File directory = Files.createTempDirectory("watermarks").toFile();
+        FileWatermarkStore store = new FileWatermarkStore(directory);
+        assertNull(store.load(WALLET));
+
+        Map<String, DateTime> pending = new HashMap<>();
+        pending.put("op-3", DateTime.from(HistoryServer.NEWEST - 60000L));
+        Watermark watermark = new Watermark(DateTime.from(HistoryServer.NEWEST), setOf("op-0", "op-1"), pending);
+        store.save(WALLET, watermark);
+        assertEquals(new FileWatermarkStore(directory).load(WALLET), watermark);
+
+        store.save(WALLET, Watermark.EMPTY);
+        assertEquals(store.load(WALLET), Watermark.EMPTY);
+        assertEquals(directory.list().length, 1);
+    }
+
+    private static Set<String> setOf(String... ids) {
+        Set<String> set = new HashSet<>();
+        Collections.addAll(set, ids);
+        return set;
+    }
+
+    private static Set<String> idsOf(List<HistoryChange> changes) {
+        Set<String> ids = new HashSet<>();
+        for (HistoryChange change : changes) {
+            ids.add(change.operation.operationId);
+        }
+        return ids;
+    }
+
+    private static final class ChangeCollector implements HistorySync.Listener {
+
+        final List<HistoryChange> changes = new ArrayList<>();
+
+        @Override
+        public void onChanges(String walletId, List<HistoryChange> changes) {
+            this.changes.addAll(changes);
+        }
+    }
+}
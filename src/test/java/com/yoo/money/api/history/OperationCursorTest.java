@@ -0,0 +1,134 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.history;
+
+import com.yoo.money.api.exceptions.InvalidRequestException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class OperationCursorTest {
+
+    private HistoryServer server;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        server = new HistoryServer(250, 1);
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void testFollowsNextRecord() throws Exception {
+        OperationCursor cursor = server.newCursor(100).create();
+        int count = 0;
+        while (cursor.hasNext()) {
+            assertEquals(cursor.next().operationId, "op-" + count);
+            ++count;
+        }
+        assertEquals(count, 250);
+        assertEquals(cursor.getPageCount(), 3);
+        assertEquals(server.getRequestCount(), 3);
+        assertFalse(cursor.hasNext());
+        try {
+            cursor.next();
+            fail();
+        } catch (NoSuchElementException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testPrefetch() throws Exception {
+        OperationCursor cursor = server.newCursor(10).setPrefetch(3).create();
+        assertTrue(cursor.hasNext());
+        // the first page and three more pages are loaded while the first one is processed
+        awaitRequestCount(4);
+        Thread.sleep(100L);
+        assertEquals(server.getRequestCount(), 4);
+
+        for (int i = 0; i < 10; ++i) {
+            cursor.next();
+        }
+        assertTrue(cursor.hasNext());
+        awaitRequestCount(5);
+        cursor.close();
+        assertFalse(cursor.hasNext());
+    }
+
+    @Test
+    public void testNoPrefetch() throws Exception {
+        OperationCursor cursor = server.newCursor(10).setPrefetch(0).create();
+        assertEquals(server.getRequestCount(), 0);
+        for (int i = 0; i < 11; ++i) {
+            cursor.next();
+        }
+        Thread.sleep(100L);
+        assertEquals(server.getRequestCount(), 2);
+    }
+
+    @Test
+    public void testError() throws Exception {
+        server.setErrorAt(20);
+        OperationCursor cursor = server.newCursor(10).create();
+        for (int i = 0; i < 20; ++i) {
+            assertEquals(cursor.next().operationId, "op-" + i);
+        }
+        try {
+            cursor.hasNext();
+            fail();
+        } catch (InvalidRequestException expected) {
+            assertEquals(expected.getMessage(), "illegal_param_start_record");
+        }
+    }
+
+    @Test
+    public void testStartRecord() throws Exception {
+        OperationCursor cursor = server.newCursor(100).setStartRecord("240").create();
+        int count = 0;
+        while (cursor.hasNext()) {
+            assertEquals(cursor.next().operationId, "op-" + (240 + count++));
+        }
+        assertEquals(count, 10);
+    }
+
+    private void awaitRequestCount(int count) throws InterruptedException {
+        for (int i = 0; i < 100 && server.getRequestCount() < count; ++i) {
+            Thread.sleep(20L);
+        }
+        assertEquals(server.getRequestCount(), count);
+    }
+}
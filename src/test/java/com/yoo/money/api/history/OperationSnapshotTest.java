@@ -0,0 +1,181 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.history;
+
+import com.yoo.money.api.model.Currency;
+import com.yoo.money.api.model.Operation;
+import com.yoo.money.api.model.OperationStatus;
+import com.yoo.money.api.model.SpendingCategory;
+import com.yoo.money.api.time.DateTime;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class OperationSnapshotTest {
+
+    private static final long NEWEST = 1500000000000L;
+    private static final String[] CATEGORIES = { "food", "transport", "fun" };
+
+    private final List<Operation> operations = new ArrayList<>();
+    private OperationSnapshot snapshot;
+
+    @BeforeClass
+    public void setUp() {
+        Random random = new Random(42);
+        Operation.Direction[] directions = Operation.Direction.values();
+        Currency[] currencies = { Currency.RUB, Currency.USD, null };
+        OperationStatus[] statuses = OperationStatus.values();
+        for (int i = 0; i < 100000; ++i) {
+            Operation.Builder builder = new Operation.Builder()
+                    .setOperationId("op-" + i)
+                    .setDirection(directions[random.nextInt(directions.length)])
+                    .setAmountCurrency(currencies[random.nextInt(currencies.length)])
+                    .setStatus(statuses[random.nextInt(statuses.length)])
+                    .setType(Operation.Type.PAYMENT_SHOP)
+                    .setAmount(BigDecimal.valueOf(random.nextInt(1000000), 2))
+                    .setDatetime(DateTime.from(NEWEST - i * 60000L))
+                    .setTitle("Shop " + random.nextInt(50))
+                    .setLabel(i % 10 == 0 ? null : "label-" + i % 3);
+            List<SpendingCategory> categories = new ArrayList<>();
+            for (int j = random.nextInt(3); j > 0; --j) {
+                categories.add(new SpendingCategory(CATEGORIES[random.nextInt(CATEGORIES.length)],
+                        BigDecimal.valueOf(random.nextInt(10000), 2)));
+            }
+            builder.setSpendingCategories(categories);
+            operations.add(builder.create());
+        }
+        snapshot = new OperationSnapshot.Builder().addAll(operations).create();
+    }
+
+    @Test
+    public void testGroupBy() {
+        Map<List<Object>, BigDecimal> expected = new HashMap<>();
+        for (Operation operation : operations) {
+            add(expected, Arrays.<Object>asList(operation.direction, operation.amountCurrency), operation.amount);
+        }
+
+        List<OperationSnapshot.Group> groups = snapshot.query()
+                .groupBy(OperationSnapshot.Key.DIRECTION, OperationSnapshot.Key.CURRENCY)
+                .sumAmounts();
+        assertGroups(groups, expected);
+        assertEquals(snapshot.query()
+                .groupBy(OperationSnapshot.Key.DIRECTION, OperationSnapshot.Key.CURRENCY)
+                .setParallelism(1)
+                .sumAmounts(), groups);
+    }
+
+    @Test
+    public void testFilterAndDays() {
+        TimeZone timeZone = TimeZone.getTimeZone("Europe/Moscow");
+        Map<List<Object>, BigDecimal> expected = new HashMap<>();
+        for (Operation operation : operations) {
+            if (operation.status == OperationStatus.SUCCESS && operation.label == null) {
+                DateTime day = DateTime.from(operation.datetime.getMillis(), timeZone).withTimeAtStartOfDay();
+                add(expected, Arrays.<Object>asList(day.getMillis()), operation.amount);
+            }
+        }
+
+        List<OperationSnapshot.Group> groups = snapshot.query()
+                .where(OperationSnapshot.Key.STATUS, OperationStatus.SUCCESS)
+                .where(OperationSnapshot.Key.LABEL, null)
+                .groupBy(OperationSnapshot.Key.day(timeZone))
+                .sumAmounts();
+        Map<List<Object>, BigDecimal> actual = new HashMap<>();
+        for (OperationSnapshot.Group group : groups) {
+            actual.put(Arrays.<Object>asList(((DateTime) group.key.get(0)).getMillis()), group.getAmount());
+        }
+        assertEquals(actual, expected);
+
+        assertTrue(snapshot.query().where(OperationSnapshot.Key.TITLE, "unknown").sumAmounts().isEmpty());
+    }
+
+    @Test
+    public void testSumCategories() {
+        Map<List<Object>, BigDecimal> expected = new HashMap<>();
+        for (Operation operation : operations) {
+            if ("label-1".equals(operation.label)) {
+                for (SpendingCategory category : operation.spendingCategories) {
+                    add(expected, Arrays.<Object>asList(operation.direction, category.name), category.sum);
+                }
+            }
+        }
+
+        List<OperationSnapshot.Group> groups = snapshot.query()
+                .where(OperationSnapshot.Key.LABEL, "label-1")
+                .groupBy(OperationSnapshot.Key.DIRECTION)
+                .sumCategories();
+        assertGroups(groups, expected);
+    }
+
+    @Test
+    public void testManyGroups() {
+        TimeZone timeZone = TimeZone.getTimeZone("Europe/Moscow");
+        Map<List<Object>, BigDecimal> expected = new HashMap<>();
+        for (Operation operation : operations) {
+            DateTime day = DateTime.from(operation.datetime.getMillis(), timeZone).withTimeAtStartOfDay();
+            add(expected, Arrays.<Object>asList(day.getMillis(), operation.title, operation.label, operation.status,
+                    operation.amountCurrency), operation.amount);
+        }
+
+        OperationSnapshot.Key[] keys = { OperationSnapshot.Key.day(timeZone), OperationSnapshot.Key.TITLE,
+                OperationSnapshot.Key.LABEL, OperationSnapshot.Key.STATUS, OperationSnapshot.Key.CURRENCY };
+        List<OperationSnapshot.Group> groups = snapshot.query().groupBy(keys).sumAmounts();
+        Map<List<Object>, BigDecimal> actual = new HashMap<>();
+        for (OperationSnapshot.Group group : groups) {
+            List<Object> key = new ArrayList<>(group.key);
+            key.set(0, ((DateTime) key.get(0)).getMillis());
+            actual.put(key, group.getAmount());
+        }
+        assertEquals(actual, expected);
+        assertEquals(snapshot.query().groupBy(keys).setParallelism(1).sumAmounts(), groups);
+    }
+
+    private static void add(Map<List<Object>, BigDecimal> sums, List<Object> key, BigDecimal amount) {
+        BigDecimal sum = sums.get(key);
+        sums.put(key, sum == null ? amount : sum.add(amount));
+    }
+
+    private static void assertGroups(List<OperationSnapshot.Group> groups, Map<List<Object>, BigDecimal> expected) {
+        Map<List<Object>, BigDecimal> actual = new HashMap<>();
+        for (OperationSnapshot.Group group : groups) {
+            actual.put(group.key, group.getAmount());
+        }
+        assertEquals(actual.keySet(), expected.keySet());
+        for (Map.Entry<List<Object>, BigDecimal> entry : expected.entrySet()) {
+            assertEquals(actual.get(entry.getKey()).compareTo(entry.getValue()), 0, entry.getKey().toString());
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.history;
+
+import com.yoo.money.api.model.Operation;
+import com.yoo.money.api.model.OperationStatus;
+import com.yoo.money.api.time.DateTime;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class OperationStoreTest {
+
+    private static final long NEWEST = 1500000000000L;
+
+    private File directory;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("operations").toFile();
+    }
+
+    @Test
+    public void testPutAndGet() throws IOException {
+        OperationStore store = open();
+        for (int i = 0; i < 10; ++i) {
+            assertTrue(store.put(operation(i, OperationStatus.SUCCESS)));
+        }
+        assertFalse(store.put(operation(3, OperationStatus.SUCCESS)));
+        assertEquals(store.size(), 10);
+        assertOperation(store.get("op-3"), 3, OperationStatus.SUCCESS);
+        assertNull(store.get("op-10"));
+        store.close();
+
+        store = open();
+        assertEquals(store.size(), 10);
+        assertOperation(store.get("op-7"), 7, OperationStatus.SUCCESS);
+        store.close();
+    }
+
+    @Test
+    public void testSecondaryIndexes() throws IOException {
+        OperationStore store = open();
+        for (int i = 0; i < 30; ++i) {
+            store.put(operation(i, OperationStatus.IN_PROGRESS));
+        }
+        store.put(operation(4, OperationStatus.SUCCESS));
+
+        // labels alternate between "even" and "odd"
+        List<Operation> even = store.findByLabel("even");
+        assertEquals(even.size(), 15);
+        assertEquals(even.get(0).operationId, "op-0");
+        assertEquals(even.get(2).operationId, "op-4");
+        assertEquals(even.get(2).status, OperationStatus.SUCCESS);
+        assertTrue(store.findByLabel("none").isEmpty());
+
+        List<Operation> range = store.findByDatetime(DateTime.from(timeOf(6)), DateTime.from(timeOf(2)));
+        assertEquals(range.size(), 4);
+        assertEquals(range.get(0).operationId, "op-3");
+        assertEquals(range.get(1).operationId, "op-4");
+        assertEquals(range.get(1).status, OperationStatus.SUCCESS);
+        assertEquals(range.get(3).operationId, "op-6");
+        store.close();
+    }
+
+    @Test
+    public void testRollingAndCompaction() throws IOException {
+        OperationStore store = open();
+        for (int i = 0; i < 200; ++i) {
+            store.put(operation(i, OperationStatus.IN_PROGRESS));
+        }
+        for (int i = 0; i < 200; ++i) {
+            store.put(operation(i, OperationStatus.SUCCESS));
+        }
+        int segments = directory.list().length;
+        assertTrue(segments > 2);
+        assertTrue(store.getGarbageSize() > 0);
+
+        store.compact();
+        assertEquals(store.getGarbageSize(), 0L);
+        assertTrue(directory.list().length < segments);
+        assertEquals(store.size(), 200);
+        assertOperation(store.get("op-150"), 150, OperationStatus.SUCCESS);
+        assertEquals(store.findByLabel("odd").size(), 100);
+        store.put(operation(200, OperationStatus.SUCCESS));
+        store.close();
+
+        store = open();
+        assertEquals(store.size(), 201);
+        assertEquals(store.getGarbageSize(), 0L);
+        assertOperation(store.get("op-0"), 0, OperationStatus.SUCCESS);
+        assertOperation(store.get("op-200"), 200, OperationStatus.SUCCESS);
+        store.close();
+    }
+
+    @Test
+    public void testTornRecord() throws IOException {
+        OperationStore store = open();
+        for (int i = 0; i < 5; ++i) {
+            store.put(operation(i, OperationStatus.SUCCESS));
+        }
+        store.close();
+
+        // damage the last record
+        File segment = directory.listFiles()[0];
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            long offset = 0;
+            int size;
+            while ((size = readInt(file, offset)) != 0) {
+                offset += 8 + size;
+            }
+            file.seek(offset - 2);
+            file.write('x');
+        }
+
+        store = open();
+        assertEquals(store.size(), 4);
+        assertNull(store.get("op-4"));
+        store.put(operation(5, OperationStatus.SUCCESS));
+        store.close();
+
+        store = open();
+        assertEquals(store.size(), 5);
+        assertOperation(store.get("op-5"), 5, OperationStatus.SUCCESS);
+        store.close();
+    }
+
+    @Test
+    public void testLostHeader() throws IOException {
+        OperationStore store = open();
+        for (int i = 0; i < 5; ++i) {
+            store.put(operation(i, OperationStatus.SUCCESS));
+        }
+        store.close();
+
+        // a page with the header of the third record is lost, later records survive
+        File segment = directory.listFiles()[0];
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            long offset = 0;
+            for (int i = 0; i < 2; ++i) {
+                offset += 8 + readInt(file, offset);
+            }
+            file.seek(offset);
+            file.writeInt(0);
+        }
+
+        store = open();
+        assertEquals(store.size(), 2);
+        // a record of the same size as the lost one must not make records after it valid again
+        store.put(operation(2, OperationStatus.SUCCESS));
+        store.close();
+
+        store = open();
+        assertEquals(store.size(), 3);
+        assertNull(store.get("op-3"));
+        store.close();
+    }
+
+    private OperationStore open() throws IOException {
+        return new OperationStore.Builder(directory)
+                .setSegmentSize(8192)
+                .create();
+    }
+
+    private static int readInt(RandomAccessFile file, long offset) throws IOException {
+        file.seek(offset);
+        return file.readInt();
+    }
+
+    private static Operation operation(int index, OperationStatus status) {
+        return new Operation.Builder()
+                .setOperationId("op-" + index)
+                .setStatus(status)
+                .setDirection(Operation.Direction.OUTGOING)
+                .setAmount(new BigDecimal(index + ".50"))
+                .setDatetime(DateTime.from(timeOf(index)))
+                .setTitle("Operation " + index)
+                .setLabel(index % 2 == 0 ? "even" : "odd")
+                .create();
+    }
+
+    private static long timeOf(int index) {
+        return NEWEST - index * 60000L;
+    }
+
+    private static void assertOperation(Operation operation, int index, OperationStatus status) {
+        assertEquals(operation.operationId, "op-" + index);
+        assertEquals(operation.status, status);
+        assertEquals(operation.amount, new BigDecimal(index + ".50"));
+        assertEquals(operation.datetime.getMillis(), timeOf(index));
+        assertEquals(operation.title, "Operation " + index);
+    }
+}
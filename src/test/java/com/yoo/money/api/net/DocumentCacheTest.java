@@ -0,0 +1,203 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.net;
+
+import com.yoo.money.api.methods.ShowcaseSearch;
+import com.yoo.money.api.net.clients.DefaultApiClient;
+import com.yoo.money.api.net.providers.DefaultApiV1HostsProvider;
+import com.yoo.money.api.time.DateTime;
+import com.yoo.money.api.util.HttpHeaders;
+import com.yoo.money.api.util.Language;
+import com.yoo.money.api.util.MimeTypes;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class DocumentCacheTest {
+
+    private static final String DOCUMENT = "{\"result\":[],\"nextPage\":\"2\"}";
+
+    private MockWebServer server;
+    private DocumentCache cache;
+    private DefaultApiClient client;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        cache = new DocumentCache(1024L);
+        client = new DefaultApiClient.Builder()
+                .setClientId("clientId")
+                .setHostsProvider(new DefaultApiV1HostsProvider(false) {
+                    @Override
+                    public String getMoney() {
+                        return server.url("").toString();
+                    }
+                })
+                .setDocumentCache(cache)
+                .create();
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void testFreshDocument() throws Exception {
+        server.enqueue(document(DOCUMENT, DateTime.now().getMillis() + TimeUnit.HOURS.toMillis(1L), null));
+
+        HttpResourceResponse<ShowcaseSearch> response = client.execute(new ShowcaseSearch.Request("query", 10));
+        assertEquals(response.document.nextPage, "2");
+        assertSame(client.execute(new ShowcaseSearch.Request("query", 10)), response);
+        assertSame(client.executeAsync(new ShowcaseSearch.Request("query", 10)).get(), response);
+        assertEquals(server.getRequestCount(), 1);
+
+        // other URL is not cached
+        server.enqueue(document(DOCUMENT, null, null));
+        client.execute(new ShowcaseSearch.Request("other", 10));
+        assertEquals(server.getRequestCount(), 2);
+
+        DocumentCache.Stats stats = cache.getStats();
+        assertEquals(stats.hitCount, 2L);
+        assertEquals(stats.missCount, 2L);
+        assertEquals(stats.documentCount, 2);
+        assertEquals(stats.size, 2L * DOCUMENT.length());
+    }
+
+    @Test
+    public void testRevalidation() throws Exception {
+        DateTime lastModified = DateTime.from(2020, 1, 1, 12, 0);
+        server.enqueue(document(DOCUMENT, null, lastModified));
+        server.enqueue(new MockResponse().setResponseCode(304)
+                .addHeader(HttpHeaders.EXPIRES, HttpHeaders.formatDateTime(DateTime.from(
+                        DateTime.now().getMillis() + TimeUnit.HOURS.toMillis(1L)))));
+
+        client.execute(new ShowcaseSearch.Request("query", 10));
+        assertNull(server.takeRequest().getHeader(HttpHeaders.IF_MODIFIED_SINCE));
+
+        HttpResourceResponse<ShowcaseSearch> response = client.executeAsync(new ShowcaseSearch.Request("query", 10))
+                .get(10L, TimeUnit.SECONDS);
+        assertEquals(server.takeRequest().getHeader(HttpHeaders.IF_MODIFIED_SINCE),
+                HttpHeaders.formatDateTime(lastModified));
+        assertTrue(response.hasDocument());
+        assertEquals(response.document.nextPage, "2");
+        assertEquals(response.lastModified, lastModified);
+
+        // revalidated document is fresh again
+        assertSame(client.execute(new ShowcaseSearch.Request("query", 10)), response);
+        assertEquals(server.getRequestCount(), 2);
+        assertEquals(cache.getStats().revalidationCount, 1L);
+    }
+
+    @Test
+    public void testNoLastModified() throws Exception {
+        server.enqueue(document(DOCUMENT, null, null));
+        server.enqueue(document(DOCUMENT, null, null));
+
+        client.execute(new ShowcaseSearch.Request("query", 10));
+        client.execute(new ShowcaseSearch.Request("query", 10));
+        server.takeRequest();
+        assertNull(server.takeRequest().getHeader(HttpHeaders.IF_MODIFIED_SINCE));
+    }
+
+    @Test
+    public void testLanguages() throws Exception {
+        long expires = DateTime.now().getMillis() + TimeUnit.HOURS.toMillis(1L);
+        server.enqueue(document(DOCUMENT, expires, null));
+        server.enqueue(document(DOCUMENT, expires, null));
+
+        Language language = client.getLanguage() == Language.ENGLISH ? Language.RUSSIAN : Language.ENGLISH;
+        DefaultApiClient other = new DefaultApiClient.Builder()
+                .setClientId("clientId")
+                .setLanguage(language)
+                .setHostsProvider(client.getHostsProvider())
+                .setDocumentCache(cache)
+                .create();
+        HttpResourceResponse<ShowcaseSearch> response = client.execute(new ShowcaseSearch.Request("query", 10));
+        assertNotSame(other.execute(new ShowcaseSearch.Request("query", 10)), response);
+        assertEquals(server.takeRequest().getHeader(HttpHeaders.ACCEPT_LANGUAGE), client.getLanguage().iso6391Code);
+        assertEquals(server.takeRequest().getHeader(HttpHeaders.ACCEPT_LANGUAGE), language.iso6391Code);
+        assertSame(client.execute(new ShowcaseSearch.Request("query", 10)), response);
+        assertEquals(cache.getStats().documentCount, 2);
+    }
+
+    @Test
+    public void testOwnCondition() throws Exception {
+        final DateTime lastModified = DateTime.from(2020, 1, 1, 12, 0);
+        server.enqueue(new MockResponse().setResponseCode(304));
+
+        HttpResourceResponse<ShowcaseSearch> response = client.execute(new ShowcaseSearch.Request("query", 10) {
+            {
+                addHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+            }
+        });
+        assertEquals(server.takeRequest().getHeader(HttpHeaders.IF_MODIFIED_SINCE),
+                HttpHeaders.formatDateTime(lastModified));
+        assertFalse(response.hasDocument());
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        String large = "{\"result\":[],\"nextPage\":\"" + new String(new char[500]).replace('\0', 'x') + "\"}";
+        for (int i = 0; i < 3; ++i) {
+            server.enqueue(document(large, null, null));
+            client.execute(new ShowcaseSearch.Request("query" + i, 10));
+        }
+
+        DocumentCache.Stats stats = cache.getStats();
+        assertEquals(stats.documentCount, 1);
+        assertEquals(stats.evictionCount, 2L);
+        assertTrue(stats.size <= stats.maxSize);
+
+        cache.clear();
+        assertEquals(cache.getStats().size, 0L);
+    }
+
+    private static MockResponse document(String body, Long expires, DateTime lastModified) {
+        MockResponse response = new MockResponse()
+                .addHeader(HttpHeaders.CONTENT_TYPE, MimeTypes.Application.JSON)
+                .setBody(body);
+        if (expires != null) {
+            response.addHeader(HttpHeaders.EXPIRES, HttpHeaders.formatDateTime(DateTime.from(expires)));
+        }
+        if (lastModified != null) {
+            response.addHeader(HttpHeaders.LAST_MODIFIED, HttpHeaders.formatDateTime(lastModified));
+        }
+        return response;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.net;
+
+import com.yoo.money.api.methods.InstanceId;
+import org.testng.annotations.Test;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.testng.Assert.assertEquals;
+
+public class ParametersBufferTest {
+
+    @Test
+    public void testEncodingMatchesUrlEncoder() throws UnsupportedEncodingException {
+        String[] values = {
+                "pattern_id", "4100175017397", "1500.00", "Перевод за обед, 14 мая", "order-2018/05/14#42",
+                "a b+c&d=e", "*-._~!'()", "😀 emoji", "lone \uD83D surrogate", "lone \uDE00 low", ""
+        };
+        for (String value : values) {
+            assertEncoded(value);
+        }
+
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; ++i) {
+            char[] chars = new char[random.nextInt(64)];
+            for (int j = 0; j < chars.length; ++j) {
+                chars[j] = (char) (random.nextBoolean() ? random.nextInt(0x80) : random.nextInt(0x10000));
+            }
+            assertEncoded(new String(chars));
+        }
+    }
+
+    @Test
+    public void testPrepare() {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("pattern_id", "p2p");
+        params.put("", "ignored");
+        params.put("empty", "");
+        params.put("null", null);
+        params.put("comment", "за обед");
+
+        ParametersBuffer buffer = new ParametersBuffer().setParameters(params);
+        String expected = "pattern_id=p2p&comment=%D0%B7%D0%B0+%D0%BE%D0%B1%D0%B5%D0%B4";
+        assertEquals(buffer.prepareGet(), '?' + expected);
+        assertEquals(new String(buffer.prepareBytes(), ParametersBuffer.UTF8_CHARSET), expected);
+
+        params.clear();
+        assertEquals(buffer.prepareGet(), "");
+        assertEquals(buffer.prepareBytes().length, 0);
+    }
+
+    @Test
+    public void testLargeValue() throws UnsupportedEncodingException {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 10000; ++i) {
+            builder.append("значение ");
+        }
+        assertEncoded(builder.toString());
+        assertEncoded("small value after buffer was shrunk");
+    }
+
+    @Test
+    public void testRequestBodyIsCopied() {
+        InstanceId.Request request = new InstanceId.Request("clientId");
+        byte[] body = request.getBody();
+        String expected = new String(body, ParametersBuffer.UTF8_CHARSET);
+        body[0] = 'x';
+        assertEquals(new String(request.getBody(), ParametersBuffer.UTF8_CHARSET), expected);
+    }
+
+    private static void assertEncoded(String value) throws UnsupportedEncodingException {
+        String expected = URLEncoder.encode(value, "UTF-8");
+        assertEquals(new String(ParametersBuffer.encodeUtf8(value), ParametersBuffer.UTF8_CHARSET), expected);
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.net.clients;
+
+import com.yoo.money.api.exceptions.CallNotPermittedException;
+import com.yoo.money.api.exceptions.HttpStatusException;
+import com.yoo.money.api.exceptions.InvalidTokenException;
+import com.yoo.money.api.methods.ShowcaseSearch;
+import com.yoo.money.api.methods.wallet.OperationHistory;
+import com.yoo.money.api.net.DocumentApiRequest;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+public class CircuitBreakerTest {
+
+    private final List<String> transitions = new ArrayList<>();
+
+    @Test
+    public void testStateTransitions() throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreakerRegistry.Builder()
+                .setDefaultConfig(new CircuitBreakerConfig.Builder()
+                        .setFailureRateThreshold(0.5f)
+                        .setWindow(10, 4)
+                        .setOpenDuration(50L, TimeUnit.MILLISECONDS)
+                        .setHalfOpenCalls(2)
+                        .create())
+                .setListener(new RecordingListener())
+                .create()
+                .getCircuitBreaker(OperationHistory.Request.class);
+
+        // not enough calls yet
+        complete(circuitBreaker, new IOException());
+        complete(circuitBreaker, null);
+        assertEquals(circuitBreaker.getFailureRate(), -1f);
+
+        // business errors do not count as failures
+        complete(circuitBreaker, new InvalidTokenException(null));
+        complete(circuitBreaker, new HttpStatusException(404, ""));
+        assertEquals(circuitBreaker.getFailureRate(), 0.25f);
+
+        complete(circuitBreaker, new IOException());
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.CLOSED);
+        complete(circuitBreaker, new HttpStatusException(503, ""));
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.OPEN);
+        assertRejected(circuitBreaker, CallNotPermittedException.Reason.CIRCUIT_OPEN);
+
+        // trial calls fail
+        Thread.sleep(60L);
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.HALF_OPEN);
+        CircuitBreaker.Permit first = circuitBreaker.acquire();
+        CircuitBreaker.Permit second = circuitBreaker.acquire();
+        assertRejected(circuitBreaker, CallNotPermittedException.Reason.CIRCUIT_OPEN);
+        first.onComplete(null);
+        second.onComplete(new IOException());
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.OPEN);
+
+        // trial calls succeed
+        Thread.sleep(60L);
+        complete(circuitBreaker, null);
+        complete(circuitBreaker, null);
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.CLOSED);
+
+        assertEquals(transitions.toString(), "[CLOSED->OPEN, OPEN->HALF_OPEN, HALF_OPEN->OPEN, OPEN->HALF_OPEN, " +
+                "HALF_OPEN->CLOSED]");
+    }
+
+    @Test
+    public void testSlowCalls() throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreakerRegistry.Builder()
+                .setDefaultConfig(new CircuitBreakerConfig.Builder()
+                        .setSlowCallRateThreshold(0.5f, 10L, TimeUnit.MILLISECONDS)
+                        .setWindow(2, 2)
+                        .create())
+                .create()
+                .getCircuitBreaker(OperationHistory.Request.class);
+
+        complete(circuitBreaker, null);
+        CircuitBreaker.Permit permit = circuitBreaker.acquire();
+        Thread.sleep(20L);
+        permit.onComplete(null);
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    public void testBulkhead() throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreakerRegistry.Builder()
+                .setDefaultConfig(new CircuitBreakerConfig.Builder()
+                        .setMaxConcurrentCalls(2)
+                        .create())
+                .create()
+                .getCircuitBreaker(OperationHistory.Request.class);
+
+        CircuitBreaker.Permit first = circuitBreaker.acquire();
+        CircuitBreaker.Permit second = circuitBreaker.acquire();
+        assertRejected(circuitBreaker, CallNotPermittedException.Reason.BULKHEAD_FULL);
+        assertEquals(circuitBreaker.getActiveCalls(), 2);
+
+        first.onCancelled();
+        first.onComplete(null);
+        assertEquals(circuitBreaker.getActiveCalls(), 1);
+        circuitBreaker.acquire();
+        second.onComplete(null);
+        assertEquals(circuitBreaker.getActiveCalls(), 1);
+    }
+
+    @Test
+    public void testConfigLookup() {
+        CircuitBreakerConfig documents = new CircuitBreakerConfig.Builder().setMaxConcurrentCalls(4).create();
+        CircuitBreakerRegistry registry = new CircuitBreakerRegistry.Builder()
+                .setConfig(DocumentApiRequest.class, documents)
+                .create();
+
+        CircuitBreaker showcaseSearch = registry.getCircuitBreaker(ShowcaseSearch.Request.class);
+        assertSame(showcaseSearch.getConfig(), documents);
+        assertSame(registry.getCircuitBreaker(ShowcaseSearch.Request.class), showcaseSearch);
+        assertSame(registry.getCircuitBreaker(OperationHistory.Request.class).getConfig(),
+                CircuitBreakerConfig.DEFAULT);
+        assertNotSame(registry.getCircuitBreaker(OperationHistory.Request.class), showcaseSearch);
+        assertEquals(registry.getCircuitBreakers().size(), 2);
+    }
+
+    private static void complete(CircuitBreaker circuitBreaker, Exception error) throws CallNotPermittedException {
+        circuitBreaker.acquire().onComplete(error);
+    }
+
+    private static void assertRejected(CircuitBreaker circuitBreaker, CallNotPermittedException.Reason reason) {
+        try {
+            circuitBreaker.acquire();
+            fail();
+        } catch (CallNotPermittedException e) {
+            assertEquals(e.reason, reason);
+            assertEquals(e.name, circuitBreaker.getName());
+        }
+    }
+
+    private final class RecordingListener implements CircuitBreakerRegistry.Listener {
+        @Override
+        public void onStateChanged(CircuitBreaker circuitBreaker, CircuitBreaker.State from,
+                                   CircuitBreaker.State to) {
+            transitions.add(from + "->" + to);
+        }
+    }
+}
@@ -0,0 +1,627 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.net.clients;
+
+import com.yoo.money.api.authorization.AuthorizationData;
+import com.yoo.money.api.authorization.AuthorizationParameters;
+import com.yoo.money.api.exceptions.CallNotPermittedException;
+import com.yoo.money.api.exceptions.HttpStatusException;
+import com.yoo.money.api.methods.InstanceId;
+import com.yoo.money.api.methods.ShowcaseSearch;
+import com.yoo.money.api.net.ApiRequest;
+import com.yoo.money.api.net.HttpResourceResponse;
+import com.yoo.money.api.net.UserAgent;
+import com.yoo.money.api.net.metrics.HistogramMetricsRecorder;
+import com.yoo.money.api.net.providers.DefaultApiV1HostsProvider;
+import com.yoo.money.api.net.providers.HostsProvider;
+import com.yoo.money.api.util.HttpHeaders;
+import com.yoo.money.api.util.Language;
+import com.yoo.money.api.util.MimeTypes;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+@Test(singleThreaded = true)
+public class DefaultApiClientTest {
+
+    private static final String INSTANCE_ID =
+            "{\"status\":\"success\",\"instance_id\":\"1234567890ABCDEF\"}";
+
+    private final MockWebServer server = new MockWebServer();
+    private final ExecutorService parserExecutor = Executors.newSingleThreadExecutor();
+
+    @BeforeClass
+    public void setUp() throws IOException {
+        server.start();
+    }
+
+    @AfterClass
+    public void tearDown() throws IOException {
+        server.shutdown();
+        parserExecutor.shutdown();
+    }
+
+    @Test
+    public void testExecuteAsync() throws Exception {
+        enqueueJson(INSTANCE_ID);
+
+        final AtomicReference<Thread> parserThread = new AtomicReference<>();
+        DefaultApiClient client = createBuilder()
+                .setParserExecutor(new Executor() {
+                    @Override
+                    public void execute(final Runnable command) {
+                        parserExecutor.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                parserThread.set(Thread.currentThread());
+                                command.run();
+                            }
+                        });
+                    }
+                })
+                .create();
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<InstanceId> callbackResult = new AtomicReference<>();
+        ApiFuture<InstanceId> future = client.executeAsync(new InstanceId.Request("clientId"));
+        future.addCallback(new ApiCallback<InstanceId>() {
+            @Override
+            public void onSuccess(InstanceId result) {
+                callbackResult.set(result);
+                latch.countDown();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                latch.countDown();
+            }
+        });
+
+        InstanceId instanceId = future.get(5, TimeUnit.SECONDS);
+        assertEquals(instanceId.instanceId, "1234567890ABCDEF");
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(callbackResult.get(), instanceId);
+        assertNotNull(parserThread.get());
+        assertEquals(server.takeRequest().getMethod(), "POST");
+    }
+
+    @Test
+    public void testExecuteAsyncWithBlockingClient() throws Exception {
+        enqueueJson(INSTANCE_ID);
+
+        final DefaultApiClient delegate = createBuilder().create();
+        final AtomicReference<Thread> executingThread = new AtomicReference<>();
+        ApiClient client = new ApiClient() {
+            @Override
+            public String getClientId() {
+                return delegate.getClientId();
+            }
+
+            @Override
+            public Language getLanguage() {
+                return delegate.getLanguage();
+            }
+
+            @Override
+            public HostsProvider getHostsProvider() {
+                return delegate.getHostsProvider();
+            }
+
+            @Override
+            public UserAgent getUserAgent() {
+                return delegate.getUserAgent();
+            }
+
+            @Override
+            public <T> T execute(ApiRequest<T> request) throws Exception {
+                executingThread.set(Thread.currentThread());
+                return delegate.execute(request);
+            }
+
+            @Override
+            public AuthorizationData createAuthorizationData(AuthorizationParameters parameters) {
+                return delegate.createAuthorizationData(parameters);
+            }
+
+            @Override
+            public void setAccessToken(String accessToken) {
+                delegate.setAccessToken(accessToken);
+            }
+
+            @Override
+            public boolean isAuthorized() {
+                return delegate.isAuthorized();
+            }
+        };
+
+        ApiFuture<InstanceId> future = AsyncApiClients.executeAsync(client, new InstanceId.Request("clientId"));
+        assertEquals(future.get(5, TimeUnit.SECONDS).instanceId, "1234567890ABCDEF");
+        assertTrue(executingThread.get().getName().startsWith("yoomoney-sdk-async-"));
+        assertEquals(server.takeRequest().getMethod(), "POST");
+    }
+
+    @Test
+    public void testExecuteAsyncDocumentRequest() throws Exception {
+        enqueueJson("{\"result\":[],\"nextPage\":\"2\"}");
+
+        HttpResourceResponse<ShowcaseSearch> response = createBuilder().create()
+                .executeAsync(new ShowcaseSearch.Request("query", 10))
+                .get(5, TimeUnit.SECONDS);
+
+        assertTrue(response.hasDocument());
+        assertEquals(response.document.nextPage, "2");
+        assertEquals(server.takeRequest().getMethod(), "GET");
+    }
+
+    @Test
+    public void testCancelAsync() throws Exception {
+        MockWebServer slowServer = new MockWebServer();
+        slowServer.enqueue(new MockResponse()
+                .addHeader(HttpHeaders.CONTENT_TYPE, MimeTypes.Application.JSON)
+                .setHeadersDelay(10, TimeUnit.SECONDS)
+                .setBody(INSTANCE_ID));
+        slowServer.start();
+
+        try {
+            ApiFuture<InstanceId> future = createBuilder(slowServer).create()
+                    .executeAsync(new InstanceId.Request("clientId"));
+            assertTrue(future.cancel(true));
+            assertTrue(future.isCancelled());
+            assertFalse(future.set(null));
+
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                fail("CancellationException expected");
+            } catch (CancellationException e) {
+                // expected
+            }
+        } finally {
+            slowServer.shutdown();
+        }
+    }
+
+    @Test
+    public void testWithAccessToken() throws Exception {
+        MockWebServer echoServer = new MockWebServer();
+        echoServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+                if (authorization == null) {
+                    authorization = "";
+                }
+                return new MockResponse()
+                        .addHeader(HttpHeaders.CONTENT_TYPE, MimeTypes.Application.JSON)
+                        .setBody("{\"status\":\"success\",\"instance_id\":\"" + authorization + "\"}");
+            }
+        });
+        echoServer.start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final DefaultApiClient client = createBuilder(echoServer).create();
+            DefaultApiClient view = client.withAccessToken("token");
+            assertNotSame(view, client);
+            assertTrue(view.isAuthorized());
+            assertFalse(client.isAuthorized());
+            assertEquals(view.getClientId(), client.getClientId());
+
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 64; ++i) {
+                final String token = "token" + (i % 8);
+                results.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return client.withAccessToken(token).execute(new InstanceId.Request("clientId")).instanceId;
+                    }
+                }));
+            }
+            for (int i = 0; i < results.size(); ++i) {
+                assertEquals(results.get(i).get(10, TimeUnit.SECONDS), "Bearer token" + (i % 8));
+            }
+
+            // the original client stays unauthorized
+            assertEquals(client.execute(new InstanceId.Request("clientId")).instanceId, "");
+        } finally {
+            executor.shutdown();
+            echoServer.shutdown();
+        }
+    }
+
+    @Test
+    public void testHttpClientProfile() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        MockWebServer blockingServer = new MockWebServer();
+        blockingServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                release.await(10, TimeUnit.SECONDS);
+                return new MockResponse()
+                        .addHeader(HttpHeaders.CONTENT_TYPE, MimeTypes.Application.JSON)
+                        .setBody(INSTANCE_ID);
+            }
+        });
+        blockingServer.start();
+
+        try {
+            HttpClientProfile profile = new HttpClientProfile.Builder(HttpClientProfile.BULK)
+                    .setMaxRequests(8)
+                    .setMaxRequestsPerHost(2)
+                    .create();
+            DefaultApiClient client = createBuilder(blockingServer)
+                    .setHttpClientProfile(profile)
+                    .create();
+
+            List<ApiFuture<InstanceId>> futures = new ArrayList<>();
+            for (int i = 0; i < 6; ++i) {
+                futures.add(client.executeAsync(new InstanceId.Request("clientId")));
+            }
+
+            HttpClientStats stats = client.getHttpClientStats();
+            assertEquals(stats.maxRequests, 8);
+            assertEquals(stats.maxRequestsPerHost, 2);
+            assertEquals(stats.runningCalls, 2);
+            assertEquals(stats.queuedCalls, 4);
+
+            release.countDown();
+            for (ApiFuture<InstanceId> future : futures) {
+                assertEquals(future.get(10, TimeUnit.SECONDS).instanceId, "1234567890ABCDEF");
+            }
+
+            stats = client.withAccessToken("token").getHttpClientStats();
+            assertEquals(stats.queuedCalls, 0);
+            assertTrue(stats.connectionCount > 0);
+        } finally {
+            release.countDown();
+            blockingServer.shutdown();
+        }
+    }
+
+    @Test
+    public void testMetricsRecorder() throws Exception {
+        MockWebServer metricsServer = new MockWebServer();
+        enqueueJson(metricsServer, INSTANCE_ID);
+        enqueueJson(metricsServer, INSTANCE_ID);
+        metricsServer.enqueue(new MockResponse().setResponseCode(500));
+        metricsServer.start();
+
+        try {
+            HistogramMetricsRecorder recorder = new HistogramMetricsRecorder();
+            DefaultApiClient client = createBuilder(metricsServer)
+                    .setMetricsRecorder(recorder)
+                    .create();
+
+            client.execute(new InstanceId.Request("clientId"));
+            client.withAccessToken("token").executeAsync(new InstanceId.Request("clientId"))
+                    .get(10, TimeUnit.SECONDS);
+            try {
+                client.execute(new InstanceId.Request("clientId"));
+                fail();
+            } catch (HttpStatusException expected) {
+                assertEquals(expected.statusCode, 500);
+            }
+
+            Map<String, HistogramMetricsRecorder.EndpointMetrics> snapshot = recorder.getSnapshot();
+            assertEquals(snapshot.keySet(), Collections.singleton("/api/instance-id"));
+
+            HistogramMetricsRecorder.EndpointMetrics metrics = snapshot.get("/api/instance-id");
+            assertEquals(metrics.getCount(), 3L);
+            assertEquals(metrics.failures, 1L);
+            assertEquals(metrics.statusCodes.get(200), Long.valueOf(2L));
+            assertEquals(metrics.statusCodes.get(500), Long.valueOf(1L));
+            assertEquals(metrics.requestBytes, 3L * "client_id=clientId".length());
+            assertEquals(metrics.responseBytes, 2L * INSTANCE_ID.length());
+            assertTrue(metrics.total.max >= metrics.network.max);
+            assertEquals(metrics.parse.count, 3L);
+        } finally {
+            metricsServer.shutdown();
+        }
+    }
+
+    @Test
+    public void testRetryPolicy() throws Exception {
+        MockWebServer retryServer = new MockWebServer();
+        retryServer.start();
+
+        try {
+            DefaultApiClient client = createBuilder(retryServer)
+                    .setRetryPolicy(new RetryPolicy.Builder()
+                            .setBaseDelay(10L, TimeUnit.MILLISECONDS)
+                            .create())
+                    .create();
+
+            // idempotent request is repeated, both synchronously and asynchronously
+            retryServer.enqueue(new MockResponse().setResponseCode(503));
+            enqueueJson(retryServer, "{\"result\":[],\"nextPage\":\"2\"}");
+            assertEquals(client.execute(new ShowcaseSearch.Request("query", 10)).document.nextPage, "2");
+            assertEquals(retryServer.getRequestCount(), 2);
+
+            retryServer.enqueue(new MockResponse().setResponseCode(500));
+            retryServer.enqueue(new MockResponse().setResponseCode(502));
+            enqueueJson(retryServer, "{\"result\":[],\"nextPage\":\"3\"}");
+            assertEquals(client.executeAsync(new ShowcaseSearch.Request("query", 10))
+                    .get(10, TimeUnit.SECONDS).document.nextPage, "3");
+            assertEquals(retryServer.getRequestCount(), 5);
+
+            // attempts are limited
+            for (int i = 0; i < 3; ++i) {
+                retryServer.enqueue(new MockResponse().setResponseCode(503));
+            }
+            try {
+                client.execute(new ShowcaseSearch.Request("query", 10));
+                fail();
+            } catch (HttpStatusException expected) {
+                assertEquals(expected.statusCode, 503);
+            }
+            assertEquals(retryServer.getRequestCount(), 8);
+
+            // non-idempotent request is not repeated
+            retryServer.enqueue(new MockResponse().setResponseCode(503));
+            try {
+                client.execute(new InstanceId.Request("clientId"));
+                fail();
+            } catch (HttpStatusException expected) {
+                assertEquals(expected.statusCode, 503);
+            }
+            assertEquals(retryServer.getRequestCount(), 9);
+        } finally {
+            retryServer.shutdown();
+        }
+    }
+
+    @Test
+    public void testCircuitBreaker() throws Exception {
+        MockWebServer failingServer = new MockWebServer();
+        for (int i = 0; i < 2; ++i) {
+            failingServer.enqueue(new MockResponse().setResponseCode(503));
+        }
+        failingServer.start();
+
+        try {
+            DefaultApiClient client = createBuilder(failingServer)
+                    .setCircuitBreakers(new CircuitBreakerRegistry.Builder()
+                            .setDefaultConfig(new CircuitBreakerConfig.Builder()
+                                    .setWindow(2, 2)
+                                    .create())
+                            .create())
+                    .setRetryPolicy(new RetryPolicy.Builder().create())
+                    .create();
+
+            try {
+                client.execute(new ShowcaseSearch.Request("query", 10));
+                fail();
+            } catch (CallNotPermittedException expected) {
+                assertEquals(expected.reason, CallNotPermittedException.Reason.CIRCUIT_OPEN);
+            }
+            assertEquals(failingServer.getRequestCount(), 2);
+
+            try {
+                client.executeAsync(new ShowcaseSearch.Request("query", 10)).get();
+                fail();
+            } catch (ExecutionException expected) {
+                assertTrue(expected.getCause() instanceof CallNotPermittedException);
+            }
+            assertEquals(failingServer.getRequestCount(), 2);
+        } finally {
+            failingServer.shutdown();
+        }
+    }
+
+    @Test
+    public void testRequestFailsBeforeCall() throws Exception {
+        CircuitBreakerRegistry circuitBreakers = new CircuitBreakerRegistry.Builder()
+                .setDefaultConfig(new CircuitBreakerConfig.Builder()
+                        .setMaxConcurrentCalls(1)
+                        .create())
+                .create();
+        DefaultApiClient client = createBuilder()
+                .setCircuitBreakers(circuitBreakers)
+                .setRetryPolicy(new RetryPolicy.Builder().create())
+                .create();
+
+        for (int i = 0; i < 2; ++i) {
+            try {
+                client.executeAsync(new BrokenRequest()).get();
+                fail();
+            } catch (ExecutionException expected) {
+                assertTrue(expected.getCause() instanceof IllegalStateException);
+            }
+        }
+        assertEquals(circuitBreakers.getCircuitBreaker(BrokenRequest.class).getActiveCalls(), 0);
+    }
+
+    @Test
+    public void testRateLimiter() throws Exception {
+        MockWebServer limitedServer = new MockWebServer();
+        for (int i = 0; i < 4; ++i) {
+            enqueueJson(limitedServer, "{\"result\":[],\"nextPage\":\"2\"}");
+        }
+        limitedServer.start();
+
+        try {
+            RateLimiterRegistry rateLimiters = new RateLimiterRegistry.Builder()
+                    .setRate(20, TimeUnit.SECONDS)
+                    .setBurst(1)
+                    .create();
+            DefaultApiClient client = createBuilder(limitedServer).setRateLimiters(rateLimiters).create();
+            DefaultApiClient sameClient = createBuilder(limitedServer).setRateLimiters(rateLimiters).create();
+
+            // clients with the same client id and token share a limiter, both synchronously and asynchronously
+            long started = System.nanoTime();
+            client.execute(new ShowcaseSearch.Request("query", 10));
+            sameClient.execute(new ShowcaseSearch.Request("query", 10));
+            ApiFuture<?> first = client.executeAsync(new ShowcaseSearch.Request("query", 10));
+            ApiFuture<?> second = sameClient.executeAsync(new ShowcaseSearch.Request("query", 10));
+            first.get(10, TimeUnit.SECONDS);
+            second.get(10, TimeUnit.SECONDS);
+            assertTrue(System.nanoTime() - started >= TimeUnit.MILLISECONDS.toNanos(140L));
+            assertEquals(limitedServer.getRequestCount(), 4);
+
+            // calls that would wait too long are rejected
+            DefaultApiClient impatientClient = createBuilder(limitedServer)
+                    .setRateLimiters(new RateLimiterRegistry.Builder()
+                            .setRate(1, TimeUnit.MINUTES)
+                            .setBurst(1)
+                            .setMaxWait(0L, TimeUnit.SECONDS)
+                            .create())
+                    .create();
+            enqueueJson(limitedServer, "{\"result\":[],\"nextPage\":\"2\"}");
+            impatientClient.execute(new ShowcaseSearch.Request("query", 10));
+            try {
+                impatientClient.execute(new ShowcaseSearch.Request("query", 10));
+                fail();
+            } catch (CallNotPermittedException expected) {
+                assertEquals(expected.reason, CallNotPermittedException.Reason.RATE_LIMITED);
+            }
+            try {
+                impatientClient.executeAsync(new ShowcaseSearch.Request("query", 10)).get();
+                fail();
+            } catch (ExecutionException expected) {
+                assertTrue(expected.getCause() instanceof CallNotPermittedException);
+            }
+            // other users are not affected
+            enqueueJson(limitedServer, "{\"result\":[],\"nextPage\":\"2\"}");
+            impatientClient.withAccessToken("token").execute(new ShowcaseSearch.Request("query", 10));
+            assertEquals(limitedServer.getRequestCount(), 6);
+        } finally {
+            limitedServer.shutdown();
+        }
+    }
+
+    @Test
+    public void testCoalesceRequests() throws Exception {
+        MockWebServer slowServer = new MockWebServer();
+        for (int i = 0; i < 3; ++i) {
+            slowServer.enqueue(new MockResponse()
+                    .addHeader(HttpHeaders.CONTENT_TYPE, MimeTypes.Application.JSON)
+                    .setBody("{\"result\":[],\"nextPage\":\"2\"}")
+                    .setHeadersDelay(300L, TimeUnit.MILLISECONDS));
+        }
+        slowServer.start();
+
+        try {
+            HistogramMetricsRecorder recorder = new HistogramMetricsRecorder();
+            DefaultApiClient client = createBuilder(slowServer)
+                    .setCoalesceRequests(true)
+                    .setMetricsRecorder(recorder)
+                    .create();
+
+            // identical requests share a call, both synchronously and asynchronously
+            List<ApiFuture<HttpResourceResponse<ShowcaseSearch>>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; ++i) {
+                futures.add(client.executeAsync(new ShowcaseSearch.Request("query", 10)));
+            }
+            HttpResourceResponse<ShowcaseSearch> response = client.execute(new ShowcaseSearch.Request("query", 10));
+            for (ApiFuture<HttpResourceResponse<ShowcaseSearch>> future : futures) {
+                HttpResourceResponse<ShowcaseSearch> coalesced = future.get(10L, TimeUnit.SECONDS);
+                assertEquals(coalesced.document.nextPage, "2");
+                assertNotSame(coalesced.document, response.document);
+            }
+            assertEquals(slowServer.getRequestCount(), 1);
+
+            // every caller is recorded, followers with their own parse time
+            Map<String, HistogramMetricsRecorder.EndpointMetrics> snapshot = recorder.getSnapshot();
+            assertEquals(snapshot.size(), 1);
+            HistogramMetricsRecorder.EndpointMetrics metrics = snapshot.values().iterator().next();
+            assertEquals(metrics.getCount(), 5L);
+            assertEquals(metrics.statusCodes.get(200), Long.valueOf(5L));
+            assertEquals(metrics.parse.count, 5L);
+
+            // requests of different users are not coalesced
+            ApiFuture<?> first = client.withAccessToken("first").executeAsync(new ShowcaseSearch.Request("query", 10));
+            ApiFuture<?> second = client.withAccessToken("second")
+                    .executeAsync(new ShowcaseSearch.Request("query", 10));
+            first.get(10L, TimeUnit.SECONDS);
+            second.get(10L, TimeUnit.SECONDS);
+            assertEquals(slowServer.getRequestCount(), 3);
+        } finally {
+            slowServer.shutdown();
+        }
+    }
+
+    private static final class BrokenRequest extends ShowcaseSearch.Request {
+
+        BrokenRequest() {
+            super("query", 10);
+        }
+
+        @Override
+        protected String requestUrlBase(HostsProvider hostsProvider) {
+            throw new IllegalStateException("broken request");
+        }
+    }
+
+    private DefaultApiClient.Builder createBuilder() {
+        return createBuilder(server);
+    }
+
+    private static DefaultApiClient.Builder createBuilder(final MockWebServer server) {
+        return new DefaultApiClient.Builder()
+                .setClientId("clientId")
+                .setHostsProvider(new DefaultApiV1HostsProvider(false) {
+                    @Override
+                    public String getMoney() {
+                        return server.url("").toString();
+                    }
+                });
+    }
+
+    private void enqueueJson(String body) {
+        enqueueJson(server, body);
+    }
+
+    private static void enqueueJson(MockWebServer server, String body) {
+        server.enqueue(new MockResponse()
+                .addHeader(HttpHeaders.CONTENT_TYPE, MimeTypes.Application.JSON)
+                .setBody(body));
+    }
+}
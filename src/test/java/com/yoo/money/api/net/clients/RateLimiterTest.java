@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.net.clients;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class RateLimiterTest {
+
+    @Test
+    public void testBurst() {
+        RateLimiter rateLimiter = new RateLimiter("test", 1, TimeUnit.MINUTES, 3);
+        assertEquals(rateLimiter.getRate(), 1.0 / 60, 1e-9);
+
+        for (int i = 0; i < 3; ++i) {
+            assertTrue(rateLimiter.tryAcquire());
+        }
+        assertFalse(rateLimiter.tryAcquire());
+        assertFalse(rateLimiter.isIdle(System.nanoTime()));
+
+        // reservations queue up one interval after another
+        long first = rateLimiter.reserve(2L, TimeUnit.MINUTES);
+        long second = rateLimiter.reserve(2L, TimeUnit.MINUTES);
+        assertTrue(first > TimeUnit.SECONDS.toNanos(55L) && first <= TimeUnit.MINUTES.toNanos(1L));
+        assertTrue(second - first > TimeUnit.SECONDS.toNanos(55L));
+        assertEquals(rateLimiter.reserve(1L, TimeUnit.MINUTES), -1L);
+    }
+
+    @Test
+    public void testRate() throws InterruptedException {
+        RateLimiter rateLimiter = new RateLimiter("test", 100, TimeUnit.SECONDS, 1);
+        long started = System.nanoTime();
+        for (int i = 0; i < 11; ++i) {
+            rateLimiter.acquire();
+        }
+        assertTrue(System.nanoTime() - started >= TimeUnit.MILLISECONDS.toNanos(95L));
+        Thread.sleep(15L);
+        assertTrue(rateLimiter.isIdle(System.nanoTime()));
+    }
+
+    @Test
+    public void testConcurrentAcquire() throws InterruptedException {
+        final RateLimiter rateLimiter = new RateLimiter("test", 1, TimeUnit.HOURS, 1000);
+        final AtomicInteger acquired = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(8);
+        for (int i = 0; i < 8; ++i) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 500; ++j) {
+                        if (rateLimiter.tryAcquire()) {
+                            acquired.incrementAndGet();
+                        }
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        assertEquals(acquired.get(), 1000);
+    }
+
+    @Test
+    public void testRegistry() {
+        RateLimiterRegistry registry = new RateLimiterRegistry.Builder()
+                .setRate(1, TimeUnit.SECONDS)
+                .create();
+
+        RateLimiter rateLimiter = registry.getRateLimiter("clientId", null);
+        assertSame(registry.getRateLimiter("clientId", null), rateLimiter);
+        assertNotSame(registry.getRateLimiter("clientId", "token"), rateLimiter);
+        assertNotSame(registry.getRateLimiter("otherClientId", null), rateLimiter);
+        assertSame(registry.getRateLimiter("clientId", "token"), registry.getRateLimiter("clientId", "token"));
+        assertEquals(registry.size(), 3);
+
+        // idle limiters are discarded once there are too many of them
+        for (int i = 0; i < 2000; ++i) {
+            registry.getRateLimiter("clientId", "token" + i);
+        }
+        assertTrue(registry.size() < 2000);
+    }
+}
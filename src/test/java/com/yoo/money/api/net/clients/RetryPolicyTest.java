@@ -0,0 +1,100 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.net.clients;
+
+import com.yoo.money.api.exceptions.HttpStatusException;
+import com.yoo.money.api.methods.InstanceId;
+import com.yoo.money.api.methods.ShowcaseSearch;
+import com.yoo.money.api.methods.payment.ProcessPayment;
+import com.yoo.money.api.methods.payment.RequestPayment;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.Collections;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class RetryPolicyTest {
+
+    @Test
+    public void testClassification() {
+        RetryPolicy policy = new RetryPolicy.Builder().create();
+
+        assertTrue(policy.isIdempotent(new ShowcaseSearch.Request("query", 10)));
+        assertTrue(policy.isIdempotent(new ProcessPayment.Request("requestId")));
+        assertFalse(policy.isIdempotent(RequestPayment.Request.newInstance("p2p",
+                Collections.singletonMap("to", "4100175017397"))));
+        assertFalse(policy.isIdempotent(new InstanceId.Request("clientId")));
+
+        assertTrue(policy.isTransient(new IOException()));
+        assertTrue(policy.isTransient(new SocketTimeoutException()));
+        assertTrue(policy.isTransient(new HttpStatusException(503, "")));
+        assertTrue(policy.isTransient(new HttpStatusException(429, "")));
+        assertFalse(policy.isTransient(new HttpStatusException(405, "")));
+        assertFalse(policy.isTransient(new IllegalStateException()));
+    }
+
+    @Test
+    public void testDelays() {
+        RetryPolicy policy = new RetryPolicy.Builder().create();
+        for (int attempt = 1; attempt < 100; ++attempt) {
+            long ceiling = Math.min(5000L, attempt < 40 ? 100L << (attempt - 1) : Long.MAX_VALUE);
+            for (int i = 0; i < 100; ++i) {
+                long delay = policy.getDelay(attempt);
+                assertTrue(delay >= 0L && delay <= ceiling, attempt + ": " + delay);
+            }
+        }
+    }
+
+    @Test
+    public void testBudget() {
+        RetryPolicy policy = new RetryPolicy.Builder()
+                .setMaxAttempts(100)
+                .setBudget(0.5, 2)
+                .create();
+        ShowcaseSearch.Request request = new ShowcaseSearch.Request("query", 10);
+        IOException e = new IOException();
+
+        // initial budget
+        assertTrue(policy.getRetryDelay(request, 1, e) >= 0L);
+        assertTrue(policy.getRetryDelay(request, 2, e) >= 0L);
+        assertEquals(policy.getRetryDelay(request, 3, e), -1L);
+
+        // every request earns half of a retry
+        policy.onRequest();
+        assertEquals(policy.getRetryDelay(request, 1, e), -1L);
+        policy.onRequest();
+        assertTrue(policy.getRetryDelay(request, 1, e) >= 0L);
+
+        // budget is capped
+        for (int i = 0; i < 100; ++i) {
+            policy.onRequest();
+        }
+        assertEquals(policy.getAvailableBudget(), 2.0);
+    }
+}
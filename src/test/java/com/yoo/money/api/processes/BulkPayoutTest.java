@@ -0,0 +1,220 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.processes;
+
+import com.yoo.money.api.methods.payment.BaseRequestPayment;
+import com.yoo.money.api.methods.payment.RequestPayment;
+import com.yoo.money.api.methods.payment.params.P2pTransferParams;
+import com.yoo.money.api.model.Error;
+import com.yoo.money.api.net.clients.DefaultApiClient;
+import com.yoo.money.api.net.providers.DefaultApiV1HostsProvider;
+import com.yoo.money.api.util.HttpHeaders;
+import com.yoo.money.api.util.MimeTypes;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class BulkPayoutTest {
+
+    private final PayoutServer dispatcher = new PayoutServer();
+    private MockWebServer server;
+    private FileSavedStateStore store;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(dispatcher);
+        server.start();
+        dispatcher.requests.clear();
+        store = new FileSavedStateStore(Files.createTempDirectory("payouts").toFile());
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void testPayouts() throws Exception {
+        List<Payout> payouts = new ArrayList<>();
+        for (int i = 0; i < 20; ++i) {
+            payouts.add(payout("4100" + i));
+        }
+        payouts.add(payout("slow"));
+        payouts.add(payout("refused"));
+        payouts.add(payout("41000"));
+
+        BulkPayout.Report report = newBulkPayout().run(payouts);
+        assertEquals(report.getResults().size(), 23);
+        assertEquals(report.getCount(BulkPayout.Status.SUCCEEDED), 21);
+        assertEquals(report.getCount(BulkPayout.Status.REFUSED), 1);
+        assertEquals(report.getCount(BulkPayout.Status.FAILED), 1);
+        for (BulkPayout.Result result : report.getResults()) {
+            if (result.id.equals("refused")) {
+                assertEquals(result.status, BulkPayout.Status.REFUSED);
+                assertEquals(result.error, Error.PAYEE_NOT_FOUND);
+            } else if (result.status == BulkPayout.Status.SUCCEEDED) {
+                assertEquals(result.paymentId, "payment-" + result.id);
+                assertEquals(dispatcher.count("process-payment", result.id), result.id.equals("slow") ? 2 : 1);
+            } else {
+                assertTrue(result.exception instanceof IllegalArgumentException);
+            }
+        }
+        assertTrue(dispatcher.maxActive.get() <= 4);
+
+        // nothing is paid again
+        int requests = server.getRequestCount();
+        report = newBulkPayout().run(payouts);
+        assertEquals(server.getRequestCount(), requests);
+        assertEquals(report.getCount(BulkPayout.Status.SUCCEEDED), 21);
+        for (BulkPayout.Result result : report.getResults()) {
+            assertTrue(result.completedBefore || result.status == BulkPayout.Status.FAILED);
+        }
+    }
+
+    @Test
+    public void testResume() throws Exception {
+        // a crashed run requested the payment but may or may not have processed it
+        RequestPayment requestPayment = (RequestPayment) new RequestPayment.Builder()
+                .setBalance(new BigDecimal("100.00"))
+                .setStatus(BaseRequestPayment.Status.SUCCESS)
+                .setRequestId("request-started")
+                .setContractAmount(new BigDecimal("10.00"))
+                .create();
+        store.save("started", new PaymentProcess.SavedState(requestPayment, null, 1));
+
+        List<Payout> payouts = new ArrayList<>();
+        payouts.add(payout("started"));
+        payouts.add(payout("new"));
+        BulkPayout.Report report = newBulkPayout().run(payouts);
+
+        assertEquals(report.getCount(BulkPayout.Status.SUCCEEDED), 2);
+        assertEquals(dispatcher.count("request-payment", "started"), 0);
+        assertEquals(dispatcher.count("process-payment", "started"), 1);
+        assertEquals(dispatcher.count("request-payment", "new"), 1);
+        assertEquals(store.load("started").getProcessPayment().paymentId, "payment-started");
+        assertEquals(store.load("new").getFlags(), 3);
+        assertNull(store.load("unknown"));
+    }
+
+    private BulkPayout newBulkPayout() {
+        DefaultApiClient client = new DefaultApiClient.Builder()
+                .setClientId("clientId")
+                .setHostsProvider(new DefaultApiV1HostsProvider(false) {
+                    @Override
+                    public String getMoney() {
+                        return server.url("").toString();
+                    }
+                })
+                .create();
+        client.setAccessToken("token");
+        return new BulkPayout.Builder(client, store)
+                .setParallelism(4)
+                .create();
+    }
+
+    private static Payout payout(String to) {
+        return new Payout(to, new P2pTransferParams.Builder(to)
+                .setAmount(new BigDecimal("10.00"))
+                .create());
+    }
+
+    /**
+     * Pays to any recipient except "refused". Recipient "slow" is in progress on the first process-payment. Request
+     * IDs are "request-{to}", payment IDs are "payment-{to}".
+     */
+    static final class PayoutServer extends Dispatcher {
+
+        final ConcurrentMap<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+
+        int count(String method, String to) {
+            AtomicInteger count = requests.get(method + ':' + to);
+            return count == null ? 0 : count.get();
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            int current = active.incrementAndGet();
+            while (true) {
+                int max = maxActive.get();
+                if (current <= max || maxActive.compareAndSet(max, current)) {
+                    break;
+                }
+            }
+            try {
+                Thread.sleep(5L);
+                return respond(request);
+            } finally {
+                active.decrementAndGet();
+            }
+        }
+
+        private MockResponse respond(RecordedRequest request) {
+            HttpUrl parameters = HttpUrl.parse("http://localhost/?" + request.getBody().readUtf8());
+            String body;
+            if (request.getPath().endsWith("request-payment")) {
+                String to = parameters.queryParameter("to");
+                increment("request-payment", to);
+                body = to.equals("refused") ? "{\"status\":\"refused\",\"error\":\"payee_not_found\"}" :
+                        "{\"status\":\"success\",\"request_id\":\"request-" + to + "\",\"contract_amount\":10.00}";
+            } else {
+                String to = parameters.queryParameter("request_id").substring("request-".length());
+                int count = increment("process-payment", to);
+                body = to.equals("slow") && count == 1 ? "{\"status\":\"in_progress\",\"next_retry\":10}" :
+                        "{\"status\":\"success\",\"payment_id\":\"payment-" + to + "\",\"balance\":100}";
+            }
+            return new MockResponse()
+                    .addHeader(HttpHeaders.CONTENT_TYPE, MimeTypes.Application.JSON)
+                    .setBody(body);
+        }
+
+        private int increment(String method, String to) {
+            AtomicInteger count = new AtomicInteger();
+            AtomicInteger previous = requests.putIfAbsent(method + ':' + to, count);
+            return (previous == null ? count : previous).incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.processes;
+
+import com.yoo.money.api.methods.payment.BaseProcessPayment;
+import com.yoo.money.api.methods.payment.BaseRequestPayment;
+import com.yoo.money.api.methods.payment.RequestPayment;
+import com.yoo.money.api.methods.payment.params.P2pTransferParams;
+import com.yoo.money.api.model.Error;
+import com.yoo.money.api.model.MoneySource;
+import com.yoo.money.api.model.Wallet;
+import com.yoo.money.api.net.clients.DefaultApiClient;
+import com.yoo.money.api.net.providers.DefaultApiV1HostsProvider;
+import okhttp3.mockwebserver.MockWebServer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class PaymentJournalTest {
+
+    private final BulkPayoutTest.PayoutServer dispatcher = new BulkPayoutTest.PayoutServer();
+    private MockWebServer server;
+    private File directory;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(dispatcher);
+        server.start();
+        dispatcher.requests.clear();
+        directory = Files.createTempDirectory("journal").toFile();
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void testReplay() throws IOException {
+        try (PaymentJournal journal = new PaymentJournal.Builder(directory).create()) {
+            journal.save("created", new PaymentProcess.SavedState(null, null, 0));
+            journal.save("started", started("started"));
+            journal.save("removed", started("removed"));
+            journal.remove("removed");
+        }
+        // a record torn by a crash
+        try (FileOutputStream out = new FileOutputStream(new File(directory, "journal-0.log"), true)) {
+            out.write(new byte[] { 0, 0, 1, 0, 1, 2, 3, 4, 5 });
+        }
+
+        try (PaymentJournal journal = new PaymentJournal.Builder(directory).create()) {
+            assertEquals(journal.size(), 2);
+            assertEquals(journal.load("created").getFlags(), 0);
+            assertEquals(journal.load("started").getRequestPayment().requestId, "request-started");
+            assertNull(journal.load("removed"));
+            assertEquals(journal.getInFlight().keySet().toString(), "[started]");
+            journal.save("other", started("other"));
+        }
+        try (PaymentJournal journal = new PaymentJournal.Builder(directory).create()) {
+            assertEquals(journal.getInFlight().keySet().toString(), "[started, other]");
+        }
+    }
+
+    @Test
+    public void testGarbageTail() throws IOException {
+        try (PaymentJournal journal = new PaymentJournal.Builder(directory).create()) {
+            journal.save("started", started("started"));
+        }
+        // a header of a record larger than the file
+        try (FileOutputStream out = new FileOutputStream(new File(directory, "journal-0.log"), true)) {
+            out.write(new byte[] { 0x7f, -1, -1, -1, 1, 2, 3, 4, 5 });
+        }
+
+        try (PaymentJournal journal = new PaymentJournal.Builder(directory).create()) {
+            assertEquals(journal.getInFlight().keySet().toString(), "[started]");
+            journal.save("other", started("other"));
+        }
+        try (PaymentJournal journal = new PaymentJournal.Builder(directory).create()) {
+            assertEquals(journal.getInFlight().keySet().toString(), "[started, other]");
+        }
+    }
+
+    @Test(timeOut = 10000)
+    public void testInterruptedWriter() throws IOException {
+        try (PaymentJournal journal = new PaymentJournal.Builder(directory).create()) {
+            journal.save("started", started("started"));
+            Thread.currentThread().interrupt();
+            try {
+                journal.save("other", started("other"));
+                fail();
+            } catch (IOException e) {
+                // the channel is closed by the interrupt
+            } finally {
+                Thread.interrupted();
+            }
+            try {
+                journal.save("other", started("other"));
+                fail();
+            } catch (IOException e) {
+                assertEquals(e.getMessage(), "journal failed, reopen it");
+            }
+        }
+
+        try (PaymentJournal reopened = new PaymentJournal.Builder(directory).create()) {
+            assertEquals(reopened.getInFlight().keySet().toString(), "[started]");
+        }
+    }
+
+    @Test
+    public void testRefusedRequest() throws Exception {
+        RequestPayment refused = (RequestPayment) new RequestPayment.Builder()
+                .setStatus(BaseRequestPayment.Status.REFUSED)
+                .setError(Error.PAYEE_NOT_FOUND)
+                .create();
+        try (PaymentJournal journal = new PaymentJournal.Builder(directory).create()) {
+            journal.save("refused", new PaymentProcess.SavedState(refused, null, 1));
+            assertTrue(journal.getInFlight().isEmpty());
+            try {
+                journal.resume("refused", newProcess("refused"));
+                fail();
+            } catch (IllegalArgumentException e) {
+                // nothing to resume
+            }
+        }
+    }
+
+    @Test
+    public void testSnapshots() throws Exception {
+        final PaymentJournal journal = new PaymentJournal.Builder(directory)
+                .setSnapshotInterval(16)
+                .create();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; ++i) {
+            final String id = "payment-" + i;
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < 100; ++j) {
+                            journal.save(id, new PaymentProcess.SavedState(null, null, 0));
+                            journal.save(id, started(id));
+                        }
+                    } catch (IOException e) {
+                        throw new AssertionError(e);
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        journal.close();
+
+        String[] files = directory.list();
+        assertEquals(files.length, 2);
+        try (PaymentJournal reopened = new PaymentJournal.Builder(directory).create()) {
+            assertEquals(reopened.size(), 8);
+            assertEquals(reopened.getInFlight().size(), 8);
+        }
+    }
+
+    @Test
+    public void testResume() throws Exception {
+        // crash while the payment is in progress
+        try (final PaymentJournal journal = new PaymentJournal.Builder(directory).create()) {
+            final PaymentProcess process = newProcess("slow");
+            process.setStateListener(new BasePaymentProcess.StateListener() {
+                @Override
+                public void onStateChanged(BasePaymentProcess<?, ?> ignored) throws Exception {
+                    journal.save("slow", process.getSavedState());
+                    if (process.getProcessPayment() != null) {
+                        throw new IOException("crash");
+                    }
+                }
+            });
+            assertFalse(process.proceed());
+            try {
+                process.proceed();
+                fail();
+            } catch (IOException e) {
+                assertEquals(e.getMessage(), "crash");
+            }
+
+            PaymentProcess other = newProcess("other");
+            journal.attach("other", other);
+            assertFalse(other.proceed());
+            assertTrue(other.proceed());
+
+            journal.attach("created", newProcess("created"));
+        }
+
+        try (PaymentJournal journal = new PaymentJournal.Builder(directory).create()) {
+            Map<String, PaymentProcess.SavedState> inFlight = journal.getInFlight();
+            assertEquals(inFlight.keySet().toString(), "[slow]");
+            assertEquals(inFlight.get("slow").getProcessPayment().status, BaseProcessPayment.Status.IN_PROGRESS);
+            assertEquals(journal.load("other").getProcessPayment().paymentId, "payment-other");
+            assertNull(journal.load("created"));
+
+            assertTrue(journal.resume("slow", newProcess("slow")));
+            assertEquals(dispatcher.count("request-payment", "slow"), 1);
+            assertEquals(dispatcher.count("process-payment", "slow"), 2);
+            assertTrue(journal.getInFlight().isEmpty());
+            try {
+                journal.resume("other", newProcess("other"));
+                fail();
+            } catch (IllegalArgumentException e) {
+                // completed
+            }
+        }
+    }
+
+    private PaymentProcess newProcess(final String to) {
+        DefaultApiClient client = new DefaultApiClient.Builder()
+                .setClientId("clientId")
+                .setHostsProvider(new DefaultApiV1HostsProvider(false) {
+                    @Override
+                    public String getMoney() {
+                        return server.url("").toString();
+                    }
+                })
+                .create();
+        client.setAccessToken("token");
+        final P2pTransferParams params = new P2pTransferParams.Builder(to)
+                .setAmount(new BigDecimal("10.00"))
+                .create();
+        return new PaymentProcess(client, new IPaymentProcess.ParameterProvider() {
+            @Override
+            public String getPatternId() {
+                return params.patternId;
+            }
+
+            @Override
+            public Map<String, String> getPaymentParameters() {
+                return params.paymentParams;
+            }
+
+            @Override
+            public MoneySource getMoneySource() {
+                return new Wallet(true);
+            }
+
+            @Override
+            public String getCsc() {
+                return null;
+            }
+
+            @Override
+            public String getExtAuthSuccessUri() {
+                return null;
+            }
+
+            @Override
+            public String getExtAuthFailUri() {
+                return null;
+            }
+        });
+    }
+
+    private static PaymentProcess.SavedState started(String id) {
+        RequestPayment requestPayment = (RequestPayment) new RequestPayment.Builder()
+                .setBalance(new BigDecimal("100.00"))
+                .setStatus(BaseRequestPayment.Status.SUCCESS)
+                .setRequestId("request-" + id)
+                .setContractAmount(new BigDecimal("10.00"))
+                .create();
+        return new PaymentProcess.SavedState(requestPayment, null, 1);
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.processes;
+
+import com.yoo.money.api.methods.payment.BaseProcessPayment;
+import com.yoo.money.api.model.MoneySource;
+import com.yoo.money.api.net.clients.ApiClient;
+import com.yoo.money.api.net.clients.ApiFuture;
+import com.yoo.money.api.net.clients.DefaultApiClient;
+import com.yoo.money.api.net.providers.DefaultApiV1HostsProvider;
+import com.yoo.money.api.util.HttpHeaders;
+import com.yoo.money.api.util.MimeTypes;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+@Test(singleThreaded = true)
+public class PaymentProcessTest {
+
+    private static final String REQUEST_PAYMENT = "{\"status\":\"success\",\"contract\":\"\",\"balance\":8.09," +
+            "\"request_id\":\"1234567890\",\"contract_amount\":1,\"money_source\":{\"wallet\":{\"allowed\":true}}}";
+    private static final String IN_PROGRESS = "{\"status\":\"in_progress\",\"next_retry\":50}";
+    private static final String SUCCESS = "{\"status\":\"success\",\"payment_id\":\"2ABCDE123456789\"," +
+            "\"invoice_id\":\"1234567890123456789\",\"balance\":1000}";
+
+    private MockWebServer server;
+    private ScheduledThreadPoolExecutor scheduler;
+    private ApiClient client;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        scheduler = new ScheduledThreadPoolExecutor(1);
+        scheduler.setRemoveOnCancelPolicy(true);
+        client = new DefaultApiClient.Builder()
+                .setClientId("test")
+                .setHostsProvider(new DefaultApiV1HostsProvider(false) {
+                    @Override
+                    public String getMoney() {
+                        return server.url("").toString();
+                    }
+                })
+                .create();
+        client.setAccessToken("token");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        scheduler.shutdownNow();
+        server.shutdown();
+    }
+
+    @Test
+    public void testProceedPollsInProgress() throws Exception {
+        enqueue(REQUEST_PAYMENT, IN_PROGRESS, IN_PROGRESS, SUCCESS);
+
+        PaymentProcess process = new PaymentProcess(client, new ParameterProviderStub());
+        assertFalse(process.proceed());
+        assertTrue(process.proceed());
+        assertEquals(process.getProcessPayment().status, BaseProcessPayment.Status.SUCCESS);
+        assertEquals(server.getRequestCount(), 4);
+    }
+
+    @Test
+    public void testProceedAsyncPollsInProgress() throws Exception {
+        enqueue(REQUEST_PAYMENT, IN_PROGRESS, IN_PROGRESS, SUCCESS);
+
+        PaymentProcess process = new PaymentProcess(client, new ParameterProviderStub());
+        assertFalse(process.proceedAsync(scheduler).get(5, TimeUnit.SECONDS));
+        assertEquals(process.getState(), BasePaymentProcess.State.STARTED);
+
+        long started = System.nanoTime();
+        assertTrue(process.proceedAsync(scheduler).get(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) >= 100);
+        assertEquals(process.getProcessPayment().status, BaseProcessPayment.Status.SUCCESS);
+        assertEquals(server.getRequestCount(), 4);
+
+        // completed process makes no calls
+        assertTrue(process.proceedAsync(scheduler).get());
+        assertEquals(server.getRequestCount(), 4);
+    }
+
+    @Test
+    public void testCancelProceedAsync() throws Exception {
+        enqueue(REQUEST_PAYMENT, "{\"status\":\"in_progress\",\"next_retry\":60000}");
+
+        PaymentProcess process = new PaymentProcess(client, new ParameterProviderStub());
+        process.proceed();
+        ApiFuture<Boolean> future = process.proceedAsync(scheduler);
+        server.takeRequest(5, TimeUnit.SECONDS);
+        server.takeRequest(5, TimeUnit.SECONDS);
+        while (process.getState() != BasePaymentProcess.State.PROCESSING) {
+            Thread.sleep(10);
+        }
+
+        assertTrue(future.cancel(false));
+        try {
+            future.get();
+            fail();
+        } catch (CancellationException expected) {
+            // expected
+        }
+        // poll is either cancelled or rejected
+        scheduler.shutdown();
+        assertTrue(scheduler.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(server.getRequestCount(), 2);
+    }
+
+    @Test
+    public void testProceedInterrupted() throws Exception {
+        enqueue(REQUEST_PAYMENT, "{\"status\":\"in_progress\",\"next_retry\":60000}");
+
+        final PaymentProcess process = new PaymentProcess(client, new ParameterProviderStub());
+        process.proceed();
+        final AtomicReference<Exception> exception = new AtomicReference<>();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    process.proceed();
+                } catch (Exception e) {
+                    exception.set(e);
+                }
+            }
+        });
+        thread.start();
+        server.takeRequest(5, TimeUnit.SECONDS);
+        server.takeRequest(5, TimeUnit.SECONDS);
+        while (process.getState() != BasePaymentProcess.State.PROCESSING) {
+            Thread.sleep(10);
+        }
+
+        thread.interrupt();
+        thread.join(5000);
+        assertFalse(thread.isAlive());
+        assertTrue(exception.get() instanceof InterruptedException);
+    }
+
+    private void enqueue(String... bodies) {
+        for (String body : bodies) {
+            server.enqueue(new MockResponse()
+                    .addHeader(HttpHeaders.CONTENT_TYPE, MimeTypes.Application.JSON)
+                    .setBody(body));
+        }
+    }
+
+    private static final class ParameterProviderStub implements IPaymentProcess.ParameterProvider {
+
+        @Override
+        public String getPatternId() {
+            return "p2p";
+        }
+
+        @Override
+        public Map<String, String> getPaymentParameters() {
+            return Collections.singletonMap("to", "4100175017397");
+        }
+
+        @Override
+        public MoneySource getMoneySource() {
+            return null;
+        }
+
+        @Override
+        public String getCsc() {
+            return null;
+        }
+
+        @Override
+        public String getExtAuthSuccessUri() {
+            return null;
+        }
+
+        @Override
+        public String getExtAuthFailUri() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.showcase;
+
+import com.yoo.money.api.exceptions.HttpStatusException;
+import com.yoo.money.api.model.showcase.Showcase;
+import com.yoo.money.api.model.showcase.ShowcaseCache;
+import com.yoo.money.api.model.showcase.ShowcaseContext;
+import com.yoo.money.api.model.showcase.components.Component;
+import com.yoo.money.api.model.showcase.components.containers.Container;
+import com.yoo.money.api.model.showcase.components.uicontrols.ParameterControl;
+import com.yoo.money.api.net.clients.DefaultApiClient;
+import com.yoo.money.api.net.providers.DefaultApiV1HostsProvider;
+import com.yoo.money.api.time.DateTime;
+import com.yoo.money.api.util.HttpHeaders;
+import com.yoo.money.api.util.Language;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class ShowcaseCacheTest {
+
+    private static final DateTime LAST_MODIFIED = DateTime.from(2020, 1, 1, 12, 0);
+
+    private MockWebServer server;
+    private DefaultApiClient client;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        client = new DefaultApiClient.Builder()
+                .setClientId("clientId")
+                .setHostsProvider(new DefaultApiV1HostsProvider(false) {
+                    @Override
+                    public String getMoney() {
+                        return server.url("").toString();
+                    }
+                })
+                .create();
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void testSessionsAreIndependent() throws Exception {
+        server.enqueue(showcase());
+        ShowcaseCache cache = new ShowcaseCache.Builder().create();
+
+        ShowcaseContext first = cache.getShowcase(client, 5551L);
+        ShowcaseContext second = cache.getShowcase(client, 5551L);
+        assertEquals(server.getRequestCount(), 1);
+        assertTrue(server.takeRequest().getPath().endsWith("/api/showcase/5551"));
+
+        assertEquals(first.getState(), ShowcaseContext.State.HAS_NEXT_STEP);
+        assertEquals(first.getLastModified(), LAST_MODIFIED);
+        assertEquals(first.getCurrentStep().submitUrl, "https://example.com/submit");
+        assertNotSame(second.getCurrentStep().showcase, first.getCurrentStep().showcase);
+        assertSameShowcase(second, first);
+
+        String defaultValue = findControl(first, "name1").getValue();
+        findControl(first, "name1").setValue("entered");
+        assertEquals(findControl(first, "name1").getValue(), "entered");
+        assertEquals(findControl(second, "name1").getValue(), defaultValue);
+        assertEquals(findControl(cache.getShowcase(client, 5551L), "name1").getValue(), defaultValue);
+    }
+
+    @Test
+    public void testRevalidation() throws Exception {
+        server.enqueue(showcase());
+        server.enqueue(new MockResponse().setResponseCode(304));
+        ShowcaseCache cache = new ShowcaseCache.Builder()
+                .setMaxAge(0L, TimeUnit.SECONDS)
+                .create();
+
+        ShowcaseContext first = cache.getShowcase(client, "p2p");
+        assertNull(server.takeRequest().getHeader(HttpHeaders.IF_MODIFIED_SINCE));
+
+        ShowcaseContext second = cache.getShowcase(client, "p2p");
+        assertEquals(server.takeRequest().getHeader(HttpHeaders.IF_MODIFIED_SINCE),
+                HttpHeaders.formatDateTime(LAST_MODIFIED));
+        assertSameShowcase(second, first);
+    }
+
+    @Test
+    public void testNotModifiedWithoutLastModified() throws Exception {
+        server.enqueue(showcase().removeHeader(HttpHeaders.LAST_MODIFIED));
+        server.enqueue(new MockResponse().setResponseCode(304));
+        ShowcaseCache cache = new ShowcaseCache.Builder()
+                .setMaxAge(0L, TimeUnit.SECONDS)
+                .create();
+
+        cache.getShowcase(client, "p2p");
+        try {
+            cache.getShowcase(client, "p2p");
+            fail();
+        } catch (HttpStatusException e) {
+            assertEquals(e.statusCode, 304);
+            assertNotNull(e.getMessage());
+        }
+        assertEquals(server.getRequestCount(), 2);
+        server.takeRequest();
+        assertNull(server.takeRequest().getHeader(HttpHeaders.IF_MODIFIED_SINCE));
+    }
+
+    @Test
+    public void testLanguages() throws Exception {
+        server.enqueue(showcase());
+        server.enqueue(showcase());
+        ShowcaseCache cache = new ShowcaseCache.Builder().create();
+
+        Language language = client.getLanguage() == Language.ENGLISH ? Language.RUSSIAN : Language.ENGLISH;
+        DefaultApiClient other = new DefaultApiClient.Builder()
+                .setClientId("clientId")
+                .setLanguage(language)
+                .setHostsProvider(client.getHostsProvider())
+                .create();
+        cache.getShowcase(client, "p2p");
+        cache.getShowcase(other, "p2p");
+        cache.getShowcase(client, "p2p");
+        assertEquals(server.getRequestCount(), 2);
+        assertEquals(server.takeRequest().getHeader(HttpHeaders.ACCEPT_LANGUAGE), client.getLanguage().iso6391Code);
+        assertEquals(server.takeRequest().getHeader(HttpHeaders.ACCEPT_LANGUAGE), language.iso6391Code);
+        assertEquals(cache.size(), 2);
+
+        cache.remove("p2p");
+        assertEquals(cache.size(), 0);
+    }
+
+    @Test
+    public void testMaxSize() throws Exception {
+        ShowcaseCache cache = new ShowcaseCache.Builder().setMaxSize(2).create();
+        for (int i = 0; i < 3; ++i) {
+            server.enqueue(showcase());
+            cache.getShowcase(client, i);
+        }
+        assertEquals(cache.size(), 2);
+
+        server.enqueue(showcase());
+        cache.getShowcase(client, 0L);
+        assertEquals(server.getRequestCount(), 4);
+
+        cache.clear();
+        assertEquals(cache.size(), 0);
+    }
+
+    private static MockResponse showcase() throws IOException {
+        return new MockResponse()
+                .setResponseCode(300)
+                .addHeader(HttpHeaders.LAST_MODIFIED, HttpHeaders.formatDateTime(LAST_MODIFIED))
+                .addHeader(HttpHeaders.LOCATION, "https://example.com/submit")
+                .setBody(new Buffer().readFrom(ShowcaseCacheTest.class.getResourceAsStream("/model/showcase.json")));
+    }
+
+    private static void assertSameShowcase(ShowcaseContext actual, ShowcaseContext expected) {
+        Showcase actualShowcase = actual.getCurrentStep().showcase;
+        Showcase expectedShowcase = expected.getCurrentStep().showcase;
+        assertEquals(actualShowcase.title, expectedShowcase.title);
+        assertEquals(actualShowcase.getPaymentParameters(), expectedShowcase.getPaymentParameters());
+        assertEquals(actual.getLastModified(), expected.getLastModified());
+    }
+
+    private static ParameterControl findControl(ShowcaseContext context, String name) {
+        ParameterControl control = findControl(context.getCurrentStep().showcase.form, name);
+        assertNotNull(control);
+        return control;
+    }
+
+    private static ParameterControl findControl(Component component, String name) {
+        if (component instanceof ParameterControl && ((ParameterControl) component).name.equals(name)) {
+            return (ParameterControl) component;
+        }
+        if (component instanceof Container) {
+            for (Object item : ((Container<?>) component).items) {
+                if (item instanceof Component) {
+                    ParameterControl control = findControl((Component) item, name);
+                    if (control != null) {
+                        return control;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+}
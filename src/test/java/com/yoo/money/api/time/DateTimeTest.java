@@ -29,6 +29,8 @@ import org.testng.annotations.Test;
 import java.text.ParseException;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Random;
 import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
 
@@ -230,6 +232,66 @@ public class DateTimeTest {
         assertEquals(yearMonthDayTime.getSecond(), 6);
     }
 
+    @Test
+    public void testMatchesCalendar() {
+        String[] timeZones = { "GMT", "Europe/Moscow", "America/New_York", "Australia/Lord_Howe", "America/Sao_Paulo",
+                "Asia/Kolkata", "GMT-04:30" };
+        SingleFieldPeriod[] periods = { Years.ONE, Months.ONE, Weeks.ONE, Days.ONE, Hours.ONE, Minutes.ONE,
+                Seconds.ONE };
+        Random random = new Random(42);
+        for (String id : timeZones) {
+            TimeZone timeZone = TimeZone.getTimeZone(id);
+            for (int i = 0; i < 5000; ++i) {
+                // 1900..2100
+                long millis = -2208988800000L + (long) (random.nextDouble() * 6311433600000L);
+                DateTime dateTime = DateTime.from(millis, timeZone);
+                Calendar calendar = createCalendar(millis, timeZone);
+                assertFields(dateTime, calendar);
+
+                DateTime fromFields = DateTime.from(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH),
+                        calendar.get(Calendar.DAY_OF_MONTH), calendar.get(Calendar.HOUR_OF_DAY),
+                        calendar.get(Calendar.MINUTE), timeZone);
+                Calendar expected = createCalendar(millis, timeZone);
+                expected.clear(Calendar.SECOND);
+                expected.clear(Calendar.MILLISECOND);
+                expected.set(Calendar.HOUR_OF_DAY, calendar.get(Calendar.HOUR_OF_DAY));
+                assertEquals(fromFields.getMillis(), expected.getTimeInMillis(), id + " " + millis);
+
+                expected = createCalendar(millis, timeZone);
+                expected.set(Calendar.HOUR_OF_DAY, 0);
+                expected.set(Calendar.MINUTE, 0);
+                expected.set(Calendar.SECOND, 0);
+                expected.set(Calendar.MILLISECOND, 0);
+                assertEquals(dateTime.withTimeAtStartOfDay().getMillis(), expected.getTimeInMillis(), id + " " + millis);
+
+                SingleFieldPeriod period = periods[random.nextInt(periods.length)];
+                int multiplier = random.nextBoolean() ? 1 : -1;
+                expected = createCalendar(millis, timeZone);
+                expected.add(period.getField(), multiplier * period.getAmount());
+                DateTime actual = multiplier > 0 ? dateTime.plus(period) : dateTime.minus(period);
+                assertEquals(actual.getMillis(), expected.getTimeInMillis(),
+                        id + " " + millis + " " + period.getField() + " " + multiplier);
+            }
+        }
+    }
+
+    private static Calendar createCalendar(long millis, TimeZone timeZone) {
+        Calendar calendar = new GregorianCalendar(timeZone);
+        calendar.setTimeInMillis(millis);
+        return calendar;
+    }
+
+    private static void assertFields(DateTime dateTime, Calendar calendar) {
+        String message = dateTime.getTimeZone().getID() + " " + dateTime.getMillis();
+        assertEquals(dateTime.getYear(), calendar.get(Calendar.YEAR), message);
+        assertEquals(dateTime.getMonth(), calendar.get(Calendar.MONTH), message);
+        assertEquals(dateTime.getDayOfMonth(), calendar.get(Calendar.DAY_OF_MONTH), message);
+        assertEquals(dateTime.getHourOfDay(), calendar.get(Calendar.HOUR_OF_DAY), message);
+        assertEquals(dateTime.getMinute(), calendar.get(Calendar.MINUTE), message);
+        assertEquals(dateTime.getSecond(), calendar.get(Calendar.SECOND), message);
+        assertEquals(dateTime.getMillisecond(), calendar.get(Calendar.MILLISECOND), message);
+    }
+
     private DateTime createDateTime() {
         return DateTime.from(1995, Calendar.DECEMBER, 31, 23, 59);
     }
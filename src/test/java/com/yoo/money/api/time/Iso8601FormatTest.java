@@ -0,0 +1,108 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.time;
+
+import com.google.gson.internal.bind.util.ISO8601Utils;
+import org.testng.annotations.Test;
+
+import java.text.ParseException;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.testng.Assert.assertEquals;
+
+public class Iso8601FormatTest {
+
+    private static final long MILLIS = 1525586766123L; // 2018-05-06T06:06:06.123Z
+
+    @Test
+    public void testFormatMatchesIso8601Utils() {
+        String[] timeZones = { "GMT", "Europe/Moscow", "America/New_York", "Asia/Kathmandu", "GMT-04:30" };
+        Random random = new Random(42);
+        for (String id : timeZones) {
+            TimeZone timeZone = TimeZone.getTimeZone(id);
+            for (int i = 0; i < 5000; ++i) {
+                // 1900..2100
+                long millis = -2208988800000L + (long) (random.nextDouble() * 6311433600000L);
+                String expected = ISO8601Utils.format(new Date(millis), true, timeZone);
+                assertEquals(Iso8601Format.format(DateTime.from(millis, timeZone)), expected);
+            }
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws ParseException {
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; ++i) {
+            // 1970..2100, zone offsets have whole minutes there
+            long millis = (long) (random.nextDouble() * 4102444800000L);
+            DateTime dateTime = DateTime.from(millis, TimeZone.getTimeZone("Asia/Kolkata"));
+            assertEquals(Iso8601Format.parse(Iso8601Format.format(dateTime)).getMillis(), millis);
+        }
+    }
+
+    @Test
+    public void testLenientForms() throws ParseException {
+        assertMillis("2018-05-06T06:06:06.123Z", MILLIS);
+        assertMillis("20180506T060606.123Z", MILLIS);
+        assertMillis("2018-05-06T09:06:06.123+03:00", MILLIS);
+        assertMillis("2018-05-06T09:06:06.123+0300", MILLIS);
+        assertMillis("2018-05-06T09:06:06.123+03", MILLIS);
+        assertMillis("2018-05-06T01:36:06.123-04:30", MILLIS);
+        assertMillis("2018-05-06T06:06:06.123456Z", MILLIS);
+        assertMillis("2018-05-06T06:06:06.12Z", MILLIS - 3);
+        assertMillis("2018-05-06T06:06:06.1Z", MILLIS - 23);
+        assertMillis("2018-05-06T06:06:06Z", MILLIS - 123);
+        assertMillis("2018-05-06T06:06Z", MILLIS - 6123);
+        assertMillis("2018-05-06T06:06:60Z", MILLIS - 123 + 53000);
+        assertMillis("2018-05-06T06:06:06.123+00:00", MILLIS);
+    }
+
+    @Test
+    public void testDefaultTimeZone() throws ParseException {
+        TimeZone timeZone = TimeZone.getTimeZone("Europe/Moscow");
+        assertEquals(Iso8601Format.parse("2018-05-06T09:06:06.123", timeZone).getMillis(), MILLIS);
+        assertEquals(Iso8601Format.parse("2018-05-06", timeZone).getMillis(), MILLIS - 32766123L);
+    }
+
+    @Test
+    public void testSharedTimeZones() throws ParseException {
+        DateTime first = Iso8601Format.parse("2018-05-06T09:06:06.123+03:00");
+        DateTime second = Iso8601Format.parse("2018-05-06T09:06:06.123+0300");
+        assertEquals(first, second);
+        assertEquals(first.getTimeZone().getID(), "GMT+03:00");
+        assertEquals(Iso8601Format.parse("2018-05-06T06:06:06.123Z").getTimeZone().getID(), "GMT");
+    }
+
+    @Test(expectedExceptions = ParseException.class)
+    public void testInvalidValue() throws ParseException {
+        Iso8601Format.parse("2018-0");
+    }
+
+    private static void assertMillis(String value, long expected) throws ParseException {
+        assertEquals(Iso8601Format.parse(value).getMillis(), expected, value);
+    }
+}
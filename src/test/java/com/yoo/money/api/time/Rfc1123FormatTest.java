@@ -0,0 +1,137 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.time;
+
+import org.testng.annotations.Test;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class Rfc1123FormatTest {
+
+    private static final String[] TIME_ZONES = { "GMT", "UTC", "Europe/Moscow", "America/New_York", "Asia/Kolkata",
+            "Australia/Lord_Howe", "GMT+05:30" };
+
+    // 1900-01-01 .. 2100-01-01
+    private static final long MIN_MILLIS = -2208988800000L;
+    private static final long MAX_MILLIS = 4102444800000L;
+
+    @Test
+    public void testFormatMatchesSimpleDateFormat() {
+        Random random = new Random(42);
+        for (String id : TIME_ZONES) {
+            TimeZone timeZone = TimeZone.getTimeZone(id);
+            DateFormat expected = createSimpleDateFormat(timeZone);
+            for (int i = 0; i < 2000; ++i) {
+                long millis = randomMillis(random);
+                assertEquals(Rfc1123Format.format(DateTime.from(millis, timeZone)), expected.format(new Date(millis)),
+                        id + " " + millis);
+            }
+        }
+    }
+
+    @Test
+    public void testParseMatchesSimpleDateFormat() throws ParseException {
+        Random random = new Random(42);
+        for (String id : TIME_ZONES) {
+            DateFormat formatter = createSimpleDateFormat(TimeZone.getTimeZone(id));
+            for (int i = 0; i < 2000; ++i) {
+                long millis = randomMillis(random) / 1000 * 1000;
+                String value = formatter.format(new Date(millis));
+                assertEquals(Rfc1123Format.parse(value).getDate().getTime(), millis, value);
+            }
+        }
+    }
+
+    @Test
+    public void testParseLenientValues() throws ParseException {
+        assertEquals(Rfc1123Format.parse("tue, 15 nov 1994 08:12:00 GMT").getDate().getTime(), 784887120000L);
+        assertEquals(Rfc1123Format.parse("Tue, 15 Nov 1994 11:12:00 GMT+03:00").getDate().getTime(), 784887120000L);
+        assertEquals(Rfc1123Format.parse("Tue, 15 Nov 1994 08:12:00 UTC").getDate().getTime(), 784887120000L);
+    }
+
+    @Test(expectedExceptions = ParseException.class)
+    public void testParseInvalidValue() throws ParseException {
+        Rfc1123Format.parse("1994-11-15T08:12:00Z");
+    }
+
+    @Test
+    public void testConcurrentUse() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 8; ++i) {
+                final long seed = i;
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        Random random = new Random(seed);
+                        for (int j = 0; j < 5000; ++j) {
+                            TimeZone timeZone = TimeZone.getTimeZone(TIME_ZONES[random.nextInt(TIME_ZONES.length)]);
+                            // small range of values to hit the caches
+                            long millis = 784887120000L + random.nextInt(16) * 1000L;
+                            String value = Rfc1123Format.format(DateTime.from(millis, timeZone));
+                            if (!value.equals(createSimpleDateFormat(timeZone).format(new Date(millis)))
+                                    || Rfc1123Format.parse(value).getDate().getTime() != millis) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static long randomMillis(Random random) {
+        return MIN_MILLIS + (long) (random.nextDouble() * (MAX_MILLIS - MIN_MILLIS));
+    }
+
+    private static DateFormat createSimpleDateFormat(TimeZone timeZone) {
+        DateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        format.setTimeZone(timeZone);
+        return format;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 NBCO YooMoney LLC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.yoo.money.api.typeadapters;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+public class GsonProviderTest {
+
+    @Test
+    public void testSameInstanceWithoutRegistrations() {
+        assertSame(GsonProvider.getGson(), GsonProvider.getGson());
+    }
+
+    @Test
+    public void testRegistration() {
+        ValueAdapter adapter = new ValueAdapter("registered");
+        GsonProvider.registerTypeAdapter(Value.class, adapter);
+        Gson gson = GsonProvider.getGson();
+        assertEquals(gson.fromJson("{}", Value.class).value, "registered");
+
+        // registering the same adapter again does not rebuild GSON
+        GsonProvider.registerTypeAdapter(Value.class, adapter);
+        assertSame(GsonProvider.getGson(), gson);
+
+        // the latest registration wins
+        GsonProvider.registerTypeAdapter(Value.class, new ValueAdapter("overridden"));
+        assertNotSame(GsonProvider.getGson(), gson);
+        assertEquals(GsonProvider.getGson().fromJson("{}", Value.class).value, "overridden");
+    }
+
+    @Test
+    public void testConcurrentRegistration() throws Exception {
+        final int count = 32;
+        final List<Type> types = new ArrayList<>();
+        Type type = Value.class;
+        for (int i = 0; i < count; ++i) {
+            // List<Value>, List<List<Value>> and so on are distinct types
+            type = TypeToken.getParameterized(List.class, type).getType();
+            types.add(type);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < count; ++i) {
+                final int index = i;
+                futures.add(executor.submit(new Callable<Object>() {
+                    @Override
+                    public Object call() {
+                        GsonProvider.registerTypeAdapter(types.get(index), new ValueAdapter("value" + index));
+                        return GsonProvider.getGson();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Gson gson = GsonProvider.getGson();
+        for (int i = 0; i < count; ++i) {
+            Value value = gson.fromJson("{}", types.get(i));
+            assertEquals(value.value, "value" + i);
+        }
+    }
+
+    private static final class Value {
+
+        final String value;
+
+        Value(String value) {
+            this.value = value;
+        }
+    }
+
+    private static final class ValueAdapter implements JsonDeserializer<Value> {
+
+        private final String value;
+
+        ValueAdapter(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public Value deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
+                throws JsonParseException {
+            return new Value(value);
+        }
+    }
+}